@@ -113,6 +113,26 @@ public class AnalyzerModuleConfig extends ModuleConfig {
     @Setter
     private String meterAnalyzerActiveFiles = Const.EMPTY_STRING;
 
+    /**
+     * The max number of counter series tracked by the MAL `increase`, `rate` and `irate` functions of all MAL rules.
+     * The least recently accessed series are evicted when the limit is reached. Non-positive means no limit.
+     *
+     * @since 10.2.0
+     */
+    @Setter
+    @Getter
+    private long malCounterWindowMaxSeries = 0;
+
+    /**
+     * The counter series of MAL, which have not been accessed in this period, are evicted. Unit is minute.
+     * Non-positive means never.
+     *
+     * @since 10.2.0
+     */
+    @Setter
+    @Getter
+    private int malCounterWindowIdleTimeout = 0;
+
     /**
      * Sample the trace segment if the segment has span(s) tagged as error status, and ignore the sampleRate
      * configuration.
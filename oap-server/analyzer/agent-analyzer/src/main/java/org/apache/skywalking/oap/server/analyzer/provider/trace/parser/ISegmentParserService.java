@@ -26,4 +26,13 @@ import org.apache.skywalking.oap.server.library.module.Service;
  */
 public interface ISegmentParserService extends Service {
     void send(SegmentObject segment);
+
+    /**
+     * Same as {@link #send(SegmentObject)}, with the bytes the segment was parsed from. When present, they are
+     * persisted as the segment data binary as-is, rather than serializing the segment again.
+     *
+     * @param dataBinary the original serialized bytes of the segment, or null if not available.
+     * @since 10.2.0
+     */
+    void send(SegmentObject segment, byte[] dataBinary);
 }
@@ -33,10 +33,22 @@ public class SegmentParserServiceImpl implements ISegmentParserService {
     private final AnalyzerModuleConfig config;
     @Setter
     private SegmentParserListenerManager listenerManager;
+    /**
+     * The analyzer of every receiving thread, reusing its listeners for the segments received in the thread.
+     */
+    private final ThreadLocal<TraceAnalyzer> traceAnalyzer = ThreadLocal.withInitial(this::createTraceAnalyzer);
 
     @Override
     public void send(SegmentObject segment) {
-        final TraceAnalyzer traceAnalyzer = new TraceAnalyzer(moduleManager, listenerManager, config);
-        traceAnalyzer.doAnalysis(segment);
+        send(segment, null);
+    }
+
+    @Override
+    public void send(SegmentObject segment, byte[] dataBinary) {
+        traceAnalyzer.get().doAnalysis(segment, dataBinary);
+    }
+
+    private TraceAnalyzer createTraceAnalyzer() {
+        return new TraceAnalyzer(moduleManager, listenerManager, config);
     }
 }
@@ -20,38 +20,67 @@ package org.apache.skywalking.oap.server.analyzer.provider.trace.parser;
 
 import java.util.ArrayList;
 import java.util.List;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.skywalking.apm.network.language.agent.v3.SegmentObject;
 import org.apache.skywalking.apm.network.language.agent.v3.SpanObject;
 import org.apache.skywalking.apm.network.language.agent.v3.SpanType;
 import org.apache.skywalking.oap.server.analyzer.provider.AnalyzerModuleConfig;
 import org.apache.skywalking.oap.server.analyzer.provider.trace.parser.listener.AnalysisListener;
+import org.apache.skywalking.oap.server.analyzer.provider.trace.parser.listener.AnalysisListenerFactory;
 import org.apache.skywalking.oap.server.analyzer.provider.trace.parser.listener.EntryAnalysisListener;
 import org.apache.skywalking.oap.server.analyzer.provider.trace.parser.listener.ExitAnalysisListener;
 import org.apache.skywalking.oap.server.analyzer.provider.trace.parser.listener.FirstAnalysisListener;
 import org.apache.skywalking.oap.server.analyzer.provider.trace.parser.listener.LocalAnalysisListener;
+import org.apache.skywalking.oap.server.analyzer.provider.trace.parser.listener.ReusableAnalysisListener;
 import org.apache.skywalking.oap.server.analyzer.provider.trace.parser.listener.SegmentListener;
 import org.apache.skywalking.oap.server.library.module.ModuleManager;
 
+/**
+ * TraceAnalyzer notifies the listeners created by the registered factories about the segment and its spans.
+ *
+ * The analyzer could be used for more than one segment, but not concurrently. The listeners are created once, and
+ * dispatched through the indexes of the listeners of every {@link AnalysisListener.Point}, which are built along with
+ * them. For the following segments, the {@link ReusableAnalysisListener}s are reset, and the others are created again.
+ */
 @Slf4j
-@RequiredArgsConstructor
 public class TraceAnalyzer {
     private final ModuleManager moduleManager;
-    private final SegmentParserListenerManager listenerManager;
     private final AnalyzerModuleConfig config;
-    private List<AnalysisListener> analysisListeners = new ArrayList<>();
+    private final AnalysisListenerFactory[] factories;
+    private final AnalysisListener[] analysisListeners;
+    /**
+     * The indexes of the listeners of every point, in the order of {@link AnalysisListener.Point#ordinal()}.
+     */
+    private final int[][] pointListeners;
+    private boolean created;
+
+    public TraceAnalyzer(final ModuleManager moduleManager,
+                         final SegmentParserListenerManager listenerManager,
+                         final AnalyzerModuleConfig config) {
+        this.moduleManager = moduleManager;
+        this.config = config;
+        this.factories = listenerManager.getSpanListenerFactories().toArray(new AnalysisListenerFactory[0]);
+        this.analysisListeners = new AnalysisListener[factories.length];
+        this.pointListeners = new int[AnalysisListener.Point.values().length][];
+    }
 
     public void doAnalysis(SegmentObject segmentObject) {
+        doAnalysis(segmentObject, null);
+    }
+
+    /**
+     * @param dataBinary the original serialized bytes of the segment, or null if not available.
+     */
+    public void doAnalysis(SegmentObject segmentObject, byte[] dataBinary) {
         if (segmentObject.getSpansList().size() == 0) {
             return;
         }
 
-        createSpanListeners();
+        prepareSpanListeners();
 
-        notifySegmentListener(segmentObject);
+        notifySegmentListener(segmentObject, dataBinary);
 
-        segmentObject.getSpansList().forEach(spanObject -> {
+        for (final SpanObject spanObject : segmentObject.getSpansList()) {
             if (spanObject.getSpanId() == 0) {
                 notifyFirstListener(spanObject, segmentObject);
             }
@@ -66,59 +95,75 @@ public class TraceAnalyzer {
                 log.error("span type value was unexpected, span type name: {}", spanObject.getSpanType()
                                                                                           .name());
             }
-        });
+        }
 
         notifyListenerToBuild();
     }
 
     private void notifyListenerToBuild() {
-        analysisListeners.forEach(AnalysisListener::build);
+        for (final AnalysisListener listener : analysisListeners) {
+            listener.build();
+        }
     }
 
     private void notifyExitListener(SpanObject span, SegmentObject segmentObject) {
-        analysisListeners.forEach(listener -> {
-            if (listener.containsPoint(AnalysisListener.Point.Exit)) {
-                ((ExitAnalysisListener) listener).parseExit(span, segmentObject);
-            }
-        });
+        for (final int i : pointListeners[AnalysisListener.Point.Exit.ordinal()]) {
+            ((ExitAnalysisListener) analysisListeners[i]).parseExit(span, segmentObject);
+        }
     }
 
     private void notifyEntryListener(SpanObject span, SegmentObject segmentObject) {
-        analysisListeners.forEach(listener -> {
-            if (listener.containsPoint(AnalysisListener.Point.Entry)) {
-                ((EntryAnalysisListener) listener).parseEntry(span, segmentObject);
-            }
-        });
+        for (final int i : pointListeners[AnalysisListener.Point.Entry.ordinal()]) {
+            ((EntryAnalysisListener) analysisListeners[i]).parseEntry(span, segmentObject);
+        }
     }
 
     private void notifyLocalListener(SpanObject span, SegmentObject segmentObject) {
-        analysisListeners.forEach(listener -> {
-            if (listener.containsPoint(AnalysisListener.Point.Local)) {
-                ((LocalAnalysisListener) listener).parseLocal(span, segmentObject);
-            }
-        });
+        for (final int i : pointListeners[AnalysisListener.Point.Local.ordinal()]) {
+            ((LocalAnalysisListener) analysisListeners[i]).parseLocal(span, segmentObject);
+        }
     }
 
     private void notifyFirstListener(SpanObject span, SegmentObject segmentObject) {
-        analysisListeners.forEach(listener -> {
-            if (listener.containsPoint(AnalysisListener.Point.First)) {
-                ((FirstAnalysisListener) listener).parseFirst(span, segmentObject);
-            }
-        });
+        for (final int i : pointListeners[AnalysisListener.Point.First.ordinal()]) {
+            ((FirstAnalysisListener) analysisListeners[i]).parseFirst(span, segmentObject);
+        }
+    }
+
+    private void notifySegmentListener(SegmentObject segmentObject, byte[] dataBinary) {
+        for (final int i : pointListeners[AnalysisListener.Point.Segment.ordinal()]) {
+            ((SegmentListener) analysisListeners[i]).parseSegment(segmentObject, dataBinary);
+        }
     }
 
-    private void notifySegmentListener(SegmentObject segmentObject) {
-        analysisListeners.forEach(listener -> {
-            if (listener.containsPoint(AnalysisListener.Point.Segment)) {
-                ((SegmentListener) listener).parseSegment(segmentObject);
+    private void prepareSpanListeners() {
+        if (!created) {
+            createSpanListeners();
+            created = true;
+            return;
+        }
+        for (int i = 0; i < analysisListeners.length; i++) {
+            final AnalysisListener listener = analysisListeners[i];
+            if (listener instanceof ReusableAnalysisListener) {
+                ((ReusableAnalysisListener) listener).reset();
+            } else {
+                analysisListeners[i] = factories[i].create(moduleManager, config);
             }
-        });
+        }
     }
 
     private void createSpanListeners() {
-        listenerManager.getSpanListenerFactories()
-                       .forEach(
-                           spanListenerFactory -> analysisListeners.add(
-                               spanListenerFactory.create(moduleManager, config)));
+        for (int i = 0; i < factories.length; i++) {
+            analysisListeners[i] = factories[i].create(moduleManager, config);
+        }
+        for (final AnalysisListener.Point point : AnalysisListener.Point.values()) {
+            final List<Integer> indexes = new ArrayList<>(analysisListeners.length);
+            for (int i = 0; i < analysisListeners.length; i++) {
+                if (analysisListeners[i].containsPoint(point)) {
+                    indexes.add(i);
+                }
+            }
+            pointListeners[point.ordinal()] = indexes.stream().mapToInt(Integer::intValue).toArray();
+        }
     }
 }
@@ -43,7 +43,7 @@ import org.apache.skywalking.oap.server.library.util.StringUtil;
  * @since 9.0.0
  */
 @RequiredArgsConstructor
-public class EndpointDepFromCrossThreadAnalysisListener extends CommonAnalysisListener implements ExitAnalysisListener, LocalAnalysisListener {
+public class EndpointDepFromCrossThreadAnalysisListener extends CommonAnalysisListener implements ExitAnalysisListener, LocalAnalysisListener, ReusableAnalysisListener {
     private final SourceReceiver sourceReceiver;
     private final AnalyzerModuleConfig config;
     private final NamingControl namingControl;
@@ -133,6 +133,11 @@ public class EndpointDepFromCrossThreadAnalysisListener extends CommonAnalysisLi
         });
     }
 
+    @Override
+    public void reset() {
+        depBuilders.clear();
+    }
+
     public static class Factory implements AnalysisListenerFactory {
         private final SourceReceiver sourceReceiver;
         private final NamingControl namingControl;
@@ -42,7 +42,7 @@ import org.apache.skywalking.oap.server.analyzer.provider.AnalyzerModuleConfig;
  */
 @Slf4j
 @RequiredArgsConstructor
-public class NetworkAddressAliasMappingListener implements EntryAnalysisListener {
+public class NetworkAddressAliasMappingListener implements EntryAnalysisListener, ReusableAnalysisListener {
     private final SourceReceiver sourceReceiver;
     private final AnalyzerModuleConfig config;
     private final NamingControl namingControl;
@@ -89,6 +89,10 @@ public class NetworkAddressAliasMappingListener implements EntryAnalysisListener
     public void build() {
     }
 
+    @Override
+    public void reset() {
+    }
+
     @Override
     public boolean containsPoint(Point point) {
         return Point.Entry.equals(point);
@@ -56,11 +56,11 @@ import static org.apache.skywalking.oap.server.analyzer.provider.trace.parser.Sp
  */
 @Slf4j
 @RequiredArgsConstructor
-public class RPCAnalysisListener extends CommonAnalysisListener implements EntryAnalysisListener, ExitAnalysisListener, LocalAnalysisListener {
+public class RPCAnalysisListener extends CommonAnalysisListener implements EntryAnalysisListener, ExitAnalysisListener, LocalAnalysisListener, ReusableAnalysisListener {
     private final List<RPCTrafficSourceBuilder> callingInTraffic = new ArrayList<>(10);
     private final List<RPCTrafficSourceBuilder> callingOutTraffic = new ArrayList<>(10);
     private final List<EndpointSourceBuilder> logicEndpointBuilders = new ArrayList<>(10);
-    private final Gson gson = new Gson();
+    private static final Gson GSON = new Gson();
     private final SourceReceiver sourceReceiver;
     private final AnalyzerModuleConfig config;
     private final NetworkAddressAliasCache networkAddressAliasCache;
@@ -299,6 +299,13 @@ public class RPCAnalysisListener extends CommonAnalysisListener implements Entry
         });
     }
 
+    @Override
+    public void reset() {
+        callingInTraffic.clear();
+        callingOutTraffic.clear();
+        logicEndpointBuilders.clear();
+    }
+
     /**
      * Logic endpoint could represent through an entry span or local span. It has special meaning from API
      * perspective. But it is an actual RPC call.
@@ -307,7 +314,7 @@ public class RPCAnalysisListener extends CommonAnalysisListener implements Entry
         span.getTagsList().forEach(tag -> {
             switch (tag.getKey()) {
                 case LOGIC_ENDPOINT:
-                    final JsonObject tagValue = gson.fromJson(tag.getValue(), JsonObject.class);
+                    final JsonObject tagValue = GSON.fromJson(tag.getValue(), JsonObject.class);
                     final boolean isLocalSpan = SpanType.Local.equals(span.getSpanType());
                     String logicEndpointName;
                     int latency;
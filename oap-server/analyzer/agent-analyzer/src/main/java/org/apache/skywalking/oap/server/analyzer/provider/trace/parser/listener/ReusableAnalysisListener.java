@@ -0,0 +1,32 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.analyzer.provider.trace.parser.listener;
+
+/**
+ * ReusableAnalysisListener is reset after a segment is analyzed, and reused for the following segments, rather than
+ * being created by its {@link AnalysisListenerFactory} for every segment.
+ *
+ * @since 10.2.0
+ */
+public interface ReusableAnalysisListener extends AnalysisListener {
+    /**
+     * Clear the state of the last analysis. Called before the listener is reused for the next segment.
+     */
+    void reset();
+}
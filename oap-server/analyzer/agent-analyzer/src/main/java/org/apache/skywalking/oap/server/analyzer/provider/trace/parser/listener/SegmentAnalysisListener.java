@@ -46,7 +46,7 @@ import org.apache.skywalking.oap.server.library.util.BooleanUtils;
  */
 @Slf4j
 @RequiredArgsConstructor
-public class SegmentAnalysisListener implements FirstAnalysisListener, EntryAnalysisListener, SegmentListener {
+public class SegmentAnalysisListener implements FirstAnalysisListener, EntryAnalysisListener, SegmentListener, ReusableAnalysisListener {
     private final SourceReceiver sourceReceiver;
     private final TraceSegmentSampler sampler;
     private final boolean forceSampleErrorSegment;
@@ -64,6 +64,10 @@ public class SegmentAnalysisListener implements FirstAnalysisListener, EntryAnal
     private long endTimestamp;
     private int duration;
     private boolean isError;
+    /**
+     * The bytes the segment was received as, reused as the data binary to avoid serializing the segment again.
+     */
+    private byte[] dataBinary;
 
     @Override
     public boolean containsPoint(Point point) {
@@ -96,7 +100,7 @@ public class SegmentAnalysisListener implements FirstAnalysisListener, EntryAnal
         segment.setStartTime(startTimestamp);
         segment.setTimeBucket(timeBucket);
         segment.setIsError(BooleanUtils.booleanToValue(isError));
-        segment.setDataBinary(segmentObject.toByteArray());
+        segment.setDataBinary(dataBinary != null ? dataBinary : segmentObject.toByteArray());
 
         endpointName = namingControl.formatEndpointName(serviceName, span.getOperationName());
         endpointId = IDManager.EndpointID.buildId(
@@ -120,6 +124,12 @@ public class SegmentAnalysisListener implements FirstAnalysisListener, EntryAnal
         );
     }
 
+    @Override
+    public void parseSegment(SegmentObject segmentObject, byte[] dataBinary) {
+        this.dataBinary = dataBinary;
+        parseSegment(segmentObject);
+    }
+
     @Override
     public void parseSegment(SegmentObject segmentObject) {
         segment.setTraceId(segmentObject.getTraceId());
@@ -194,6 +204,35 @@ public class SegmentAnalysisListener implements FirstAnalysisListener, EntryAnal
         });
     }
 
+    /**
+     * The {@link Segment} source is recycled too, as the dispatcher copies it into a new record during
+     * {@link #build()}.
+     */
+    @Override
+    public void reset() {
+        segment.setSegmentId(null);
+        segment.setTraceId(null);
+        segment.setServiceId(null);
+        segment.setServiceInstanceId(null);
+        segment.setEndpointId(null);
+        segment.setStartTime(0);
+        segment.setLatency(0);
+        segment.setIsError(0);
+        segment.setDataBinary(null);
+        segment.setTimeBucket(0);
+        segment.getTags().clear();
+        sampleStatus = SAMPLE_STATUS.UNKNOWN;
+        serviceName = Const.EMPTY_STRING;
+        serviceId = Const.EMPTY_STRING;
+        endpointId = Const.EMPTY_STRING;
+        endpointName = Const.EMPTY_STRING;
+        startTimestamp = 0;
+        endTimestamp = 0;
+        duration = 0;
+        isError = false;
+        dataBinary = null;
+    }
+
     private enum SAMPLE_STATUS {
         UNKNOWN, SAMPLED, IGNORE
     }
@@ -25,4 +25,12 @@ import org.apache.skywalking.apm.network.language.agent.v3.SegmentObject;
  */
 public interface SegmentListener extends AnalysisListener {
     void parseSegment(SegmentObject segmentObject);
+
+    /**
+     * @param dataBinary the original serialized bytes of the segment, or null if not available.
+     * @since 10.2.0
+     */
+    default void parseSegment(SegmentObject segmentObject, byte[] dataBinary) {
+        parseSegment(segmentObject);
+    }
 }
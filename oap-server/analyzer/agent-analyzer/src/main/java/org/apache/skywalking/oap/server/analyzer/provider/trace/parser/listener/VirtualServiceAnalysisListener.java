@@ -38,7 +38,7 @@ import org.apache.skywalking.oap.server.library.module.ModuleManager;
  */
 
 @RequiredArgsConstructor
-public class VirtualServiceAnalysisListener implements ExitAnalysisListener, LocalAnalysisListener, EntryAnalysisListener {
+public class VirtualServiceAnalysisListener implements ExitAnalysisListener, LocalAnalysisListener, EntryAnalysisListener, ReusableAnalysisListener {
 
     private final SourceReceiver sourceReceiver;
     private final List<VirtualServiceProcessor> virtualServiceProcessors;
@@ -48,6 +48,11 @@ public class VirtualServiceAnalysisListener implements ExitAnalysisListener, Loc
         virtualServiceProcessors.forEach(p -> p.emitTo(sourceReceiver::receive));
     }
 
+    @Override
+    public void reset() {
+        virtualServiceProcessors.forEach(VirtualServiceProcessor::reset);
+    }
+
     @Override
     public boolean containsPoint(Point point) {
         return point == Point.Local || point == Point.Exit || point == Point.Entry;
@@ -126,4 +126,9 @@ public class VirtualCacheProcessor implements VirtualServiceProcessor {
         sourceList.forEach(consumer);
     }
 
+    @Override
+    public void reset() {
+        sourceList.clear();
+    }
+
 }
@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.analyzer.provider.trace.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.skywalking.apm.network.language.agent.v3.SegmentObject;
+import org.apache.skywalking.apm.network.language.agent.v3.SpanObject;
+import org.apache.skywalking.apm.network.language.agent.v3.SpanType;
+import org.apache.skywalking.oap.server.analyzer.provider.trace.parser.listener.AnalysisListener;
+import org.apache.skywalking.oap.server.analyzer.provider.trace.parser.listener.EntryAnalysisListener;
+import org.apache.skywalking.oap.server.analyzer.provider.trace.parser.listener.ExitAnalysisListener;
+import org.apache.skywalking.oap.server.analyzer.provider.trace.parser.listener.ReusableAnalysisListener;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class TraceAnalyzerTest {
+    @Test
+    public void testDispatchByPoint() {
+        final List<RecordingListener> entryListeners = new ArrayList<>();
+        final List<ExitListener> exitListeners = new ArrayList<>();
+        final SegmentParserListenerManager listenerManager = new SegmentParserListenerManager();
+        listenerManager.add((moduleManager, config) -> {
+            final RecordingListener listener = new RecordingListener();
+            entryListeners.add(listener);
+            return listener;
+        });
+        listenerManager.add((moduleManager, config) -> {
+            final ExitListener listener = new ExitListener();
+            exitListeners.add(listener);
+            return listener;
+        });
+
+        final TraceAnalyzer analyzer = new TraceAnalyzer(null, listenerManager, null);
+        analyzer.doAnalysis(segment(SpanType.Entry, SpanType.Exit, SpanType.Exit));
+
+        Assertions.assertEquals(1, entryListeners.size());
+        Assertions.assertEquals(1, entryListeners.get(0).entries);
+        Assertions.assertEquals(1, entryListeners.get(0).builds);
+        Assertions.assertEquals(1, exitListeners.size());
+        Assertions.assertEquals(2, exitListeners.get(0).exits);
+        Assertions.assertEquals(1, exitListeners.get(0).builds);
+    }
+
+    @Test
+    public void testReuseListeners() {
+        final List<RecordingListener> reusableListeners = new ArrayList<>();
+        final List<ExitListener> exitListeners = new ArrayList<>();
+        final SegmentParserListenerManager listenerManager = new SegmentParserListenerManager();
+        listenerManager.add((moduleManager, config) -> {
+            final RecordingListener listener = new RecordingListener();
+            reusableListeners.add(listener);
+            return listener;
+        });
+        listenerManager.add((moduleManager, config) -> {
+            final ExitListener listener = new ExitListener();
+            exitListeners.add(listener);
+            return listener;
+        });
+
+        final TraceAnalyzer analyzer = new TraceAnalyzer(null, listenerManager, null);
+        analyzer.doAnalysis(segment(SpanType.Entry));
+        analyzer.doAnalysis(segment(SpanType.Entry, SpanType.Exit));
+
+        Assertions.assertEquals(1, reusableListeners.size());
+        final RecordingListener reusable = reusableListeners.get(0);
+        Assertions.assertEquals(1, reusable.resets);
+        Assertions.assertEquals(1, reusable.entries);
+        Assertions.assertEquals(2, reusable.builds);
+
+        Assertions.assertEquals(2, exitListeners.size());
+        Assertions.assertEquals(0, exitListeners.get(0).exits);
+        Assertions.assertEquals(1, exitListeners.get(1).exits);
+    }
+
+    private static SegmentObject segment(SpanType... spanTypes) {
+        final SegmentObject.Builder segment = SegmentObject.newBuilder();
+        for (int i = 0; i < spanTypes.length; i++) {
+            segment.addSpans(SpanObject.newBuilder().setSpanId(i).setSpanType(spanTypes[i]));
+        }
+        return segment.build();
+    }
+
+    private static class RecordingListener implements EntryAnalysisListener, ReusableAnalysisListener {
+        private int entries;
+        private int builds;
+        private int resets;
+
+        @Override
+        public void parseEntry(final SpanObject span, final SegmentObject segmentObject) {
+            entries++;
+        }
+
+        @Override
+        public void build() {
+            builds++;
+        }
+
+        @Override
+        public void reset() {
+            resets++;
+            entries = 0;
+        }
+
+        @Override
+        public boolean containsPoint(final AnalysisListener.Point point) {
+            return AnalysisListener.Point.Entry.equals(point);
+        }
+    }
+
+    private static class ExitListener implements ExitAnalysisListener {
+        private int exits;
+        private int builds;
+
+        @Override
+        public void parseExit(final SpanObject span, final SegmentObject segmentObject) {
+            exits++;
+        }
+
+        @Override
+        public void build() {
+            builds++;
+        }
+
+        @Override
+        public boolean containsPoint(final AnalysisListener.Point point) {
+            return AnalysisListener.Point.Exit.equals(point);
+        }
+    }
+}
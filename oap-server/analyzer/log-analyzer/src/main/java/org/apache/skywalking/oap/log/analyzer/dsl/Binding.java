@@ -36,8 +36,10 @@ import org.apache.skywalking.oap.server.analyzer.provider.trace.parser.listener.
 import org.apache.skywalking.oap.server.core.source.Log;
 
 /**
- * The binding bridge between OAP and the DSL, which provides some convenient methods to ease the use of the raw {@link groovy.lang.Binding#setProperty(java.lang.String, java.lang.Object)} and {@link
- * groovy.lang.Binding#getProperty(java.lang.String)}.
+ * The binding bridge between OAP and the DSL, which provides some convenient methods to ease the use of the raw {@link groovy.lang.Binding#setVariable(java.lang.String, java.lang.Object)} and {@link
+ * groovy.lang.Binding#getVariable(java.lang.String)}. The variables are accessed directly rather than through {@link
+ * groovy.lang.Binding#getProperty(java.lang.String)}, which looks up the meta class and throws before falling back to
+ * the variables.
  */
 public class Binding extends groovy.lang.Binding {
     public static final String KEY_LOG = "log";
@@ -57,15 +59,31 @@ public class Binding extends groovy.lang.Binding {
     public static final String KEY_SAMPLED_TRACE = "sampled_trace";
 
     public Binding() {
-        setProperty(KEY_PARSED, new Parsed());
+        setVariable(KEY_PARSED, new Parsed());
+    }
+
+    /**
+     * Reset the binding to analyze another log, so the binding could be reused by the logs analyzed in a thread.
+     *
+     * @since 10.2.0
+     */
+    public Binding reset() {
+        final Parsed parsed = parsed();
+        parsed.matcher = null;
+        parsed.map = null;
+        parsed.log = null;
+        parsed.extraLog = null;
+        getVariables().clear();
+        setVariable(KEY_PARSED, parsed);
+        return this;
     }
 
     public Binding log(final LogData.Builder log) {
-        setProperty(KEY_LOG, log);
-        setProperty(KEY_SAVE, true);
-        setProperty(KEY_ABORT, false);
-        setProperty(KEY_METRICS_CONTAINER, null);
-        setProperty(KEY_LOG_CONTAINER, null);
+        setVariable(KEY_LOG, log);
+        setVariable(KEY_SAVE, true);
+        setVariable(KEY_ABORT, false);
+        setVariable(KEY_METRICS_CONTAINER, null);
+        setVariable(KEY_LOG_CONTAINER, null);
         parsed().log = log;
         return this;
     }
@@ -75,7 +93,7 @@ public class Binding extends groovy.lang.Binding {
     }
 
     public LogData.Builder log() {
-        return (LogData.Builder) getProperty(KEY_LOG);
+        return (LogData.Builder) getVariable(KEY_LOG);
     }
 
     public Binding extraLog(final Message extraLog) {
@@ -98,48 +116,48 @@ public class Binding extends groovy.lang.Binding {
     }
 
     public Parsed parsed() {
-        return (Parsed) getProperty(KEY_PARSED);
+        return (Parsed) getVariable(KEY_PARSED);
     }
 
     public DatabaseSlowStatementBuilder databaseSlowStatement() {
-        return (DatabaseSlowStatementBuilder) getProperty(KEY_DATABASE_SLOW_STATEMENT);
+        return (DatabaseSlowStatementBuilder) getVariable(KEY_DATABASE_SLOW_STATEMENT);
     }
 
     public Binding databaseSlowStatement(DatabaseSlowStatementBuilder databaseSlowStatementBuilder) {
-        setProperty(KEY_DATABASE_SLOW_STATEMENT, databaseSlowStatementBuilder);
+        setVariable(KEY_DATABASE_SLOW_STATEMENT, databaseSlowStatementBuilder);
         return this;
     }
 
     public SampledTraceBuilder sampledTraceBuilder() {
-        return (SampledTraceBuilder) getProperty(KEY_SAMPLED_TRACE);
+        return (SampledTraceBuilder) getVariable(KEY_SAMPLED_TRACE);
     }
 
     public Binding sampledTrace(SampledTraceBuilder sampledTraceBuilder) {
-        setProperty(KEY_SAMPLED_TRACE, sampledTraceBuilder);
+        setVariable(KEY_SAMPLED_TRACE, sampledTraceBuilder);
         return this;
     }
 
     public Binding save() {
-        setProperty(KEY_SAVE, true);
+        setVariable(KEY_SAVE, true);
         return this;
     }
 
     public Binding drop() {
-        setProperty(KEY_SAVE, false);
+        setVariable(KEY_SAVE, false);
         return this;
     }
 
     public boolean shouldSave() {
-        return (boolean) getProperty(KEY_SAVE);
+        return (boolean) getVariable(KEY_SAVE);
     }
 
     public Binding abort() {
-        setProperty(KEY_ABORT, true);
+        setVariable(KEY_ABORT, true);
         return this;
     }
 
     public boolean shouldAbort() {
-        return (boolean) getProperty(KEY_ABORT);
+        return (boolean) getVariable(KEY_ABORT);
     }
 
     /**
@@ -150,13 +168,13 @@ public class Binding extends groovy.lang.Binding {
      * @param container the metrics container
      */
     public Binding metricsContainer(List<SampleFamily> container) {
-        setProperty(KEY_METRICS_CONTAINER, container);
+        setVariable(KEY_METRICS_CONTAINER, container);
         return this;
     }
 
     public Optional<List<SampleFamily>> metricsContainer() {
         // noinspection unchecked
-        return Optional.ofNullable((List<SampleFamily>) getProperty(KEY_METRICS_CONTAINER));
+        return Optional.ofNullable((List<SampleFamily>) getVariable(KEY_METRICS_CONTAINER));
     }
 
     /**
@@ -167,13 +185,13 @@ public class Binding extends groovy.lang.Binding {
      * @param container the log container
      */
     public Binding logContainer(AtomicReference<Log> container) {
-        setProperty(KEY_LOG_CONTAINER, container);
+        setVariable(KEY_LOG_CONTAINER, container);
         return this;
     }
 
     public Optional<AtomicReference<Log>> logContainer() {
         // noinspection unchecked
-        return Optional.ofNullable((AtomicReference<Log>) getProperty(KEY_LOG_CONTAINER));
+        return Optional.ofNullable((AtomicReference<Log>) getVariable(KEY_LOG_CONTAINER));
     }
 
     public static class Parsed extends GroovyObjectSupport {
@@ -23,21 +23,33 @@ import groovy.lang.GroovyShell;
 import groovy.transform.CompileStatic;
 import groovy.util.DelegatingScript;
 import java.lang.reflect.Array;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import org.apache.skywalking.oap.log.analyzer.dsl.spec.LALDelegatingScript;
 import org.apache.skywalking.oap.log.analyzer.dsl.spec.filter.FilterSpec;
+import org.apache.skywalking.oap.log.analyzer.dsl.spec.parser.grok.Grok;
 import org.apache.skywalking.oap.log.analyzer.provider.LogAnalyzerModuleConfig;
 import org.apache.skywalking.oap.meter.analyzer.dsl.registry.ProcessRegistry;
 import org.apache.skywalking.oap.server.library.module.ModuleManager;
 import org.apache.skywalking.oap.server.library.module.ModuleStartException;
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.CodeVisitorSupport;
+import org.codehaus.groovy.ast.MethodNode;
+import org.codehaus.groovy.ast.expr.ArgumentListExpression;
+import org.codehaus.groovy.ast.expr.ConstantExpression;
+import org.codehaus.groovy.ast.expr.MethodCallExpression;
 import org.codehaus.groovy.ast.stmt.DoWhileStatement;
 import org.codehaus.groovy.ast.stmt.ForStatement;
 import org.codehaus.groovy.ast.stmt.Statement;
 import org.codehaus.groovy.ast.stmt.WhileStatement;
+import org.codehaus.groovy.classgen.GeneratorContext;
+import org.codehaus.groovy.control.CompilePhase;
 import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.control.SourceUnit;
+import org.codehaus.groovy.control.customizers.CompilationCustomizer;
 import org.codehaus.groovy.control.customizers.ASTTransformationCustomizer;
 import org.codehaus.groovy.control.customizers.ImportCustomizer;
 import org.codehaus.groovy.control.customizers.SecureASTCustomizer;
@@ -88,8 +100,19 @@ public class DSL {
         icz.addImport("ProcessRegistry", ProcessRegistry.class.getName());
         cc.addCompilationCustomizers(icz);
 
+        final GrokExpressionCollector grokExpressions = new GrokExpressionCollector();
+        cc.addCompilationCustomizers(grokExpressions);
+
         final GroovyShell sh = new GroovyShell(cc);
         final DelegatingScript script = (DelegatingScript) sh.parse(dsl);
+        // Compile the grok expressions now, so an invalid one fails the loading rather than every log.
+        for (final String expression : grokExpressions.expressions) {
+            try {
+                Grok.builtIn().compile(expression);
+            } catch (IllegalArgumentException e) {
+                throw new ModuleStartException("Invalid grok expression " + expression + ": " + e.getMessage(), e);
+            }
+        }
         final FilterSpec filterSpec = new FilterSpec(moduleManager, config);
         script.setDelegate(filterSpec);
 
@@ -103,4 +126,40 @@ public class DSL {
     public void evaluate() {
         script.run();
     }
+
+    /**
+     * Collects the constant expressions of the {@code grok} calls in the script.
+     */
+    private static class GrokExpressionCollector extends CompilationCustomizer {
+        private final List<String> expressions = new ArrayList<>();
+
+        private GrokExpressionCollector() {
+            super(CompilePhase.CONVERSION);
+        }
+
+        @Override
+        public void call(final SourceUnit source,
+                         final GeneratorContext context,
+                         final ClassNode classNode) {
+            final CodeVisitorSupport visitor = new CodeVisitorSupport() {
+                @Override
+                public void visitMethodCallExpression(final MethodCallExpression call) {
+                    if ("grok".equals(call.getMethodAsString())
+                        && call.getArguments() instanceof ArgumentListExpression) {
+                        final List<?> args = ((ArgumentListExpression) call.getArguments()).getExpressions();
+                        if (args.size() == 1 && args.get(0) instanceof ConstantExpression
+                            && ((ConstantExpression) args.get(0)).getValue() instanceof String) {
+                            expressions.add((String) ((ConstantExpression) args.get(0)).getValue());
+                        }
+                    }
+                    super.visitMethodCallExpression(call);
+                }
+            };
+            for (final MethodNode method : classNode.getMethods()) {
+                if (method.getCode() != null) {
+                    method.getCode().visit(visitor);
+                }
+            }
+        }
+    }
 }
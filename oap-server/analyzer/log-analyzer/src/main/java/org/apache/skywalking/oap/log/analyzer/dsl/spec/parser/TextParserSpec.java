@@ -18,13 +18,25 @@
 
 package org.apache.skywalking.oap.log.analyzer.dsl.spec.parser;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import org.apache.skywalking.apm.network.logging.v3.LogData;
+import org.apache.skywalking.oap.log.analyzer.dsl.spec.parser.grok.Grok;
+import org.apache.skywalking.oap.log.analyzer.dsl.spec.parser.grok.GrokPattern;
 import org.apache.skywalking.oap.log.analyzer.provider.LogAnalyzerModuleConfig;
 import org.apache.skywalking.oap.server.library.module.ModuleManager;
 
 public class TextParserSpec extends AbstractParserSpec {
+    /**
+     * The patterns compiled from the expressions in the scripts, the expressions are constants of the scripts, so
+     * they are compiled once rather than for every log.
+     */
+    private final Map<String, Pattern> regexps = new ConcurrentHashMap<>();
+
+    private final Map<String, GrokPattern> groks = new ConcurrentHashMap<>();
+
     public TextParserSpec(final ModuleManager moduleManager,
                           final LogAnalyzerModuleConfig moduleConfig) {
         super(moduleManager, moduleConfig);
@@ -32,7 +44,7 @@ public class TextParserSpec extends AbstractParserSpec {
 
     @SuppressWarnings("unused")
     public void regexp(final String regexp) {
-        regexp(Pattern.compile(regexp));
+        regexp(regexps.computeIfAbsent(regexp, Pattern::compile));
     }
 
     public void regexp(final Pattern pattern) {
@@ -49,9 +61,26 @@ public class TextParserSpec extends AbstractParserSpec {
         }
     }
 
-    public boolean grok(final String grok) {
-        // TODO
-        return false;
+    /**
+     * Parse the log body with the grok expression, the captured fields are written into the parsed map.
+     *
+     * @since 10.2.0
+     */
+    @SuppressWarnings("unused")
+    public void grok(final String grok) {
+        grok(groks.computeIfAbsent(grok, Grok.builtIn()::compile));
     }
 
+    public void grok(final GrokPattern pattern) {
+        if (BINDING.get().shouldAbort()) {
+            return;
+        }
+        final LogData.Builder log = BINDING.get().log();
+        final Map<String, Object> parsed = pattern.match(log.getBody().getText().getText());
+        if (parsed != null) {
+            BINDING.get().parsed(parsed);
+        } else if (abortOnFailure()) {
+            BINDING.get().abort();
+        }
+    }
 }
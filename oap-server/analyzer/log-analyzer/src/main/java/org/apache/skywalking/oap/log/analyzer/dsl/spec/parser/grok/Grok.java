@@ -0,0 +1,225 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.log.analyzer.dsl.spec.parser.grok;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Grok compiles the expressions made of named patterns, such as {@code %{IPORHOST:client} %{INT:status:int}}, into
+ * {@link GrokPattern}s. The references to the patterns are expanded into a single Java regular expression ahead of
+ * time, and the captured fields are mapped to generated group names, so the compiled pattern is matched once per log
+ * without any further lookup.
+ *
+ * <p>The references are in the form of {@code %{NAME}}, {@code %{NAME:field}} or {@code %{NAME:field:type}}, where
+ * the type is one of {@code int}, {@code long}, {@code float} and {@code double}. The named groups {@code
+ * (?<field>...)} of the expressions are captured as fields too.
+ *
+ * @since 10.2.0
+ */
+public class Grok {
+    private static final String BUILT_IN_PATTERNS = "grok-patterns";
+
+    private static final String GROUP_PREFIX = "grok";
+
+    private static final Pattern REFERENCE = Pattern.compile(
+        "%\\{(?<name>\\w+)(?::(?<field>[^:}]+))?(?::(?<type>\\w+))?}");
+
+    private static final Pattern NAMED_GROUP = Pattern.compile("(?<!\\\\)\\(\\?<(?<field>[a-zA-Z][^>=!]*)>");
+
+    private static final Grok BUILT_IN = new Grok(load());
+
+    private final Map<String, String> definitions;
+
+    public Grok(final Map<String, String> definitions) {
+        this.definitions = Collections.unmodifiableMap(new HashMap<>(definitions));
+    }
+
+    /**
+     * @return the grok of the built-in patterns, see {@code grok-patterns} in the classpath.
+     */
+    public static Grok builtIn() {
+        return BUILT_IN;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the expression references an unknown or recursive pattern, uses an unknown
+     *                                  type, or is not a valid regular expression after the expansion.
+     */
+    public GrokPattern compile(final String expression) {
+        final List<String> fields = new ArrayList<>();
+        final List<GrokPattern.Type> types = new ArrayList<>();
+        final String regex = expand(expression, fields, types, new HashSet<>());
+        final Pattern pattern = Pattern.compile(regex);
+        return new GrokPattern(
+            expression,
+            pattern,
+            fields.toArray(new String[0]),
+            groupNumbers(regex, fields.size(), pattern.matcher("").groupCount()),
+            types.toArray(new GrokPattern.Type[0])
+        );
+    }
+
+    private String expand(final String expression,
+                          final List<String> fields,
+                          final List<GrokPattern.Type> types,
+                          final Set<String> expanding) {
+        final String withGroups = renameGroups(expression, fields, types);
+        final Matcher matcher = REFERENCE.matcher(withGroups);
+        final StringBuilder regex = new StringBuilder(withGroups.length() * 2);
+        int last = 0;
+        while (matcher.find()) {
+            regex.append(withGroups, last, matcher.start());
+            last = matcher.end();
+
+            final String name = matcher.group("name");
+            final String definition = definitions.get(name);
+            if (definition == null) {
+                throw new IllegalArgumentException("Unknown grok pattern " + name + " in " + expression);
+            }
+            if (!expanding.add(name)) {
+                throw new IllegalArgumentException("Recursive grok pattern " + name + " in " + expression);
+            }
+            final String expanded = expand(definition, fields, types, expanding);
+            expanding.remove(name);
+
+            final String field = matcher.group("field");
+            if (field == null) {
+                regex.append("(?:").append(expanded).append(')');
+            } else {
+                regex.append("(?<").append(groupName(fields.size())).append('>').append(expanded).append(')');
+                fields.add(field);
+                types.add(GrokPattern.Type.of(matcher.group("type")));
+            }
+        }
+        regex.append(withGroups, last, withGroups.length());
+        return regex.toString();
+    }
+
+    /**
+     * Rename the named groups in the expression to the generated names, as the field names may contain characters
+     * not allowed in the names of Java regular expression groups.
+     */
+    private static String renameGroups(final String expression,
+                                       final List<String> fields,
+                                       final List<GrokPattern.Type> types) {
+        final Matcher matcher = NAMED_GROUP.matcher(expression);
+        if (!matcher.find()) {
+            return expression;
+        }
+        final StringBuilder renamed = new StringBuilder(expression.length());
+        int last = 0;
+        do {
+            renamed.append(expression, last, matcher.start());
+            last = matcher.end();
+            renamed.append("(?<").append(groupName(fields.size())).append('>');
+            fields.add(matcher.group("field"));
+            types.add(GrokPattern.Type.STRING);
+        }
+        while (matcher.find());
+        renamed.append(expression, last, expression.length());
+        return renamed.toString();
+    }
+
+    private static String groupName(final int index) {
+        return GROUP_PREFIX + index;
+    }
+
+    /**
+     * Number the capturing groups of the regular expression the same as {@link Pattern} does, so the fields are read
+     * by the group numbers rather than looking up the names for every log.
+     */
+    private static int[] groupNumbers(final String regex, final int fields, final int groupCount) {
+        final int[] numbers = new int[fields];
+        int number = 0;
+        int classDepth = 0;
+        for (int i = 0; i < regex.length(); i++) {
+            final char c = regex.charAt(i);
+            if (c == '\\') {
+                if (regex.startsWith("Q", i + 1)) {
+                    final int end = regex.indexOf("\\E", i + 2);
+                    i = end < 0 ? regex.length() : end + 1;
+                } else {
+                    i++;
+                }
+            } else if (c == '[') {
+                classDepth++;
+                // A leading ']' (after an optional '^') is a literal in the class.
+                if (regex.startsWith("^]", i + 1)) {
+                    i += 2;
+                } else if (regex.startsWith("]", i + 1)) {
+                    i++;
+                }
+            } else if (classDepth > 0) {
+                if (c == ']') {
+                    classDepth--;
+                }
+            } else if (c == '(') {
+                if (!regex.startsWith("?", i + 1)) {
+                    number++;
+                } else if (regex.startsWith("?<" + GROUP_PREFIX, i + 1)) {
+                    number++;
+                    final int end = regex.indexOf('>', i);
+                    numbers[Integer.parseInt(regex.substring(i + 3 + GROUP_PREFIX.length(), end))] = number;
+                } else if (regex.startsWith("?<", i + 1)
+                    && !regex.startsWith("?<=", i + 1) && !regex.startsWith("?<!", i + 1)) {
+                    number++;
+                }
+            }
+        }
+        if (number != groupCount) {
+            throw new IllegalArgumentException("Failed to number the groups of the grok pattern " + regex);
+        }
+        return numbers;
+    }
+
+    private static Map<String, String> load() {
+        final Map<String, String> definitions = new HashMap<>();
+        try (InputStream is = Grok.class.getClassLoader().getResourceAsStream(BUILT_IN_PATTERNS)) {
+            if (is == null) {
+                throw new IllegalStateException("The built-in grok patterns " + BUILT_IN_PATTERNS + " are not found");
+            }
+            final BufferedReader reader = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                final int space = line.indexOf(' ');
+                definitions.put(line.substring(0, space), line.substring(space + 1).trim());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to load the built-in grok patterns", e);
+        }
+        return definitions;
+    }
+}
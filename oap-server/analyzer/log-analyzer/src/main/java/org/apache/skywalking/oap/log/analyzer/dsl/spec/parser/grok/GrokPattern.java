@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.log.analyzer.dsl.spec.parser.grok;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.Getter;
+
+/**
+ * GrokPattern is the compiled grok expression, the fields captured are written into a map directly when matching.
+ *
+ * @since 10.2.0
+ */
+public class GrokPattern {
+    @Getter
+    private final String expression;
+    @Getter
+    private final Pattern pattern;
+    private final String[] fields;
+    /**
+     * The numbers of the capturing groups of the fields.
+     */
+    private final int[] groups;
+    private final Type[] types;
+
+    GrokPattern(final String expression,
+                final Pattern pattern,
+                final String[] fields,
+                final int[] groups,
+                final Type[] types) {
+        this.expression = expression;
+        this.pattern = pattern;
+        this.fields = fields;
+        this.groups = groups;
+        this.types = types;
+    }
+
+    /**
+     * @return the captured fields, the fields not participating in the match are absent, or {@code null} if the text
+     * doesn't match the pattern.
+     */
+    public Map<String, Object> match(final CharSequence text) {
+        final Matcher matcher = pattern.matcher(text);
+        if (!matcher.find()) {
+            return null;
+        }
+        final Map<String, Object> captured = new HashMap<>(fields.length * 2);
+        for (int i = 0; i < fields.length; i++) {
+            final String value = matcher.group(groups[i]);
+            if (value != null) {
+                captured.put(fields[i], types[i].convert(value));
+            }
+        }
+        return captured;
+    }
+
+    enum Type {
+        STRING(value -> value),
+        INT(Integer::valueOf),
+        LONG(Long::valueOf),
+        FLOAT(Float::valueOf),
+        DOUBLE(Double::valueOf);
+
+        private final Function<String, Object> converter;
+
+        Type(final Function<String, Object> converter) {
+            this.converter = converter;
+        }
+
+        Object convert(final String value) {
+            try {
+                return converter.apply(value);
+            } catch (NumberFormatException e) {
+                return value;
+            }
+        }
+
+        static Type of(final String type) {
+            if (type == null) {
+                return STRING;
+            }
+            switch (type) {
+                case "int":
+                    return INT;
+                case "long":
+                    return LONG;
+                case "float":
+                    return FLOAT;
+                case "double":
+                    return DOUBLE;
+                default:
+                    throw new IllegalArgumentException("Unknown grok type " + type);
+            }
+        }
+    }
+}
@@ -18,6 +18,7 @@
 package org.apache.skywalking.oap.log.analyzer.provider.log;
 
 import com.google.protobuf.Message;
+import java.util.List;
 import org.apache.skywalking.apm.network.logging.v3.LogData;
 import org.apache.skywalking.oap.server.library.module.Service;
 
@@ -32,4 +33,15 @@ public interface ILogAnalyzerService extends Service {
         doAnalysis(logData.toBuilder(), extraLog);
     }
 
+    /**
+     * Analyze the logs in order, a failed log doesn't stop the analysis of the following ones.
+     *
+     * @since 10.2.0
+     */
+    default void doAnalysis(List<LogData.Builder> logs) {
+        for (final LogData.Builder log : logs) {
+            doAnalysis(log, null);
+        }
+    }
+
 }
@@ -18,9 +18,11 @@
 package org.apache.skywalking.oap.log.analyzer.provider.log;
 
 import com.google.protobuf.Message;
-import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.stream.Collectors;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -33,7 +35,8 @@ import org.apache.skywalking.oap.log.analyzer.provider.log.listener.LogAnalysisL
 import org.apache.skywalking.oap.server.library.module.ModuleManager;
 
 /**
- * Analyze the collected log data, is the entry point for log analysis.
+ * Analyze the collected log data, is the entry point for log analysis. The analyzer is confined to a thread, and the
+ * listeners of every layer are created at the first log of the layer and reused by the following logs.
  */
 @Slf4j
 @RequiredArgsConstructor
@@ -42,7 +45,7 @@ public class LogAnalyzer {
     private final LogAnalyzerModuleConfig moduleConfig;
     private final ILogAnalysisListenerManager factoryManager;
 
-    private final List<LogAnalysisListener> listeners = new ArrayList<>();
+    private final Map<Layer, List<LogAnalysisListener>> layerListeners = new EnumMap<>(Layer.class);
 
     public void doAnalysis(LogData.Builder builder, Message extraLog) {
         if (StringUtil.isEmpty(builder.getService())) {
@@ -62,29 +65,36 @@ public class LogAnalyzer {
             }
         }
 
-        createAnalysisListeners(layer);
+        final List<LogAnalysisListener> listeners = layerListeners.computeIfAbsent(
+            layer, this::createAnalysisListeners);
         if (builder.getTimestamp() == 0) {
             // If no timestamp, OAP server would use the received timestamp as log's timestamp
             builder.setTimestamp(System.currentTimeMillis());
         }
 
-        notifyAnalysisListener(builder, extraLog);
-        notifyAnalysisListenerToBuild();
+        notifyAnalysisListener(listeners, builder, extraLog);
+        notifyAnalysisListenerToBuild(listeners);
     }
 
-    private void notifyAnalysisListener(LogData.Builder builder, final Message extraLog) {
-        listeners.forEach(listener -> listener.parse(builder, extraLog));
+    private void notifyAnalysisListener(List<LogAnalysisListener> listeners,
+                                        LogData.Builder builder,
+                                        final Message extraLog) {
+        for (final LogAnalysisListener listener : listeners) {
+            listener.parse(builder, extraLog);
+        }
     }
 
-    private void notifyAnalysisListenerToBuild() {
-        listeners.forEach(LogAnalysisListener::build);
+    private void notifyAnalysisListenerToBuild(List<LogAnalysisListener> listeners) {
+        for (final LogAnalysisListener listener : listeners) {
+            listener.build();
+        }
     }
 
-    private void createAnalysisListeners(Layer layer) {
-        factoryManager.getLogAnalysisListenerFactories()
-                      .stream()
-                      .map(factory -> factory.create(layer))
-                      .filter(Objects::nonNull)
-                      .forEach(listeners::add);
+    private List<LogAnalysisListener> createAnalysisListeners(Layer layer) {
+        return factoryManager.getLogAnalysisListenerFactories()
+                             .stream()
+                             .map(factory -> factory.create(layer))
+                             .filter(Objects::nonNull)
+                             .collect(Collectors.toList());
     }
 }
@@ -21,23 +21,41 @@ import com.google.protobuf.Message;
 import java.util.ArrayList;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.skywalking.apm.network.logging.v3.LogData;
 import org.apache.skywalking.oap.log.analyzer.provider.LogAnalyzerModuleConfig;
 import org.apache.skywalking.oap.log.analyzer.provider.log.listener.LogAnalysisListenerFactory;
 import org.apache.skywalking.oap.log.analyzer.provider.log.listener.LogSinkListenerFactory;
 import org.apache.skywalking.oap.server.library.module.ModuleManager;
 
+@Slf4j
 @RequiredArgsConstructor
 public class LogAnalyzerServiceImpl implements ILogAnalyzerService, ILogAnalysisListenerManager {
     private final ModuleManager moduleManager;
     private final LogAnalyzerModuleConfig moduleConfig;
     private final List<LogAnalysisListenerFactory> analysisListenerFactories = new ArrayList<>();
     private final List<LogSinkListenerFactory> sinkListenerFactories = new ArrayList<>();
+    private final ThreadLocal<LogAnalyzer> analyzers = ThreadLocal.withInitial(this::createAnalyzer);
 
     @Override
     public void doAnalysis(final LogData.Builder log, Message extraLog) {
-        LogAnalyzer analyzer = new LogAnalyzer(moduleManager, moduleConfig, this);
-        analyzer.doAnalysis(log, extraLog);
+        analyzers.get().doAnalysis(log, extraLog);
+    }
+
+    @Override
+    public void doAnalysis(final List<LogData.Builder> logs) {
+        final LogAnalyzer analyzer = analyzers.get();
+        for (final LogData.Builder logData : logs) {
+            try {
+                analyzer.doAnalysis(logData, null);
+            } catch (Exception e) {
+                log.error("Failed to analyze the log of service {}", logData.getService(), e);
+            }
+        }
+    }
+
+    private LogAnalyzer createAnalyzer() {
+        return new LogAnalyzer(moduleManager, moduleConfig, this);
     }
 
     @Override
@@ -21,7 +21,9 @@ import com.google.protobuf.Message;
 import org.apache.skywalking.apm.network.logging.v3.LogData;
 
 /**
- * LogAnalysisListener represents the callback when OAP does the log data analysis.
+ * LogAnalysisListener represents the callback when OAP does the log data analysis. A listener is created once per
+ * layer in each analysis thread and reused for the following logs, so it must release the per-log state in {@link
+ * #build()}.
  */
 public interface LogAnalysisListener {
     /**
@@ -23,7 +23,6 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.HashMap;
@@ -38,27 +37,53 @@ import org.apache.skywalking.oap.server.core.analysis.Layer;
 import org.apache.skywalking.oap.server.library.module.ModuleManager;
 import org.apache.skywalking.oap.server.library.module.ModuleStartException;
 
+/**
+ * LogFilterListener evaluates the LAL rules of a layer. The listener is confined to the analysis thread, and reused by
+ * the logs of the layer analyzed in the thread.
+ */
 @Slf4j
-@RequiredArgsConstructor
 public class LogFilterListener implements LogAnalysisListener {
-    private final Collection<DSL> dsls;
+    private final DSL[] dsls;
+    /**
+     * The bindings of the DSLs, reset and reused for every log.
+     */
+    private final Binding[] bindings;
+
+    private LogData logData;
+
+    private Message extraLog;
+
+    public LogFilterListener(final Collection<DSL> dsls) {
+        this.dsls = dsls.toArray(new DSL[0]);
+        this.bindings = new Binding[this.dsls.length];
+        for (int i = 0; i < bindings.length; i++) {
+            bindings[i] = new Binding();
+        }
+    }
 
     @Override
     public void build() {
-        dsls.forEach(dsl -> {
-            try {
-                dsl.evaluate();
-            } catch (final Exception e) {
-                log.warn("Failed to evaluate dsl: {}", dsl, e);
+        try {
+            for (int i = 0; i < dsls.length; i++) {
+                final DSL dsl = dsls[i];
+                try {
+                    dsl.bind(bindings[i].reset().log(logData).extraLog(extraLog));
+                    dsl.evaluate();
+                } catch (final Exception e) {
+                    log.warn("Failed to evaluate dsl: {}", dsl, e);
+                }
             }
-        });
+        } finally {
+            logData = null;
+            extraLog = null;
+        }
     }
 
     @Override
     public LogAnalysisListener parse(final LogData.Builder logData,
                                      final Message extraLog) {
-        dsls.forEach(dsl -> dsl.bind(new Binding().log(logData.build())
-                                                  .extraLog(extraLog)));
+        this.logData = logData.build();
+        this.extraLog = extraLog;
         return this;
     }
 
@@ -28,6 +28,7 @@ import org.apache.skywalking.oap.server.library.module.ModuleProviderHolder;
 import org.apache.skywalking.oap.server.library.module.ModuleServiceHolder;
 import org.apache.skywalking.oap.server.library.module.ModuleStartException;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.powermock.reflect.Whitebox;
@@ -36,6 +37,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -58,6 +60,18 @@ public class DSLTest {
                                 "  }" +
                                 "}",
                 },
+                new String[] {
+                        "grok",
+                        "filter {\n" +
+                                "  text {\n" +
+                                "    abortOnFailure false // for test purpose, we want to persist all logs\n" +
+                                "    grok '%{TIMESTAMP_ISO8601:timestamp} %{LOGLEVEL:level} %{GREEDYDATA:msg}'\n" +
+                                "  }\n" +
+                                "  extractor {\n" +
+                                "    tag level: parsed.level\n" +
+                                "  }\n" +
+                                "}",
+                },
                 new String[] {
                         "extractor",
                         "filter {\n" +
@@ -220,4 +234,15 @@ public class DSLTest {
         dsl.bind(new Binding().log(LogData.newBuilder().build()));
         dsl.evaluate();
     }
+
+    @Test
+    public void testInvalidGrokFailsLoading() {
+        final String script = "filter {\n" +
+            "  text {\n" +
+            "    grok '%{TIMESTAMP_ISO8601:timestamp} %{UNKNOWN_PATTERN:msg}'\n" +
+            "  }\n" +
+            "  sink {}\n" +
+            "}";
+        assertThrows(ModuleStartException.class, () -> DSL.of(manager, new LogAnalyzerModuleConfig(), script));
+    }
 }
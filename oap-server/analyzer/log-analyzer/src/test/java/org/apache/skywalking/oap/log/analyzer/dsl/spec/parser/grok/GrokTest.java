@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.log.analyzer.dsl.spec.parser.grok;
+
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class GrokTest {
+    private final Grok grok = Grok.builtIn();
+
+    @Test
+    public void testCombinedLog() {
+        final Map<String, Object> parsed = grok.compile("%{COMBINEDAPACHELOG}").match(
+            "172.18.0.1 - - [18/Oct/2026:13:35:47 +0000] \"GET /index.html?a=b HTTP/1.1\" 200 612 \"-\" \"curl/7.81.0\"");
+
+        assertEquals("172.18.0.1", parsed.get("clientip"));
+        assertEquals("-", parsed.get("ident"));
+        assertEquals("18/Oct/2026:13:35:47 +0000", parsed.get("timestamp"));
+        assertEquals("GET", parsed.get("verb"));
+        assertEquals("/index.html?a=b", parsed.get("request"));
+        assertEquals("1.1", parsed.get("httpversion"));
+        assertEquals("200", parsed.get("response"));
+        assertEquals("612", parsed.get("bytes"));
+        assertEquals("\"curl/7.81.0\"", parsed.get("agent"));
+        assertFalse(parsed.containsKey("rawrequest"));
+    }
+
+    @Test
+    public void testSyslog() {
+        final Map<String, Object> parsed = grok.compile("%{SYSLOGLINE}").match(
+            "Oct 18 13:35:47 oap-0 sshd[1024]: Accepted publickey for root from 10.0.0.1 port 52222");
+
+        assertEquals("Oct 18 13:35:47", parsed.get("timestamp"));
+        assertEquals("oap-0", parsed.get("logsource"));
+        assertEquals("sshd", parsed.get("program"));
+        assertEquals("1024", parsed.get("pid"));
+        assertEquals("Accepted publickey for root from 10.0.0.1 port 52222", parsed.get("message"));
+    }
+
+    @Test
+    public void testIp() {
+        final GrokPattern pattern = grok.compile("%{IPORHOST:host} %{WORD:next}");
+
+        assertEquals("172.18.0.1", pattern.match("172.18.0.1 next").get("host"));
+        assertEquals("frontend.default.svc", pattern.match("frontend.default.svc next").get("host"));
+        assertEquals("fe80::1ff:fe23:4567:890a", pattern.match("fe80::1ff:fe23:4567:890a next").get("host"));
+        assertEquals("2001:db8:0:0:1::1", pattern.match("2001:db8:0:0:1::1 next").get("host"));
+        assertEquals("::1", pattern.match("::1 next").get("host"));
+        assertEquals("::ffff:10.0.0.1", pattern.match("::ffff:10.0.0.1 next").get("host"));
+    }
+
+    @Test
+    public void testTypesAndNamedGroups() {
+        final GrokPattern pattern = grok.compile(
+            "(\\w+) \\[%{TIMESTAMP_ISO8601:time}\\] (?<http.method>[A-Z]+) %{INT:status:int} %{NUMBER:cost:double}");
+        final Map<String, Object> parsed = pattern.match("envoy [2026-10-18T13:35:47.123Z] GET 503 1.5");
+
+        assertEquals("2026-10-18T13:35:47.123Z", parsed.get("time"));
+        assertEquals("GET", parsed.get("http.method"));
+        assertEquals(503, parsed.get("status"));
+        assertEquals(1.5, parsed.get("cost"));
+        assertNull(pattern.match("not matched"));
+    }
+
+    @Test
+    public void testIllegalPatterns() {
+        assertThrows(IllegalArgumentException.class, () -> grok.compile("%{NOT_EXISTING:foo}"));
+        assertThrows(IllegalArgumentException.class, () -> grok.compile("%{INT:foo:bool}"));
+        assertThrows(IllegalArgumentException.class, () -> new Grok(Map.of("A", "%{B}", "B", "%{A}")).compile("%{A}"));
+    }
+}
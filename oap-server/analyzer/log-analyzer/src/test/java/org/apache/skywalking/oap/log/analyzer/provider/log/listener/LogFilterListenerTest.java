@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.log.analyzer.provider.log.listener;
+
+import com.google.protobuf.Message;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.apache.skywalking.apm.network.logging.v3.LogData;
+import org.apache.skywalking.apm.network.logging.v3.LogDataBody;
+import org.apache.skywalking.apm.network.logging.v3.TextLog;
+import org.apache.skywalking.oap.log.analyzer.dsl.DSL;
+import org.apache.skywalking.oap.log.analyzer.provider.LogAnalyzerModuleConfig;
+import org.apache.skywalking.oap.server.core.CoreModule;
+import org.apache.skywalking.oap.server.core.config.ConfigService;
+import org.apache.skywalking.oap.server.core.source.SourceReceiver;
+import org.apache.skywalking.oap.server.library.module.ModuleManager;
+import org.apache.skywalking.oap.server.library.module.ModuleProviderHolder;
+import org.apache.skywalking.oap.server.library.module.ModuleServiceHolder;
+import org.apache.skywalking.oap.server.library.module.ModuleStartException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.powermock.reflect.Whitebox;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class LogFilterListenerTest {
+    final ModuleManager manager = mock(ModuleManager.class);
+
+    final List<String> sunk = new ArrayList<>();
+
+    @BeforeEach
+    public void setup() {
+        Whitebox.setInternalState(manager, "isInPrepareStage", false);
+        when(manager.find(anyString())).thenReturn(mock(ModuleProviderHolder.class));
+        when(manager.find(CoreModule.NAME).provider()).thenReturn(mock(ModuleServiceHolder.class));
+        when(manager.find(CoreModule.NAME).provider().getService(SourceReceiver.class))
+            .thenReturn(mock(SourceReceiver.class));
+        when(manager.find(CoreModule.NAME).provider().getService(ConfigService.class))
+            .thenReturn(mock(ConfigService.class));
+        when(manager.find(CoreModule.NAME)
+                        .provider()
+                        .getService(ConfigService.class)
+                        .getSearchableLogsTags())
+            .thenReturn("");
+    }
+
+    @Test
+    public void testReusedListenerEvaluatesEveryRule() throws ModuleStartException {
+        final LogFilterListener listener = new LogFilterListener(Arrays.asList(
+            dsl("filter {\n  sink {\n  }\n}"),
+            dsl("filter {\n  text {\n    regexp $/(?<msg>ok.*)/$\n  }\n  sink {\n  }\n}")
+        ));
+
+        listener.parse(log("svc-a", "bad"), null).build();
+        listener.parse(log("svc-b", "ok"), null).build();
+        listener.parse(log("svc-c", "bad"), null).build();
+
+        // The aborted log of the second rule must not affect the following logs.
+        assertEquals(Arrays.asList("svc-a", "svc-b", "svc-b", "svc-c"), sunk);
+    }
+
+    private DSL dsl(final String script) throws ModuleStartException {
+        final DSL dsl = DSL.of(manager, new LogAnalyzerModuleConfig(), script);
+        Whitebox.setInternalState(
+            Whitebox.getInternalState(dsl, "filterSpec"), "sinkListenerFactories",
+            Collections.singletonList((LogSinkListenerFactory) RecordingSinkListener::new)
+        );
+        return dsl;
+    }
+
+    private static LogData.Builder log(final String service, final String text) {
+        return LogData.newBuilder()
+                      .setService(service)
+                      .setBody(LogDataBody.newBuilder().setText(TextLog.newBuilder().setText(text)));
+    }
+
+    private class RecordingSinkListener implements LogSinkListener {
+        private String service;
+
+        @Override
+        public void build() {
+            sunk.add(service);
+        }
+
+        @Override
+        public LogSinkListener parse(final LogData.Builder logData, final Message extraLog) {
+            service = logData.getService();
+            return this;
+        }
+    }
+}
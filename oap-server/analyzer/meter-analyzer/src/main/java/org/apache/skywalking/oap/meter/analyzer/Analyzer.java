@@ -23,12 +23,12 @@ import com.google.common.collect.ImmutableMap;
 import com.google.gson.JsonObject;
 import io.vavr.Tuple;
 import io.vavr.Tuple2;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
-import java.util.function.Predicate;
-import java.util.stream.Stream;
 import lombok.AccessLevel;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
@@ -61,11 +61,7 @@ import org.apache.skywalking.oap.server.core.analysis.metrics.DataLabel;
 import org.apache.skywalking.oap.server.core.analysis.metrics.DataTable;
 import org.apache.skywalking.oap.server.core.analysis.worker.MetricsStreamProcessor;
 
-import static com.google.common.collect.ImmutableMap.toImmutableMap;
 import static java.util.Objects.requireNonNull;
-import static java.util.stream.Collectors.groupingBy;
-import static java.util.stream.Collectors.mapping;
-import static java.util.stream.Collectors.toList;
 
 /**
  * Analyzer analyses DSL expression with input samples, then to generate meter-system metrics.
@@ -95,6 +91,10 @@ public class Analyzer {
         return analyzer;
     }
 
+    /**
+     * The names of the samples consumed by the expression.
+     */
+    @Getter
     private List<String> samples;
 
     private final String metricName;
@@ -117,10 +117,14 @@ public class Analyzer {
      * @param sampleFamilies input samples.
      */
     public void analyse(final ImmutableMap<String, SampleFamily> sampleFamilies) {
-        Map<String, SampleFamily> input = samples.stream()
-                                                 .map(s -> Tuple.of(s, sampleFamilies.get(s)))
-                                                 .filter(t -> t._2 != null)
-                                                 .collect(toImmutableMap(t -> t._1, t -> t._2));
+        ImmutableMap.Builder<String, SampleFamily> builder = ImmutableMap.builderWithExpectedSize(samples.size());
+        for (String sample : samples) {
+            SampleFamily sampleFamily = sampleFamilies.get(sample);
+            if (sampleFamily != null) {
+                builder.put(sample, sampleFamily);
+            }
+        }
+        Map<String, SampleFamily> input = builder.build();
         if (input.size() < 1) {
             if (log.isDebugEnabled()) {
                 log.debug("{} is ignored due to the lack of {}", expression, samples);
@@ -158,39 +162,42 @@ public class Analyzer {
                     break;
                 case histogram:
                 case histogramPercentile:
-                    Stream.of(ss).map(s -> Tuple.of(getDataLabels(s.getLabels(), k -> !Objects.equals("le", k)), s))
-                          .collect(groupingBy(Tuple2::_1, mapping(Tuple2::_2, toList())))
-                          .forEach((dataLabel, subSs) -> {
-                              if (subSs.size() < 1) {
-                                  return;
-                              }
-                              long[] bb = new long[subSs.size()];
-                              long[] vv = new long[bb.length];
-                              for (int i = 0; i < subSs.size(); i++) {
-                                  Sample s = subSs.get(i);
-                                  final double leVal = Double.parseDouble(s.getLabels().get("le"));
-                                  if (leVal == Double.NEGATIVE_INFINITY) {
-                                      bb[i] = Long.MIN_VALUE;
-                                  } else {
-                                      bb[i] = (long) leVal;
-                                  }
-                                  vv[i] = getValue(s);
-                              }
-                              BucketedValues bv = new BucketedValues(bb, vv);
-                              bv.setLabels(dataLabel);
-                              long time = subSs.get(0).getTimestamp();
-                              if (metricType == MetricType.histogram) {
-                                  AcceptableValue<BucketedValues> v = meterSystem.buildMetrics(
-                                      metricName, BucketedValues.class);
-                                  v.accept(meterEntity, bv);
-                                  send(v, time);
-                                  return;
-                              }
-                              AcceptableValue<PercentileArgument> v = meterSystem.buildMetrics(
-                                  metricName, PercentileArgument.class);
-                              v.accept(meterEntity, new PercentileArgument(bv, percentiles));
-                              send(v, time);
-                          });
+                    Map<DataLabel, List<Sample>> buckets = new HashMap<>();
+                    for (Sample each : ss) {
+                        buckets.computeIfAbsent(getDataLabels(each.getLabels()), unused -> new ArrayList<>())
+                               .add(each);
+                    }
+                    buckets.forEach((dataLabel, subSs) -> {
+                        if (subSs.size() < 1) {
+                            return;
+                        }
+                        long[] bb = new long[subSs.size()];
+                        long[] vv = new long[bb.length];
+                        for (int i = 0; i < subSs.size(); i++) {
+                            Sample s = subSs.get(i);
+                            final double leVal = Double.parseDouble(s.getLabels().get("le"));
+                            if (leVal == Double.NEGATIVE_INFINITY) {
+                                bb[i] = Long.MIN_VALUE;
+                            } else {
+                                bb[i] = (long) leVal;
+                            }
+                            vv[i] = getValue(s);
+                        }
+                        BucketedValues bv = new BucketedValues(bb, vv);
+                        bv.setLabels(dataLabel);
+                        long time = subSs.get(0).getTimestamp();
+                        if (metricType == MetricType.histogram) {
+                            AcceptableValue<BucketedValues> v = meterSystem.buildMetrics(
+                                metricName, BucketedValues.class);
+                            v.accept(meterEntity, bv);
+                            send(v, time);
+                            return;
+                        }
+                        AcceptableValue<PercentileArgument> v = meterSystem.buildMetrics(
+                            metricName, PercentileArgument.class);
+                        v.accept(meterEntity, new PercentileArgument(bv, percentiles));
+                        send(v, time);
+                    });
                     break;
             }
         });
@@ -206,9 +213,13 @@ public class Analyzer {
         return Math.round(sample.getValue());
     }
 
-    private DataLabel getDataLabels(ImmutableMap<String, String> labels, Predicate<String> filter) {
+    private DataLabel getDataLabels(ImmutableMap<String, String> labels) {
         DataLabel dataLabel = new DataLabel();
-        labels.keySet().stream().filter(filter).forEach(k -> dataLabel.put(k, labels.get(k)));
+        labels.forEach((k, v) -> {
+            if (!"le".equals(k)) {
+                dataLabel.put(k, v);
+            }
+        });
         return dataLabel;
     }
 
@@ -22,7 +22,11 @@ import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableMap;
 import io.vavr.control.Try;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.StringJoiner;
 import java.util.stream.Stream;
 import lombok.extern.slf4j.Slf4j;
@@ -51,6 +55,12 @@ public class MetricConvert {
 
     private final List<Analyzer> analyzers;
 
+    /**
+     * The positions of {@link #analyzers} indexed by the names of the samples they consume, so a push only runs the
+     * analyzers whose samples are present.
+     */
+    private final Map<String, int[]> analyzerIndex;
+
     public MetricConvert(MetricRuleConfig rule, MeterSystem service) {
         Preconditions.checkState(!Strings.isNullOrEmpty(rule.getMetricPrefix()));
         // init expression script
@@ -65,6 +75,22 @@ public class MetricConvert {
                 service
             )
         ).collect(toList());
+        this.analyzerIndex = buildAnalyzerIndex(analyzers);
+    }
+
+    private static Map<String, int[]> buildAnalyzerIndex(final List<Analyzer> analyzers) {
+        final Map<String, List<Integer>> positions = new HashMap<>();
+        for (int i = 0; i < analyzers.size(); i++) {
+            if (analyzers.get(i) == null) {
+                continue;
+            }
+            for (final String sample : analyzers.get(i).getSamples()) {
+                positions.computeIfAbsent(sample, unused -> new ArrayList<>()).add(i);
+            }
+        }
+        final ImmutableMap.Builder<String, int[]> index = ImmutableMap.builderWithExpectedSize(positions.size());
+        positions.forEach((sample, list) -> index.put(sample, list.stream().mapToInt(Integer::intValue).toArray()));
+        return index.build();
     }
 
     Analyzer buildAnalyzer(final String metricsName,
@@ -104,7 +130,28 @@ public class MetricConvert {
         if (sampleFamilies.size() < 1) {
             return;
         }
-        for (Analyzer each : analyzers) {
+        final BitSet matched = new BitSet(analyzers.size());
+        if (sampleFamilies.size() < analyzerIndex.size()) {
+            for (final String sample : sampleFamilies.keySet()) {
+                final int[] positions = analyzerIndex.get(sample);
+                if (positions != null) {
+                    for (final int position : positions) {
+                        matched.set(position);
+                    }
+                }
+            }
+        } else {
+            analyzerIndex.forEach((sample, positions) -> {
+                if (sampleFamilies.containsKey(sample)) {
+                    for (final int position : positions) {
+                        matched.set(position);
+                    }
+                }
+            });
+        }
+        // Keep the order of the rules, the same as running all of the analyzers.
+        for (int i = matched.nextSetBit(0); i >= 0; i = matched.nextSetBit(i + 1)) {
+            final Analyzer each = analyzers.get(i);
             try {
                 each.analyse(sampleFamilies);
             } catch (Throwable t) {
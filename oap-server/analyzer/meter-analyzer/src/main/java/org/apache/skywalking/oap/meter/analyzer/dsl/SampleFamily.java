@@ -42,6 +42,7 @@ import org.apache.skywalking.oap.server.core.source.DetectPoint;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.DoubleSummaryStatistics;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -228,19 +229,20 @@ public class SampleFamily {
                 this.context, InternalOps.newSample(samples[0].name, ImmutableMap.of(), samples[0].timestamp, result));
         }
 
-        return SampleFamily.build(
-            this.context,
-            Arrays.stream(samples)
-                  .collect(groupingBy(it -> InternalOps.getLabels(by, it), mapping(identity(), toList())))
-                  .entrySet().stream()
-                  .map(entry -> InternalOps.newSample(
-                      entry.getValue().get(0).getName(),
-                      entry.getKey(),
-                      entry.getValue().get(0).getTimestamp(),
-                      entry.getValue().stream().mapToDouble(Sample::getValue).average().orElse(0.0D)
-                  ))
-                  .toArray(Sample[]::new)
-        );
+        Map<ImmutableMap<String, String>, Group> groups = new HashMap<>();
+        for (Sample sample : samples) {
+            groups.computeIfAbsent(
+                InternalOps.getLabels(by, sample), unused -> new Group(sample, new DoubleSummaryStatistics())
+            ).statistics.accept(sample.value);
+        }
+        Sample[] result = new Sample[groups.size()];
+        int i = 0;
+        for (Map.Entry<ImmutableMap<String, String>, Group> entry : groups.entrySet()) {
+            Group group = entry.getValue();
+            result[i++] = InternalOps.newSample(
+                group.first.getName(), entry.getKey(), group.first.getTimestamp(), group.statistics.getAverage());
+        }
+        return SampleFamily.build(this.context, result);
     }
 
     public SampleFamily count(List<String> by) {
@@ -306,19 +308,39 @@ public class SampleFamily {
             return SampleFamily.build(
                 this.context, InternalOps.newSample(samples[0].name, ImmutableMap.of(), samples[0].timestamp, result));
         }
-        return SampleFamily.build(
-            this.context,
-            Arrays.stream(samples)
-                  .collect(groupingBy(it -> InternalOps.getLabels(by, it), mapping(identity(), toList())))
-                  .entrySet().stream()
-                  .map(entry -> InternalOps.newSample(
-                      entry.getValue().get(0).getName(),
-                      entry.getKey(),
-                      entry.getValue().get(0).getTimestamp(),
-                      entry.getValue().stream().mapToDouble(Sample::getValue).reduce(aggregator).orElse(0.0D)
-                  ))
-                  .toArray(Sample[]::new)
-        );
+        Map<ImmutableMap<String, String>, Group> groups = new HashMap<>();
+        for (Sample sample : samples) {
+            ImmutableMap<String, String> labels = InternalOps.getLabels(by, sample);
+            Group group = groups.get(labels);
+            if (group == null) {
+                groups.put(labels, new Group(sample, null));
+            } else {
+                group.value = aggregator.applyAsDouble(group.value, sample.value);
+            }
+        }
+        Sample[] result = new Sample[groups.size()];
+        int i = 0;
+        for (Map.Entry<ImmutableMap<String, String>, Group> entry : groups.entrySet()) {
+            Group group = entry.getValue();
+            result[i++] = InternalOps.newSample(
+                group.first.getName(), entry.getKey(), group.first.getTimestamp(), group.value);
+        }
+        return SampleFamily.build(this.context, result);
+    }
+
+    /**
+     * Group holds the first sample and the aggregated value of the samples grouped by the same labels.
+     */
+    private static class Group {
+        private final Sample first;
+        private final DoubleSummaryStatistics statistics;
+        private double value;
+
+        private Group(Sample first, DoubleSummaryStatistics statistics) {
+            this.first = first;
+            this.statistics = statistics;
+            this.value = first.value;
+        }
     }
 
     /* Function */
@@ -644,15 +666,26 @@ public class SampleFamily {
         for (int i = 0; i < labels.length; i += 2) {
             ll.put(labels[i], labels[i + 1]);
         }
-        Sample[] ss = Arrays.stream(samples)
-                            .filter(sample -> ll.entrySet()
-                                                .stream()
-                                                .allMatch(
-                                                    entry -> op.apply(sample.labels.getOrDefault(entry.getKey(), ""),
-                                                                      entry.getValue()
-                                                    )))
-                            .toArray(Sample[]::new);
-        return ss.length > 0 ? SampleFamily.build(this.context, ss) : EMPTY;
+        String[] keys = ll.keySet().toArray(new String[0]);
+        String[] values = new String[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            values[i] = ll.get(keys[i]);
+        }
+        Sample[] ss = new Sample[samples.length];
+        int size = 0;
+        for (Sample sample : samples) {
+            boolean matched = true;
+            for (int i = 0; i < keys.length && matched; i++) {
+                matched = op.apply(sample.labels.getOrDefault(keys[i], ""), values[i]);
+            }
+            if (matched) {
+                ss[size++] = sample;
+            }
+        }
+        if (size == 0) {
+            return EMPTY;
+        }
+        return SampleFamily.build(this.context, size == ss.length ? ss : Arrays.copyOf(ss, size));
     }
 
     private SampleFamily valueMatch(CompType compType,
@@ -876,11 +909,11 @@ public class SampleFamily {
         }
 
         private static ImmutableMap<String, String> getLabels(final List<String> labelKeys, final Sample sample) {
-            return labelKeys.stream()
-                            .collect(toImmutableMap(
-                                Function.identity(),
-                                labelKey -> sample.labels.getOrDefault(labelKey, "")
-                            ));
+            ImmutableMap.Builder<String, String> labels = ImmutableMap.builderWithExpectedSize(labelKeys.size());
+            for (String labelKey : labelKeys) {
+                labels.put(labelKey, sample.labels.getOrDefault(labelKey, ""));
+            }
+            return labels.build();
         }
 
         private static ImmutableMap<String, String> groupByExcludedLabel(final String excludedLabelKey, final Sample sample) {
@@ -18,71 +18,252 @@
 
 package org.apache.skywalking.oap.meter.analyzer.dsl.counter;
 
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.cache.RemovalNotification;
 import com.google.common.collect.ImmutableMap;
 import io.vavr.Tuple;
 import io.vavr.Tuple2;
-import java.util.Map;
-import java.util.PriorityQueue;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentHashMap;
-import lombok.AccessLevel;
-import lombok.EqualsAndHashCode;
-import lombok.RequiredArgsConstructor;
-import lombok.ToString;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.skywalking.oap.server.telemetry.api.CounterMetrics;
+import org.apache.skywalking.oap.server.telemetry.api.GaugeMetrics;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsCreator;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsTag;
+import org.apache.skywalking.oap.server.telemetry.none.MetricsCreatorNoop;
 
 /**
  * CounterWindow stores a series of counter samples in order to calculate the increase
  * or instant rate of increase.
  *
+ * <p>The samples of every series are kept in primitive ring buffers sorted by the timestamp. The number of series and
+ * their idle time are unlimited by default. Once limited, the least recently accessed series are evicted one by one
+ * when the limit is reached, and the series not accessed in the idle timeout expire, so the memory is bounded even when
+ * the labels keep changing, such as the pod names.
  */
-@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
-@ToString
-@EqualsAndHashCode
+@Slf4j
 public class CounterWindow {
 
-    public static final CounterWindow INSTANCE = new CounterWindow();
+    public static final CounterWindow INSTANCE = new CounterWindow(0, 0, Ticker.systemTicker());
 
-    private final Map<ID, Tuple2<Long, Double>> lastElementMap = new ConcurrentHashMap<>();
-    private final Map<ID, Queue<Tuple2<Long, Double>>> windows = new ConcurrentHashMap<>();
+    private static final int INITIAL_CAPACITY = 8;
+    /**
+     * The max number of samples kept in one series, the oldest sample is dropped when the ring is full. 1024 samples
+     * cover more than 4 hours in the 15s scraping interval, but a shorter span in a shorter interval, e.g. about 17
+     * minutes in the 1s interval, then the increase of a longer window is calculated over the kept samples only.
+     */
+    static final int MAX_CAPACITY = 1024;
+
+    private final Ticker ticker;
+    private volatile LoadingCache<ID, Series> windows;
+    private volatile GaugeMetrics seriesGauge;
+    private volatile CounterMetrics evictedCounter;
+    private volatile CounterMetrics droppedSamplesCounter;
+
+    /**
+     * @param maxSeries   the max number of series, non-positive means no limit.
+     * @param idleTimeout the series not accessed in this period expire, non-positive means never. Unit is ms.
+     */
+    CounterWindow(final long maxSeries, final long idleTimeout, final Ticker ticker) {
+        this.ticker = ticker;
+        bindMetrics(new MetricsCreatorNoop());
+        this.windows = newWindows(maxSeries, idleTimeout);
+    }
+
+    /**
+     * Apply the limits and register the self-observability metrics. This is called by the module provider when OAP
+     * starts, before any sample is received, as the tracked series are dropped.
+     *
+     * @param maxSeries   the max number of series, non-positive means no limit.
+     * @param idleTimeout the series not accessed in this period expire, non-positive means never. Unit is ms.
+     */
+    public void configure(final long maxSeries, final long idleTimeout, final MetricsCreator metricsCreator) {
+        bindMetrics(metricsCreator);
+        windows = newWindows(maxSeries, idleTimeout);
+    }
+
+    private LoadingCache<ID, Series> newWindows(final long maxSeries, final long idleTimeout) {
+        final CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().ticker(ticker);
+        if (maxSeries > 0) {
+            builder.maximumSize(maxSeries);
+        }
+        if (idleTimeout > 0) {
+            builder.expireAfterAccess(idleTimeout, TimeUnit.MILLISECONDS);
+        }
+        return builder.removalListener(this::onRemoval).build(CacheLoader.from(id -> {
+            seriesGauge.inc();
+            return new Series();
+        }));
+    }
+
+    private void onRemoval(final RemovalNotification<ID, Series> notification) {
+        seriesGauge.dec();
+        if (notification.wasEvicted()) {
+            evictedCounter.inc();
+            if (log.isDebugEnabled()) {
+                log.debug("Evicted the counter series {} by {}", notification.getKey(), notification.getCause());
+            }
+        }
+    }
+
+    private void bindMetrics(final MetricsCreator metricsCreator) {
+        seriesGauge = metricsCreator.createGauge(
+            "mal_counter_window_series", "The number of counter series tracked by MAL increase and rate functions",
+            MetricsTag.EMPTY_KEY, MetricsTag.EMPTY_VALUE
+        );
+        evictedCounter = metricsCreator.createCounter(
+            "mal_counter_window_evicted_count", "The number of counter series evicted from the MAL counter window",
+            MetricsTag.EMPTY_KEY, MetricsTag.EMPTY_VALUE
+        );
+        droppedSamplesCounter = metricsCreator.createCounter(
+            "mal_counter_window_dropped_samples_count",
+            "The number of samples dropped from the full counter series in the MAL counter window",
+            MetricsTag.EMPTY_KEY, MetricsTag.EMPTY_VALUE
+        );
+    }
 
     public Tuple2<Long, Double> increase(String name, ImmutableMap<String, String> labels, Double value, long windowSize, long now) {
-        ID id = new ID(name, labels);
-        Queue<Tuple2<Long, Double>> window = windows.computeIfAbsent(id, unused -> new PriorityQueue<>());
-        synchronized (window) {
-            window.offer(Tuple.of(now, value));
+        final ID id = new ID(name, labels);
+        Series series = windows.getUnchecked(id);
+        synchronized (series) {
+            if (series.offer(now, value)) {
+                droppedSamplesCounter.inc();
+                if (!series.truncated) {
+                    // Warn once per series, the following drops are only counted.
+                    series.truncated = true;
+                    log.warn(
+                        "The counter series {} has more than {} samples in the window of {} ms, the oldest samples "
+                            + "are dropped and the increase is calculated over the latest {} ms only",
+                        id, MAX_CAPACITY, windowSize, now - series.timestamp(0)
+                    );
+                }
+            }
             long waterLevel = now - windowSize;
-            Tuple2<Long, Double> peek = window.peek();
-            if (peek._1 > waterLevel) {
-                return peek;
+            if (series.timestamp(0) > waterLevel) {
+                return Tuple.of(series.timestamp(0), series.value(0));
             }
 
-            Tuple2<Long, Double> result = peek;
-            while (peek._1 < waterLevel) {
-                result = window.poll();
-                peek = window.element();
+            long resultTimestamp = series.timestamp(0);
+            double resultValue = series.value(0);
+            while (series.timestamp(0) < waterLevel) {
+                resultTimestamp = series.timestamp(0);
+                resultValue = series.value(0);
+                series.poll();
             }
 
             // Choose the closed slot to the expected timestamp
-            if (waterLevel - result._1 <= peek._1 - waterLevel) {
-                return result;
+            if (waterLevel - resultTimestamp <= series.timestamp(0) - waterLevel) {
+                return Tuple.of(resultTimestamp, resultValue);
             }
 
-            return peek;
+            return Tuple.of(series.timestamp(0), series.value(0));
         }
     }
 
     public Tuple2<Long, Double> pop(String name, ImmutableMap<String, String> labels, Double value, long now) {
-        ID id = new ID(name, labels);
-
-        Tuple2<Long, Double> element = Tuple.of(now, value);
-        Tuple2<Long, Double> result = lastElementMap.put(id, element);
-        if (result == null) {
-            return element;
+        Series series = windows.getUnchecked(new ID(name, labels));
+        synchronized (series) {
+            if (!series.hasLast) {
+                series.hasLast = true;
+                series.lastTimestamp = now;
+                series.lastValue = value;
+                return Tuple.of(now, value);
+            }
+            Tuple2<Long, Double> result = Tuple.of(series.lastTimestamp, series.lastValue);
+            series.lastTimestamp = now;
+            series.lastValue = value;
+            return result;
         }
-        return result;
     }
 
     public void reset() {
-        windows.clear();
+        windows.invalidateAll();
+    }
+
+    long size() {
+        windows.cleanUp();
+        return windows.size();
+    }
+
+    /**
+     * The samples of one counter series, in a ring buffer sorted by the timestamp, and the last sample for the instant
+     * rate.
+     */
+    private static final class Series {
+        private long[] timestamps = new long[INITIAL_CAPACITY];
+        private double[] values = new double[INITIAL_CAPACITY];
+        private int head;
+        private int size;
+
+        /**
+         * The oldest sample has been dropped as the ring is full.
+         */
+        private boolean truncated;
+
+        private boolean hasLast;
+        private long lastTimestamp;
+        private double lastValue;
+
+        private long timestamp(final int index) {
+            return timestamps[(head + index) & (timestamps.length - 1)];
+        }
+
+        private double value(final int index) {
+            return values[(head + index) & (values.length - 1)];
+        }
+
+        private void poll() {
+            head = (head + 1) & (timestamps.length - 1);
+            size--;
+        }
+
+        /**
+         * @return true if the oldest sample is dropped to make room for the new one.
+         */
+        private boolean offer(final long timestamp, final double value) {
+            boolean dropped = false;
+            if (size == timestamps.length) {
+                if (size == MAX_CAPACITY) {
+                    poll();
+                    dropped = true;
+                } else {
+                    grow();
+                }
+            }
+            final int mask = timestamps.length - 1;
+            // The samples mostly arrive in order, only shift the later samples for the out-of-order one.
+            int index = size;
+            while (index > 0 && compare(index - 1, timestamp, value) > 0) {
+                final int from = (head + index - 1) & mask;
+                final int to = (head + index) & mask;
+                timestamps[to] = timestamps[from];
+                values[to] = values[from];
+                index--;
+            }
+            final int slot = (head + index) & mask;
+            timestamps[slot] = timestamp;
+            values[slot] = value;
+            size++;
+            return dropped;
+        }
+
+        private int compare(final int index, final long timestamp, final double value) {
+            final int result = Long.compare(timestamp(index), timestamp);
+            return result != 0 ? result : Double.compare(value(index), value);
+        }
+
+        private void grow() {
+            final long[] newTimestamps = new long[timestamps.length << 1];
+            final double[] newValues = new double[values.length << 1];
+            for (int i = 0; i < size; i++) {
+                newTimestamps[i] = timestamp(i);
+                newValues[i] = value(i);
+            }
+            timestamps = newTimestamps;
+            values = newValues;
+            head = 0;
+        }
     }
 }
@@ -18,17 +18,29 @@
 
 package org.apache.skywalking.oap.meter.analyzer;
 
+import com.google.common.collect.ImmutableMap;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
+import org.apache.skywalking.oap.meter.analyzer.dsl.SampleFamily;
 import org.apache.skywalking.oap.server.core.analysis.meter.MeterSystem;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
 @ExtendWith(MockitoExtension.class)
 public class MetricConvertTest {
 
@@ -196,6 +208,40 @@ public class MetricConvertTest {
 
     }
 
+    @Test
+    public void testDispatchBySampleName() {
+        final List<Analyzer> analyzers = new ArrayList<>();
+        final MetricConvert metricConvert = new MetricConvert(new MockMetricRuleConfig(
+            "meter_test", null, null, null,
+            Arrays.asList(
+                new MockRule("a", "sample_a"),
+                new MockRule("b", "sample_b"),
+                new MockRule("c", "sample_a")
+            ),
+            null
+        ), null) {
+            @Override
+            Analyzer buildAnalyzer(final String metricsName,
+                                   final String filter,
+                                   final String exp,
+                                   final MeterSystem service) {
+                final Analyzer analyzer = mock(Analyzer.class);
+                when(analyzer.getSamples()).thenReturn(Collections.singletonList(exp));
+                analyzers.add(analyzer);
+                return analyzer;
+            }
+        };
+
+        final ImmutableMap<String, SampleFamily> input = ImmutableMap.of(
+            "sample_a", SampleFamily.EMPTY, "sample_x", SampleFamily.EMPTY);
+        metricConvert.toMeter(input);
+
+        final InOrder inOrder = inOrder(analyzers.toArray());
+        inOrder.verify(analyzers.get(0)).analyse(input);
+        inOrder.verify(analyzers.get(2)).analyse(input);
+        verify(analyzers.get(1), never()).analyse(any());
+    }
+
     static class MockMetricConvert extends MetricConvert {
         private String metricsName;
         private String filter;
@@ -17,14 +17,20 @@
 
 package org.apache.skywalking.oap.meter.analyzer.dsl.counter;
 
+import com.google.common.base.Ticker;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import io.vavr.Tuple2;
 import org.junit.jupiter.api.Assertions;
+import org.apache.skywalking.oap.server.telemetry.api.CounterMetrics;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsTag;
+import org.apache.skywalking.oap.server.telemetry.none.MetricsCreatorNoop;
 import org.junit.jupiter.api.Test;
 
 import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static java.time.Instant.parse;
 
@@ -94,4 +100,72 @@ public class CounterWindowTest {
 
         Assertions.assertArrayEquals(new double[] {0, 1d, 2d, 3d, 4d, 0d, 1d, 2d}, actuals, 0.d);
     }
+
+    @Test
+    public void testEvictIdleSeries() {
+        AtomicLong clock = new AtomicLong();
+        CounterWindow window = new CounterWindow(100, 1000, new Ticker() {
+            @Override
+            public long read() {
+                return TimeUnit.MILLISECONDS.toNanos(clock.get());
+            }
+        });
+        window.increase("test", ImmutableMap.of("pod", "a"), 1d, 15_000, 1);
+        window.increase("test", ImmutableMap.of("pod", "b"), 1d, 15_000, 1);
+        Assertions.assertEquals(2, window.size());
+
+        clock.set(900);
+        window.increase("test", ImmutableMap.of("pod", "b"), 2d, 15_000, 2);
+        Assertions.assertEquals(2, window.size());
+
+        clock.set(1500);
+        window.increase("test", ImmutableMap.of("pod", "b"), 3d, 15_000, 3);
+        Assertions.assertEquals(1, window.size());
+    }
+
+    @Test
+    public void testEvictLeastRecentlyAccessedSeries() {
+        CounterWindow window = new CounterWindow(10, 0, Ticker.systemTicker());
+        window.pop("test", ImmutableMap.of("pod", "0"), 0d, 0);
+        for (int i = 1; i <= 100; i++) {
+            window.pop("test", ImmutableMap.of("pod", String.valueOf(i)), (double) i, i);
+            window.pop("test", ImmutableMap.of("pod", "0"), (double) i, i);
+            Assertions.assertTrue(window.size() <= 10);
+        }
+        // The series accessed all the time keeps its previous sample.
+        Assertions.assertEquals(100L, window.pop("test", ImmutableMap.of("pod", "0"), 101d, 101)._1);
+    }
+
+    @Test
+    public void testBoundedSamplesPerSeries() {
+        CounterWindow window = new CounterWindow(10, 0, Ticker.systemTicker());
+        AtomicLong dropped = new AtomicLong();
+        window.configure(10, 0, new MetricsCreatorNoop() {
+            @Override
+            public CounterMetrics createCounter(String name, String tips, MetricsTag.Keys tagKeys,
+                                                MetricsTag.Values tagValues) {
+                if (!"mal_counter_window_dropped_samples_count".equals(name)) {
+                    return super.createCounter(name, tips, tagKeys, tagValues);
+                }
+                return new CounterMetrics() {
+                    @Override
+                    public void inc() {
+                        dropped.incrementAndGet();
+                    }
+
+                    @Override
+                    public void inc(double value) {
+                        dropped.addAndGet((long) value);
+                    }
+                };
+            }
+        });
+        Tuple2<Long, Double> increase = null;
+        for (int i = 0; i < CounterWindow.MAX_CAPACITY + 10; i++) {
+            increase = window.increase("test", ImmutableMap.of(), (double) i, Long.MAX_VALUE / 2, i);
+        }
+        Assertions.assertEquals(10L, increase._1);
+        Assertions.assertEquals(10d, increase._2, 0.d);
+        Assertions.assertEquals(10L, dropped.get());
+    }
 }
@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.microbench.core.alarm;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+import org.apache.skywalking.oap.server.core.Const;
+import org.apache.skywalking.oap.server.core.alarm.MetaInAlarm;
+import org.apache.skywalking.oap.server.core.alarm.provider.AlarmRule;
+import org.apache.skywalking.oap.server.core.alarm.provider.RunningRule;
+import org.apache.skywalking.oap.server.core.analysis.TimeBucket;
+import org.apache.skywalking.oap.server.core.analysis.metrics.IntValueHolder;
+import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
+import org.apache.skywalking.oap.server.core.query.enumeration.Scope;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteData;
+import org.apache.skywalking.oap.server.core.source.DefaultScopeDefine;
+import org.apache.skywalking.oap.server.core.storage.StorageID;
+import org.apache.skywalking.oap.server.core.storage.annotation.Column;
+import org.apache.skywalking.oap.server.core.storage.annotation.ValueColumnMetadata;
+import org.apache.skywalking.oap.server.microbench.base.AbstractMicrobenchmark;
+import org.joda.time.DateTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measure {@link RunningRule#check()} of a rule with {@link #windows} entities. Every operation checks all the windows,
+ * so the window checks per second is the score multiplied by {@link #windows}.
+ *
+ * The first expression is evaluated by the compiled expression, and the second one, including the trend operation, is
+ * evaluated by the MQE visitor. When {@link #changed}, the windows move to the next minute, and a new value is added
+ * into every window before each check, otherwise, the windows have not changed since the last check.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Xms4g"})
+public class AlarmCheckBenchmark extends AbstractMicrobenchmark {
+    private static final String METRICS_NAME = "endpoint_percent";
+
+    @Param({"10000", "100000", "1000000"})
+    private int windows;
+
+    @Param({
+        "sum(endpoint_percent < 75) >= 3",
+        "sum(increase(endpoint_percent,2) > 10) >= 1"
+    })
+    private String expression;
+
+    @Param({"true", "false"})
+    private boolean changed;
+
+    private RunningRule runningRule;
+    private MetaInAlarm[] metas;
+    private DateTime time;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        ValueColumnMetadata.INSTANCE.putIfAbsent(
+            METRICS_NAME, "value", Column.ValueDataType.COMMON_VALUE, 0, Scope.Endpoint.getScopeId());
+        AlarmRule alarmRule = new AlarmRule();
+        alarmRule.setAlarmRuleName("endpoint_percent_rule");
+        alarmRule.setExpression(expression);
+        alarmRule.setPeriod(5);
+        alarmRule.setSilencePeriod(3);
+        alarmRule.setMessage("Successful rate of endpoint {name} is lower than 75%");
+        alarmRule.setTags(new HashMap<>());
+        runningRule = new RunningRule(alarmRule);
+
+        metas = new MetaInAlarm[windows];
+        for (int i = 0; i < windows; i++) {
+            metas[i] = new SampleMeta(i);
+        }
+        time = DateTime.now().withSecondOfMinute(0).withMillisOfSecond(0);
+        for (int minute = 0; minute < 5; minute++) {
+            nextMinute();
+        }
+        runningRule.check();
+    }
+
+    @Setup(Level.Invocation)
+    public void nextMinuteIfChanged() {
+        if (changed) {
+            nextMinute();
+        }
+    }
+
+    @Benchmark
+    public void check(Blackhole bh) {
+        bh.consume(runningRule.check());
+    }
+
+    /**
+     * Move the windows to the next minute, and add the value of the minute for every window.
+     */
+    private void nextMinute() {
+        time = time.plusMinutes(1);
+        runningRule.moveTo(time.toLocalDateTime());
+        final long timeBucket = TimeBucket.getMinuteTimeBucket(time.getMillis());
+        for (int i = 0; i < windows; i++) {
+            runningRule.in(metas[i], new SampleMetrics(timeBucket, (i + time.getMinuteOfHour()) % 100));
+        }
+    }
+
+    private static class SampleMeta extends MetaInAlarm {
+        private final String id;
+
+        private SampleMeta(int id) {
+            this.id = "endpoint_" + id;
+        }
+
+        @Override
+        public String getScope() {
+            return "ENDPOINT";
+        }
+
+        @Override
+        public int getScopeId() {
+            return DefaultScopeDefine.ENDPOINT;
+        }
+
+        @Override
+        public String getName() {
+            return id;
+        }
+
+        @Override
+        public String getMetricsName() {
+            return METRICS_NAME;
+        }
+
+        @Override
+        public String getId0() {
+            return id;
+        }
+
+        @Override
+        public String getId1() {
+            return Const.EMPTY_STRING;
+        }
+    }
+
+    private static class SampleMetrics extends Metrics implements IntValueHolder {
+        private final int value;
+
+        private SampleMetrics(long timeBucket, int value) {
+            this.value = value;
+            setTimeBucket(timeBucket);
+        }
+
+        @Override
+        public int getValue() {
+            return value;
+        }
+
+        @Override
+        protected StorageID id0() {
+            return null;
+        }
+
+        @Override
+        public boolean combine(Metrics metrics) {
+            return true;
+        }
+
+        @Override
+        public void calculate() {
+        }
+
+        @Override
+        public Metrics toHour() {
+            return null;
+        }
+
+        @Override
+        public Metrics toDay() {
+            return null;
+        }
+
+        @Override
+        public void deserialize(RemoteData remoteData) {
+        }
+
+        @Override
+        public RemoteData.Builder serialize() {
+            return null;
+        }
+
+        @Override
+        public int remoteHashCode() {
+            return 0;
+        }
+    }
+}
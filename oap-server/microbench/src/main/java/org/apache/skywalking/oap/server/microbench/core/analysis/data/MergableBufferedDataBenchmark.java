@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.microbench.core.analysis.data;
+
+import org.apache.skywalking.oap.server.core.analysis.data.BufferedData;
+import org.apache.skywalking.oap.server.core.analysis.data.MergableBufferedData;
+import org.apache.skywalking.oap.server.core.analysis.data.OpenAddressingMergableBufferedData;
+import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteData;
+import org.apache.skywalking.oap.server.core.storage.StorageID;
+import org.apache.skywalking.oap.server.microbench.base.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the merge buffers of L1 aggregation. Every invocation simulates one L1 flush period, accepting
+ * {@link #samplesPerEntity} metrics for each of the {@link #entities} entities, and then draining the buffer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MergableBufferedDataBenchmark extends AbstractMicrobenchmark {
+    @Param({"1000", "50000"})
+    private int entities;
+
+    @Param({"4"})
+    private int samplesPerEntity;
+
+    private String[] entityIds;
+    private BufferedData<SampleMetrics> hashMapBuffer;
+    private BufferedData<SampleMetrics> openAddressingBuffer;
+
+    @Setup
+    public void setup() {
+        entityIds = new String[entities];
+        for (int i = 0; i < entities; i++) {
+            entityIds[i] = "c2VydmljZS1h.1_ZW5kcG9pbnQ=" + i;
+        }
+        hashMapBuffer = new MergableBufferedData<>();
+        openAddressingBuffer = new OpenAddressingMergableBufferedData<>();
+    }
+
+    @Benchmark
+    public void hashMap(Blackhole bh) {
+        flushPeriod(hashMapBuffer, bh);
+    }
+
+    @Benchmark
+    public void openAddressing(Blackhole bh) {
+        flushPeriod(openAddressingBuffer, bh);
+    }
+
+    private void flushPeriod(BufferedData<SampleMetrics> buffer, Blackhole bh) {
+        for (int round = 0; round < samplesPerEntity; round++) {
+            for (final String entityId : entityIds) {
+                buffer.accept(new SampleMetrics(entityId));
+            }
+        }
+        buffer.drain(bh::consume);
+    }
+
+    private static class SampleMetrics extends Metrics {
+        private final String entityId;
+        private long value = 1;
+
+        private SampleMetrics(String entityId) {
+            this.entityId = entityId;
+            setTimeBucket(202412011200L);
+        }
+
+        @Override
+        protected StorageID id0() {
+            return new StorageID().append(TIME_BUCKET, getTimeBucket()).append(ENTITY_ID, entityId);
+        }
+
+        @Override
+        public boolean combine(Metrics metrics) {
+            value += ((SampleMetrics) metrics).value;
+            return true;
+        }
+
+        @Override
+        public void calculate() {
+        }
+
+        @Override
+        public Metrics toHour() {
+            return null;
+        }
+
+        @Override
+        public Metrics toDay() {
+            return null;
+        }
+
+        @Override
+        public void deserialize(RemoteData remoteData) {
+        }
+
+        @Override
+        public RemoteData.Builder serialize() {
+            return null;
+        }
+
+        @Override
+        public int remoteHashCode() {
+            return entityId.hashCode();
+        }
+    }
+}
@@ -40,6 +40,7 @@ import org.openjdk.jmh.infra.Blackhole;
 @BenchmarkMode({Mode.Throughput})
 @Threads(4)
 public class RegexVSQuickMatchBenchmark extends AbstractMicrobenchmark {
+    private static final int RULES_10K = 10_000;
 
     @State(Scope.Benchmark)
     public static class RegexMatch {
@@ -93,6 +94,39 @@ public class RegexVSQuickMatchBenchmark extends AbstractMicrobenchmark {
         }
     }
 
+    /**
+     * 10k rules of one service, which are compiled into a segment trie by {@link StringFormatGroup}.
+     */
+    @State(Scope.Benchmark)
+    public static class RegexMatch10k {
+        private final EndpointGroupingRule rule = new EndpointGroupingRule();
+
+        public RegexMatch10k() {
+            for (int i = 0; i < RULES_10K; i++) {
+                rule.addRule("service1", "/sales/{var}/" + i, "/sales/.+/" + i);
+            }
+        }
+
+        public StringFormatGroup.FormatResult match(String serviceName, String endpointName) {
+            return rule.format(serviceName, endpointName);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class QuickMatch10k {
+        private final QuickUriGroupingRule rule = new QuickUriGroupingRule();
+
+        public QuickMatch10k() {
+            for (int i = 0; i < RULES_10K; i++) {
+                rule.addRule("service1", "/sales/{var}/" + i);
+            }
+        }
+
+        public StringFormatGroup.FormatResult match(String serviceName, String endpointName) {
+            return rule.format(serviceName, endpointName);
+        }
+    }
+
     @Benchmark
     public void matchFirstRegex(Blackhole bh, RegexVSQuickMatchBenchmark.RegexMatch formatClass) {
         bh.consume(formatClass.match("service1", "/products/123"));
@@ -122,6 +156,26 @@ public class RegexVSQuickMatchBenchmark extends AbstractMicrobenchmark {
     public void notMatchQuickUriGrouping(Blackhole bh, RegexVSQuickMatchBenchmark.QuickMatch formatClass) {
         bh.consume(formatClass.match("service1", "/employees/123"));
     }
+
+    @Benchmark
+    public void matchLastRegex10k(Blackhole bh, RegexVSQuickMatchBenchmark.RegexMatch10k formatClass) {
+        bh.consume(formatClass.match("service1", "/sales/123/9999"));
+    }
+
+    @Benchmark
+    public void matchLastQuickUriGrouping10k(Blackhole bh, RegexVSQuickMatchBenchmark.QuickMatch10k formatClass) {
+        bh.consume(formatClass.match("service1", "/sales/123/9999"));
+    }
+
+    @Benchmark
+    public void notMatchRegex10k(Blackhole bh, RegexVSQuickMatchBenchmark.RegexMatch10k formatClass) {
+        bh.consume(formatClass.match("service1", "/employees/123"));
+    }
+
+    @Benchmark
+    public void notMatchQuickUriGrouping10k(Blackhole bh, RegexVSQuickMatchBenchmark.QuickMatch10k formatClass) {
+        bh.consume(formatClass.match("service1", "/employees/123"));
+    }
 }
 
 /**
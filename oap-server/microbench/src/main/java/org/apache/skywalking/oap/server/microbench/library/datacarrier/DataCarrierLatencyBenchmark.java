@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.microbench.library.datacarrier;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.skywalking.oap.server.library.datacarrier.DataCarrier;
+import org.apache.skywalking.oap.server.library.datacarrier.consumer.IConsumer;
+import org.apache.skywalking.oap.server.microbench.base.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * The latency distribution from producing a data to consuming it, with the consume cycle of 20ms as the L1/L2
+ * aggregation pools. The {@code polling} mode is the baseline of draining an {@link ArrayBlockingQueue} and sleeping
+ * the consume cycle when there is nothing, and the {@code event-driven} mode is the {@link DataCarrier} consumer, which
+ * parks until the data is saved.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DataCarrierLatencyBenchmark extends AbstractMicrobenchmark {
+    private static final long CONSUME_CYCLE = 20;
+
+    @Param({"polling", "event-driven"})
+    private String mode;
+
+    private final AtomicLong consumed = new AtomicLong();
+    private long produced;
+    private DataCarrier<Long> carrier;
+    private ArrayBlockingQueue<Long> queue;
+    private volatile boolean running;
+    private Thread pollingConsumer;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        if ("event-driven".equals(mode)) {
+            carrier = new DataCarrier<>("latency-benchmark", 1, 10000);
+            carrier.consume(new IConsumer<Long>() {
+                @Override
+                public void consume(List<Long> data) {
+                    consumed.addAndGet(data.size());
+                }
+
+                @Override
+                public void onError(List<Long> data, Throwable t) {
+                }
+            }, 1, CONSUME_CYCLE);
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(10000);
+        running = true;
+        pollingConsumer = new Thread(() -> {
+            final List<Long> consumeList = new ArrayList<>(1500);
+            while (running) {
+                queue.drainTo(consumeList);
+                if (consumeList.isEmpty()) {
+                    try {
+                        Thread.sleep(CONSUME_CYCLE);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    continue;
+                }
+                consumed.addAndGet(consumeList.size());
+                consumeList.clear();
+            }
+        });
+        pollingConsumer.setDaemon(true);
+        pollingConsumer.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (carrier != null) {
+            carrier.shutdownConsumers();
+        }
+        running = false;
+    }
+
+    @Benchmark
+    public long produceToConsume() throws InterruptedException {
+        produced++;
+        if (carrier != null) {
+            carrier.produce(produced);
+        } else {
+            queue.put(produced);
+        }
+        while (consumed.get() < produced) {
+            Thread.yield();
+        }
+        return produced;
+    }
+}
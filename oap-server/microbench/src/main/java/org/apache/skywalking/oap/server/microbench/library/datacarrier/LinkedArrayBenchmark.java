@@ -18,12 +18,17 @@
 
 package org.apache.skywalking.oap.server.microbench.library.datacarrier;
 
+import org.apache.skywalking.oap.server.library.datacarrier.buffer.BufferStrategy;
+import org.apache.skywalking.oap.server.library.datacarrier.buffer.Channels;
+import org.apache.skywalking.oap.server.library.datacarrier.buffer.QueueBuffer;
+import org.apache.skywalking.oap.server.library.datacarrier.partition.SimpleRollingPartitioner;
 import org.apache.skywalking.oap.server.microbench.base.AbstractMicrobenchmark;
 import org.openjdk.jmh.annotations.Benchmark;
 
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
 
 /**
  * ISSUE-3064
@@ -160,6 +165,29 @@ public class LinkedArrayBenchmark extends AbstractMicrobenchmark {
         }
     }
 
+    private final ArrayBlockingQueue<SampleData> arrayBlockingQueue = new ArrayBlockingQueue<>(40000);
+    private final QueueBuffer<SampleData> mpscBuffer = new Channels<SampleData>(
+        1, 40000, new SimpleRollingPartitioner<>(), BufferStrategy.BLOCKING).getBuffer(0);
+    private final List<SampleData> drainList = new ArrayList<>(40000);
+
+    @Benchmark
+    public void testArrayBlockingQueueDrain40000() throws InterruptedException {
+        for (int pos = 0; pos < 40000; pos++) {
+            arrayBlockingQueue.put(new SampleData());
+        }
+        arrayBlockingQueue.drainTo(drainList);
+        drainList.clear();
+    }
+
+    @Benchmark
+    public void testMpscBufferDrain40000() {
+        for (int pos = 0; pos < 40000; pos++) {
+            mpscBuffer.save(new SampleData());
+        }
+        mpscBuffer.obtain(drainList);
+        drainList.clear();
+    }
+
     /**
      * Test Data
      */
@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.microbench.log.analyzer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.skywalking.apm.network.common.v3.KeyStringValuePair;
+import org.apache.skywalking.apm.network.logging.v3.LogData;
+import org.apache.skywalking.apm.network.logging.v3.LogDataBody;
+import org.apache.skywalking.apm.network.logging.v3.LogTags;
+import org.apache.skywalking.apm.network.logging.v3.TextLog;
+import org.apache.skywalking.oap.log.analyzer.provider.LogAnalyzerModuleConfig;
+import org.apache.skywalking.oap.log.analyzer.provider.log.LogAnalyzer;
+import org.apache.skywalking.oap.log.analyzer.provider.log.LogAnalyzerServiceImpl;
+import org.apache.skywalking.oap.log.analyzer.provider.log.listener.LogFilterListener;
+import org.apache.skywalking.oap.server.core.CoreModule;
+import org.apache.skywalking.oap.server.core.CoreModuleConfig;
+import org.apache.skywalking.oap.server.core.analysis.DispatcherDetectorListener;
+import org.apache.skywalking.oap.server.core.analysis.meter.MeterSystem;
+import org.apache.skywalking.oap.server.core.config.ConfigService;
+import org.apache.skywalking.oap.server.core.config.NamingControl;
+import org.apache.skywalking.oap.server.core.config.group.EndpointNameGrouping;
+import org.apache.skywalking.oap.server.core.source.ISource;
+import org.apache.skywalking.oap.server.core.source.SourceReceiver;
+import org.apache.skywalking.oap.server.library.module.ModuleManager;
+import org.apache.skywalking.oap.server.library.module.ModuleProviderHolder;
+import org.apache.skywalking.oap.server.library.module.ModuleServiceHolder;
+import org.apache.skywalking.oap.server.library.module.Service;
+import org.apache.skywalking.oap.server.microbench.base.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Analyze a batch of NGINX access/error logs and general logs with the bundled {@code default} and {@code nginx} LAL
+ * rules. {@link #perLogAnalyzer()} creates the analyzer, the listeners and the bindings for every log, as before the
+ * analysis contexts were reused, {@link #reusedAnalyzer()} analyzes the batch with the thread-confined analyzer of
+ * {@link LogAnalyzerServiceImpl}.
+ *
+ * <p>Run it as a unit test, the LAL rules are loaded from the classpath directory.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class LogAnalyzerBenchmark extends AbstractMicrobenchmark {
+    @Param({"100"})
+    private int batchSize;
+
+    private ModuleManager moduleManager;
+    private LogAnalyzerModuleConfig config;
+    private LogAnalyzerServiceImpl analyzerService;
+    private List<LogData.Builder> logs;
+
+    @Setup
+    public void setup() throws Exception {
+        moduleManager = new CoreServicesModuleManager();
+        config = new LogAnalyzerModuleConfig();
+        config.setLalFiles("default,nginx");
+
+        analyzerService = new LogAnalyzerServiceImpl(moduleManager, config);
+        analyzerService.addListenerFactory(new LogFilterListener.Factory(moduleManager, config));
+
+        final long now = System.currentTimeMillis();
+        logs = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            final LogData.Builder log = LogData.newBuilder()
+                                               .setService("nginx-" + i % 5)
+                                               .setServiceInstance("nginx-" + i % 5 + "-instance")
+                                               .setTimestamp(now);
+            switch (i % 3) {
+                case 0:
+                    log.setLayer("NGINX")
+                       .setTags(tags("NGINX_ACCESS_LOG"))
+                       .setBody(text("172.18.0.1 - - [18/Oct/2026:13:35:47 +0000] \"GET /index.html HTTP/1.1\" 200 612 \"-\" \"curl/7.81.0\""));
+                    break;
+                case 1:
+                    log.setLayer("NGINX")
+                       .setTags(tags("NGINX_ERROR_LOG"))
+                       .setBody(text("2026/10/18 13:35:47 [error] 29#29: *1 open() \"/usr/share/nginx/html/404.html\" failed (2: No such file or directory)"));
+                    break;
+                default:
+                    log.setBody(text("2026-10-18 13:35:47.123 [TID:N/A] [main] INFO  o.a.s.o.s.s.OAPServerBootstrap - Started"));
+            }
+            logs.add(log);
+        }
+    }
+
+    @Benchmark
+    public void perLogAnalyzer() {
+        for (final LogData.Builder log : logs) {
+            new LogAnalyzer(moduleManager, config, analyzerService).doAnalysis(log, null);
+        }
+    }
+
+    @Benchmark
+    public void reusedAnalyzer() {
+        analyzerService.doAnalysis(logs);
+    }
+
+    private static LogTags tags(final String logKind) {
+        return LogTags.newBuilder()
+                      .addData(KeyStringValuePair.newBuilder().setKey("LOG_KIND").setValue(logKind))
+                      .build();
+    }
+
+    private static LogDataBody text(final String text) {
+        return LogDataBody.newBuilder().setText(TextLog.newBuilder().setText(text)).build();
+    }
+
+    /**
+     * ModuleManager providing the core services used by the LAL rules, the sources are dropped, so the benchmark only
+     * covers the log analysis.
+     */
+    private static class CoreServicesModuleManager extends ModuleManager {
+        private final Map<Class<? extends Service>, Service> services = new HashMap<>();
+        private final ModuleServiceHolder serviceHolder = new ModuleServiceHolder() {
+            @Override
+            public void registerServiceImplementation(final Class<? extends Service> serviceType,
+                                                      final Service service) {
+                services.put(serviceType, service);
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T extends Service> T getService(final Class<T> serviceType) {
+                return (T) services.get(serviceType);
+            }
+        };
+
+        private CoreServicesModuleManager() {
+            super("LogAnalyzerBenchmark");
+            serviceHolder.registerServiceImplementation(SourceReceiver.class, new NoopSourceReceiver());
+            serviceHolder.registerServiceImplementation(
+                NamingControl.class, new NamingControl(512, 512, 512, new EndpointNameGrouping()));
+            serviceHolder.registerServiceImplementation(
+                ConfigService.class, new ConfigService(new CoreModuleConfig(), null));
+            serviceHolder.registerServiceImplementation(MeterSystem.class, new MeterSystem(this));
+        }
+
+        @Override
+        public boolean has(final String moduleName) {
+            return CoreModule.NAME.equals(moduleName);
+        }
+
+        @Override
+        public ModuleProviderHolder find(final String moduleName) {
+            return () -> serviceHolder;
+        }
+    }
+
+    private static class NoopSourceReceiver implements SourceReceiver {
+        @Override
+        public void receive(final ISource source) {
+        }
+
+        @Override
+        public DispatcherDetectorListener getDispatcherDetectorListener() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.microbench.log.analyzer;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.apache.skywalking.oap.log.analyzer.dsl.spec.parser.grok.Grok;
+import org.apache.skywalking.oap.log.analyzer.dsl.spec.parser.grok.GrokPattern;
+import org.apache.skywalking.oap.server.microbench.base.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Parse the NGINX, Envoy and syslog samples with the grok patterns of the LAL text parser, and with the equivalent
+ * hand-written {@code regexp} rules. Both read all the captured fields, as the extractors of the rules do.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TextParserBenchmark extends AbstractMicrobenchmark {
+    @Param({"nginx", "envoy", "syslog"})
+    private String sample;
+
+    private String text;
+    private Pattern regexp;
+    private String[] groups;
+    private GrokPattern grok;
+
+    @Setup
+    public void setup() {
+        switch (sample) {
+            case "nginx":
+                text = "172.18.0.1 - - [18/Oct/2026:13:35:47 +0000] \"GET /api/v1/users?page=2 HTTP/1.1\" 200 612 "
+                    + "\"http://frontend/users\" \"Mozilla/5.0 (X11; Linux x86_64) Chrome/118.0.0.0\"";
+                regexp = Pattern.compile(
+                    "(?<clientip>.+?) (?<ident>.+?) (?<auth>.+?) \\[(?<timestamp>.+?)] \"(?<verb>.+?) (?<request>.+?) "
+                        + "HTTP/(?<httpversion>.+?)\" (?<response>\\d{3}) (?<bytes>\\d+|-) \"(?<referrer>.*?)\" "
+                        + "\"(?<agent>.*?)\"");
+                groups = new String[] {
+                    "clientip", "ident", "auth", "timestamp", "verb", "request", "httpversion", "response", "bytes",
+                    "referrer", "agent"
+                };
+                grok = Grok.builtIn().compile("%{COMBINEDAPACHELOG}");
+                break;
+            case "envoy":
+                text = "[2026-10-18T13:35:47.123Z] \"POST /checkout HTTP/1.1\" 503 UF 128 91 25 - \"10.0.0.5\" "
+                    + "\"okhttp/4.9.3\" \"5f1b9c1e-3b7a-4f6e-9c1d-2a7e8b6c4d3f\" \"checkout:8080\" \"10.0.3.7:8080\"";
+                regexp = Pattern.compile(
+                    "\\[(?<timestamp>.+?)] \"(?<method>.+?) (?<path>.+?) (?<protocol>.+?)\" (?<status>\\d+) "
+                        + "(?<flags>.+?) (?<received>\\d+) (?<sent>\\d+) (?<duration>\\d+) (?<upstreamTime>.+?) "
+                        + "\"(?<forwardedFor>.*?)\" \"(?<userAgent>.*?)\" \"(?<requestId>.*?)\" \"(?<authority>.*?)\" "
+                        + "\"(?<upstreamHost>.*?)\"");
+                groups = new String[] {
+                    "timestamp", "method", "path", "protocol", "status", "flags", "received", "sent", "duration",
+                    "upstreamTime", "forwardedFor", "userAgent", "requestId", "authority", "upstreamHost"
+                };
+                grok = Grok.builtIn().compile(
+                    "\\[%{TIMESTAMP_ISO8601:timestamp}\\] \"%{WORD:method} %{NOTSPACE:path} %{NOTSPACE:protocol}\" "
+                        + "%{INT:status} %{NOTSPACE:flags} %{INT:received} %{INT:sent} %{INT:duration} "
+                        + "%{NOTSPACE:upstreamTime} %{QS:forwardedFor} %{QS:userAgent} %{QS:requestId} "
+                        + "%{QS:authority} %{QS:upstreamHost}");
+                break;
+            case "syslog":
+                text = "Oct 18 13:35:47 oap-0 sshd[1024]: Accepted publickey for root from 10.0.0.1 port 52222 ssh2";
+                regexp = Pattern.compile(
+                    "(?<timestamp>\\w+ +\\d+ \\d{2}:\\d{2}:\\d{2}) (?<logsource>.+?) (?<program>.+?)"
+                        + "(?:\\[(?<pid>\\d+)])?: (?<message>.*)");
+                groups = new String[] {"timestamp", "logsource", "program", "pid", "message"};
+                grok = Grok.builtIn().compile("%{SYSLOGLINE}");
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown sample " + sample);
+        }
+    }
+
+    @Benchmark
+    public void regexp(final Blackhole bh) {
+        final Matcher matcher = regexp.matcher(text);
+        if (matcher.find()) {
+            for (final String group : groups) {
+                bh.consume(matcher.group(group));
+            }
+        }
+    }
+
+    @Benchmark
+    public void grok(final Blackhole bh) {
+        final Map<String, Object> parsed = grok.match(text);
+        if (parsed != null) {
+            for (final Object value : parsed.values()) {
+                bh.consume(value);
+            }
+        }
+    }
+}
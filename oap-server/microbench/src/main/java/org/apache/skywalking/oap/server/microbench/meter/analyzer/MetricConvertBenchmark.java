@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.microbench.meter.analyzer;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.skywalking.oap.meter.analyzer.Analyzer;
+import org.apache.skywalking.oap.meter.analyzer.MetricConvert;
+import org.apache.skywalking.oap.meter.analyzer.MetricRuleConfig;
+import org.apache.skywalking.oap.meter.analyzer.dsl.Sample;
+import org.apache.skywalking.oap.meter.analyzer.dsl.SampleFamily;
+import org.apache.skywalking.oap.meter.analyzer.dsl.SampleFamilyBuilder;
+import org.apache.skywalking.oap.meter.analyzer.prometheus.rule.Rule;
+import org.apache.skywalking.oap.meter.analyzer.prometheus.rule.Rules;
+import org.apache.skywalking.oap.server.core.analysis.meter.MeterEntity;
+import org.apache.skywalking.oap.server.core.analysis.meter.MeterSystem;
+import org.apache.skywalking.oap.server.core.analysis.meter.ScopeType;
+import org.apache.skywalking.oap.server.core.analysis.meter.function.AcceptableValue;
+import org.apache.skywalking.oap.server.core.config.NamingControl;
+import org.apache.skywalking.oap.server.core.config.group.EndpointNameGrouping;
+import org.apache.skywalking.oap.server.core.storage.type.StorageBuilder;
+import org.apache.skywalking.oap.server.library.module.ModuleManager;
+import org.apache.skywalking.oap.server.microbench.base.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Dispatch one push of the samples of {@link #pushedRule} to the MAL rules of all of the bundled otel-rules, the same
+ * as the OpenTelemetry receiver does. {@link #scanAll()} runs every analyzer of every rule for the push, as before the
+ * sample name index was introduced, {@link #indexed()} runs {@link MetricConvert#toMeter(ImmutableMap)}, which only
+ * runs the analyzers consuming the pushed samples.
+ *
+ * <p>Run it as a unit test, the otel-rules are loaded from the classpath directory.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MetricConvertBenchmark extends AbstractMicrobenchmark {
+    @Param({"mysql/mysql-instance"})
+    private String pushedRule;
+
+    @Param({"10"})
+    private int instances;
+
+    private List<MetricConvert> metricConverts;
+    private List<Analyzer> analyzers;
+    private ImmutableMap<String, SampleFamily> push;
+
+    @Setup
+    public void setup() throws Exception {
+        MeterEntity.setNamingControl(new NamingControl(512, 512, 512, new EndpointNameGrouping()));
+        final MeterSystem meterSystem = new NoopMeterSystem();
+        final List<Rule> rules = Rules.loadRules("otel-rules", Collections.singletonList("**"));
+
+        metricConverts = new ArrayList<>(rules.size());
+        analyzers = new ArrayList<>();
+        final Set<String> pushedSamples = new LinkedHashSet<>();
+        for (final Rule rule : rules) {
+            metricConverts.add(new MetricConvert(rule, meterSystem));
+            for (final MetricRuleConfig.RuleConfig metricsRule : rule.getMetricsRules()) {
+                final Analyzer analyzer = Analyzer.build(
+                    rule.getMetricPrefix() + "_" + metricsRule.getName(),
+                    rule.getFilter(),
+                    formatExp(rule.getExpPrefix(), rule.getExpSuffix(), metricsRule.getExp()),
+                    meterSystem
+                );
+                analyzers.add(analyzer);
+                if (rule.getName().equals(pushedRule)) {
+                    pushedSamples.addAll(analyzer.getSamples());
+                }
+            }
+        }
+        if (pushedSamples.isEmpty()) {
+            throw new IllegalArgumentException("No samples are consumed by " + pushedRule);
+        }
+
+        final long now = System.currentTimeMillis();
+        final ImmutableMap.Builder<String, SampleFamily> builder = ImmutableMap.builder();
+        for (final String name : pushedSamples) {
+            final Sample[] samples = new Sample[instances];
+            for (int i = 0; i < instances; i++) {
+                samples[i] = Sample.builder()
+                                   .name(name)
+                                   .labels(ImmutableMap.of(
+                                       "job_name", "mysql-monitoring",
+                                       "host_name", "mysql-" + i,
+                                       "service_instance_id", "mysql-" + i + ":9104",
+                                       "command", "select"
+                                   ))
+                                   .value(i + 1)
+                                   .timestamp(now)
+                                   .build();
+            }
+            builder.put(name, SampleFamilyBuilder.newBuilder(samples).build());
+        }
+        push = builder.build();
+    }
+
+    @Benchmark
+    public void scanAll() {
+        for (final Analyzer analyzer : analyzers) {
+            try {
+                analyzer.analyse(push);
+            } catch (Throwable ignored) {
+            }
+        }
+    }
+
+    @Benchmark
+    public void indexed() {
+        for (final MetricConvert metricConvert : metricConverts) {
+            metricConvert.toMeter(push);
+        }
+    }
+
+    /**
+     * The same as the private formatting in {@link MetricConvert}.
+     */
+    private static String formatExp(final String expPrefix, final String expSuffix, final String exp) {
+        String ret = exp;
+        if (!Strings.isNullOrEmpty(expPrefix)) {
+            ret = String.format("(%s.%s)", StringUtils.substringBefore(exp, "."), expPrefix);
+            final String after = StringUtils.substringAfter(exp, ".");
+            if (!Strings.isNullOrEmpty(after)) {
+                ret = String.format("(%s.%s)", ret, after);
+            }
+        }
+        if (!Strings.isNullOrEmpty(expSuffix)) {
+            ret = String.format("(%s).%s", ret, expSuffix);
+        }
+        return ret;
+    }
+
+    /**
+     * MeterSystem dropping the metrics, so the benchmark only covers the MAL analysis.
+     */
+    private static class NoopMeterSystem extends MeterSystem {
+        private NoopMeterSystem() {
+            super(new ModuleManager("MetricConvertBenchmark"));
+        }
+
+        @Override
+        public synchronized <T> void create(final String metricsName,
+                                            final String functionName,
+                                            final ScopeType type) {
+        }
+
+        @Override
+        public <T> AcceptableValue<T> buildMetrics(final String metricsName, final Class<T> dataType) {
+            return new NoopValue<>();
+        }
+
+        @Override
+        public void doStreamingCalculation(final AcceptableValue acceptableValue) {
+        }
+    }
+
+    private static class NoopValue<T> implements AcceptableValue<T> {
+        private long timeBucket;
+
+        @Override
+        public void accept(final MeterEntity entity, final T value) {
+        }
+
+        @Override
+        public AcceptableValue<T> createNew() {
+            return new NoopValue<>();
+        }
+
+        @Override
+        public Class<? extends StorageBuilder> builder() {
+            return null;
+        }
+
+        @Override
+        public void setTimeBucket(final long timeBucket) {
+            this.timeBucket = timeBucket;
+        }
+
+        @Override
+        public long getTimeBucket() {
+            return timeBucket;
+        }
+    }
+}
@@ -18,8 +18,7 @@
 
 package org.apache.skywalking.oap.server.core.alarm.provider;
 
-import java.util.Map;
-import java.util.Set;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.skywalking.oap.server.core.alarm.AlarmCallback;
 import org.apache.skywalking.oap.server.core.alarm.AlarmMessage;
 import org.joda.time.LocalDateTime;
@@ -29,6 +28,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
@@ -41,9 +41,14 @@ public class AlarmCore {
 
     private LocalDateTime lastExecuteTime;
     private AlarmRulesWatcher alarmRulesWatcher;
+    /**
+     * The threads checking the windows of a rule in parallel shards, see {@link RunningRule#check(Executor)}.
+     */
+    private final int checkThreads;
 
-    AlarmCore(AlarmRulesWatcher alarmRulesWatcher) {
+    AlarmCore(AlarmRulesWatcher alarmRulesWatcher, int checkThreads) {
         this.alarmRulesWatcher = alarmRulesWatcher;
+        this.checkThreads = checkThreads;
     }
 
     /**
@@ -53,21 +58,15 @@ public class AlarmCore {
      * @return the matched running rule list, or null if not found.
      */
     public List<RunningRule> findRunningRule(String metricsName) {
-        List<RunningRule> runningRules = new ArrayList<>();
-        for (Map.Entry<String, Set<String>> entry : alarmRulesWatcher.getExprMetricsMap().entrySet()) {
-            if (entry.getValue().contains(metricsName)) {
-                List<RunningRule> found = alarmRulesWatcher.getRunningContext().get(entry.getKey());
-                if (found != null) {
-                    runningRules.addAll(found);
-                }
-            }
-        }
-        return runningRules.size() > 0 ? runningRules : null;
+        return alarmRulesWatcher.getMetricsRunningRules().get(metricsName);
     }
 
     public void start(List<AlarmCallback> allCallbacks) {
         LocalDateTime now = LocalDateTime.now();
         lastExecuteTime = now;
+        final Executor checkExecutor = checkThreads > 1 ? Executors.newFixedThreadPool(
+            checkThreads, new ThreadFactoryBuilder().setNameFormat("AlarmCheck-%d").setDaemon(true).build()
+        ) : Runnable::run;
         Executors.newSingleThreadScheduledExecutor().scheduleAtFixedRate(() -> {
             try {
                 final List<AlarmMessage> alarmMessageList = new ArrayList<>(30);
@@ -82,7 +81,7 @@ public class AlarmCore {
                          */
                         if (checkTime.getSecondOfMinute() > 15) {
                             hasExecute[0] = true;
-                            alarmMessageList.addAll(runningRule.check());
+                            alarmMessageList.addAll(runningRule.check(checkExecutor));
                         }
                     }
                 }));
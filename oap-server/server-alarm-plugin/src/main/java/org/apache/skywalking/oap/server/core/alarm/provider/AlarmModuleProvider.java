@@ -34,6 +34,7 @@ import org.apache.skywalking.oap.server.library.util.ResourceUtils;
 
 public class AlarmModuleProvider extends ModuleProvider {
 
+    private AlarmModuleConfig moduleConfig;
     private NotifyHandler notifyHandler;
     private AlarmRulesWatcher alarmRulesWatcher;
 
@@ -49,13 +50,23 @@ public class AlarmModuleProvider extends ModuleProvider {
 
     @Override
     public ConfigCreator newConfigCreator() {
-        return null;
+        return new ConfigCreator<AlarmModuleConfig>() {
+            @Override
+            public Class type() {
+                return AlarmModuleConfig.class;
+            }
+
+            @Override
+            public void onInitialized(final AlarmModuleConfig initialized) {
+                moduleConfig = initialized;
+            }
+        };
     }
 
     @Override
     public void prepare() throws ServiceNotProvidedException, ModuleStartException {
         alarmRulesWatcher = new AlarmRulesWatcher(new Rules(), this);
-        notifyHandler = new NotifyHandler(alarmRulesWatcher, getManager());
+        notifyHandler = new NotifyHandler(alarmRulesWatcher, getManager(), moduleConfig.getCheckThreads());
         this.registerServiceImplementation(MetricsNotify.class, notifyHandler);
     }
 
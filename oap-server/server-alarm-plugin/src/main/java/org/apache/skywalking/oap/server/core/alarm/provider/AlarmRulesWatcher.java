@@ -55,6 +55,11 @@ public class AlarmRulesWatcher extends ConfigChangeWatcher {
     private volatile Map<AlarmRule, RunningRule> alarmRuleRunningRuleMap;
     @Getter
     private volatile Map<String, Set<String>> exprMetricsMap;
+    /**
+     * The running rules including the metrics, indexed by the metrics name.
+     */
+    @Getter
+    private volatile Map<String, List<RunningRule>> metricsRunningRules;
     private volatile Rules rules;
     private volatile String settingsString;
     private final ReentrantLock lock;
@@ -65,6 +70,7 @@ public class AlarmRulesWatcher extends ConfigChangeWatcher {
         this.runningContext = new HashMap<>();
         this.alarmRuleRunningRuleMap = new HashMap<>();
         this.exprMetricsMap = new HashMap<>();
+        this.metricsRunningRules = new HashMap<>();
         this.settingsString = null;
         this.lock = new ReentrantLock();
         this.notifiedByDynamicConfig = new AtomicBoolean(false);
@@ -109,6 +115,7 @@ public class AlarmRulesWatcher extends ConfigChangeWatcher {
         Map<AlarmRule, RunningRule> newAlarmRuleRunningRuleMap = new HashMap<>();
         Map<String, List<RunningRule>> newRunningContext = new HashMap<>();
         Map<String, Set<String>> newExprMetricsMap = new HashMap<>();
+        Map<String, List<RunningRule>> newMetricsRunningRules = new HashMap<>();
 
         newRules.getRules().forEach(rule -> {
             /*
@@ -125,12 +132,17 @@ public class AlarmRulesWatcher extends ConfigChangeWatcher {
             List<RunningRule> runningRules = newRunningContext.computeIfAbsent(expression, key -> new ArrayList<>());
 
             runningRules.add(runningRule);
+
+            rule.getIncludeMetrics().forEach(
+                metricsName -> newMetricsRunningRules.computeIfAbsent(metricsName, key -> new ArrayList<>())
+                                                     .add(runningRule));
         });
 
         this.rules = newRules;
         this.runningContext = newRunningContext;
         this.alarmRuleRunningRuleMap = newAlarmRuleRunningRuleMap;
         this.exprMetricsMap = newExprMetricsMap;
+        this.metricsRunningRules = newMetricsRunningRules;
         log.info("Update alarm rules to {}", rules);
     }
 
@@ -53,9 +53,9 @@ public class NotifyHandler implements MetricsNotify {
     private final AlarmRulesWatcher alarmRulesWatcher;
     private final ModuleManager manager;
 
-    public NotifyHandler(AlarmRulesWatcher alarmRulesWatcher, ModuleManager manager) {
+    public NotifyHandler(AlarmRulesWatcher alarmRulesWatcher, ModuleManager manager, int checkThreads) {
         this.alarmRulesWatcher = alarmRulesWatcher;
-        core = new AlarmCore(alarmRulesWatcher);
+        core = new AlarmCore(alarmRulesWatcher, checkThreads);
         this.manager = manager;
     }
 
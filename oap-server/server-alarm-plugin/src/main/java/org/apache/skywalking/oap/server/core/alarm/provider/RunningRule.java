@@ -18,20 +18,19 @@
 
 package org.apache.skywalking.oap.server.core.alarm.provider;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
-import lombok.RequiredArgsConstructor;
-import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
 import org.antlr.v4.runtime.CharStreams;
 import org.antlr.v4.runtime.CommonTokenStream;
@@ -43,6 +42,7 @@ import org.apache.skywalking.mqe.rt.type.ExpressionResult;
 import org.apache.skywalking.mqe.rt.type.ExpressionResultType;
 import org.apache.skywalking.mqe.rt.type.MQEValues;
 import org.apache.skywalking.oap.server.core.alarm.provider.expr.rt.AlarmMQEVisitor;
+import org.apache.skywalking.oap.server.core.alarm.provider.expr.rt.CompiledAlarmExpression;
 import org.apache.skywalking.oap.server.core.query.type.debugging.DebuggingTraceContext;
 import org.apache.skywalking.oap.server.library.util.StringUtil;
 import org.apache.skywalking.oap.server.core.alarm.AlarmMessage;
@@ -56,9 +56,6 @@ import org.apache.skywalking.oap.server.core.analysis.metrics.LongValueHolder;
 import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
 import org.apache.skywalking.oap.server.library.util.CollectionUtils;
 import org.joda.time.LocalDateTime;
-import org.joda.time.Minutes;
-import org.joda.time.format.DateTimeFormat;
-import org.joda.time.format.DateTimeFormatter;
 
 import static org.apache.skywalking.oap.server.core.query.type.debugging.DebuggingTraceContext.TRACE_CONTEXT;
 
@@ -67,7 +64,13 @@ import static org.apache.skywalking.oap.server.core.query.type.debugging.Debuggi
  */
 @Slf4j
 public class RunningRule {
-    private static DateTimeFormatter TIME_BUCKET_FORMATTER = DateTimeFormat.forPattern("yyyyMMddHHmm");
+    private static final long MINUTES_PER_DAY = 24 * 60;
+    private static final long NOT_STARTED = Long.MIN_VALUE;
+    /**
+     * The windows are checked in shards of this size, the shards are checked in the executor given to
+     * {@link #check(Executor)}.
+     */
+    static final int CHECK_SHARD_SIZE = 1024;
 
     private final String ruleName;
     private final int period;
@@ -81,15 +84,28 @@ public class RunningRule {
     private final AlarmMessageFormatter formatter;
     private final List<Tag> tags;
     private final Set<String> hooks;
-    private final Set<String> includeMetrics;
+    /**
+     * The names of the metrics in the expression, and their indexes in the windows.
+     */
+    private final String[] metricsNames;
+    private final Map<String, Integer> metricsIndex;
     private final ParseTree exprTree;
+    /**
+     * The compiled expression, or null if the expression is not supported by {@link CompiledAlarmExpression}, then
+     * {@link AlarmMQEVisitor} evaluates it.
+     */
+    private final CompiledAlarmExpression compiledExpression;
     // The additional period is used to calculate the trend.
     private final int additionalPeriod;
 
     public RunningRule(AlarmRule alarmRule) {
         expression = alarmRule.getExpression();
         this.ruleName = alarmRule.getAlarmRuleName();
-        this.includeMetrics = alarmRule.getIncludeMetrics();
+        this.metricsNames = alarmRule.getIncludeMetrics().toArray(new String[0]);
+        this.metricsIndex = new HashMap<>();
+        for (int i = 0; i < metricsNames.length; i++) {
+            metricsIndex.put(metricsNames[i], i);
+        }
         // Init the empty window for alarming rule.
         windows = new ConcurrentHashMap<>();
         period = alarmRule.getPeriod();
@@ -111,6 +127,7 @@ public class RunningRule {
         MQEParser parser = new MQEParser(new CommonTokenStream(lexer));
         parser.addErrorListener(new ParseErrorListener());
         this.exprTree = parser.expression();
+        this.compiledExpression = CompiledAlarmExpression.compile(exprTree, metricsIndex);
         this.additionalPeriod = alarmRule.getMaxTrendRange();
     }
 
@@ -122,7 +139,7 @@ public class RunningRule {
      * @param metrics includes the values.
      */
     public void in(MetaInAlarm meta, Metrics metrics) {
-        if (!includeMetrics.contains(meta.getMetricsName())) {
+        if (!metricsIndex.containsKey(meta.getMetricsName())) {
             //Don't match rule, exit.
             if (log.isTraceEnabled()) {
                 log.trace("Metric name not in the expression, {}-{}", expression, meta.getMetricsName());
@@ -198,16 +215,61 @@ public class RunningRule {
     }
 
     /**
-     * Check the conditions, decide to whether trigger alarm.
+     * Check the conditions in the current thread, decide to whether trigger alarm.
      */
     public List<AlarmMessage> check() {
-        List<AlarmMessage> alarmMessageList = new ArrayList<>(30);
-        List<AlarmEntity> expiredEntityList = new ArrayList<>();
+        return check(Runnable::run);
+    }
 
-        windows.forEach((alarmEntity, window) -> {
+    /**
+     * Check the conditions, decide to whether trigger alarm. The windows are partitioned into shards by entity, and
+     * the shards are checked in the executor when there are more than one.
+     *
+     * @param checkExecutor to check the shards, they are checked in parallel if it runs tasks concurrently.
+     */
+    public List<AlarmMessage> check(Executor checkExecutor) {
+        final List<Map.Entry<AlarmEntity, Window>> entries = new ArrayList<>(windows.entrySet());
+        final List<AlarmMessage> alarmMessageList = new ArrayList<>(30);
+        final List<AlarmEntity> expiredEntityList = new ArrayList<>();
+
+        if (entries.size() <= CHECK_SHARD_SIZE) {
+            check(entries, 0, entries.size(), alarmMessageList, expiredEntityList);
+        } else {
+            final List<CompletableFuture<Void>> shards = new ArrayList<>(entries.size() / CHECK_SHARD_SIZE + 1);
+            final List<List<AlarmMessage>> shardMessages = new ArrayList<>(entries.size() / CHECK_SHARD_SIZE + 1);
+            final List<List<AlarmEntity>> shardExpired = new ArrayList<>(entries.size() / CHECK_SHARD_SIZE + 1);
+            for (int from = 0; from < entries.size(); from += CHECK_SHARD_SIZE) {
+                final int shardFrom = from;
+                final int shardTo = Math.min(entries.size(), from + CHECK_SHARD_SIZE);
+                final List<AlarmMessage> messages = new ArrayList<>();
+                final List<AlarmEntity> expired = new ArrayList<>();
+                shardMessages.add(messages);
+                shardExpired.add(expired);
+                shards.add(CompletableFuture.runAsync(
+                    () -> check(entries, shardFrom, shardTo, messages, expired), checkExecutor));
+            }
+            for (int i = 0; i < shards.size(); i++) {
+                shards.get(i).join();
+                alarmMessageList.addAll(shardMessages.get(i));
+                expiredEntityList.addAll(shardExpired.get(i));
+            }
+        }
+
+        expiredEntityList.forEach(windows::remove);
+        return alarmMessageList;
+    }
+
+    private void check(final List<Map.Entry<AlarmEntity, Window>> entries,
+                       final int from,
+                       final int to,
+                       final List<AlarmMessage> alarmMessageList,
+                       final List<AlarmEntity> expiredEntityList) {
+        for (int i = from; i < to; i++) {
+            final AlarmEntity alarmEntity = entries.get(i).getKey();
+            final Window window = entries.get(i).getValue();
             if (window.isExpired()) {
                 expiredEntityList.add(alarmEntity);
-                return;
+                continue;
             }
 
             Optional<AlarmMessage> alarmMessageOptional = window.checkAlarm();
@@ -226,22 +288,77 @@ public class RunningRule {
                 alarmMessage.setHooks(this.hooks);
                 alarmMessageList.add(alarmMessage);
             }
-        });
+        }
+    }
 
-        expiredEntityList.forEach(windows::remove);
-        return alarmMessageList;
+    /**
+     * Transfer the minute time bucket, in the format of yyyyMMddHHmm, to the minutes since the epoch, through integer
+     * arithmetic.
+     */
+    static long toEpochMinutes(long timeBucket) {
+        final int year = (int) (timeBucket / 100000000);
+        final int month = (int) (timeBucket / 1000000 % 100);
+        final int day = (int) (timeBucket / 10000 % 100);
+        final int hour = (int) (timeBucket / 100 % 100);
+        final int minute = (int) (timeBucket % 100);
+        return LocalDate.of(year, month, day).toEpochDay() * MINUTES_PER_DAY + hour * 60 + minute;
+    }
+
+    static long toEpochMinutes(LocalDateTime time) {
+        return LocalDate.of(time.getYear(), time.getMonthOfYear(), time.getDayOfMonth()).toEpochDay()
+            * MINUTES_PER_DAY + time.getHourOfDay() * 60 + time.getMinuteOfHour();
+    }
+
+    /**
+     * The reverse of {@link #toEpochMinutes(long)}.
+     */
+    static long toTimeBucket(long epochMinutes) {
+        final LocalDate date = LocalDate.ofEpochDay(Math.floorDiv(epochMinutes, MINUTES_PER_DAY));
+        final long minuteOfDay = Math.floorMod(epochMinutes, MINUTES_PER_DAY);
+        return date.getYear() * 100000000L + date.getMonthValue() * 1000000L + date.getDayOfMonth() * 10000L
+            + minuteOfDay / 60 * 100 + minuteOfDay % 60;
     }
 
     /**
      * A metrics window, based on AlarmRule#period. This window slides with time, just keeps the recent N(period)
      * buckets.
+     *
+     * The window keeps the values of the metrics only, rather than the metrics objects. The buckets of every metric are
+     * a ring, of which {@link #end} is the index of the bucket of {@link #endTime}.
+     *
+     * The result of the last check is kept, and reused if the window has not changed since then.
      */
     public class Window {
-        private LocalDateTime endTime;
+        /**
+         * The minutes since the epoch of the latest bucket, or {@link #NOT_STARTED}.
+         */
+        private long endTime = NOT_STARTED;
         private final int additionalPeriod;
         private final int size;
         private int silenceCountdown;
-        private LinkedList<Map<String, Metrics>> values;
+        private int end;
+        /**
+         * The values of the common value metrics, indexed by the metrics index and the bucket.
+         */
+        private final double[][] values;
+        /**
+         * Whether the bucket of {@link #values} has a value.
+         */
+        private final boolean[][] present;
+        /**
+         * The values of the labeled value metrics, indexed by the metrics index and the bucket. Null if there is no
+         * value.
+         */
+        private final DataTable[][] labeledValues;
+        /**
+         * Whether a value is added or dropped since the last check.
+         */
+        private boolean changed = true;
+        /**
+         * Whether the window moved since the last check.
+         */
+        private boolean moved;
+        private boolean lastMatch;
         private ReentrantLock lock = new ReentrantLock();
 
         public Window(int period, int additionalPeriod) {
@@ -249,81 +366,108 @@ public class RunningRule {
             this.size = period + additionalPeriod;
             // -1 means silence countdown is not running.
             silenceCountdown = -1;
-            init();
+            this.values = new double[metricsNames.length][];
+            this.present = new boolean[metricsNames.length][];
+            this.labeledValues = new DataTable[metricsNames.length][];
         }
 
         public void moveTo(LocalDateTime current) {
+            moveTo(toEpochMinutes(current));
+        }
+
+        private void moveTo(long current) {
             lock.lock();
             try {
-                if (endTime == null) {
-                    init();
-                } else {
-                    int minutes = Minutes.minutesBetween(endTime, current).getMinutes();
+                if (endTime != NOT_STARTED) {
+                    long minutes = current - endTime;
                     if (minutes <= 0) {
                         return;
                     }
-                    if (minutes > values.size()) {
+                    if (minutes >= size) {
                         // re-init
-                        init();
+                        changed |= clear();
                     } else {
                         for (int i = 0; i < minutes; i++) {
-                            values.removeFirst();
-                            values.addLast(null);
+                            end = (end + 1) % size;
+                            changed |= clearBucket(end);
                         }
                     }
                 }
                 endTime = current;
+                moved = true;
             } finally {
                 lock.unlock();
             }
             if (log.isTraceEnabled()) {
-                log.trace("Move window {}", transformValues(values));
+                log.trace("Move window {}", this);
             }
         }
 
         public void add(String metricsName, Metrics metrics) {
-            long bucket = metrics.getTimeBucket();
+            final Integer index = metricsIndex.get(metricsName);
+            if (index == null) {
+                return;
+            }
+            double value = 0;
+            DataTable labeledValue = null;
+            if (metrics instanceof LongValueHolder) {
+                value = ((LongValueHolder) metrics).getValue();
+            } else if (metrics instanceof IntValueHolder) {
+                value = ((IntValueHolder) metrics).getValue();
+            } else if (metrics instanceof DoubleValueHolder) {
+                value = ((DoubleValueHolder) metrics).getValue();
+            } else if (metrics instanceof LabeledValueHolder) {
+                labeledValue = ((LabeledValueHolder) metrics).getValue();
+            } else {
+                log.warn("Unsupported metrics {}", metricsName);
+                return;
+            }
 
-            LocalDateTime timeBucket = TIME_BUCKET_FORMATTER.parseLocalDateTime(bucket + "");
+            final long timeBucket = toEpochMinutes(metrics.getTimeBucket());
 
             this.lock.lock();
             try {
-                if (this.endTime == null) {
-                    init();
+                if (this.endTime == NOT_STARTED) {
                     this.endTime = timeBucket;
                 }
-                int minutes = Minutes.minutesBetween(timeBucket, this.endTime).getMinutes();
+                long minutes = this.endTime - timeBucket;
                 //timeBucket > endTime
                 if (minutes < 0) {
                     this.moveTo(timeBucket);
                     minutes = 0;
                 }
 
-                if (minutes >= values.size()) {
+                if (minutes >= size) {
                     // too old data
                     // also should happen, but maybe if agent/probe mechanism time is not right.
                     if (log.isTraceEnabled()) {
                         log.trace(
-                            "Timebucket is {}, endTime is {} and value size is {}", timeBucket, this.endTime,
-                            values.size()
+                            "Timebucket is {}, endTime is {} and value size is {}", metrics.getTimeBucket(),
+                            toTimeBucket(this.endTime), size
                         );
                     }
                     return;
                 }
-                int index = values.size() - minutes - 1;
-                Map<String, Metrics> metricsMap = values.get(index);
-                if (metricsMap == null) {
-                    metricsMap = new HashMap<>();
-                    metricsMap.put(metricsName, metrics);
-                    values.set(index, metricsMap);
+                final int bucket = Math.floorMod(end - (int) minutes, size);
+                if (labeledValue != null) {
+                    if (labeledValues[index] == null) {
+                        labeledValues[index] = new DataTable[size];
+                    }
+                    labeledValues[index][bucket] = labeledValue;
                 } else {
-                    metricsMap.put(metricsName, metrics);
+                    if (values[index] == null) {
+                        values[index] = new double[size];
+                        present[index] = new boolean[size];
+                    }
+                    values[index][bucket] = value;
+                    present[index][bucket] = true;
                 }
+                changed = true;
             } finally {
                 this.lock.unlock();
             }
             if (log.isTraceEnabled()) {
-                log.trace("Add metric {} to window {}", metrics, transformValues(this.values));
+                log.trace("Add metric {} to window {}", metrics, this);
             }
         }
 
@@ -346,11 +490,40 @@ public class RunningRule {
             return Optional.empty();
         }
 
+        /**
+         * The compiled expression is evaluated again only if a value is added or dropped, as moving the window with
+         * the empty buckets has no impact on its result. The expression evaluated by {@link AlarmMQEVisitor} is
+         * evaluated again if the window moved too.
+         */
         private boolean isMatch() {
+            final AlarmMQEVisitor visitor;
+            lock.lock();
+            try {
+                if (compiledExpression != null) {
+                    if (changed) {
+                        lastMatch = compiledExpression.isMatch(values, present, (end + 1) % size, size);
+                        changed = false;
+                    }
+                    moved = false;
+                    return lastMatch;
+                }
+                if (!changed && !moved) {
+                    return lastMatch;
+                }
+                visitor = createVisitor();
+                changed = false;
+                moved = false;
+            } finally {
+                lock.unlock();
+            }
+            lastMatch = isMatch(visitor);
+            return lastMatch;
+        }
+
+        private boolean isMatch(AlarmMQEVisitor visitor) {
             int isMatch = 0;
             try {
                 TRACE_CONTEXT.set(new DebuggingTraceContext(expression, false, false));
-                AlarmMQEVisitor visitor = new AlarmMQEVisitor(this.values, this.endTime, this.additionalPeriod);
                 ExpressionResult parseResult = visitor.visit(exprTree);
                 if (StringUtil.isNotBlank(parseResult.getError())) {
                     log.error("expression:" + expression + " error: " + parseResult.getError());
@@ -401,10 +574,54 @@ public class RunningRule {
             }
         }
 
+        /**
+         * Create the visitor with the values of the window, in the order from the oldest bucket to the latest one. The
+         * lock must be held.
+         */
+        private AlarmMQEVisitor createVisitor() {
+            final List<String> windowTimes = new ArrayList<>(size);
+            final Map<String, Double[]> commonValues = new HashMap<>();
+            final Map<String, DataTable[]> labeledValuesOfMetrics = new HashMap<>();
+            for (int i = size - 1; i >= 0; i--) {
+                windowTimes.add(String.valueOf(toTimeBucket(endTime - i)));
+            }
+            for (int m = 0; m < metricsNames.length; m++) {
+                if (values[m] != null) {
+                    final Double[] ordered = new Double[size];
+                    boolean hasValue = false;
+                    for (int i = 0; i < size; i++) {
+                        final int bucket = (end + 1 + i) % size;
+                        if (present[m][bucket]) {
+                            ordered[i] = values[m][bucket];
+                            hasValue = true;
+                        }
+                    }
+                    if (hasValue) {
+                        commonValues.put(metricsNames[m], ordered);
+                    }
+                }
+                if (labeledValues[m] != null) {
+                    final DataTable[] ordered = new DataTable[size];
+                    boolean hasValue = false;
+                    for (int i = 0; i < size; i++) {
+                        ordered[i] = labeledValues[m][(end + 1 + i) % size];
+                        hasValue = hasValue || ordered[i] != null;
+                    }
+                    if (hasValue) {
+                        labeledValuesOfMetrics.put(metricsNames[m], ordered);
+                    }
+                }
+            }
+            return new AlarmMQEVisitor(windowTimes, commonValues, labeledValuesOfMetrics, this.additionalPeriod);
+        }
+
         public boolean isExpired() {
-            if (this.values != null) {
-                for (Map<String, Metrics> value : this.values) {
-                    if (value != null) {
+            for (int m = 0; m < metricsNames.length; m++) {
+                for (int i = 0; i < size; i++) {
+                    if (present[m] != null && present[m][i]) {
+                        return false;
+                    }
+                    if (labeledValues[m] != null && labeledValues[m][i] != null) {
                         return false;
                     }
                 }
@@ -412,50 +629,57 @@ public class RunningRule {
             return true;
         }
 
-        private void init() {
-            values = new LinkedList<>();
+        /**
+         * @return true if any value is dropped.
+         */
+        private boolean clear() {
+            boolean dropped = false;
             for (int i = 0; i < size; i++) {
-                values.add(null);
+                dropped |= clearBucket(i);
             }
+            return dropped;
         }
-    }
 
-    private LinkedList<Map<String, TraceLogMetric>> transformValues(LinkedList<Map<String, Metrics>> values) {
-        LinkedList<Map<String, TraceLogMetric>> result = new LinkedList<>();
-        for (Map<String, Metrics> value : values) {
-            if (value == null) {
-                result.add(null);
-                continue;
-            }
-            value.forEach((name, m) -> {
-                Map<String, TraceLogMetric> r = new HashMap<>();
-                result.add(r);
-                if (m instanceof LongValueHolder) {
-                    r.put(name, new TraceLogMetric(m.getTimeBucket(), new Number[] {((LongValueHolder) m).getValue()}));
-                } else if (m instanceof IntValueHolder) {
-                    r.put(name, new TraceLogMetric(m.getTimeBucket(), new Number[] {((IntValueHolder) m).getValue()}));
-                } else if (m instanceof DoubleValueHolder) {
-                    r.put(name, new TraceLogMetric(m.getTimeBucket(), new Number[] {((DoubleValueHolder) m).getValue()}));
-                } else if (m instanceof LabeledValueHolder) {
-                    DataTable dt = ((LabeledValueHolder) m).getValue();
-                    TraceLogMetric l = new TraceLogMetric(
-                        m.getTimeBucket(), dt.sortedValues(Comparator.naturalOrder())
-                                             .toArray(new Number[0]));
-                    l.labels = dt.sortedKeys(Comparator.naturalOrder()).toArray(new String[0]);
-                    r.put(name, l);
-                } else {
-                    log.warn("Unsupported metrics {}", m);
+        /**
+         * @return true if any value is dropped.
+         */
+        private boolean clearBucket(int bucket) {
+            boolean dropped = false;
+            for (int m = 0; m < metricsNames.length; m++) {
+                if (present[m] != null) {
+                    dropped |= present[m][bucket];
+                    present[m][bucket] = false;
+                }
+                if (labeledValues[m] != null) {
+                    dropped |= labeledValues[m][bucket] != null;
+                    labeledValues[m][bucket] = null;
                 }
-            });
+            }
+            return dropped;
         }
-        return result;
-    }
 
-    @RequiredArgsConstructor
-    @ToString
-    private static class TraceLogMetric {
-        private final long timeBucket;
-        private final Number[] value;
-        private String[] labels;
+        @Override
+        public String toString() {
+            final StringBuilder builder = new StringBuilder("Window{endTime=");
+            builder.append(endTime == NOT_STARTED ? "none" : String.valueOf(toTimeBucket(endTime)));
+            for (int m = 0; m < metricsNames.length; m++) {
+                builder.append(", ").append(metricsNames[m]).append("=[");
+                for (int i = 0; i < size; i++) {
+                    final int bucket = (end + 1 + i) % size;
+                    if (i > 0) {
+                        builder.append(", ");
+                    }
+                    if (present[m] != null && present[m][bucket]) {
+                        builder.append(values[m][bucket]);
+                    } else if (labeledValues[m] != null && labeledValues[m][bucket] != null) {
+                        builder.append(labeledValues[m][bucket]);
+                    } else {
+                        builder.append("null");
+                    }
+                }
+                builder.append(']');
+            }
+            return builder.append('}').toString();
+        }
     }
 }
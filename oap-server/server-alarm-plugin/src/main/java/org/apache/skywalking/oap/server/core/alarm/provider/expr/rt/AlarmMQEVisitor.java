@@ -20,8 +20,6 @@ package org.apache.skywalking.oap.server.core.alarm.provider.expr.rt;
 
 import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -33,43 +31,41 @@ import org.apache.skywalking.mqe.rt.type.MQEValue;
 import org.apache.skywalking.mqe.rt.type.MQEValues;
 import org.apache.skywalking.oap.server.core.analysis.metrics.DataLabel;
 import org.apache.skywalking.oap.server.core.analysis.metrics.DataTable;
-import org.apache.skywalking.oap.server.core.analysis.metrics.DoubleValueHolder;
-import org.apache.skywalking.oap.server.core.analysis.metrics.IntValueHolder;
-import org.apache.skywalking.oap.server.core.analysis.metrics.LabeledValueHolder;
-import org.apache.skywalking.oap.server.core.analysis.metrics.LongValueHolder;
-import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
 import org.apache.skywalking.mqe.rt.MQEVisitorBase;
 import org.apache.skywalking.oap.server.core.query.enumeration.Step;
 import org.apache.skywalking.oap.server.core.query.type.KeyValue;
 import org.apache.skywalking.oap.server.core.storage.annotation.Column;
 import org.apache.skywalking.oap.server.core.storage.annotation.ValueColumnMetadata;
-import org.apache.skywalking.oap.server.library.util.CollectionUtils;
-import org.joda.time.LocalDateTime;
 
 import static org.apache.skywalking.oap.server.core.storage.query.IMetricsQueryDAO.Util.composeLabelConditions;
 
+/**
+ * AlarmMQEVisitor evaluates the expression of an alarm rule with the values in the window of an entity.
+ */
 @Slf4j
 public class AlarmMQEVisitor extends MQEVisitorBase {
-    private final LinkedList<Map<String, Metrics>> metricsValues;
-    private final Map<String, Map<String, Double>> commonValuesMap;
-    private final Map<String, Map<String, DataTable>> labeledValuesMap;
-    private final int windowSize;
-    private final LocalDateTime endTime;
-    private final ArrayList<String> windowTimes;
+    private final Map<String, Double[]> commonValuesMap;
+    private final Map<String, DataTable[]> labeledValuesMap;
+    private final List<String> windowTimes;
     private final int maxTrendRange;
 
-    public AlarmMQEVisitor(final LinkedList<Map<String, Metrics>> metricsValues,
-                           final LocalDateTime endTime,
+    /**
+     * @param windowTimes    the time buckets of the window, from the oldest to the latest.
+     * @param commonValues   the values of the common value metrics, aligned with the window times. Null means no
+     *                       value in the time bucket.
+     * @param labeledValues  the values of the labeled value metrics, aligned with the window times. Null means no
+     *                       value in the time bucket.
+     * @param maxTrendRange  the max range of the trend operations in the expression.
+     */
+    public AlarmMQEVisitor(final List<String> windowTimes,
+                           final Map<String, Double[]> commonValues,
+                           final Map<String, DataTable[]> labeledValues,
                            final int maxTrendRange) {
         super(Step.MINUTE);
-        this.metricsValues = metricsValues;
-        this.commonValuesMap = new HashMap<>();
-        this.labeledValuesMap = new HashMap<>();
-        this.endTime = endTime;
-        this.windowSize = metricsValues.size();
-        this.windowTimes = initWindowTimes();
+        this.windowTimes = windowTimes;
+        this.commonValuesMap = commonValues;
+        this.labeledValuesMap = labeledValues;
         this.maxTrendRange = maxTrendRange;
-        this.initMetricsValues();
     }
 
     @Override
@@ -88,16 +84,16 @@ public class AlarmMQEVisitor extends MQEVisitorBase {
         //if no data, build empty value MQEValuesList for calculation
         List<MQEValues> mqeValuesList;
         if (dataType == Column.ValueDataType.COMMON_VALUE) {
-            Map<String, Double> timeValues = commonValuesMap.get(metricName);
-            if (CollectionUtils.isEmpty(timeValues)) {
+            Double[] timeValues = commonValuesMap.get(metricName);
+            if (timeValues == null) {
                 mqeValuesList = buildEmptyMQEValuesList();
             } else {
                 mqeValuesList = buildMqeValuesList(timeValues);
             }
         } else if (dataType == Column.ValueDataType.LABELED_VALUE) {
             List<KeyValue> queryLabels = buildLabels(ctx.labelList());
-            Map<String, DataTable> timeValues = labeledValuesMap.get(metricName);
-            if (CollectionUtils.isEmpty(timeValues)) {
+            DataTable[] timeValues = labeledValuesMap.get(metricName);
+            if (timeValues == null) {
                 mqeValuesList = buildEmptyMQEValuesList();
             } else {
                 mqeValuesList = buildLabledMqeValuesList(timeValues, queryLabels);
@@ -140,83 +136,43 @@ public class AlarmMQEVisitor extends MQEVisitorBase {
         return result;
     }
 
-    private ArrayList<String> initWindowTimes() {
-        ArrayList<String> windowTimes = new ArrayList<>();
-        for (int i = this.windowSize - 1; i >= 0; i--) {
-            windowTimes.add(endTime.minusMinutes(i).toString("yyyyMMddHHmm"));
-        }
-        return windowTimes;
-    }
-
-    private void initMetricsValues() {
-        for (Map<String, Metrics> metricsMap : metricsValues) {
-            if (metricsMap == null) {
-                continue;
-            }
-            for (Map.Entry<String, Metrics> entry : metricsMap.entrySet()) {
-                String metricName = entry.getKey();
-                Metrics metrics = entry.getValue();
-                if (metrics instanceof LongValueHolder) {
-                    initCommonMetricValues(metricName, ((LongValueHolder) metrics).getValue(), metrics.getTimeBucket());
-                } else if (metrics instanceof IntValueHolder) {
-                    initCommonMetricValues(metricName, ((IntValueHolder) metrics).getValue(), metrics.getTimeBucket());
-                } else if (metrics instanceof DoubleValueHolder) {
-                    initCommonMetricValues(metricName, ((DoubleValueHolder) metrics).getValue(), metrics.getTimeBucket());
-                } else if (metrics instanceof LabeledValueHolder) {
-                    DataTable values = ((LabeledValueHolder) metrics).getValue();
-                    initLabeledMetricValues(metricName, values, metrics.getTimeBucket());
-                } else {
-                    log.warn("Unsupported metrics {}", metricName);
-                    return;
-                }
-            }
-        }
-    }
-
-    private void initCommonMetricValues(String metricName, double value, long timeBucket) {
-        Map<String, Double> timeValues = commonValuesMap.computeIfAbsent(
-            metricName, v -> new HashMap<>());
-        timeValues.put(String.valueOf(timeBucket), value);
-    }
-
-    private void initLabeledMetricValues(String metricName,
-                                         DataTable values, long timeBucket) {
-        Map<String, DataTable> timeValues = labeledValuesMap.computeIfAbsent(
-            metricName, v -> new HashMap<>());
-        timeValues.put(String.valueOf(timeBucket), values);
-    }
-
-    private List<MQEValues> buildMqeValuesList(Map<String, Double> timeValues) {
+    private List<MQEValues> buildMqeValuesList(Double[] timeValues) {
         List<MQEValues> mqeValuesList = new ArrayList<>();
-            MQEValues mqeValues = new MQEValues();
-            for (String time : windowTimes) {
-                Double metricValue = timeValues.get(time);
-                MQEValue mqeValue = new MQEValue();
-                //use timeBucket as id here
-                mqeValue.setId(time);
-                if (metricValue != null) {
-                    mqeValue.setDoubleValue(metricValue);
-                } else {
-                    mqeValue.setEmptyValue(true);
-                }
-                mqeValues.getValues().add(mqeValue);
+        MQEValues mqeValues = new MQEValues();
+        for (int i = 0; i < windowTimes.size(); i++) {
+            Double metricValue = timeValues[i];
+            MQEValue mqeValue = new MQEValue();
+            //use timeBucket as id here
+            mqeValue.setId(windowTimes.get(i));
+            if (metricValue != null) {
+                mqeValue.setDoubleValue(metricValue);
+            } else {
+                mqeValue.setEmptyValue(true);
             }
-            mqeValuesList.add(mqeValues);
+            mqeValues.getValues().add(mqeValue);
+        }
+        mqeValuesList.add(mqeValues);
 
         return mqeValuesList;
     }
 
-    private List<MQEValues> buildLabledMqeValuesList(Map<String, DataTable> timeValues, List<KeyValue> queryLabels) {
+    private List<MQEValues> buildLabledMqeValuesList(DataTable[] timeValues, List<KeyValue> queryLabels) {
         List<MQEValues> mqeValuesList = new ArrayList<>();
-        List<String> labelConditions = composeLabelConditions(queryLabels, timeValues.values());
+        List<DataTable> dataTables = new ArrayList<>(timeValues.length);
+        for (DataTable dataTable : timeValues) {
+            if (dataTable != null) {
+                dataTables.add(dataTable);
+            }
+        }
+        List<String> labelConditions = composeLabelConditions(queryLabels, dataTables);
         for (String labelCondition : labelConditions) {
             MQEValues mqeValues = new MQEValues();
-            for (String time : windowTimes) {
-                DataTable dataTable = timeValues.getOrDefault(time, new DataTable());
-                Long metricValue = dataTable.get(labelCondition);
+            for (int i = 0; i < windowTimes.size(); i++) {
+                DataTable dataTable = timeValues[i];
+                Long metricValue = dataTable == null ? null : dataTable.get(labelCondition);
                 MQEValue mqeValue = new MQEValue();
                 //use timeBucket as id here
-                mqeValue.setId(time);
+                mqeValue.setId(windowTimes.get(i));
                 if (metricValue != null) {
                     mqeValue.setDoubleValue(metricValue);
                 } else {
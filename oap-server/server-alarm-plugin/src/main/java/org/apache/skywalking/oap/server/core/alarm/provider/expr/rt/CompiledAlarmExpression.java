@@ -0,0 +1,435 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.alarm.provider.expr.rt;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.apache.skywalking.mqe.rt.grammar.MQEParser;
+import org.apache.skywalking.oap.server.core.storage.annotation.Column;
+import org.apache.skywalking.oap.server.core.storage.annotation.ValueColumnMetadata;
+
+/**
+ * CompiledAlarmExpression is the alarm expression compiled into an evaluator tree, which works over the primitive
+ * values of a window directly, rather than walking the parse tree through {@link AlarmMQEVisitor} and building the
+ * MQE values for every entity.
+ *
+ * Only the common value metrics, scalars, binary operations, compare operations and aggregation operations are
+ * supported, whose results are the same as {@link AlarmMQEVisitor}. Other expressions, such as the labeled value
+ * metrics and the trend operations, are not compiled, {@link #compile(ParseTree, Map)} returns null for them.
+ *
+ * The supported operations are aligned by the time buckets, and the aggregations, except LATEST, ignore the order and
+ * the empty values. Hence, the result doesn't change when the window moves, as long as the dropped buckets have no
+ * value.
+ *
+ * @since 10.2.0
+ */
+public class CompiledAlarmExpression {
+    private final Node root;
+    private final int slots;
+    private final ThreadLocal<Frame> frames = new ThreadLocal<>();
+
+    private CompiledAlarmExpression(final Node root, final int slots) {
+        this.root = root;
+        this.slots = slots;
+    }
+
+    /**
+     * @param tree         the parse tree of the alarm expression.
+     * @param metricsIndex the indexes of the metrics in the values of the windows.
+     * @return the compiled expression, or null if the expression includes unsupported operations.
+     */
+    public static CompiledAlarmExpression compile(final ParseTree tree, final Map<String, Integer> metricsIndex) {
+        // The root must be a compare operation with single value result, otherwise never matches.
+        if (!(tree instanceof MQEParser.CompareOpContext)) {
+            return null;
+        }
+        final Compiler compiler = new Compiler(metricsIndex);
+        final Node root = compiler.compile((MQEParser.ExpressionContext) tree);
+        if (root == null || root.series) {
+            return null;
+        }
+        return new CompiledAlarmExpression(root, compiler.slots);
+    }
+
+    /**
+     * Evaluate the expression with the values of a window.
+     *
+     * @param values  the values of the metrics, indexed by the metrics index and the bucket. Null if the metric has no
+     *                common value.
+     * @param present whether the bucket of the values has a value.
+     * @param start   the index of the oldest bucket in the ring of the buckets.
+     * @param size    the size of the window.
+     * @return true if the expression matches.
+     */
+    public boolean isMatch(final double[][] values, final boolean[][] present, final int start, final int size) {
+        Frame frame = frames.get();
+        if (frame == null || frame.size != size) {
+            frame = new Frame(slots, size);
+            frames.set(frame);
+        }
+        frame.values = values;
+        frame.present = present;
+        frame.start = start;
+        try {
+            root.eval(frame);
+            return !frame.empty[root.slot][0] && (int) frame.result[root.slot][0] == 1;
+        } finally {
+            frame.values = null;
+            frame.present = null;
+        }
+    }
+
+    private static class Compiler {
+        private final Map<String, Integer> metricsIndex;
+        private int slots;
+
+        private Compiler(final Map<String, Integer> metricsIndex) {
+            this.metricsIndex = metricsIndex;
+        }
+
+        private Node compile(final MQEParser.ExpressionContext ctx) {
+            if (ctx instanceof MQEParser.ParensOpContext) {
+                return compile(((MQEParser.ParensOpContext) ctx).expression());
+            }
+            if (ctx instanceof MQEParser.ExprNodeContext) {
+                final MQEParser.ExpressionNodeContext node = ((MQEParser.ExprNodeContext) ctx).expressionNode();
+                if (node.scalar() != null) {
+                    return new ScalarNode(slots++, Double.parseDouble(node.scalar().getText()));
+                }
+                return compileMetric(node.metric());
+            }
+            if (ctx instanceof MQEParser.AddSubOpContext) {
+                final MQEParser.AddSubOpContext op = (MQEParser.AddSubOpContext) ctx;
+                return compileBinary(op.expression(0), op.expression(1), op.addSub().getStart().getType(), false);
+            }
+            if (ctx instanceof MQEParser.MulDivModOpContext) {
+                final MQEParser.MulDivModOpContext op = (MQEParser.MulDivModOpContext) ctx;
+                return compileBinary(op.expression(0), op.expression(1), op.mulDivMod().getStart().getType(), false);
+            }
+            if (ctx instanceof MQEParser.CompareOpContext) {
+                final MQEParser.CompareOpContext op = (MQEParser.CompareOpContext) ctx;
+                return compileBinary(op.expression(0), op.expression(1), op.compare().getStart().getType(), true);
+            }
+            if (ctx instanceof MQEParser.AggregationOpContext) {
+                final MQEParser.AggregationOpContext op = (MQEParser.AggregationOpContext) ctx;
+                final int opType = op.aggregation().getStart().getType();
+                final Node child = compile(op.expression());
+                if (child == null) {
+                    return null;
+                }
+                // LATEST can only be used in time series result.
+                if (opType == MQEParser.LATEST && !child.series) {
+                    return null;
+                }
+                switch (opType) {
+                    case MQEParser.LATEST:
+                    case MQEParser.AVG:
+                    case MQEParser.COUNT:
+                    case MQEParser.SUM:
+                    case MQEParser.MAX:
+                    case MQEParser.MIN:
+                        return new AggregationNode(slots++, opType, child);
+                    default:
+                        return null;
+                }
+            }
+            return null;
+        }
+
+        private Node compileMetric(final MQEParser.MetricContext ctx) {
+            final String metricName = ctx.metricName().getText();
+            final Optional<ValueColumnMetadata.ValueColumn> valueColumn =
+                ValueColumnMetadata.INSTANCE.readValueColumnDefinition(metricName);
+            if (valueColumn.isEmpty() || valueColumn.get().getDataType() != Column.ValueDataType.COMMON_VALUE) {
+                return null;
+            }
+            final Integer index = metricsIndex.get(metricName);
+            return new MetricNode(slots++, index == null ? -1 : index);
+        }
+
+        private Node compileBinary(final MQEParser.ExpressionContext leftCtx,
+                                   final MQEParser.ExpressionContext rightCtx,
+                                   final int opType,
+                                   final boolean compare) {
+            final Node left = compile(leftCtx);
+            if (left == null) {
+                return null;
+            }
+            final Node right = compile(rightCtx);
+            if (right == null) {
+                return null;
+            }
+            return new BinaryNode(slots++, opType, compare, left, right);
+        }
+    }
+
+    /**
+     * The buffers of the evaluation in a thread. Every node writes its result into its slot. The result of the single
+     * value node is the first element of the slot.
+     */
+    private static class Frame {
+        private final int size;
+        private final double[][] result;
+        private final boolean[][] empty;
+        private final double[] compacted;
+        private double[][] values;
+        private boolean[][] present;
+        private int start;
+
+        private Frame(final int slots, final int size) {
+            this.size = size;
+            this.result = new double[slots][size];
+            this.empty = new boolean[slots][size];
+            this.compacted = new double[size];
+        }
+    }
+
+    private abstract static class Node {
+        protected final int slot;
+        /**
+         * True if the result is the time series values, otherwise, the result is a single value.
+         */
+        protected final boolean series;
+
+        private Node(final int slot, final boolean series) {
+            this.slot = slot;
+            this.series = series;
+        }
+
+        abstract void eval(Frame frame);
+
+        protected int length(Frame frame) {
+            return series ? frame.size : 1;
+        }
+    }
+
+    private static class MetricNode extends Node {
+        private final int index;
+
+        private MetricNode(final int slot, final int index) {
+            super(slot, true);
+            this.index = index;
+        }
+
+        @Override
+        void eval(final Frame frame) {
+            final double[] result = frame.result[slot];
+            final boolean[] empty = frame.empty[slot];
+            final double[] values = index < 0 ? null : frame.values[index];
+            if (values == null) {
+                for (int i = 0; i < frame.size; i++) {
+                    result[i] = 0;
+                    empty[i] = true;
+                }
+                return;
+            }
+            final boolean[] present = frame.present[index];
+            for (int i = 0; i < frame.size; i++) {
+                final int bucket = (frame.start + i) % frame.size;
+                result[i] = values[bucket];
+                empty[i] = !present[bucket];
+            }
+        }
+    }
+
+    private static class ScalarNode extends Node {
+        private final double value;
+
+        private ScalarNode(final int slot, final double value) {
+            super(slot, false);
+            this.value = value;
+        }
+
+        @Override
+        void eval(final Frame frame) {
+            frame.result[slot][0] = value;
+            frame.empty[slot][0] = false;
+        }
+    }
+
+    /**
+     * The binary and compare operations, see {@link org.apache.skywalking.mqe.rt.operation.LROp}. The value of the
+     * empty single value is 0, and it is still applied to the time series values.
+     */
+    private static class BinaryNode extends Node {
+        private final int opType;
+        private final boolean compare;
+        private final Node left;
+        private final Node right;
+
+        private BinaryNode(final int slot, final int opType, final boolean compare, final Node left, final Node right) {
+            super(slot, left.series || right.series);
+            this.opType = opType;
+            this.compare = compare;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        void eval(final Frame frame) {
+            left.eval(frame);
+            right.eval(frame);
+            final double[] result = frame.result[slot];
+            final boolean[] empty = frame.empty[slot];
+            final double[] l = frame.result[left.slot];
+            final boolean[] lEmpty = frame.empty[left.slot];
+            final double[] r = frame.result[right.slot];
+            final boolean[] rEmpty = frame.empty[right.slot];
+            if (left.series && right.series) {
+                for (int i = 0; i < frame.size; i++) {
+                    empty[i] = lEmpty[i] || rEmpty[i];
+                    result[i] = empty[i] ? 0 : apply(l[i], r[i]);
+                }
+            } else if (left.series) {
+                for (int i = 0; i < frame.size; i++) {
+                    empty[i] = lEmpty[i];
+                    result[i] = empty[i] ? 0 : apply(l[i], r[0]);
+                }
+            } else if (right.series) {
+                for (int i = 0; i < frame.size; i++) {
+                    empty[i] = rEmpty[i];
+                    result[i] = empty[i] ? 0 : apply(l[0], r[i]);
+                }
+            } else {
+                empty[0] = lEmpty[0] || rEmpty[0];
+                result[0] = empty[0] ? 0 : apply(l[0], r[0]);
+            }
+        }
+
+        private double apply(final double left, final double right) {
+            if (compare) {
+                switch (opType) {
+                    case MQEParser.DEQ:
+                        return left == right ? 1 : 0;
+                    case MQEParser.NEQ:
+                        return left != right ? 1 : 0;
+                    case MQEParser.GT:
+                        return left > right ? 1 : 0;
+                    case MQEParser.LT:
+                        return left < right ? 1 : 0;
+                    case MQEParser.GTE:
+                        return left >= right ? 1 : 0;
+                    case MQEParser.LTE:
+                        return left <= right ? 1 : 0;
+                    default:
+                        return 0;
+                }
+            }
+            switch (opType) {
+                case MQEParser.ADD:
+                    return left + right;
+                case MQEParser.SUB:
+                    return left - right;
+                case MQEParser.MUL:
+                    return left * right;
+                case MQEParser.DIV:
+                    return left / right;
+                case MQEParser.MOD:
+                    return left % right;
+                default:
+                    return 0;
+            }
+        }
+    }
+
+    /**
+     * The aggregation operations, see {@link org.apache.skywalking.mqe.rt.operation.AggregationOp}. The empty values
+     * are ignored, and the sum and average keep the same summation as {@link java.util.stream.DoubleStream}.
+     */
+    private static class AggregationNode extends Node {
+        private final int opType;
+        private final Node child;
+
+        private AggregationNode(final int slot, final int opType, final Node child) {
+            super(slot, false);
+            this.opType = opType;
+            this.child = child;
+        }
+
+        @Override
+        void eval(final Frame frame) {
+            child.eval(frame);
+            final double[] values = frame.result[child.slot];
+            final boolean[] empty = frame.empty[child.slot];
+            final double[] compacted = frame.compacted;
+            final int length = child.length(frame);
+            int count = 0;
+            for (int i = 0; i < length; i++) {
+                if (!empty[i]) {
+                    compacted[count++] = values[i];
+                }
+            }
+
+            boolean resultEmpty = false;
+            double result = 0;
+            switch (opType) {
+                case MQEParser.AVG:
+                    if (count == 0) {
+                        resultEmpty = true;
+                    } else {
+                        result = Arrays.stream(compacted, 0, count).average().getAsDouble();
+                    }
+                    break;
+                case MQEParser.COUNT:
+                    result = count;
+                    break;
+                case MQEParser.SUM:
+                    result = Arrays.stream(compacted, 0, count).sum();
+                    break;
+                case MQEParser.LATEST:
+                    if (count == 0) {
+                        resultEmpty = true;
+                    } else {
+                        result = compacted[count - 1];
+                    }
+                    break;
+                case MQEParser.MAX:
+                    if (count == 0) {
+                        resultEmpty = true;
+                    } else {
+                        result = compacted[0];
+                        for (int i = 1; i < count; i++) {
+                            if (Double.compare(result, compacted[i]) < 0) {
+                                result = compacted[i];
+                            }
+                        }
+                    }
+                    break;
+                case MQEParser.MIN:
+                    if (count == 0) {
+                        resultEmpty = true;
+                    } else {
+                        result = compacted[0];
+                        for (int i = 1; i < count; i++) {
+                            if (Double.compare(result, compacted[i]) > 0) {
+                                result = compacted[i];
+                            }
+                        }
+                    }
+                    break;
+                default:
+                    resultEmpty = true;
+            }
+            frame.result[slot][0] = result;
+            frame.empty[slot][0] = resultEmpty;
+        }
+    }
+}
@@ -29,6 +29,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 
@@ -49,7 +50,7 @@ public class AlarmCoreTest {
 
         Rules emptyRules = new Rules();
         emptyRules.setRules(new ArrayList<>(0));
-        AlarmCore core = new AlarmCore(new AlarmRulesWatcher(emptyRules, null));
+        AlarmCore core = new AlarmCore(new AlarmRulesWatcher(emptyRules, null), 1);
 
         Map<String, List<RunningRule>> runningContext = Whitebox.getInternalState(core, "runningContext");
 
@@ -64,7 +65,7 @@ public class AlarmCoreTest {
                 checkTime.add(LocalDateTime.now());
             }
             return new ArrayList<>(0);
-        }).when(mockRule).check();
+        }).when(mockRule).check(any());
 
         rules.add(mockRule);
         runningContext.put("mock", rules);
@@ -164,6 +164,8 @@ public class AlarmRulesWatcherTest {
         assertNull(alarmRulesWatcher.getRunningContext().get("avg(service_percent) < 80"));
         assertEquals(1, alarmRulesWatcher.getRunningContext().get("avg(service_percent) < 90").size());
         assertEquals(1, alarmRulesWatcher.getRunningContext().get("avg(service_percent) < 99").size());
+        assertEquals(1, alarmRulesWatcher.getMetricsRunningRules().size());
+        assertEquals(2, alarmRulesWatcher.getMetricsRunningRules().get("service_percent").size());
     }
 
     private AlarmRule newAlarmRule(String name, String expression) throws IllegalExpressionException {
@@ -49,6 +49,8 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Running rule is the core of how does alarm work.
@@ -88,13 +90,26 @@ public class RunningRuleTest {
         Map<AlarmEntity, RunningRule.Window> windows = Whitebox.getInternalState(runningRule, "windows");
 
         RunningRule.Window window = windows.get(getAlarmEntity(123));
-        LocalDateTime endTime = Whitebox.getInternalState(window, "endTime");
+        long endTime = Whitebox.getInternalState(window, "endTime");
         int additionalPeriod = Whitebox.getInternalState(window, "additionalPeriod");
-        LinkedList<Metrics> metricsBuffer = Whitebox.getInternalState(window, "values");
+        int size = Whitebox.getInternalState(window, "size");
 
-        Assertions.assertTrue(targetTime.equals(endTime.toDateTime()));
+        Assertions.assertTrue(targetTime.equals(
+            new DateTime(TimeBucket.getTimestamp(RunningRule.toTimeBucket(endTime)))));
         Assertions.assertEquals(5, additionalPeriod);
-        Assertions.assertEquals(15, metricsBuffer.size());
+        Assertions.assertEquals(15, size);
+    }
+
+    @Test
+    public void testTimeBucketConversion() {
+        long timeBucket = 202402282359L;
+        long minutes = RunningRule.toEpochMinutes(timeBucket);
+        Assertions.assertEquals(202402290000L, RunningRule.toTimeBucket(minutes + 1));
+        Assertions.assertEquals(202403010000L, RunningRule.toTimeBucket(minutes + 1 + 24 * 60));
+        Assertions.assertEquals(timeBucket, RunningRule.toTimeBucket(minutes));
+        Assertions.assertEquals(
+            minutes, RunningRule.toEpochMinutes(new LocalDateTime(2024, 2, 28, 23, 59, 30)));
+        Assertions.assertEquals(202312312359L, RunningRule.toTimeBucket(RunningRule.toEpochMinutes(202401010000L) - 1));
     }
 
     @Test
@@ -128,6 +143,44 @@ public class RunningRuleTest {
         Assertions.assertEquals(1, alarmMessages.size());
     }
 
+    @Test
+    public void testShardedCheck() throws IllegalExpressionException {
+        AlarmRule alarmRule = new AlarmRule();
+        alarmRule.setAlarmRuleName("endpoint_percent_rule");
+        alarmRule.setExpression("sum(endpoint_percent < 75) >= 3");
+        alarmRule.getIncludeMetrics().add("endpoint_percent");
+        alarmRule.setPeriod(15);
+        alarmRule.setMessage("Successful rate of endpoint {name} is lower than 75%");
+        alarmRule.setTags(new HashMap<>());
+        RunningRule runningRule = new RunningRule(alarmRule);
+
+        DateTime startTime = DateTime.now();
+        int entities = RunningRule.CHECK_SHARD_SIZE * 3 + 1;
+        for (int id = 0; id < entities; id++) {
+            for (int minutes = 1; minutes <= 3; minutes++) {
+                long timeBucket = TimeBucket.getMinuteTimeBucket(startTime.minusMinutes(minutes).getMillis());
+                runningRule.in(getMetaInAlarm(id), getMetrics(timeBucket, id % 2 == 0 ? 70 : 80));
+            }
+        }
+
+        final ExecutorService checkExecutor = Executors.newFixedThreadPool(2);
+        try {
+            List<AlarmMessage> alarmMessages = runningRule.check(checkExecutor);
+            Assertions.assertEquals(entities / 2 + 1, alarmMessages.size());
+            alarmMessages.forEach(message -> Assertions.assertEquals(0, Integer.parseInt(message.getId0()) % 2));
+            // The windows are not changed, the last results are reused.
+            Assertions.assertEquals(entities / 2 + 1, runningRule.check(checkExecutor).size());
+            Assertions.assertEquals(entities / 2 + 1, runningRule.check().size());
+
+            runningRule.moveTo(startTime.plusMinutes(30).toLocalDateTime());
+            Assertions.assertEquals(0, runningRule.check(checkExecutor).size());
+        } finally {
+            checkExecutor.shutdown();
+        }
+        Map<AlarmEntity, RunningRule.Window> windows = Whitebox.getInternalState(runningRule, "windows");
+        Assertions.assertTrue(windows.isEmpty());
+    }
+
     @Test
     public void testAlarmMetricsOutOfDate() throws IllegalExpressionException {
         AlarmRule alarmRule = new AlarmRule();
@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.alarm.provider.expr.rt;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.apache.skywalking.mqe.rt.grammar.MQELexer;
+import org.apache.skywalking.mqe.rt.grammar.MQEParser;
+import org.apache.skywalking.mqe.rt.type.ExpressionResult;
+import org.apache.skywalking.mqe.rt.type.ExpressionResultType;
+import org.apache.skywalking.oap.server.core.analysis.metrics.DataTable;
+import org.apache.skywalking.oap.server.core.query.enumeration.Scope;
+import org.apache.skywalking.oap.server.core.query.type.debugging.DebuggingTraceContext;
+import org.apache.skywalking.oap.server.core.storage.annotation.Column;
+import org.apache.skywalking.oap.server.core.storage.annotation.ValueColumnMetadata;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.apache.skywalking.oap.server.core.query.type.debugging.DebuggingTraceContext.TRACE_CONTEXT;
+
+public class CompiledAlarmExpressionTest {
+    private static final int SIZE = 6;
+
+    private final Map<String, Integer> metricsIndex = new HashMap<>();
+
+    @BeforeEach
+    public void setup() {
+        ValueColumnMetadata.INSTANCE.putIfAbsent(
+            "endpoint_percent", "testColumn", Column.ValueDataType.COMMON_VALUE, 0, Scope.Endpoint.getScopeId());
+        ValueColumnMetadata.INSTANCE.putIfAbsent(
+            "endpoint_cpm", "testColumn", Column.ValueDataType.COMMON_VALUE, 0, Scope.Endpoint.getScopeId());
+        ValueColumnMetadata.INSTANCE.putIfAbsent(
+            "endpoint_labeled", "testColumn", Column.ValueDataType.LABELED_VALUE, 0, Scope.Endpoint.getScopeId());
+        metricsIndex.put("endpoint_percent", 0);
+        metricsIndex.put("endpoint_cpm", 1);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "sum(endpoint_percent < 75) >= 3",
+        "sum(endpoint_percent < 75) >= 3 bool",
+        "avg(endpoint_percent) > 50",
+        "count(endpoint_percent) == 6",
+        "max(endpoint_percent) >= 90",
+        "min(endpoint_percent) <= 10",
+        "latest(endpoint_percent) > 50",
+        "avg(endpoint_percent / endpoint_cpm * 100) != 0",
+        "sum((endpoint_percent + endpoint_cpm) % 7 > 3) >= 2",
+        "sum(endpoint_percent - avg(endpoint_cpm) > 0) > 2",
+        "max(endpoint_cpm) - min(endpoint_cpm) > 40",
+        "sum(100 - endpoint_percent > 50) >= 1",
+        "avg(endpoint_cpm) > avg(endpoint_percent)",
+        "(max(endpoint_percent) + 1) * 2 > 100"
+    })
+    public void testSameResultAsVisitor(String expression) {
+        final ParseTree tree = parse(expression);
+        final CompiledAlarmExpression compiled = CompiledAlarmExpression.compile(tree, metricsIndex);
+        Assertions.assertNotNull(compiled);
+
+        final Random random = new Random(expression.hashCode());
+        int matched = 0;
+        for (int round = 0; round < 500; round++) {
+            final double[][] values = new double[2][];
+            final boolean[][] present = new boolean[2][];
+            for (int m = 0; m < 2; m++) {
+                // Some windows have no value of the metric at all.
+                if (random.nextInt(10) == 0) {
+                    continue;
+                }
+                values[m] = new double[SIZE];
+                present[m] = new boolean[SIZE];
+                for (int i = 0; i < SIZE; i++) {
+                    present[m][i] = random.nextInt(3) > 0;
+                    values[m][i] = random.nextInt(101);
+                }
+            }
+            final int start = random.nextInt(SIZE);
+            final boolean expected = evaluateByVisitor(tree, values, present, start);
+            Assertions.assertEquals(expected, compiled.isMatch(values, present, start, SIZE), expression);
+            matched += expected ? 1 : 0;
+        }
+        Assertions.assertTrue(matched > 0, expression);
+    }
+
+    @Test
+    public void testUnsupportedExpression() {
+        Assertions.assertNull(CompiledAlarmExpression.compile(parse("sum(increase(endpoint_cpm,2) > 0) >= 1"), metricsIndex));
+        Assertions.assertNull(CompiledAlarmExpression.compile(parse("sum(endpoint_labeled > 10) >= 3"), metricsIndex));
+        Assertions.assertNull(CompiledAlarmExpression.compile(parse("sum(endpoint_not_exist > 10) >= 3"), metricsIndex));
+        Assertions.assertNull(CompiledAlarmExpression.compile(parse("latest(avg(endpoint_cpm)) > 10"), metricsIndex));
+        Assertions.assertNull(CompiledAlarmExpression.compile(parse("sum(endpoint_cpm > 10)"), metricsIndex));
+    }
+
+    private static ParseTree parse(String expression) {
+        MQELexer lexer = new MQELexer(CharStreams.fromString(expression));
+        MQEParser parser = new MQEParser(new CommonTokenStream(lexer));
+        return parser.expression();
+    }
+
+    private static boolean evaluateByVisitor(ParseTree tree, double[][] values, boolean[][] present, int start) {
+        final List<String> windowTimes = new ArrayList<>();
+        final Map<String, Double[]> commonValues = new HashMap<>();
+        final String[] metricsNames = {"endpoint_percent", "endpoint_cpm"};
+        for (int i = 0; i < SIZE; i++) {
+            windowTimes.add(String.valueOf(202401010000L + i));
+        }
+        for (int m = 0; m < metricsNames.length; m++) {
+            if (values[m] == null) {
+                continue;
+            }
+            final Double[] ordered = new Double[SIZE];
+            for (int i = 0; i < SIZE; i++) {
+                final int bucket = (start + i) % SIZE;
+                ordered[i] = present[m][bucket] ? values[m][bucket] : null;
+            }
+            commonValues.put(metricsNames[m], ordered);
+        }
+        try {
+            TRACE_CONTEXT.set(new DebuggingTraceContext("", false, false));
+            final ExpressionResult result = new AlarmMQEVisitor(windowTimes, commonValues, new HashMap<String, DataTable[]>(), 0)
+                .visit(tree);
+            if (result.getError() != null || !result.isBoolResult()
+                || result.getType() != ExpressionResultType.SINGLE_VALUE || result.getResults().isEmpty()) {
+                return false;
+            }
+            return (int) result.getResults().get(0).getValues().get(0).getDoubleValue() == 1;
+        } finally {
+            TRACE_CONTEXT.remove();
+        }
+    }
+}
@@ -50,16 +50,135 @@ public class CoreModuleConfig extends ModuleConfig {
      * The period of L1 aggregation flush. Unit is ms.
      */
     private long l1FlushPeriod = 500;
+    /**
+     * The merge buffer implementation of L1 aggregation for OAL metrics, `HashMap` or `OpenAddressing`.
+     *
+     * @since 10.2.0
+     */
+    private String l1AggregationBufferOAL = "HashMap";
+    /**
+     * The merge buffer implementation of L1 aggregation for MAL metrics, `HashMap` or `OpenAddressing`.
+     *
+     * @since 10.2.0
+     */
+    private String l1AggregationBufferMAL = "HashMap";
+    /**
+     * The number of shards of the L2 aggregation cache per metric. The shards are consumed by different L2 aggregation
+     * threads and drained in parallel in the persistence prepare stage.
+     *
+     * @since 10.2.0
+     */
+    private int l2AggregationShards = 1;
+    /**
+     * The routing of metrics from L1 aggregation to L2 aggregation, `HashCode` or `ConsistentHash`. `HashCode` picks
+     * the OAP node by the hash modulo the cluster size, `ConsistentHash` picks by a consistent hash ring, which moves
+     * only about 1/N of the metrics when the cluster changes. All OAP nodes in the cluster should use the same routing.
+     *
+     * @since 10.2.0
+     */
+    private String l2AggregationRouting = "HashCode";
+    /**
+     * The number of virtual nodes of every OAP node on the consistent hash ring.
+     *
+     * @since 10.2.0
+     */
+    private int l2AggregationRoutingVirtualNodes = 160;
     /**
      * The threshold of session time. Unit is ms. Default value is 70s.
      */
     private long storageSessionTimeout = 70_000;
+    /**
+     * The max estimated bytes of the session cache of every metric without its own budget in
+     * storageSessionCacheModelMaxWeights. The less frequently accessed metrics are evicted when it is over weight, and
+     * read from the database when they are required again. Non-positive means no limit.
+     *
+     * @since 10.2.0
+     */
+    private long storageSessionCacheMaxWeight = 0;
+    /**
+     * The max estimated bytes of the session cache of the specific metrics, in the format of
+     * `metric name:bytes` separated by comma, such as `endpoint_cpm:67108864,endpoint_resp_time:67108864`.
+     *
+     * @since 10.2.0
+     */
+    private String storageSessionCacheModelMaxWeights = "";
+    /**
+     * The directory to checkpoint the session cache into after every persistence round, which is restored when OAP
+     * restarts from a graceful shutdown in the session timeout, to avoid reading all hot metrics from the database
+     * again. Empty means disabled.
+     *
+     * @since 10.2.0
+     */
+    private String storageSessionCacheSnapshotPath = "";
+    /**
+     * The size of the in-memory queue of every record stream, such as segments and logs. The records are inserted into
+     * the storage by the consumer threads, rather than the receiver threads. Non-positive means the records are
+     * inserted synchronously by the receiver threads.
+     *
+     * @since 10.2.0
+     */
+    private int recordPersistentQueueSize = 0;
+    /**
+     * The directory of the spill logs, holding the records overflowing the queue until they are replayed into the
+     * storage. Empty means disabled, and the overflowing records are inserted synchronously.
+     *
+     * @since 10.2.0
+     */
+    private String recordPersistentSpillPath = "";
+    /**
+     * The max bytes of the spill log of every record stream.
+     *
+     * @since 10.2.0
+     */
+    private long recordPersistentSpillMaxSize = 1024L * 1024 * 1024;
     private final List<String> downsampling;
     /**
      * The period of doing data persistence. Unit is second.
      */
     @Setter
     private int persistentPeriod = 25;
+    /**
+     * The max weight of the cache of the immutable metrics buckets in front of the metrics query DAO. Unit is byte.
+     * The bucket is cached once it has been closed for longer than {@link #persistentPeriod} plus
+     * {@link #metricsQueryCacheSafetyMargin}. Non-positive value disables the cache.
+     *
+     * @since 10.2.0
+     */
+    private long metricsQueryCacheMaxWeight = 0;
+    /**
+     * The safety margin after the persistence period, since when the closed bucket is immutable. Unit is second.
+     *
+     * @since 10.2.0
+     */
+    private int metricsQueryCacheSafetyMargin = 300;
+    /**
+     * The max endpoints of every service held by the in-memory endpoint name index, which answers the endpoint search
+     * without the keyword query of the storage. The service having more endpoints is searched through the storage.
+     * Non-positive value disables the index.
+     *
+     * @since 10.2.0
+     */
+    private int endpointNameIndexMaxEndpoints = 100_000;
+    /**
+     * The period of reloading the endpoints of a service into the endpoint name index from the storage, which includes
+     * the endpoints persisted by the other OAP nodes. Unit is second.
+     *
+     * @since 10.2.0
+     */
+    private int endpointNameIndexReloadPeriod = 60;
+    /**
+     * The max services held by the endpoint name index. The services searched beyond it are searched through the
+     * storage. Non-positive value disables the index, which is the default.
+     *
+     * @since 10.2.0
+     */
+    private int endpointNameIndexMaxServices = 0;
+    /**
+     * The services not searched in this period are dropped from the endpoint name index. Unit is minute.
+     *
+     * @since 10.2.0
+     */
+    private int endpointNameIndexIdleTimeout = 30;
 
     private boolean enableDataKeeperExecutor = true;
 
@@ -82,6 +201,13 @@ public class CoreModuleConfig extends ModuleConfig {
      */
 
     private int remoteTimeout = 20;
+    /**
+     * Send the stream data to the other OAP nodes in batches of the same next worker, encoded in the columnar
+     * {@code RemoteMessageBatch}. Only activate this when all OAP nodes of the cluster support it.
+     *
+     * @since 10.2.0
+     */
+    private boolean remoteBatchSerialization = false;
     /**
      * The size of network address alias.
      */
@@ -18,8 +18,12 @@
 
 package org.apache.skywalking.oap.server.core;
 
+import com.google.common.base.Splitter;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import org.apache.skywalking.oap.server.ai.pipeline.AIPipelineModule;
 import org.apache.skywalking.oap.server.ai.pipeline.services.api.HttpUriRecognition;
 import org.apache.skywalking.oap.server.configuration.api.ConfigurationModule;
@@ -27,10 +31,13 @@ import org.apache.skywalking.oap.server.configuration.api.DynamicConfigurationSe
 import org.apache.skywalking.oap.server.core.analysis.ApdexThresholdConfig;
 import org.apache.skywalking.oap.server.core.analysis.DisableRegister;
 import org.apache.skywalking.oap.server.core.analysis.StreamAnnotationListener;
+import org.apache.skywalking.oap.server.core.analysis.data.MergableBufferType;
 import org.apache.skywalking.oap.server.core.analysis.meter.MeterEntity;
 import org.apache.skywalking.oap.server.core.analysis.meter.MeterSystem;
 import org.apache.skywalking.oap.server.core.analysis.metrics.ApdexMetrics;
+import org.apache.skywalking.oap.server.core.analysis.worker.MetricsSessionCacheSnapshot;
 import org.apache.skywalking.oap.server.core.analysis.worker.MetricsStreamProcessor;
+import org.apache.skywalking.oap.server.core.analysis.worker.RecordStreamProcessor;
 import org.apache.skywalking.oap.server.core.analysis.worker.TopNStreamProcessor;
 import org.apache.skywalking.oap.server.core.annotation.AnnotationScan;
 import org.apache.skywalking.oap.server.core.cache.AsyncProfilerTaskCache;
@@ -73,6 +80,7 @@ import org.apache.skywalking.oap.server.core.query.BrowserLogQueryService;
 import org.apache.skywalking.oap.server.core.query.EventQueryService;
 import org.apache.skywalking.oap.server.core.query.HierarchyQueryService;
 import org.apache.skywalking.oap.server.core.query.LogQueryService;
+import org.apache.skywalking.oap.server.core.query.EndpointNameIndex;
 import org.apache.skywalking.oap.server.core.query.MetadataQueryService;
 import org.apache.skywalking.oap.server.core.query.MetricsMetadataQueryService;
 import org.apache.skywalking.oap.server.core.query.MetricsQueryService;
@@ -87,6 +95,7 @@ import org.apache.skywalking.oap.server.core.remote.RemoteServiceHandler;
 import org.apache.skywalking.oap.server.core.remote.client.Address;
 import org.apache.skywalking.oap.server.core.remote.client.RemoteClientManager;
 import org.apache.skywalking.oap.server.core.remote.health.HealthCheckServiceHandler;
+import org.apache.skywalking.oap.server.core.remote.selector.Selector;
 import org.apache.skywalking.oap.server.core.server.GRPCHandlerRegister;
 import org.apache.skywalking.oap.server.core.server.GRPCHandlerRegisterImpl;
 import org.apache.skywalking.oap.server.core.server.HTTPHandlerRegister;
@@ -113,6 +122,7 @@ import org.apache.skywalking.oap.server.library.server.ServerException;
 import org.apache.skywalking.oap.server.library.server.grpc.GRPCServer;
 import org.apache.skywalking.oap.server.library.server.http.HTTPServer;
 import org.apache.skywalking.oap.server.library.server.http.HTTPServerConfig;
+import org.apache.skywalking.oap.server.library.util.StringUtil;
 import org.apache.skywalking.oap.server.telemetry.TelemetryModule;
 import org.apache.skywalking.oap.server.telemetry.api.TelemetryRelatedContext;
 
@@ -136,6 +146,7 @@ public class CoreModuleProvider extends ModuleProvider {
     private ApdexThresholdConfig apdexThresholdConfig;
     private EndpointNameGroupingRuleWatcher endpointNameGroupingRuleWatcher;
     private OALEngineLoaderService oalEngineLoaderService;
+    private EndpointNameIndex endpointNameIndex;
     private LoggingConfigWatcher loggingConfigWatcher;
     private EndpointNameGroupingRule4OpenapiWatcher endpointNameGroupingRule4OpenapiWatcher;
     private EndpointNameGrouping endpointNameGrouping;
@@ -281,7 +292,8 @@ public class CoreModuleProvider extends ModuleProvider {
         this.registerServiceImplementation(IWorkerInstanceGetter.class, instancesService);
         this.registerServiceImplementation(IWorkerInstanceSetter.class, instancesService);
 
-        this.registerServiceImplementation(RemoteSenderService.class, new RemoteSenderService(getManager()));
+        this.registerServiceImplementation(RemoteSenderService.class, new RemoteSenderService(
+            getManager(), moduleConfig.getL2AggregationRoutingVirtualNodes()));
         this.registerServiceImplementation(ModelCreator.class, storageModels);
         this.registerServiceImplementation(IModelManager.class, storageModels);
         this.registerServiceImplementation(ModelManipulator.class, storageModels);
@@ -292,11 +304,19 @@ public class CoreModuleProvider extends ModuleProvider {
         this.registerServiceImplementation(
             TopologyQueryService.class, new TopologyQueryService(getManager(), storageModels));
         this.registerServiceImplementation(MetricsMetadataQueryService.class, new MetricsMetadataQueryService());
-        this.registerServiceImplementation(MetricsQueryService.class, new MetricsQueryService(getManager()));
+        this.registerServiceImplementation(MetricsQueryService.class, new MetricsQueryService(getManager(), moduleConfig));
         this.registerServiceImplementation(TraceQueryService.class, new TraceQueryService(getManager()));
         this.registerServiceImplementation(BrowserLogQueryService.class, new BrowserLogQueryService(getManager()));
         this.registerServiceImplementation(LogQueryService.class, new LogQueryService(getManager()));
-        this.registerServiceImplementation(MetadataQueryService.class, new MetadataQueryService(getManager(), moduleConfig));
+        if (moduleConfig.getEndpointNameIndexMaxEndpoints() > 0 && moduleConfig.getEndpointNameIndexMaxServices() > 0) {
+            endpointNameIndex = new EndpointNameIndex(
+                moduleConfig.getEndpointNameIndexMaxEndpoints(),
+                moduleConfig.getEndpointNameIndexMaxServices(),
+                moduleConfig.getEndpointNameIndexReloadPeriod() * 1000L,
+                TimeUnit.MINUTES.toMillis(moduleConfig.getEndpointNameIndexIdleTimeout())
+            );
+        }
+        this.registerServiceImplementation(MetadataQueryService.class, new MetadataQueryService(getManager(), moduleConfig, endpointNameIndex));
         this.registerServiceImplementation(AggregationQueryService.class, new AggregationQueryService(getManager()));
         this.registerServiceImplementation(AlarmQueryService.class, new AlarmQueryService(getManager()));
         this.registerServiceImplementation(TopNRecordsQueryService.class, new TopNRecordsQueryService(getManager()));
@@ -352,6 +372,7 @@ public class CoreModuleProvider extends ModuleProvider {
         } else {
             this.remoteClientManager = new RemoteClientManager(getManager(), moduleConfig.getRemoteTimeout());
         }
+        remoteClientManager.setBatchSerialization(moduleConfig.isRemoteBatchSerialization());
         this.registerServiceImplementation(RemoteClientManager.class, remoteClientManager);
 
         // Management
@@ -373,9 +394,42 @@ public class CoreModuleProvider extends ModuleProvider {
 
         final MetricsStreamProcessor metricsStreamProcessor = MetricsStreamProcessor.getInstance();
         metricsStreamProcessor.setL1FlushPeriod(moduleConfig.getL1FlushPeriod());
+        try {
+            metricsStreamProcessor.setL1AggregationBufferOAL(
+                MergableBufferType.fromName(moduleConfig.getL1AggregationBufferOAL()));
+            metricsStreamProcessor.setL1AggregationBufferMAL(
+                MergableBufferType.fromName(moduleConfig.getL1AggregationBufferMAL()));
+            metricsStreamProcessor.setL2AggregationRouting(Selector.fromName(moduleConfig.getL2AggregationRouting()));
+        } catch (IllegalArgumentException e) {
+            throw new ModuleStartException(e.getMessage(), e);
+        }
+        metricsStreamProcessor.setL2AggregationShards(moduleConfig.getL2AggregationShards());
         metricsStreamProcessor.setStorageSessionTimeout(moduleConfig.getStorageSessionTimeout());
+        metricsStreamProcessor.setStorageSessionCacheMaxWeight(moduleConfig.getStorageSessionCacheMaxWeight());
+        try {
+            final Map<String, Long> modelMaxWeights = new HashMap<>();
+            Splitter.on(',').trimResults().omitEmptyStrings()
+                    .withKeyValueSeparator(Splitter.on(':').trimResults())
+                    .split(moduleConfig.getStorageSessionCacheModelMaxWeights())
+                    .forEach((name, weight) -> modelMaxWeights.put(name, Long.parseLong(weight)));
+            metricsStreamProcessor.setStorageSessionCacheModelMaxWeights(modelMaxWeights);
+        } catch (IllegalArgumentException e) {
+            throw new ModuleStartException(
+                "Invalid storageSessionCacheModelMaxWeights " + moduleConfig.getStorageSessionCacheModelMaxWeights(), e);
+        }
+        if (StringUtil.isNotEmpty(moduleConfig.getStorageSessionCacheSnapshotPath())) {
+            final MetricsSessionCacheSnapshot snapshot = new MetricsSessionCacheSnapshot(
+                moduleConfig.getStorageSessionCacheSnapshotPath());
+            snapshot.registerShutdownHook();
+            metricsStreamProcessor.setSessionCacheSnapshot(snapshot);
+        }
+        metricsStreamProcessor.setEndpointNameIndex(endpointNameIndex);
         metricsStreamProcessor.setMetricsDataTTL(moduleConfig.getMetricsDataTTL());
         TopNStreamProcessor.getInstance().setTopNWorkerReportCycle(moduleConfig.getTopNReportPeriod());
+        final RecordStreamProcessor recordStreamProcessor = RecordStreamProcessor.getInstance();
+        recordStreamProcessor.setRecordQueueSize(moduleConfig.getRecordPersistentQueueSize());
+        recordStreamProcessor.setRecordSpillPath(moduleConfig.getRecordPersistentSpillPath());
+        recordStreamProcessor.setRecordSpillMaxSize(moduleConfig.getRecordPersistentSpillMaxSize());
         apdexThresholdConfig = new ApdexThresholdConfig(this);
         ApdexMetrics.setDICT(apdexThresholdConfig);
         loggingConfigWatcher = new LoggingConfigWatcher(this);
@@ -19,6 +19,7 @@
 package org.apache.skywalking.oap.server.core.analysis.data;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * BufferedData represents a data collection in the memory. Data could be accepted and be drain to other collection.
@@ -39,4 +40,15 @@ public interface BufferedData<T> {
      * Read all existing buffered data, and clear the memory.
      */
     List<T> read();
+
+    /**
+     * Drain all existing buffered data to the given consumer, and clear the memory. The implementation could override
+     * this to avoid copying the data into a new list.
+     *
+     * @param consumer to receive the buffered data one by one.
+     * @since 10.2.0
+     */
+    default void drain(Consumer<T> consumer) {
+        read().forEach(consumer);
+    }
 }
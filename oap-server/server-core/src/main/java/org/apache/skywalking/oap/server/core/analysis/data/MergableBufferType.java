@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.data;
+
+import java.util.Arrays;
+import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
+
+/**
+ * The implementations of the merge buffer used in the L1 aggregation.
+ *
+ * @since 10.2.0
+ */
+public enum MergableBufferType {
+    /**
+     * {@link MergableBufferedData}, backed by a hash map keyed by the {@link Metrics#id()}.
+     */
+    HashMap {
+        @Override
+        public <METRICS extends Metrics> BufferedData<METRICS> newBuffer() {
+            return new MergableBufferedData<>();
+        }
+    },
+    /**
+     * {@link OpenAddressingMergableBufferedData}, backed by an open-addressing table with reusable slots.
+     */
+    OpenAddressing {
+        @Override
+        public <METRICS extends Metrics> BufferedData<METRICS> newBuffer() {
+            return new OpenAddressingMergableBufferedData<>();
+        }
+    };
+
+    public abstract <METRICS extends Metrics> BufferedData<METRICS> newBuffer();
+
+    /**
+     * @return the type of the given name, case-insensitive, or {@link #HashMap} when the name is empty.
+     * @throws IllegalArgumentException if the name matches none of the types.
+     */
+    public static MergableBufferType fromName(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            return HashMap;
+        }
+        for (MergableBufferType type : MergableBufferType.values()) {
+            if (type.name().equalsIgnoreCase(name.trim())) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException(
+            "Unknown L1 aggregation buffer " + name + ", the available ones are " + Arrays.toString(values()));
+    }
+}
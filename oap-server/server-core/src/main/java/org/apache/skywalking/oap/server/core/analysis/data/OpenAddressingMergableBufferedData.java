@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
+
+/**
+ * OpenAddressingMergableBufferedData is a thread no safe implementation of {@link BufferedData}, which has the same
+ * semantic as {@link MergableBufferedData}, {@link Metrics} in this cache would be {@link Metrics#combine(Metrics)} if
+ * their {@link Metrics#id()}s are same.
+ *
+ * Different from {@link MergableBufferedData}, the metrics are hosted in a linear probing open-addressing table keyed
+ * by the precomputed {@link Metrics#idHash()}. No entry node is created per accepted metric, and the slots are reused
+ * across {@link #drain(Consumer)}s, so the table doesn't need to rehash in every flush period once it is warmed up.
+ *
+ * Concurrency {@link #accept(Metrics)}s and {@link #read()} while {@link #accept(Metrics)} are both not recommended.
+ *
+ * @since 10.2.0
+ */
+public class OpenAddressingMergableBufferedData<METRICS extends Metrics> implements BufferedData<METRICS> {
+    private static final int MIN_CAPACITY = 64;
+
+    private Metrics[] slots;
+    private int[] hashes;
+    /**
+     * Capacity - 1, the capacity is always the power of 2.
+     */
+    private int mask;
+    private int size;
+    /**
+     * Resize the table when the size reaches this threshold, the load factor is 0.5 to keep the probe sequence short.
+     */
+    private int threshold;
+
+    public OpenAddressingMergableBufferedData() {
+        this(MIN_CAPACITY);
+    }
+
+    public OpenAddressingMergableBufferedData(int initialCapacity) {
+        allocate(tableSizeFor(Math.max(initialCapacity, MIN_CAPACITY)));
+    }
+
+    /**
+     * Accept the data into the cache and merge with the existing value.
+     *
+     * This method is not thread safe, should avoid concurrency calling.
+     *
+     * @param data to be added potentially.
+     */
+    @Override
+    public void accept(final METRICS data) {
+        final int hash = data.idHash();
+        int index = spread(hash) & mask;
+        while (true) {
+            final Metrics existed = slots[index];
+            if (existed == null) {
+                slots[index] = data;
+                hashes[index] = hash;
+                if (++size >= threshold) {
+                    resize(slots.length << 1);
+                }
+                return;
+            }
+            if (hashes[index] == hash && existed.id().equals(data.id())) {
+                existed.combine(data);
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    @Override
+    public List<METRICS> read() {
+        final List<METRICS> result = new ArrayList<>(size);
+        drain(result::add);
+        return result;
+    }
+
+    /**
+     * Drain the metrics to the consumer directly from the slots, the slots are cleared in place and reused by the
+     * following {@link #accept(Metrics)}s.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void drain(final Consumer<METRICS> consumer) {
+        if (size == 0) {
+            return;
+        }
+        final int drained = size;
+        int index = 0;
+        try {
+            for (; index < slots.length; index++) {
+                final Metrics metrics = slots[index];
+                if (metrics != null) {
+                    slots[index] = null;
+                    consumer.accept((METRICS) metrics);
+                }
+            }
+        } finally {
+            if (index < slots.length) {
+                Arrays.fill(slots, index, slots.length, null);
+            }
+            size = 0;
+            // Shrink the table when it is much larger than the recent load, such as after a traffic burst.
+            if (slots.length > MIN_CAPACITY && drained < (slots.length >>> 3)) {
+                allocate(slots.length >>> 1);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void resize(int newCapacity) {
+        final Metrics[] oldSlots = slots;
+        final int[] oldHashes = hashes;
+        allocate(newCapacity);
+        for (int i = 0; i < oldSlots.length; i++) {
+            final Metrics metrics = oldSlots[i];
+            if (metrics != null) {
+                int index = spread(oldHashes[i]) & mask;
+                while (slots[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                slots[index] = metrics;
+                hashes[index] = oldHashes[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        slots = new Metrics[capacity];
+        hashes = new int[capacity];
+        mask = capacity - 1;
+        threshold = capacity >>> 1;
+    }
+
+    /**
+     * Mix the high bits into the low bits, as the index is taken from the low bits by the mask.
+     */
+    private static int spread(int hash) {
+        final int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int tableSizeFor(int capacity) {
+        return Integer.highestOneBit(capacity - 1) << 1;
+    }
+}
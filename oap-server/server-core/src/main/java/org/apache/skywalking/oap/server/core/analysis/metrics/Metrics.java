@@ -148,6 +148,10 @@ public abstract class Metrics extends StreamData implements StorageData {
     }
 
     private volatile StorageID id;
+    /**
+     * The cached hash code of {@link #id()}, 0 means not computed yet.
+     */
+    private volatile int idHash;
 
     @Override
     public StorageID id() {
@@ -157,6 +161,19 @@ public abstract class Metrics extends StreamData implements StorageData {
         return id;
     }
 
+    /**
+     * @return the hash code of {@link #id()}, which is computed once only, as the ID is immutable after built.
+     * @since 10.2.0
+     */
+    public int idHash() {
+        int h = idHash;
+        if (h == 0) {
+            h = id().hashCode();
+            idHash = h;
+        }
+        return h;
+    }
+
     /**
      * @return {@link StorageID} of this metrics to represent the unique identity in storage.
      * This ID doesn't have to match the physical storage primary key.
@@ -21,7 +21,8 @@ package org.apache.skywalking.oap.server.core.analysis.worker;
 import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.skywalking.oap.server.core.UnexpectedException;
-import org.apache.skywalking.oap.server.core.analysis.data.MergableBufferedData;
+import org.apache.skywalking.oap.server.core.analysis.data.BufferedData;
+import org.apache.skywalking.oap.server.core.analysis.data.MergableBufferType;
 import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
 import org.apache.skywalking.oap.server.core.worker.AbstractWorker;
 import org.apache.skywalking.oap.server.library.datacarrier.DataCarrier;
@@ -46,7 +47,7 @@ public class MetricsAggregateWorker extends AbstractWorker<Metrics> {
     public final long l1FlushPeriod;
     private AbstractWorker<Metrics> nextWorker;
     private final DataCarrier<Metrics> dataCarrier;
-    private final MergableBufferedData<Metrics> mergeDataCache;
+    private final BufferedData<Metrics> mergeDataCache;
     private CounterMetrics abandonCounter;
     private CounterMetrics aggregationCounter;
     private long lastSendTime = 0;
@@ -55,10 +56,11 @@ public class MetricsAggregateWorker extends AbstractWorker<Metrics> {
                            AbstractWorker<Metrics> nextWorker,
                            String modelName,
                            long l1FlushPeriod,
-                           MetricStreamKind kind) {
+                           MetricStreamKind kind,
+                           MergableBufferType bufferType) {
         super(moduleDefineHolder);
         this.nextWorker = nextWorker;
-        this.mergeDataCache = new MergableBufferedData();
+        this.mergeDataCache = bufferType.newBuffer();
         String name = "METRICS_L1_AGGREGATION";
         int queueChannelSize = 2;
         int queueBufferSize = 10_000;
@@ -125,11 +127,7 @@ public class MetricsAggregateWorker extends AbstractWorker<Metrics> {
     private void flush() {
         long currentTime = System.currentTimeMillis();
         if (currentTime - lastSendTime > l1FlushPeriod) {
-            mergeDataCache.read().forEach(
-                data -> {
-                    nextWorker.in(data);
-                }
-            );
+            mergeDataCache.drain(nextWorker::in);
             lastSendTime = currentTime;
         }
     }
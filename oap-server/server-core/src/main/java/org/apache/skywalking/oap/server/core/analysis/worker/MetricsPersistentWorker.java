@@ -20,8 +20,14 @@ package org.apache.skywalking.oap.server.core.analysis.worker;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.skywalking.oap.server.core.CoreModule;
@@ -48,6 +54,8 @@ import org.apache.skywalking.oap.server.library.datacarrier.consumer.IConsumer;
 import org.apache.skywalking.oap.server.library.module.ModuleDefineHolder;
 import org.apache.skywalking.oap.server.telemetry.TelemetryModule;
 import org.apache.skywalking.oap.server.telemetry.api.CounterMetrics;
+import org.apache.skywalking.oap.server.telemetry.api.GaugeMetrics;
+import org.apache.skywalking.oap.server.telemetry.api.HistogramMetrics;
 import org.apache.skywalking.oap.server.telemetry.api.MetricsCreator;
 import org.apache.skywalking.oap.server.telemetry.api.MetricsTag;
 
@@ -61,7 +69,19 @@ public class MetricsPersistentWorker extends PersistenceWorker<Metrics> implemen
     private final IMetricsDAO metricsDAO;
     private final Optional<AbstractWorker<Metrics>> nextAlarmWorker;
     private final Optional<AbstractWorker<ExportEvent>> nextExportWorker;
-    private final DataCarrier<Metrics> dataCarrier;
+    /**
+     * The shards of the L2 aggregation cache, partitioned by {@link Metrics#idHash()}. Each shard is fed by its own
+     * queue and consumer, and swaps its read/write buffers independently. The first shard is the cache hosted by
+     * {@link PersistenceWorker}.
+     *
+     * @since 10.2.0
+     */
+    private final ReadWriteSafeCache<Metrics>[] shards;
+    private final DataCarrier<Metrics>[] dataCarriers;
+    /**
+     * The number of metrics drained from every shard in the latest round.
+     */
+    private final int[] shardSizes;
     private final Optional<MetricsTransWorker> transWorker;
     private final boolean supportUpdate;
     /**
@@ -76,6 +96,14 @@ public class MetricsPersistentWorker extends PersistenceWorker<Metrics> implemen
      * The counter of metrics cached in-memory.
      */
     private CounterMetrics cachedMetricsCounter;
+    /**
+     * The ratio of the largest shard to the average shard size in the latest round. 1 means evenly distributed.
+     */
+    private GaugeMetrics shardSkewGauge;
+    /**
+     * The latency of draining one shard and building its batch requests.
+     */
+    private HistogramMetrics shardDrainLatency;
     /**
      * The counter for the round of persistent.
      */
@@ -100,14 +128,34 @@ public class MetricsPersistentWorker extends PersistenceWorker<Metrics> implemen
      * @since 9.4.0
      */
     private volatile long timeOfLatestStabilitySts = 0;
+    /**
+     * The snapshot of the session cache, or null if the snapshot is not enabled.
+     *
+     * @since 10.2.0
+     */
+    private MetricsSessionCacheSnapshot sessionCacheSnapshot;
+    /**
+     * The checkpoint of the last round, which reads the values of the cached metrics.
+     */
+    private CompletableFuture<Void> pendingCheckpoint = CompletableFuture.completedFuture(null);
+    /**
+     * Whether the cached metrics are changed since the last checkpoint.
+     */
+    private boolean checkpointRequired;
+    /**
+     * The listener of the metrics being persisted, or null if it is not enabled.
+     *
+     * @since 10.2.0
+     */
+    private Consumer<Metrics> persistenceListener;
 
     MetricsPersistentWorker(ModuleDefineHolder moduleDefineHolder, Model model, IMetricsDAO metricsDAO,
                             AbstractWorker<Metrics> nextAlarmWorker, AbstractWorker<ExportEvent> nextExportWorker,
                             MetricsTransWorker transWorker, boolean supportUpdate,
-                            long storageSessionTimeout, int metricsDataTTL, MetricStreamKind kind) {
+                            long storageSessionTimeout, long storageSessionCacheMaxWeight, int metricsDataTTL,
+                            MetricStreamKind kind, int l2AggregationShards) {
         super(moduleDefineHolder, new ReadWriteSafeCache<>(new MergableBufferedData(), new MergableBufferedData()));
         this.model = model;
-        this.sessionCache = new MetricsSessionCache(storageSessionTimeout);
         this.metricsDAO = metricsDAO;
         this.nextAlarmWorker = Optional.ofNullable(nextAlarmWorker);
         this.nextExportWorker = Optional.ofNullable(nextExportWorker);
@@ -117,11 +165,15 @@ public class MetricsPersistentWorker extends PersistenceWorker<Metrics> implemen
         this.persistentMod = 1;
         this.metricsDataTTL = metricsDataTTL;
 
+        final int shardCount = Math.max(1, l2AggregationShards);
+        this.shards = new ReadWriteSafeCache[shardCount];
+        this.dataCarriers = new DataCarrier[shardCount];
+        this.shardSizes = new int[shardCount];
+
         String name = "METRICS_L2_AGGREGATION";
         int size = BulkConsumePool.Creator.recommendMaxSize() / 8;
-        if (size == 0) {
-            size = 1;
-        }
+        // Make sure the shards of one metric could be consumed by different threads.
+        size = Math.max(size, shardCount);
         BulkConsumePool.Creator creator = new BulkConsumePool.Creator(name, size, 20);
         try {
             ConsumerPoolFactory.INSTANCE.createIfAbsent(name, creator);
@@ -136,8 +188,13 @@ public class MetricsPersistentWorker extends PersistenceWorker<Metrics> implemen
             // Set the buffer(size of queue) as 1/2 to reduce unnecessary resource costs.
             bufferSize = 1000;
         }
-        this.dataCarrier = new DataCarrier<>("MetricsPersistentWorker." + model.getName(), name, 1, bufferSize);
-        this.dataCarrier.consume(ConsumerPoolFactory.INSTANCE.get(name), new PersistentConsumer());
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = i == 0 ? getCache() : new ReadWriteSafeCache<>(
+                new MergableBufferedData<>(), new MergableBufferedData<>());
+            dataCarriers[i] = new DataCarrier<>(
+                "MetricsPersistentWorker." + model.getName() + (i == 0 ? "" : "." + i), name, 1, bufferSize);
+            dataCarriers[i].consume(ConsumerPoolFactory.INSTANCE.get(name), new PersistentConsumer(shards[i]));
+        }
 
         MetricsCreator metricsCreator = moduleDefineHolder.find(TelemetryModule.NAME)
                                                           .provider()
@@ -155,6 +212,25 @@ public class MetricsPersistentWorker extends PersistenceWorker<Metrics> implemen
             "metrics_persistent_cache", "The counter of metrics status, new or cached.",
             new MetricsTag.Keys("status"), new MetricsTag.Values("cached")
         );
+        this.sessionCache = new MetricsSessionCache(
+            storageSessionTimeout, storageSessionCacheMaxWeight,
+            createSessionCacheCounter(metricsCreator, "hit"),
+            createSessionCacheCounter(metricsCreator, "miss"),
+            createSessionCacheCounter(metricsCreator, "eviction")
+        );
+        shardSkewGauge = metricsCreator.createGauge(
+            "metrics_persistent_shard_skew",
+            "The ratio of the largest shard to the average shard size of L2 aggregation in the latest round",
+            new MetricsTag.Keys("metricName", "level", "dimensionality"),
+            new MetricsTag.Values(model.getName(), "2", model.getDownsampling().getName())
+        );
+        shardDrainLatency = metricsCreator.createHistogramMetric(
+            "metrics_persistent_shard_drain_latency",
+            "The latency of draining one shard of L2 aggregation and building its batch requests",
+            new MetricsTag.Keys("metricName", "level", "dimensionality"),
+            new MetricsTag.Values(model.getName(), "2", model.getDownsampling().getName()),
+            .01, .05, .1, .25, .5, 1, 3, 5, 10, 30
+        );
         serverStatusService = moduleDefineHolder.find(CoreModule.NAME).provider().getService(ServerStatusService.class);
         if (model.getDownsampling().equals(DownSampling.Minute)) {
             serverStatusService.registerWatcher(this);
@@ -169,11 +245,14 @@ public class MetricsPersistentWorker extends PersistenceWorker<Metrics> implemen
                             IMetricsDAO metricsDAO,
                             boolean supportUpdate,
                             long storageSessionTimeout,
+                            long storageSessionCacheMaxWeight,
                             int metricsDataTTL,
-                            MetricStreamKind kind) {
+                            MetricStreamKind kind,
+                            int l2AggregationShards) {
         this(moduleDefineHolder, model, metricsDAO,
              null, null, null,
-             supportUpdate, storageSessionTimeout, metricsDataTTL, kind
+             supportUpdate, storageSessionTimeout, storageSessionCacheMaxWeight, metricsDataTTL, kind,
+             l2AggregationShards
         );
         // For a down-sampling metrics, we prolong the session timeout for 4 times, nearly 5 minutes.
         sessionCache.setTimeoutThreshold(storageSessionTimeout * 4);
@@ -187,21 +266,115 @@ public class MetricsPersistentWorker extends PersistenceWorker<Metrics> implemen
     @Override
     public void in(Metrics metrics) {
         aggregationCounter.inc();
-        dataCarrier.produce(metrics);
+        dataCarriers[shardOf(metrics)].produce(metrics);
+    }
+
+    private CounterMetrics createSessionCacheCounter(MetricsCreator metricsCreator, String status) {
+        return metricsCreator.createCounter(
+            "metrics_persistent_session_cache", "The counter of the session cache lookups and evictions.",
+            new MetricsTag.Keys("status", "dimensionality"),
+            new MetricsTag.Values(status, model.getDownsampling().getName())
+        );
+    }
+
+    private int shardOf(Metrics metrics) {
+        return shards.length == 1 ? 0 : Math.floorMod(metrics.idHash(), shards.length);
     }
 
     @Override
     public List<PrepareRequest> buildBatchRequests() {
+        return buildBatchRequests(Runnable::run);
+    }
+
+    /**
+     * Drain all shards and build the batch requests. The shards are drained in parallel through the given executor,
+     * and the current thread drains the shards which are not picked up by the executor yet, so it never waits for a
+     * queued task of the shared executor.
+     */
+    @Override
+    public List<PrepareRequest> buildBatchRequests(Executor executor) {
         if (persistentCounter++ % persistentMod != 0) {
             return Collections.emptyList();
         }
-
-        final List<Metrics> lastCollection = getCache().read();
+        // The cached metrics are only combined below, wait for the checkpoint reading them to finish.
+        pendingCheckpoint.join();
 
         long start = System.currentTimeMillis();
-        if (lastCollection.size() == 0) {
-            return Collections.emptyList();
+        final List<PrepareRequest> prepareRequests;
+        if (shards.length == 1) {
+            prepareRequests = drainShard(0);
+        } else {
+            final AtomicBoolean[] claimed = new AtomicBoolean[shards.length];
+            final CompletableFuture<List<PrepareRequest>>[] results = new CompletableFuture[shards.length];
+            for (int i = 0; i < shards.length; i++) {
+                claimed[i] = new AtomicBoolean(false);
+                results[i] = new CompletableFuture<>();
+            }
+            for (int i = 1; i < shards.length; i++) {
+                final int shard = i;
+                executor.execute(() -> drainShardIfUnclaimed(shard, claimed, results));
+            }
+            for (int i = 0; i < shards.length; i++) {
+                drainShardIfUnclaimed(i, claimed, results);
+            }
+            prepareRequests = new ArrayList<>();
+            for (final CompletableFuture<List<PrepareRequest>> result : results) {
+                // Only wait for the shards being drained by other threads.
+                prepareRequests.addAll(result.join());
+            }
         }
+        updateShardSkew();
+
+        if (prepareRequests.size() > 0) {
+            checkpointRequired = true;
+            log.debug(
+                "prepare batch requests for model {}, took time: {}, size: {}", model.getName(),
+                System.currentTimeMillis() - start, prepareRequests.size()
+            );
+        }
+        return prepareRequests;
+    }
+
+    private void drainShardIfUnclaimed(int shard,
+                                       AtomicBoolean[] claimed,
+                                       CompletableFuture<List<PrepareRequest>>[] results) {
+        if (!claimed[shard].compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            results[shard].complete(drainShard(shard));
+        } catch (Throwable t) {
+            results[shard].completeExceptionally(t);
+        }
+    }
+
+    private void updateShardSkew() {
+        long total = 0;
+        int max = 0;
+        for (final int shardSize : shardSizes) {
+            total += shardSize;
+            max = Math.max(max, shardSize);
+        }
+        if (total > 0) {
+            shardSkewGauge.setValue((double) max * shardSizes.length / total);
+        }
+    }
+
+    /**
+     * Read the metrics from the given shard and build the batch requests of them.
+     */
+    private List<PrepareRequest> drainShard(int shard) {
+        try (HistogramMetrics.Timer ignored = shardDrainLatency.createTimer()) {
+            final List<Metrics> lastCollection = shards[shard].read();
+            shardSizes[shard] = lastCollection.size();
+            if (lastCollection.size() == 0) {
+                return Collections.emptyList();
+            }
+            return prepareBatchRequests(lastCollection);
+        }
+    }
+
+    private List<PrepareRequest> prepareBatchRequests(List<Metrics> lastCollection) {
 
         /*
          * Hard coded the max size. This only affect the multiIDRead if the data doesn't hit the cache.
@@ -223,13 +396,6 @@ public class MetricsPersistentWorker extends PersistenceWorker<Metrics> implemen
         if (metricsList.size() > 0) {
             prepareFlushDataToStorage(metricsList, prepareRequests);
         }
-
-        if (prepareRequests.size() > 0) {
-            log.debug(
-                "prepare batch requests for model {}, took time: {}, size: {}", model.getName(),
-                System.currentTimeMillis() - start, prepareRequests.size()
-            );
-        }
         return prepareRequests;
     }
 
@@ -242,11 +408,11 @@ public class MetricsPersistentWorker extends PersistenceWorker<Metrics> implemen
     private void prepareFlushDataToStorage(List<Metrics> metricsList,
                                            List<PrepareRequest> prepareRequests) {
         try {
-            loadFromStorage(metricsList);
+            final Map<Metrics, Metrics> cached = loadFromStorage(metricsList);
 
             long timestamp = System.currentTimeMillis();
             for (Metrics metrics : metricsList) {
-                Metrics cachedMetrics = sessionCache.get(metrics);
+                Metrics cachedMetrics = cached.get(metrics);
                 if (cachedMetrics != null) {
                     cachedMetrics.setLastUpdateTimestamp(timestamp);
                     /*
@@ -264,6 +430,7 @@ public class MetricsPersistentWorker extends PersistenceWorker<Metrics> implemen
                         continue;
                     }
                     cachedMetrics.calculate();
+                    notifyPersistence(cachedMetrics);
                     prepareRequests.add(
                         metricsDAO.prepareBatchUpdate(
                             model,
@@ -273,6 +440,7 @@ public class MetricsPersistentWorker extends PersistenceWorker<Metrics> implemen
                     nextWorker(cachedMetrics);
                 } else {
                     metrics.calculate();
+                    notifyPersistence(metrics);
                     prepareRequests.add(
                         metricsDAO.prepareBatchInsert(
                             model,
@@ -296,6 +464,12 @@ public class MetricsPersistentWorker extends PersistenceWorker<Metrics> implemen
         }
     }
 
+    private void notifyPersistence(Metrics metrics) {
+        if (persistenceListener != null) {
+            persistenceListener.accept(metrics);
+        }
+    }
+
     private void nextWorker(Metrics metrics) {
         nextAlarmWorker.ifPresent(nextAlarmWorker -> nextAlarmWorker.in(metrics));
         nextExportWorker.ifPresent(
@@ -304,9 +478,13 @@ public class MetricsPersistentWorker extends PersistenceWorker<Metrics> implemen
 
     /**
      * Load data from the storage, only load data when the id doesn't exist.
+     *
+     * @return the existing metrics of the given metrics, in the cache or loaded from the storage. The session cache is
+     * not read again after this, as the metrics could be evicted from the cache in the meantime.
      */
-    private void loadFromStorage(List<Metrics> metrics) {
+    private Map<Metrics, Metrics> loadFromStorage(List<Metrics> metrics) {
         final long currentTimeMillis = System.currentTimeMillis();
+        final Map<Metrics, Metrics> cached = new HashMap<>(metrics.size());
         try {
             List<Metrics> notInCacheMetrics =
                 metrics.stream()
@@ -331,6 +509,10 @@ public class MetricsPersistentWorker extends PersistenceWorker<Metrics> implemen
                                }
                            }
 
+                           // The metric itself means it is new, rather than in cache.
+                           if (cachedValue != m) {
+                               cached.put(m, cachedValue);
+                           }
                            return false;
                        })
                        .collect(Collectors.toList());
@@ -338,20 +520,53 @@ public class MetricsPersistentWorker extends PersistenceWorker<Metrics> implemen
             readMetricsCounter.inc(notInCacheMetrics.size());
             cachedMetricsCounter.inc(metrics.size() - notInCacheMetrics.size());
             if (notInCacheMetrics.isEmpty()) {
-                return;
+                return cached;
             }
             metricsDAO.multiGet(model, notInCacheMetrics).forEach(m -> {
                 m.setLastUpdateTimestamp(currentTimeMillis);
                 sessionCache.put(m);
+                cached.put(m, m);
             });
         } catch (final Exception e) {
             log.error("Failed to load metrics for merging", e);
         }
+        return cached;
     }
 
     @Override
     public void endOfRound() {
         sessionCache.removeExpired();
+        if (sessionCacheSnapshot != null && checkpointRequired) {
+            checkpointRequired = false;
+            // Copy the entries, as the insert and update callbacks add and remove them concurrently. The values of
+            // the metrics are not changed until the next round, which waits for the checkpoint.
+            final List<Metrics> entries = new ArrayList<>(sessionCache.size());
+            sessionCache.forEach(entries::add);
+            pendingCheckpoint = sessionCacheSnapshot.checkpoint(model, entries);
+        }
+    }
+
+    /**
+     * Restore the session cache from the snapshot, and checkpoint the session cache into it at the end of every round
+     * building the batch requests, before the requests are flushed.
+     *
+     * @since 10.2.0
+     */
+    void enableSessionCacheSnapshot(MetricsSessionCacheSnapshot snapshot) {
+        this.sessionCacheSnapshot = snapshot;
+        final int restored = snapshot.restore(model, sessionCache);
+        if (restored > 0) {
+            log.info("Restored {} metrics of {} into the session cache from the snapshot", restored, model.getName());
+        }
+    }
+
+    /**
+     * Notify the listener of every metrics being inserted or updated into the storage.
+     *
+     * @since 10.2.0
+     */
+    void enablePersistenceListener(Consumer<Metrics> listener) {
+        this.persistenceListener = listener;
     }
 
     /**
@@ -382,13 +597,16 @@ public class MetricsPersistentWorker extends PersistenceWorker<Metrics> implemen
         //     1.3 the OAP cluster is rebalanced due to scaling
         // (2) the metrics are from the time after the timeOfLatestStabilitySts
         // (3) the metrics don't exist in the cache
+        // (4) the metrics are from the time after the latest evicted metrics of the cache
         // the kernel should NOT try to load it from the database.
         //
         // Notice, about condition (2),
         // for the specific minute of booted successfully, the metrics are expected to load from database when
         // it doesn't exist in the cache.
+        // About condition (4), the metrics evicted from the cache could have been written into the database.
         if (timeOfLatestStabilitySts > 0 &&
             metrics.getTimeBucket() > timeOfLatestStabilitySts
+            && metrics.getTimeBucket() > sessionCache.getLatestEvictedTimeBucket()
             && cached == null) {
             // Return metrics as input to avoid reading from database.
             return metrics;
@@ -415,9 +633,15 @@ public class MetricsPersistentWorker extends PersistenceWorker<Metrics> implemen
      * ID is declared through {@link Object#hashCode()} and {@link Object#equals(Object)} as usual.
      */
     private class PersistentConsumer implements IConsumer<Metrics> {
+        private final ReadWriteSafeCache<Metrics> shard;
+
+        private PersistentConsumer(ReadWriteSafeCache<Metrics> shard) {
+            this.shard = shard;
+        }
+
         @Override
         public void consume(List<Metrics> data) {
-            MetricsPersistentWorker.this.onWork(data);
+            MetricsPersistentWorker.this.onWork(shard, data);
         }
 
         @Override
@@ -18,14 +18,18 @@
 
 package org.apache.skywalking.oap.server.core.analysis.worker;
 
-import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 import lombok.AccessLevel;
+import lombok.Getter;
 import lombok.Setter;
 import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteData;
 import org.apache.skywalking.oap.server.library.client.request.InsertRequest;
 import org.apache.skywalking.oap.server.library.client.request.UpdateRequest;
+import org.apache.skywalking.oap.server.telemetry.api.CounterMetrics;
 
 /**
  * MetricsSessionCache is a key-value cache to hold hot metric in-memory to reduce payload to pre-read.
@@ -34,47 +38,331 @@ import org.apache.skywalking.oap.server.library.client.request.UpdateRequest;
  * 1. Metrics is read from the Database through {@link MetricsPersistentWorker}.loadFromStorage
  * 2. The built {@link InsertRequest} executed successfully.
  *
- * There are two cases to remove metrics from the cache.
+ * There are three cases to remove metrics from the cache.
  * 1. The metrics expired.
  * 2. The built {@link UpdateRequest} executed failure, which could be caused
  * (1) Database error. (2) No data updated, such as the counter of update statement is 0 in JDBC.
+ * 3. The metrics are evicted, as the estimated size of the cache is over {@link #maxWeight}.
+ *
+ * The eviction follows W-TinyLFU. The new metrics enter a small LRU window first. The metrics overflowing the window
+ * become the candidates of the main space, which is a segmented LRU of the probation and protected segments. When the
+ * cache is over weight, the candidate is admitted only if its access frequency, estimated by {@link FrequencySketch},
+ * is higher than the LRU victim of the probation segment, otherwise the candidate is evicted.
  *
  * @since 9.4.0 Created this from MetricsPersistentWorker.sessionCache.
  */
 public class MetricsSessionCache {
-    private final Map<Metrics, Metrics> sessionCache;
+    /**
+     * The estimated bytes of an entry besides the content of the metrics, including the entry of the map, the node and
+     * the object headers and fields of the metrics.
+     */
+    private static final int ENTRY_WEIGHT = 200;
+    /**
+     * The estimated bytes in heap per byte of the serialized metrics, as the strings and the boxed values of the
+     * metrics take more in heap than in serialization.
+     */
+    private static final int SERIALIZED_BYTE_WEIGHT = 3;
+    private static final int WINDOW_PERCENT = 1;
+    private static final int PROTECTED_PERCENT = 80;
+
+    private final Map<Metrics, Node> sessionCache;
+    @Getter(AccessLevel.PACKAGE)
     @Setter(AccessLevel.PACKAGE)
     private long timeoutThreshold;
+    /**
+     * The max estimated bytes of the metrics in the cache. Non-positive means no limit.
+     *
+     * @since 10.2.0
+     */
+    private final long maxWeight;
+    /**
+     * The estimated bytes of every metrics in the cache. All metrics in a cache are of the same type, so the weight is
+     * estimated only once, from the first one put into the cache, rather than serializing every metrics.
+     */
+    private volatile long entryWeight;
+    private final long windowMaxWeight;
+    private final long protectedMaxWeight;
+    private final FrequencySketch sketch = new FrequencySketch();
+    /**
+     * Guard the segments and the sketch. The lookup is lock free, and the access is recorded only if the lock is
+     * available.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Segment window = new Segment();
+    private final Segment probation = new Segment();
+    private final Segment protectedSegment = new Segment();
+    /**
+     * The latest time bucket of the evicted metrics, or 0 if none is evicted. The metrics of this or an earlier time
+     * bucket may be written into the database before, even if they are not in the cache.
+     *
+     * @since 10.2.0
+     */
+    @Getter
+    private volatile long latestEvictedTimeBucket;
+    private final CounterMetrics hitCounter;
+    private final CounterMetrics missCounter;
+    private final CounterMetrics evictionCounter;
 
-    public MetricsSessionCache(long timeoutThreshold) {
+    /**
+     * @param timeoutThreshold the expired threshold of the metrics not updated.
+     * @param maxWeight        the max estimated bytes of the metrics in the cache. Non-positive means no limit.
+     */
+    public MetricsSessionCache(long timeoutThreshold,
+                               long maxWeight,
+                               CounterMetrics hitCounter,
+                               CounterMetrics missCounter,
+                               CounterMetrics evictionCounter) {
         // Due to the cache would be updated depending on final storage implementation,
         // the map/cache could be updated concurrently.
         // Set to ConcurrentHashMap in order to avoid HashMap deadlock.
         // Since 9.3.0
         this.sessionCache = new ConcurrentHashMap<>(100);
         this.timeoutThreshold = timeoutThreshold;
+        this.maxWeight = maxWeight;
+        this.windowMaxWeight = maxWeight * WINDOW_PERCENT / 100;
+        this.protectedMaxWeight = (maxWeight - windowMaxWeight) * PROTECTED_PERCENT / 100;
+        this.hitCounter = hitCounter;
+        this.missCounter = missCounter;
+        this.evictionCounter = evictionCounter;
     }
 
     Metrics get(Metrics metrics) {
-        return sessionCache.get(metrics);
+        final Node node = sessionCache.get(metrics);
+        if (node == null) {
+            missCounter.inc();
+        } else {
+            hitCounter.inc();
+        }
+        if (isBounded() && lock.tryLock()) {
+            try {
+                sketch.increment(metrics.hashCode());
+                if (node != null && node.segment != null) {
+                    onAccess(node);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return node == null ? null : node.metrics;
     }
 
     public Metrics remove(Metrics metrics) {
-        return sessionCache.remove(metrics);
+        if (!isBounded()) {
+            final Node node = sessionCache.remove(metrics);
+            return node == null ? null : node.metrics;
+        }
+        lock.lock();
+        try {
+            final Node node = sessionCache.remove(metrics);
+            if (node == null) {
+                return null;
+            }
+            node.segment.remove(node);
+            return node.metrics;
+        } finally {
+            lock.unlock();
+        }
     }
 
     public void put(Metrics metrics) {
-        sessionCache.put(metrics, metrics);
+        if (!isBounded()) {
+            sessionCache.put(metrics, new Node(metrics, 0));
+            return;
+        }
+        final Node node = new Node(metrics, entryWeight(metrics));
+        lock.lock();
+        try {
+            final Node existing = sessionCache.put(metrics, node);
+            if (existing != null) {
+                existing.segment.remove(existing);
+            }
+            sketch.ensureCapacity(sessionCache.size());
+            sketch.increment(metrics.hashCode());
+            window.addLast(node);
+            evict();
+        } finally {
+            lock.unlock();
+        }
     }
 
     void removeExpired() {
-        Iterator<Metrics> iterator = sessionCache.values().iterator();
         long timestamp = System.currentTimeMillis();
-        while (iterator.hasNext()) {
-            Metrics metrics = iterator.next();
+        for (final Node node : sessionCache.values()) {
+            if (!node.metrics.isExpired(timestamp, timeoutThreshold)) {
+                continue;
+            }
+            if (!isBounded()) {
+                sessionCache.remove(node.metrics, node);
+                continue;
+            }
+            lock.lock();
+            try {
+                if (sessionCache.remove(node.metrics, node)) {
+                    node.segment.remove(node);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * @return the estimated bytes of the metrics in the cache.
+     */
+    long weight() {
+        return window.weight + probation.weight + protectedSegment.weight;
+    }
+
+    int size() {
+        return sessionCache.size();
+    }
+
+    /**
+     * Perform the action for every metrics in the cache, without changing the access order.
+     *
+     * @since 10.2.0
+     */
+    void forEach(Consumer<Metrics> action) {
+        for (final Node node : sessionCache.values()) {
+            action.accept(node.metrics);
+        }
+    }
+
+    private boolean isBounded() {
+        return maxWeight > 0;
+    }
+
+    private long entryWeight(Metrics metrics) {
+        if (entryWeight == 0) {
+            entryWeight = weigh(metrics);
+        }
+        return entryWeight;
+    }
+
+    /**
+     * Move the accessed metrics to the MRU end, and promote it to the protected segment if it is in probation. The
+     * overflow of the protected segment is demoted to the probation segment.
+     */
+    private void onAccess(Node node) {
+        if (node.segment == probation) {
+            probation.remove(node);
+            protectedSegment.addLast(node);
+            while (protectedSegment.weight > protectedMaxWeight && protectedSegment.first != node) {
+                final Node demoted = protectedSegment.first;
+                protectedSegment.remove(demoted);
+                probation.addLast(demoted);
+            }
+        } else {
+            node.segment.moveToLast(node);
+        }
+    }
+
+    /**
+     * Move the overflow of the window into the probation segment as candidates, then evict the candidate or the
+     * victim, whichever is less frequently accessed, until the cache is not over weight.
+     */
+    private void evict() {
+        while (window.weight > windowMaxWeight && window.first != null) {
+            final Node candidate = window.first;
+            window.remove(candidate);
+            probation.addLast(candidate);
+        }
+        while (weight() > maxWeight) {
+            Node victim = probation.first;
+            final Node candidate = probation.last;
+            if (victim == null) {
+                victim = protectedSegment.first != null ? protectedSegment.first : window.first;
+                evict(victim);
+            } else if (victim == candidate) {
+                evict(victim);
+            } else if (sketch.frequency(candidate.metrics.hashCode()) > sketch.frequency(victim.metrics.hashCode())) {
+                evict(victim);
+            } else {
+                evict(candidate);
+            }
+        }
+    }
+
+    private void evict(Node node) {
+        node.segment.remove(node);
+        sessionCache.remove(node.metrics, node);
+        evictionCounter.inc();
+        final long timeBucket = node.metrics.getTimeBucket();
+        if (timeBucket > latestEvictedTimeBucket) {
+            latestEvictedTimeBucket = timeBucket;
+        }
+    }
+
+    /**
+     * @return the estimated bytes of the metrics in heap, based on its serialized size. This serializes the metrics,
+     * it is only used to estimate the weight of the type.
+     */
+    static long weigh(Metrics metrics) {
+        final RemoteData.Builder serialized = metrics.serialize();
+        if (serialized == null) {
+            return ENTRY_WEIGHT;
+        }
+        return ENTRY_WEIGHT + (long) serialized.build().getSerializedSize() * SERIALIZED_BYTE_WEIGHT;
+    }
+
+    private static class Node {
+        private final Metrics metrics;
+        private final long weight;
+        /**
+         * The segment holding this node, or null if it is removed.
+         */
+        private Segment segment;
+        private Node prev;
+        private Node next;
+
+        private Node(Metrics metrics, long weight) {
+            this.metrics = metrics;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * A doubly linked list of the nodes in the access order, the first is the LRU one.
+     */
+    private static class Segment {
+        private Node first;
+        private Node last;
+        private long weight;
+
+        private void addLast(Node node) {
+            node.segment = this;
+            node.prev = last;
+            node.next = null;
+            if (last == null) {
+                first = node;
+            } else {
+                last.next = node;
+            }
+            last = node;
+            weight += node.weight;
+        }
+
+        private void remove(Node node) {
+            if (node.prev == null) {
+                first = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                last = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+            node.segment = null;
+            weight -= node.weight;
+        }
 
-            if (metrics.isExpired(timestamp, timeoutThreshold)) {
-                iterator.remove();
+        private void moveToLast(Node node) {
+            if (last != node) {
+                remove(node);
+                addLast(node);
             }
         }
     }
@@ -0,0 +1,261 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.worker;
+
+import io.netty.util.internal.PlatformDependent;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteData;
+import org.apache.skywalking.oap.server.core.storage.model.Model;
+
+/**
+ * MetricsSessionCacheSnapshot checkpoints the {@link MetricsSessionCache} of every {@link MetricsPersistentWorker}
+ * into a local memory-mapped file after every persistence round, and restores the cache from the file when the worker
+ * is created. Then the OAP restarted in a short time doesn't need to read all hot metrics from the database again.
+ *
+ * One file per model, named as {@code <model name>-<downsampling>.snapshot}, in the following binary format.
+ * <pre>
+ * magic(int) version(int) snapshot time(long) count(int)
+ * [last update timestamp(long) length(int) serialized {@link RemoteData}(bytes)] * count
+ * </pre>
+ *
+ * The files are written by a dedicated thread. When OAP shuts down, the pending checkpoints are finished, and a
+ * {@link #CLEAN_SHUTDOWN_MARKER} file is created. The snapshots are restored only if the marker exists, as the snapshots
+ * left by a crashed OAP could be older than the metrics flushed into the database after them. The restored metrics would
+ * overwrite the newer ones in the database by the next combination.
+ *
+ * The snapshot older than the session timeout of the worker is discarded, as the metrics in it would have expired
+ * from the cache anyway, and could be changed by other OAP nodes in the meantime.
+ *
+ * @since 10.2.0
+ */
+@Slf4j
+public class MetricsSessionCacheSnapshot {
+    static final String CLEAN_SHUTDOWN_MARKER = "clean-shutdown";
+    private static final int MAGIC = 0x534B5343;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 4;
+    private static final int ENTRY_HEADER_SIZE = 8 + 4;
+
+    private final Path directory;
+    /**
+     * Whether the snapshots are left by a clean shutdown, which is checked once when this is created.
+     */
+    private final boolean restorable;
+    private final ExecutorService executor;
+
+    /**
+     * @param directory the directory of the snapshot files.
+     */
+    public MetricsSessionCacheSnapshot(String directory) {
+        this.directory = Paths.get(directory);
+        this.restorable = consumeCleanShutdownMarker();
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            final Thread thread = new Thread(r, "MetricsSessionCacheSnapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Finish the pending checkpoints when OAP shuts down.
+     */
+    public void registerShutdownHook() {
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "MetricsSessionCacheSnapshotShutdown"));
+    }
+
+    /**
+     * Write the given metrics of the cache into the snapshot file of the model asynchronously. The file is written as
+     * a temporary file first, and renamed atomically, so the snapshot is never read half-written.
+     *
+     * @param metrics the copy of the entries in the cache. The caller should not change the values of the metrics
+     *                until the returned future is completed.
+     * @return the future completed when the file is written or failed to be written.
+     */
+    CompletableFuture<Void> checkpoint(Model model, List<Metrics> metrics) {
+        try {
+            return CompletableFuture.runAsync(() -> write(model, metrics), executor);
+        } catch (RejectedExecutionException e) {
+            // The shutdown has started, the metrics of this round could be flushed after the final checkpoint.
+            delete(model);
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    /**
+     * Put the unexpired metrics in the snapshot file of the model into the cache.
+     *
+     * @return the count of the restored metrics.
+     */
+    int restore(Model model, MetricsSessionCache cache) {
+        final Path file = fileOf(model);
+        if (!restorable || !Files.isRegularFile(file)) {
+            return 0;
+        }
+        final long now = System.currentTimeMillis();
+        int restored = 0;
+        MappedByteBuffer buffer = null;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                log.warn("Ignore the session cache snapshot {} in unknown format", file);
+                return 0;
+            }
+            final long snapshotTime = buffer.getLong();
+            if (now - snapshotTime > cache.getTimeoutThreshold()) {
+                log.info("Ignore the session cache snapshot {} taken at {}, as it is expired", file, snapshotTime);
+                return 0;
+            }
+            final int count = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                final long lastUpdateTimestamp = buffer.getLong();
+                final int length = buffer.getInt();
+                final ByteBuffer entry = buffer.slice();
+                entry.limit(length);
+                buffer.position(buffer.position() + length);
+                if (now - lastUpdateTimestamp > cache.getTimeoutThreshold()) {
+                    continue;
+                }
+                final Metrics metrics = (Metrics) model.getStreamClass().getDeclaredConstructor().newInstance();
+                metrics.deserialize(RemoteData.parseFrom(entry));
+                metrics.setLastUpdateTimestamp(lastUpdateTimestamp);
+                cache.put(metrics);
+                restored++;
+            }
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException | ReflectiveOperationException e) {
+            log.warn("Failed to restore the session cache of {} from {}", model.getName(), file, e);
+        } finally {
+            unmap(buffer);
+        }
+        return restored;
+    }
+
+    /**
+     * Finish the pending checkpoints, and mark the snapshots as restorable if all of them are finished in time.
+     */
+    void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("The session cache snapshots are not finished before shutdown, ignore them");
+                return;
+            }
+            Files.createDirectories(directory);
+            Files.write(directory.resolve(CLEAN_SHUTDOWN_MARKER), new byte[0]);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.warn("Failed to mark the session cache snapshots in {} as restorable", directory, e);
+        }
+    }
+
+    private void write(Model model, List<Metrics> metrics) {
+        final Path file = fileOf(model);
+        final Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        MappedByteBuffer buffer = null;
+        try {
+            final List<byte[]> entries = new ArrayList<>(metrics.size());
+            final List<Long> timestamps = new ArrayList<>(metrics.size());
+            long size = HEADER_SIZE;
+            for (final Metrics m : metrics) {
+                final RemoteData.Builder serialized = m.serialize();
+                if (serialized != null) {
+                    final byte[] entry = serialized.build().toByteArray();
+                    entries.add(entry);
+                    timestamps.add(m.getLastUpdateTimestamp());
+                    size += ENTRY_HEADER_SIZE + entry.length;
+                }
+            }
+
+            Files.createDirectories(directory);
+            try (FileChannel channel = FileChannel.open(
+                temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE
+            )) {
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                buffer.putInt(MAGIC).putInt(VERSION).putLong(System.currentTimeMillis()).putInt(entries.size());
+                for (int i = 0; i < entries.size(); i++) {
+                    final byte[] entry = entries.get(i);
+                    buffer.putLong(timestamps.get(i)).putInt(entry.length).put(entry);
+                }
+                buffer.force();
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (Exception e) {
+            log.warn("Failed to checkpoint the session cache of {} into {}", model.getName(), file, e);
+            delete(model);
+        } finally {
+            unmap(buffer);
+        }
+    }
+
+    /**
+     * Delete the snapshot of the model, which can't be updated to the latest round.
+     */
+    private void delete(Model model) {
+        try {
+            Files.deleteIfExists(fileOf(model));
+        } catch (IOException e) {
+            log.warn("Failed to delete the session cache snapshot of {}", model.getName(), e);
+        }
+    }
+
+    /**
+     * @return true if the marker of the clean shutdown exists. The marker is deleted, so the snapshots are not
+     * restored again if this OAP crashes later.
+     */
+    private boolean consumeCleanShutdownMarker() {
+        try {
+            return Files.deleteIfExists(directory.resolve(CLEAN_SHUTDOWN_MARKER));
+        } catch (IOException e) {
+            log.warn("Failed to check the session cache snapshots in {}, ignore them", directory, e);
+            return false;
+        }
+    }
+
+    /**
+     * Release the mapped memory now, rather than waiting for the GC.
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        if (buffer != null) {
+            PlatformDependent.freeDirectBuffer(buffer);
+        }
+    }
+
+    private Path fileOf(Model model) {
+        return directory.resolve(model.getName() + "-" + model.getDownsampling().getName() + ".snapshot");
+    }
+}
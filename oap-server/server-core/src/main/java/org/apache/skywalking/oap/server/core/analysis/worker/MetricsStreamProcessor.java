@@ -27,8 +27,12 @@ import org.apache.skywalking.oap.server.core.analysis.MetricsExtension;
 import org.apache.skywalking.oap.server.core.analysis.Stream;
 import org.apache.skywalking.oap.server.core.analysis.StreamDefinition;
 import org.apache.skywalking.oap.server.core.analysis.StreamProcessor;
+import org.apache.skywalking.oap.server.core.analysis.data.MergableBufferType;
+import org.apache.skywalking.oap.server.core.analysis.manual.endpoint.EndpointTraffic;
 import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
 import org.apache.skywalking.oap.server.core.config.DownSamplingConfigService;
+import org.apache.skywalking.oap.server.core.query.EndpointNameIndex;
+import org.apache.skywalking.oap.server.core.remote.selector.Selector;
 import org.apache.skywalking.oap.server.core.storage.IMetricsDAO;
 import org.apache.skywalking.oap.server.core.storage.StorageBuilderFactory;
 import org.apache.skywalking.oap.server.core.storage.StorageDAO;
@@ -77,11 +81,59 @@ public class MetricsStreamProcessor implements StreamProcessor<Metrics> {
     @Setter
     @Getter
     private long l1FlushPeriod = 500;
+    /**
+     * The merge buffer of L1 aggregation for {@link MetricStreamKind#OAL} metrics.
+     */
+    @Setter
+    private MergableBufferType l1AggregationBufferOAL = MergableBufferType.OpenAddressing;
+    /**
+     * The merge buffer of L1 aggregation for {@link MetricStreamKind#MAL} metrics.
+     */
+    @Setter
+    private MergableBufferType l1AggregationBufferMAL = MergableBufferType.HashMap;
+    /**
+     * The number of shards of the L2 aggregation cache per metric.
+     */
+    @Setter
+    private int l2AggregationShards = 1;
+    /**
+     * The routing of metrics from L1 aggregation to L2 aggregation.
+     */
+    @Setter
+    private Selector l2AggregationRouting = Selector.HashCode;
     /**
      * The threshold of session time. Unit is ms. Default value is 70s.
      */
     @Setter
     private long storageSessionTimeout = 70_000;
+    /**
+     * The max estimated bytes of the session cache per metric without its own budget. Non-positive means no limit.
+     */
+    @Setter
+    private long storageSessionCacheMaxWeight = 0;
+    /**
+     * The max estimated bytes of the session cache of the specific metrics, overriding the
+     * storageSessionCacheMaxWeight.
+     *
+     * @since 10.2.0
+     */
+    @Setter
+    private Map<String, Long> storageSessionCacheModelMaxWeights = new HashMap<>();
+    /**
+     * The snapshot of the session cache of the persistent workers, or null if it is not enabled.
+     *
+     * @since 10.2.0
+     */
+    @Setter
+    private MetricsSessionCacheSnapshot sessionCacheSnapshot;
+    /**
+     * The in-memory index of the endpoint names fed by the persistence of {@link EndpointTraffic}, or null if it is
+     * not enabled.
+     *
+     * @since 10.2.0
+     */
+    @Setter
+    private EndpointNameIndex endpointNameIndex;
     /**
      * @since 8.7.0 TTL settings from {@link org.apache.skywalking.oap.server.core.CoreModuleConfig#getMetricsDataTTL()}
      */
@@ -193,9 +245,12 @@ public class MetricsStreamProcessor implements StreamProcessor<Metrics> {
                                                                        .getService(IWorkerInstanceSetter.class);
         workerInstanceSetter.put(remoteReceiverWorkerName, minutePersistentWorker, metricsClass);
 
-        MetricsRemoteWorker remoteWorker = new MetricsRemoteWorker(moduleDefineHolder, remoteReceiverWorkerName);
+        MetricsRemoteWorker remoteWorker = new MetricsRemoteWorker(
+            moduleDefineHolder, remoteReceiverWorkerName, l2AggregationRouting);
         MetricsAggregateWorker aggregateWorker = new MetricsAggregateWorker(
-            moduleDefineHolder, remoteWorker, stream.getName(), l1FlushPeriod, kind);
+            moduleDefineHolder, remoteWorker, stream.getName(), l1FlushPeriod, kind,
+            MetricStreamKind.MAL == kind ? l1AggregationBufferMAL : l1AggregationBufferOAL
+        );
 
         entryWorkers.put(metricsClass, aggregateWorker);
     }
@@ -211,13 +266,25 @@ public class MetricsStreamProcessor implements StreamProcessor<Metrics> {
 
         MetricsPersistentWorker minutePersistentWorker = new MetricsPersistentWorker(
             moduleDefineHolder, model, metricsDAO, alarmNotifyWorker, exportWorker, transWorker,
-            supportUpdate, storageSessionTimeout, metricsDataTTL, kind
+            supportUpdate, storageSessionTimeout, sessionCacheMaxWeightOf(model), metricsDataTTL, kind,
+            l2AggregationShards
         );
+        if (sessionCacheSnapshot != null) {
+            minutePersistentWorker.enableSessionCacheSnapshot(sessionCacheSnapshot);
+        }
+        if (endpointNameIndex != null && EndpointTraffic.INDEX_NAME.equals(model.getName())) {
+            minutePersistentWorker.enablePersistenceListener(
+                metrics -> endpointNameIndex.index((EndpointTraffic) metrics));
+        }
         persistentWorkers.add(minutePersistentWorker);
 
         return minutePersistentWorker;
     }
 
+    private long sessionCacheMaxWeightOf(Model model) {
+        return storageSessionCacheModelMaxWeights.getOrDefault(model.getName(), storageSessionCacheMaxWeight);
+    }
+
     private MetricsPersistentWorker downSamplingWorker(ModuleDefineHolder moduleDefineHolder,
                                                        IMetricsDAO metricsDAO,
                                                        Model model,
@@ -225,8 +292,12 @@ public class MetricsStreamProcessor implements StreamProcessor<Metrics> {
                                                        MetricStreamKind kind) {
         MetricsPersistentWorker persistentWorker = new MetricsPersistentWorker(
             moduleDefineHolder, model, metricsDAO,
-            supportUpdate, storageSessionTimeout, metricsDataTTL, kind
+            supportUpdate, storageSessionTimeout, sessionCacheMaxWeightOf(model), metricsDataTTL, kind,
+            l2AggregationShards
         );
+        if (sessionCacheSnapshot != null) {
+            persistentWorker.enableSessionCacheSnapshot(sessionCacheSnapshot);
+        }
         persistentWorkers.add(persistentWorker);
 
         return persistentWorker;
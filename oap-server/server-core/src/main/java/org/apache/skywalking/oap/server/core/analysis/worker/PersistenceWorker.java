@@ -19,6 +19,7 @@
 package org.apache.skywalking.oap.server.core.analysis.worker;
 
 import java.util.List;
+import java.util.concurrent.Executor;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
@@ -48,7 +49,17 @@ public abstract class PersistenceWorker<INPUT extends StorageData> extends Abstr
      * Accept the input, and push the data into the cache.
      */
     void onWork(List<INPUT> input) {
-        cache.write(input);
+        onWork(cache, input);
+    }
+
+    /**
+     * Accept the input, and push the data into the given shard of the cache.
+     *
+     * @param shard the cache, or one of the shards the worker partitions it into.
+     * @since 10.2.0
+     */
+    void onWork(ReadWriteSafeCache<INPUT> shard, List<INPUT> input) {
+        shard.write(input);
     }
 
     /**
@@ -62,4 +73,15 @@ public abstract class PersistenceWorker<INPUT extends StorageData> extends Abstr
      * implementations.
      */
     public abstract List<PrepareRequest> buildBatchRequests();
+
+    /**
+     * Prepare the batch persistence, the implementation could use the given executor to prepare in parallel. The
+     * executor is shared by all workers, the implementation must not block its thread waiting for a queued task.
+     *
+     * @param executor the executor of the prepare stage.
+     * @since 10.2.0
+     */
+    public List<PrepareRequest> buildBatchRequests(Executor executor) {
+        return buildBatchRequests();
+    }
 }
@@ -19,43 +19,263 @@
 package org.apache.skywalking.oap.server.core.analysis.worker;
 
 import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.skywalking.oap.server.core.UnexpectedException;
 import org.apache.skywalking.oap.server.core.analysis.record.Record;
 import org.apache.skywalking.oap.server.core.storage.IBatchDAO;
 import org.apache.skywalking.oap.server.core.storage.IRecordDAO;
 import org.apache.skywalking.oap.server.core.storage.StorageModule;
 import org.apache.skywalking.oap.server.core.storage.model.Model;
+import org.apache.skywalking.oap.server.core.storage.type.HashMapConverter;
+import org.apache.skywalking.oap.server.core.storage.type.StorageBuilder;
 import org.apache.skywalking.oap.server.core.worker.AbstractWorker;
 import org.apache.skywalking.oap.server.library.client.request.InsertRequest;
+import org.apache.skywalking.oap.server.library.client.request.PrepareRequest;
+import org.apache.skywalking.oap.server.library.datacarrier.DataCarrier;
+import org.apache.skywalking.oap.server.library.datacarrier.buffer.BufferStrategy;
+import org.apache.skywalking.oap.server.library.datacarrier.consumer.BulkConsumePool;
+import org.apache.skywalking.oap.server.library.datacarrier.consumer.ConsumerPoolFactory;
+import org.apache.skywalking.oap.server.library.datacarrier.consumer.IConsumer;
 import org.apache.skywalking.oap.server.library.module.ModuleDefineHolder;
+import org.apache.skywalking.oap.server.library.util.StringUtil;
+import org.apache.skywalking.oap.server.telemetry.TelemetryModule;
+import org.apache.skywalking.oap.server.telemetry.api.CounterMetrics;
+import org.apache.skywalking.oap.server.telemetry.api.GaugeMetrics;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsCreator;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsTag;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * RecordPersistentWorker inserts the records into the storage.
+ *
+ * If the queue is enabled, the records are inserted asynchronously by the consumer threads, rather than the receiver
+ * threads, so the slow storage doesn't block the receivers. The records overflowing the queue are spilled into the
+ * local {@link RecordSpillLog} if it is enabled, and replayed into the storage when the queue is drained. The records
+ * are inserted synchronously as before, if the queue is full and they can't be spilled.
+ */
 public class RecordPersistentWorker extends AbstractWorker<Record> {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(RecordPersistentWorker.class);
+    private static final String POOL_NAME = "RECORD_PERSISTENT";
+    private static final int REPLAY_BATCH_SIZE = 1000;
+    /**
+     * The min and max milliseconds to wait before replaying again after a failed replay. The wait doubles on every
+     * failure in a row, and is reset by a successful replay.
+     */
+    private static final long MIN_REPLAY_BACKOFF = 1000;
+    private static final long MAX_REPLAY_BACKOFF = 60_000;
 
     private final Model model;
     private final IRecordDAO recordDAO;
     private final IBatchDAO batchDAO;
     private final Optional<AbstractWorker<Record>> nextExportWorker;
+    private final StorageBuilder<Record> storageBuilder;
+    private final DataCarrier<Record> dataCarrier;
+    /**
+     * A batch of the spilled records is being written into the storage, and not committed in the spill log yet.
+     */
+    private final AtomicBoolean replaying = new AtomicBoolean(false);
+    /**
+     * The milliseconds to wait since the last failed replay, or 0 if the last replay succeeded.
+     */
+    private volatile long replayBackoff = 0;
+    private volatile long lastReplayFailure = 0;
+    private final RecordSpillLog spillLog;
+    private GaugeMetrics queueDepthGauge;
+    private GaugeMetrics spillBytesGauge;
+    private GaugeMetrics replayLagGauge;
+    private CounterMetrics spilledCounter;
 
-    RecordPersistentWorker(ModuleDefineHolder moduleDefineHolder, Model model, IRecordDAO recordDAO, AbstractWorker<Record> nextExportWorker) {
+    /**
+     * @param queueSize    the size of the queue, or non-positive to insert the records synchronously.
+     * @param spillPath    the directory of the spill logs, or empty to disable the spilling.
+     * @param spillMaxSize the max bytes of the spill log.
+     * @since 10.2.0
+     */
+    RecordPersistentWorker(ModuleDefineHolder moduleDefineHolder, Model model, IRecordDAO recordDAO,
+                           AbstractWorker<Record> nextExportWorker, StorageBuilder<Record> storageBuilder,
+                           int queueSize, String spillPath, long spillMaxSize) {
         super(moduleDefineHolder);
         this.model = model;
         this.recordDAO = recordDAO;
         this.batchDAO = moduleDefineHolder.find(StorageModule.NAME).provider().getService(IBatchDAO.class);
         this.nextExportWorker = Optional.ofNullable(nextExportWorker);
+        this.storageBuilder = storageBuilder;
+        if (queueSize <= 0) {
+            this.dataCarrier = null;
+            this.spillLog = null;
+            return;
+        }
+
+        if (StringUtil.isNotEmpty(spillPath) && storageBuilder != null) {
+            try {
+                this.spillLog = new RecordSpillLog(Paths.get(spillPath, model.getName()), spillMaxSize);
+            } catch (IOException e) {
+                throw new UnexpectedException("Failed to open the spill log of " + model.getName(), e);
+            }
+        } else {
+            this.spillLog = null;
+        }
+
+        MetricsCreator metricsCreator = moduleDefineHolder.find(TelemetryModule.NAME)
+                                                          .provider()
+                                                          .getService(MetricsCreator.class);
+        queueDepthGauge = metricsCreator.createGauge(
+            "record_persistent_queue_depth", "The number of records waiting in the queue to be inserted",
+            new MetricsTag.Keys("recordName"), new MetricsTag.Values(model.getName())
+        );
+        spillBytesGauge = metricsCreator.createGauge(
+            "record_persistent_spill_bytes", "The bytes of the records spilled to the disk but not replayed",
+            new MetricsTag.Keys("recordName"), new MetricsTag.Values(model.getName())
+        );
+        replayLagGauge = metricsCreator.createGauge(
+            "record_persistent_replay_lag", "The milliseconds since the next record to replay was spilled",
+            new MetricsTag.Keys("recordName"), new MetricsTag.Values(model.getName())
+        );
+        spilledCounter = metricsCreator.createCounter(
+            "record_persistent_spilled", "The number of records spilled to the disk",
+            new MetricsTag.Keys("recordName"), new MetricsTag.Values(model.getName())
+        );
+        if (spillLog != null) {
+            spillBytesGauge.setValue(spillLog.getSize());
+        }
+
+        this.dataCarrier = new DataCarrier<>(
+            "RecordPersistentWorker." + model.getName(), POOL_NAME, 1, queueSize, BufferStrategy.IF_POSSIBLE);
+        BulkConsumePool.Creator creator = new BulkConsumePool.Creator(
+            POOL_NAME, BulkConsumePool.Creator.recommendMaxSize(), 200);
+        try {
+            ConsumerPoolFactory.INSTANCE.createIfAbsent(POOL_NAME, creator);
+        } catch (Exception e) {
+            throw new UnexpectedException(e.getMessage(), e);
+        }
+        this.dataCarrier.consume(ConsumerPoolFactory.INSTANCE.get(POOL_NAME), new PersistentConsumer());
     }
 
     @Override
     public void in(Record record) {
+        if (dataCarrier == null) {
+            insert(record);
+        } else if (dataCarrier.produce(record)) {
+            queueDepthGauge.inc();
+        } else if (!spill(record)) {
+            // Insert synchronously as the backpressure, if the record can't be queued or spilled.
+            insert(record);
+        }
+        this.nextExportWorker.ifPresent(exportWorker -> exportWorker.in(record));
+    }
+
+    private void insert(Record record) {
         try {
             InsertRequest insertRequest = recordDAO.prepareBatchInsert(model, record);
             batchDAO.insert(insertRequest);
         } catch (IOException e) {
             LOGGER.error(e.getMessage(), e);
         }
-        this.nextExportWorker.ifPresent(exportWorker -> exportWorker.in(record));
+    }
+
+    private boolean spill(Record record) {
+        if (spillLog == null) {
+            return false;
+        }
+        try {
+            final HashMapConverter.ToStorage toStorage = new HashMapConverter.ToStorage();
+            storageBuilder.entity2Storage(record, toStorage);
+            if (!spillLog.append(RecordSpillLog.encode(toStorage.obtain()))) {
+                return false;
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Failed to spill the record of {}", model.getName(), e);
+            return false;
+        }
+        spilledCounter.inc();
+        spillBytesGauge.setValue(spillLog.getSize());
+        return true;
+    }
+
+    /**
+     * Replay a batch of the spilled records into the storage. The batch is committed in the spill log after it is
+     * written, otherwise, it is replayed again once the backoff since the failure elapses, so an unavailable storage
+     * isn't hammered by the same batch.
+     */
+    private void replay() {
+        if (spillLog == null || spillLog.isEmpty()) {
+            replayLagGauge.setValue(0);
+            return;
+        }
+        if (replayBackoff > 0 && System.currentTimeMillis() - lastReplayFailure < replayBackoff) {
+            return;
+        }
+        if (!replaying.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            final List<byte[]> frames = spillLog.read(REPLAY_BATCH_SIZE);
+            replayLagGauge.setValue(spillLog.getReplayLag());
+            final List<PrepareRequest> insertRequests = new ArrayList<>(frames.size());
+            for (final byte[] frame : frames) {
+                try {
+                    final Map<String, Object> source = RecordSpillLog.decode(frame);
+                    insertRequests.add(recordDAO.prepareBatchInsert(
+                        model, storageBuilder.storage2Entity(new HashMapConverter.ToEntity(source))));
+                } catch (IOException e) {
+                    // The record could never be replayed, don't block the following ones.
+                    LOGGER.error("Failed to decode the spilled record of {}, skip it", model.getName(), e);
+                }
+            }
+            batchDAO.flush(insertRequests).whenComplete((unused, throwable) -> endOfReplay(throwable));
+        } catch (IOException | RuntimeException e) {
+            endOfReplay(e);
+        }
+    }
+
+    /**
+     * @param failure the cause of the failed replay, or null if the batch is written.
+     */
+    private void endOfReplay(Throwable failure) {
+        try {
+            if (failure == null) {
+                replayBackoff = 0;
+                spillLog.commit();
+            } else {
+                replayBackoff = replayBackoff == 0
+                    ? MIN_REPLAY_BACKOFF : Math.min(replayBackoff * 2, MAX_REPLAY_BACKOFF);
+                lastReplayFailure = System.currentTimeMillis();
+                // Logged once per backoff, as the replay is not retried before it elapses.
+                LOGGER.error("Failed to replay the spilled records of {}, retry in {} ms",
+                             model.getName(), replayBackoff, failure);
+                spillLog.rewind();
+            }
+        } catch (IOException e) {
+            LOGGER.error("Failed to commit the replayed records of {}", model.getName(), e);
+        } finally {
+            spillBytesGauge.setValue(spillLog.getSize());
+            replaying.set(false);
+        }
+    }
+
+    private class PersistentConsumer implements IConsumer<Record> {
+        @Override
+        public void consume(List<Record> data) {
+            queueDepthGauge.dec(data.size());
+            data.forEach(RecordPersistentWorker.this::insert);
+        }
+
+        @Override
+        public void onError(List<Record> data, Throwable t) {
+            LOGGER.error(t.getMessage(), t);
+        }
+
+        @Override
+        public void nothingToConsume() {
+            // The queue is drained, which means the storage keeps up with the ingestion.
+            replay();
+        }
     }
 }
@@ -0,0 +1,376 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.worker;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * RecordSpillLog is a local segmented append-only log, holding the records overflowing the in-memory queue of {@link
+ * RecordPersistentWorker}, until they are replayed into the storage.
+ *
+ * The log is split into the segment files named by the increasing sequence, every frame in the segments is
+ * <pre>
+ * spill time(long) length(int) encoded record(bytes)
+ * </pre>
+ * The frames are read in batches, and a batch is committed once it is written into the storage. The segment is deleted
+ * once all frames in it are committed, and the committed position is kept in the offset file, so the records spilled
+ * before OAP restarts, including the batch not committed, are replayed after that.
+ *
+ * @since 10.2.0
+ */
+@Slf4j
+class RecordSpillLog {
+    private static final long SEGMENT_SIZE = 64 * 1024 * 1024;
+    private static final int FRAME_HEADER_SIZE = 8 + 4;
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String OFFSET_FILE = "replay.offset";
+
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_LONG = 2;
+    private static final byte TYPE_INT = 3;
+    private static final byte TYPE_DOUBLE = 4;
+    private static final byte TYPE_STRING_LIST = 5;
+
+    private final Path directory;
+    private final long maxSize;
+    private final long segmentSize;
+    private final TreeSet<Long> segments = new TreeSet<>();
+    /**
+     * The bytes of the segments not deleted yet.
+     */
+    @Getter
+    private long size;
+    private long writeSegment;
+    private long writeSegmentSize;
+    private OutputStream writer;
+    /**
+     * The position after the last committed frame.
+     */
+    private long readSegment;
+    private long readPosition;
+    /**
+     * The position after the last read frame, which is moved back to the committed position by {@link #rewind()}.
+     */
+    private long cursorSegment;
+    private long cursorPosition;
+    private FileChannel reader;
+    private final ByteBuffer frameHeader = ByteBuffer.allocate(FRAME_HEADER_SIZE);
+    /**
+     * The milliseconds since the next frame to replay was spilled, or 0 if all frames are replayed.
+     */
+    @Getter
+    private long replayLag;
+
+    RecordSpillLog(Path directory, long maxSize) throws IOException {
+        this(directory, maxSize, SEGMENT_SIZE);
+    }
+
+    RecordSpillLog(Path directory, long maxSize, long segmentSize) throws IOException {
+        this.directory = directory;
+        this.maxSize = maxSize;
+        this.segmentSize = segmentSize;
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                final String name = file.getFileName().toString();
+                if (name.endsWith(SEGMENT_SUFFIX)) {
+                    segments.add(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())));
+                }
+            });
+        }
+        for (final long segment : segments) {
+            size += Files.size(segmentFile(segment));
+        }
+        final Path offsetFile = directory.resolve(OFFSET_FILE);
+        if (Files.exists(offsetFile)) {
+            final String[] offset = new String(Files.readAllBytes(offsetFile), StandardCharsets.UTF_8).trim().split(",");
+            readSegment = Long.parseLong(offset[0]);
+            readPosition = Long.parseLong(offset[1]);
+        }
+        if (segments.isEmpty() || readSegment < segments.first()) {
+            readSegment = segments.isEmpty() ? 0 : segments.first();
+            readPosition = 0;
+        }
+        cursorSegment = readSegment;
+        cursorPosition = readPosition;
+        // Never append to the segments of the previous process, which may end with a torn frame.
+        writeSegment = segments.isEmpty() ? 0 : segments.last() + 1;
+    }
+
+    /**
+     * Append the data as a frame.
+     *
+     * @return false if the log is full.
+     */
+    synchronized boolean append(byte[] data) throws IOException {
+        final int frameSize = FRAME_HEADER_SIZE + data.length;
+        if (size + frameSize > maxSize) {
+            return false;
+        }
+        if (writer == null || writeSegmentSize >= segmentSize) {
+            rollWriter();
+        }
+        final DataOutputStream output = new DataOutputStream(writer);
+        output.writeLong(System.currentTimeMillis());
+        output.writeInt(data.length);
+        output.write(data);
+        output.flush();
+        writeSegmentSize += frameSize;
+        size += frameSize;
+        return true;
+    }
+
+    /**
+     * Read at most the given count of frames to replay after the last read frame. The frames are replayed again after
+     * {@link #rewind()} or restart, until they are committed by {@link #commit()}.
+     */
+    synchronized List<byte[]> read(int maxCount) throws IOException {
+        final List<byte[]> frames = new ArrayList<>();
+        replayLag = 0;
+        while (frames.size() < maxCount) {
+            if (reader == null) {
+                final Long segment = segments.ceiling(cursorSegment);
+                if (segment == null) {
+                    break;
+                }
+                if (segment != cursorSegment) {
+                    cursorSegment = segment;
+                    cursorPosition = 0;
+                }
+                reader = FileChannel.open(segmentFile(cursorSegment), StandardOpenOption.READ);
+            }
+            final byte[] frame = readFrame();
+            if (frame != null) {
+                frames.add(frame);
+                continue;
+            }
+            if (cursorSegment == writeSegment && writer != null) {
+                // All frames are read in the segment being appended. Close it to release the space once committed,
+                // and the next frame is appended to a new segment.
+                writer.close();
+                writer = null;
+                writeSegment++;
+            }
+            // All frames are read in the segment rolled or left by the previous process.
+            closeReader();
+            cursorSegment++;
+            cursorPosition = 0;
+        }
+        return frames;
+    }
+
+    /**
+     * Commit the frames read, delete the segments in which all frames are committed, and persist the position.
+     */
+    synchronized void commit() throws IOException {
+        while (!segments.isEmpty() && segments.first() < cursorSegment) {
+            final Path file = segmentFile(segments.pollFirst());
+            size -= Files.size(file);
+            Files.deleteIfExists(file);
+        }
+        readSegment = cursorSegment;
+        readPosition = cursorPosition;
+        Files.write(
+            directory.resolve(OFFSET_FILE),
+            (readSegment + "," + readPosition).getBytes(StandardCharsets.UTF_8)
+        );
+    }
+
+    /**
+     * Move back to the last committed frame, the frames read since then are read again.
+     */
+    synchronized void rewind() throws IOException {
+        closeReader();
+        cursorSegment = readSegment;
+        cursorPosition = readPosition;
+    }
+
+    synchronized boolean isEmpty() {
+        return segments.isEmpty() || (segments.size() == 1 && readSegment == writeSegment
+            && readPosition >= writeSegmentSize);
+    }
+
+    private byte[] readFrame() throws IOException {
+        final long remaining = reader.size() - cursorPosition;
+        if (remaining < FRAME_HEADER_SIZE) {
+            return null;
+        }
+        frameHeader.clear();
+        readFully(frameHeader, cursorPosition);
+        final long spillTime = frameHeader.getLong(0);
+        final int length = frameHeader.getInt(8);
+        if (length < 0 || remaining < FRAME_HEADER_SIZE + length) {
+            return null;
+        }
+        final ByteBuffer data = ByteBuffer.allocate(length);
+        readFully(data, cursorPosition + FRAME_HEADER_SIZE);
+        if (replayLag == 0) {
+            replayLag = Math.max(System.currentTimeMillis() - spillTime, 1);
+        }
+        cursorPosition += FRAME_HEADER_SIZE + length;
+        return data.array();
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (reader.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of the segment " + cursorSegment);
+            }
+        }
+    }
+
+    private void rollWriter() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writeSegment++;
+        }
+        writer = new BufferedOutputStream(Files.newOutputStream(
+            segmentFile(writeSegment), StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+        writeSegmentSize = 0;
+        segments.add(writeSegment);
+    }
+
+    private void closeReader() throws IOException {
+        if (reader != null) {
+            reader.close();
+            reader = null;
+        }
+    }
+
+    private Path segmentFile(long segment) {
+        return directory.resolve(String.format("%020d", segment) + SEGMENT_SUFFIX);
+    }
+
+    /**
+     * Encode the record converted by {@link org.apache.skywalking.oap.server.core.storage.type.HashMapConverter}.
+     *
+     * @throws IOException if there is any value in the type not supported.
+     */
+    static byte[] encode(Map<String, Object> source) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        final DataOutputStream output = new DataOutputStream(bytes);
+        output.writeInt(source.size());
+        for (final Map.Entry<String, Object> entry : source.entrySet()) {
+            output.writeUTF(entry.getKey());
+            final Object value = entry.getValue();
+            if (value == null) {
+                output.writeByte(TYPE_NULL);
+            } else if (value instanceof String) {
+                output.writeByte(TYPE_STRING);
+                writeString(output, (String) value);
+            } else if (value instanceof Long) {
+                output.writeByte(TYPE_LONG);
+                output.writeLong((Long) value);
+            } else if (value instanceof Integer) {
+                output.writeByte(TYPE_INT);
+                output.writeInt((Integer) value);
+            } else if (value instanceof Double) {
+                output.writeByte(TYPE_DOUBLE);
+                output.writeDouble((Double) value);
+            } else if (value instanceof List) {
+                output.writeByte(TYPE_STRING_LIST);
+                final List<?> list = (List<?>) value;
+                output.writeInt(list.size());
+                for (final Object element : list) {
+                    writeString(output, String.valueOf(element));
+                }
+            } else {
+                throw new IOException(
+                    "Unsupported type " + value.getClass().getName() + " of the field " + entry.getKey());
+            }
+        }
+        output.flush();
+        return bytes.toByteArray();
+    }
+
+    static Map<String, Object> decode(byte[] data) throws IOException {
+        final DataInputStream input = new DataInputStream(new ByteArrayInputStream(data));
+        final int count = input.readInt();
+        final Map<String, Object> source = new HashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            final String key = input.readUTF();
+            final byte type = input.readByte();
+            switch (type) {
+                case TYPE_NULL:
+                    source.put(key, null);
+                    break;
+                case TYPE_STRING:
+                    source.put(key, readString(input));
+                    break;
+                case TYPE_LONG:
+                    source.put(key, input.readLong());
+                    break;
+                case TYPE_INT:
+                    source.put(key, input.readInt());
+                    break;
+                case TYPE_DOUBLE:
+                    source.put(key, input.readDouble());
+                    break;
+                case TYPE_STRING_LIST:
+                    final int listSize = input.readInt();
+                    final List<String> list = new ArrayList<>(listSize);
+                    for (int j = 0; j < listSize; j++) {
+                        list.add(readString(input));
+                    }
+                    source.put(key, list);
+                    break;
+                default:
+                    throw new IOException("Unknown type " + type + " of the field " + key);
+            }
+        }
+        return source;
+    }
+
+    /**
+     * Write the string in the length-prefixed UTF-8 bytes, as {@link DataOutputStream#writeUTF(String)} is limited in
+     * 64KB.
+     */
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        final byte[] bytes = new byte[input.readInt()];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -21,6 +21,7 @@ package org.apache.skywalking.oap.server.core.analysis.worker;
 import java.lang.reflect.InvocationTargetException;
 import java.util.HashMap;
 import java.util.Map;
+import lombok.Setter;
 import org.apache.skywalking.oap.server.core.CoreModule;
 import org.apache.skywalking.oap.server.core.UnexpectedException;
 import org.apache.skywalking.oap.server.core.analysis.DownSampling;
@@ -43,6 +44,27 @@ public class RecordStreamProcessor implements StreamProcessor<Record> {
     private final static RecordStreamProcessor PROCESSOR = new RecordStreamProcessor();
 
     private Map<Class<? extends Record>, RecordPersistentWorker> workers = new HashMap<>();
+    /**
+     * The size of the queue of every record worker. Non-positive means the records are inserted synchronously.
+     *
+     * @since 10.2.0
+     */
+    @Setter
+    private int recordQueueSize = 0;
+    /**
+     * The directory of the spill logs of the records overflowing the queue. Empty means disabled.
+     *
+     * @since 10.2.0
+     */
+    @Setter
+    private String recordSpillPath = "";
+    /**
+     * The max bytes of the spill log of every record worker.
+     *
+     * @since 10.2.0
+     */
+    @Setter
+    private long recordSpillMaxSize = 1024L * 1024 * 1024;
 
     public static RecordStreamProcessor getInstance() {
         return PROCESSOR;
@@ -64,8 +86,10 @@ public class RecordStreamProcessor implements StreamProcessor<Record> {
 
         StorageDAO storageDAO = moduleDefineHolder.find(StorageModule.NAME).provider().getService(StorageDAO.class);
         IRecordDAO recordDAO;
+        StorageBuilder<Record> spillStorageBuilder;
         try {
             recordDAO = storageDAO.newRecordDao(builder.getDeclaredConstructor().newInstance());
+            spillStorageBuilder = builder.getDeclaredConstructor().newInstance();
         } catch (InstantiationException | IllegalAccessException | NoSuchMethodException | InvocationTargetException e) {
             throw new UnexpectedException("Create " + stream.builder().getSimpleName() + " record DAO failure.", e);
         }
@@ -75,7 +99,10 @@ public class RecordStreamProcessor implements StreamProcessor<Record> {
         Model model = modelSetter.add(
             recordClass, stream.scopeId(), new Storage(stream.name(), false, DownSampling.Second));
         ExportRecordWorker exportWorker = new ExportRecordWorker(moduleDefineHolder);
-        RecordPersistentWorker persistentWorker = new RecordPersistentWorker(moduleDefineHolder, model, recordDAO, exportWorker);
+        RecordPersistentWorker persistentWorker = new RecordPersistentWorker(
+            moduleDefineHolder, model, recordDAO, exportWorker, spillStorageBuilder,
+            recordQueueSize, recordSpillPath, recordSpillMaxSize
+        );
 
         workers.put(recordClass, persistentWorker);
     }
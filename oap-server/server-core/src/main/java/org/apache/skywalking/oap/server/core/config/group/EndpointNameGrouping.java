@@ -38,27 +38,38 @@ import org.apache.skywalking.oap.server.core.query.MetadataQueryService;
 import org.apache.skywalking.oap.server.library.util.CollectionUtils;
 import org.apache.skywalking.oap.server.library.util.RunnableWithExceptionProtection;
 import org.apache.skywalking.oap.server.library.util.StringFormatGroup;
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 import io.vavr.Tuple2;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 public class EndpointNameGrouping {
     public static final String ABANDONED_ENDPOINT_NAME = "_abandoned";
+    /**
+     * The max number of the recent endpoints whose results of the OpenAPI and custom rules are cached.
+     */
+    private static final int RULE_RESULT_CACHE_SIZE = 10_000;
 
     /**
      * Endpoint grouping according to local endpoint-name-grouping.yml or associated dynamic configuration.
      */
-    @Setter
     private volatile QuickUriGroupingRule endpointGroupingRule;
     /**
      * Endpoint grouping according to OpenAPI specification. The OpenAPI spec file is expected to provide.
      */
-    @Setter
     private volatile EndpointGroupingRule4Openapi endpointGroupingRule4Openapi;
+    /**
+     * LRU cache of the formatted results by the OpenAPI and custom rules, which are immutable once set. A new cache
+     * replaces the old one whenever any of the rules changes, so a result formatted by the old rules could only be put
+     * into the abandoned cache.
+     */
+    private volatile Cache<EndpointKey, Tuple2<String, Boolean>> ruleResultCache = newRuleResultCache();
     /**
      * AI pipeline based HTTP URI pattern recognition. The rules are automatically generated by remote AI/ML service.
      */
@@ -94,14 +105,7 @@ public class EndpointNameGrouping {
      * The second element is a boolean represented the endpoint name is formatted or not.
      */
     public Tuple2<String, Boolean> format(String serviceName, String endpointName) {
-        Tuple2<String, Boolean> formattedName = new Tuple2<>(endpointName, Boolean.FALSE);
-        if (endpointGroupingRule4Openapi != null) {
-            formattedName = formatByOpenapi(serviceName, endpointName);
-        }
-
-        if (!formattedName._2() && endpointGroupingRule != null) {
-            formattedName = formatByCustom(serviceName, endpointName);
-        }
+        Tuple2<String, Boolean> formattedName = formatByRules(serviceName, endpointName);
 
         if (!formattedName._2() && quickUriGroupingRule != null) {
             formattedName = formatByQuickUriPattern(serviceName, endpointName);
@@ -141,8 +145,52 @@ public class EndpointNameGrouping {
         return formattedName;
     }
 
-    private Tuple2<String, Boolean> formatByCustom(String serviceName, String endpointName) {
-        final StringFormatGroup.FormatResult formatResult = endpointGroupingRule.format(serviceName, endpointName);
+    public void setEndpointGroupingRule(final QuickUriGroupingRule endpointGroupingRule) {
+        this.endpointGroupingRule = endpointGroupingRule;
+        this.ruleResultCache = newRuleResultCache();
+    }
+
+    public void setEndpointGroupingRule4Openapi(final EndpointGroupingRule4Openapi endpointGroupingRule4Openapi) {
+        this.endpointGroupingRule4Openapi = endpointGroupingRule4Openapi;
+        this.ruleResultCache = newRuleResultCache();
+    }
+
+    private static Cache<EndpointKey, Tuple2<String, Boolean>> newRuleResultCache() {
+        return CacheBuilder.newBuilder().maximumSize(RULE_RESULT_CACHE_SIZE).build();
+    }
+
+    /**
+     * Format the endpoint name by the OpenAPI rules first, then the custom rules.
+     */
+    private Tuple2<String, Boolean> formatByRules(String serviceName, String endpointName) {
+        final Cache<EndpointKey, Tuple2<String, Boolean>> cache = ruleResultCache;
+        final EndpointGroupingRule4Openapi openapiRule = endpointGroupingRule4Openapi;
+        final QuickUriGroupingRule customRule = endpointGroupingRule;
+        if (openapiRule == null && customRule == null) {
+            return new Tuple2<>(endpointName, Boolean.FALSE);
+        }
+        final EndpointKey key = new EndpointKey(serviceName, endpointName);
+        Tuple2<String, Boolean> formattedName = cache.getIfPresent(key);
+        if (formattedName != null) {
+            return formattedName;
+        }
+
+        formattedName = new Tuple2<>(endpointName, Boolean.FALSE);
+        if (openapiRule != null) {
+            formattedName = formatByOpenapi(openapiRule, serviceName, endpointName);
+        }
+
+        if (!formattedName._2() && customRule != null) {
+            formattedName = formatByCustom(customRule, serviceName, endpointName);
+        }
+        cache.put(key, formattedName);
+        return formattedName;
+    }
+
+    private Tuple2<String, Boolean> formatByCustom(QuickUriGroupingRule customRule,
+                                                   String serviceName,
+                                                   String endpointName) {
+        final StringFormatGroup.FormatResult formatResult = customRule.format(serviceName, endpointName);
         if (log.isDebugEnabled() || log.isTraceEnabled()) {
             if (formatResult.isMatch()) {
                 log.debug("Endpoint {} of Service {} has been renamed in group {} by endpointGroupingRule",
@@ -155,9 +203,10 @@ public class EndpointNameGrouping {
         return new Tuple2<>(formatResult.getReplacedName(), formatResult.isMatch());
     }
 
-    private Tuple2<String, Boolean> formatByOpenapi(String serviceName, String endpointName) {
-        final StringFormatGroup.FormatResult formatResult = endpointGroupingRule4Openapi.format(
-            serviceName, endpointName);
+    private Tuple2<String, Boolean> formatByOpenapi(EndpointGroupingRule4Openapi openapiRule,
+                                                    String serviceName,
+                                                    String endpointName) {
+        final StringFormatGroup.FormatResult formatResult = openapiRule.format(serviceName, endpointName);
         if (log.isDebugEnabled() || log.isTraceEnabled()) {
             if (formatResult.isMatch()) {
                 log.debug("Endpoint {} of Service {} has been renamed in group {} by endpointGroupingRule4Openapi",
@@ -249,4 +298,11 @@ public class EndpointNameGrouping {
                  );
 
     }
+
+    @RequiredArgsConstructor
+    @EqualsAndHashCode
+    private static class EndpointKey {
+        private final String service;
+        private final String endpoint;
+    }
 }
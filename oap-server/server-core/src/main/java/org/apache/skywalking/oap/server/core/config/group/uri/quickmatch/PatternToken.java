@@ -44,4 +44,16 @@ public interface PatternToken {
         children().add(token);
         return token;
     }
+
+    /**
+     * @return the first child matching the name, or null if none.
+     */
+    default PatternToken matchChild(final String name) {
+        for (final PatternToken child : children()) {
+            if (child.isMatch(name)) {
+                return child;
+            }
+        }
+        return null;
+    }
 }
@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.config.group.uri.quickmatch;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * PatternTokenIndex indexes the tokens in the order of being added, to find the first token matching the URI slice
+ * without iterating all of them.
+ *
+ * @since 10.2.0
+ */
+class PatternTokenIndex {
+    private final Map<String, PatternToken> stringTokens = new HashMap<>();
+    private PatternToken varToken;
+
+    void add(PatternToken token) {
+        if (varToken != null) {
+            // The tokens added after the var token would never be the first matched one.
+            return;
+        }
+        if (token instanceof VarToken) {
+            varToken = token;
+        } else if (token instanceof StringToken) {
+            stringTokens.putIfAbsent(((StringToken) token).value(), token);
+        }
+    }
+
+    /**
+     * @return the first token matching the name, or null if none.
+     */
+    PatternToken match(String name) {
+        final PatternToken token = stringTokens.get(name);
+        return token != null ? token : varToken;
+    }
+}
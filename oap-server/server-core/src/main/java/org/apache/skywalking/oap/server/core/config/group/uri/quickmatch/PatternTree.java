@@ -24,10 +24,11 @@ import lombok.EqualsAndHashCode;
 import lombok.ToString;
 import org.apache.skywalking.oap.server.library.util.StringFormatGroup;
 
-@EqualsAndHashCode
-@ToString
+@EqualsAndHashCode(exclude = "rootsIndex")
+@ToString(exclude = "rootsIndex")
 public class PatternTree {
     private final List<PatternToken> roots;
+    private final PatternTokenIndex rootsIndex = new PatternTokenIndex();
 
     public PatternTree() {
         roots = new ArrayList<>();
@@ -42,17 +43,12 @@ public class PatternTree {
     public void addPattern(String pattern) {
         final List<String> tokens = splitByCharacter(pattern);
 
-        PatternToken current = null;
-        for (final PatternToken patternToken : roots) {
-            if (patternToken.isMatch(tokens.get(0))) {
-                current = patternToken;
-                break;
-            }
-        }
+        PatternToken current = rootsIndex.match(tokens.get(0));
 
         if (current == null) {
             current = new StringToken(tokens.get(0));
             roots.add(current);
+            rootsIndex.add(current);
         }
 
         if (tokens.size() == 1) {
@@ -110,21 +106,13 @@ public class PatternTree {
             // trailing slashes, if ever encountered will be kept as is
             return new StringFormatGroup.FormatResult(true, uri, uri);
         }
-        List<PatternToken> current = roots;
         PatternToken matchedToken = null;
         for (final String slice : slices) {
-            boolean matched = false;
-            for (final PatternToken patternToken : current) {
-                if (patternToken.isMatch(slice)) {
-                    matchedToken = patternToken;
-                    matched = true;
-                    break;
-                }
-            }
-            if (!matched) {
+            final PatternToken next = matchedToken == null ? rootsIndex.match(slice) : matchedToken.matchChild(slice);
+            if (next == null) {
                 return new StringFormatGroup.FormatResult(false, uri, uri);
             }
-            current = matchedToken.children();
+            matchedToken = next;
         }
         if (matchedToken.isLeaf()) {
             return new StringFormatGroup.FormatResult(true, uri, matchedToken.expression());
@@ -27,6 +27,7 @@ import lombok.Setter;
 public class StringToken implements PatternToken {
     private final String value;
     private final List<PatternToken> children;
+    private final PatternTokenIndex childrenIndex = new PatternTokenIndex();
     @Setter
     private String expression;
 
@@ -40,6 +41,10 @@ public class StringToken implements PatternToken {
         return value.equals(name);
     }
 
+    String value() {
+        return value;
+    }
+
     @Override
     public boolean isLeaf() {
         return expression != null;
@@ -55,6 +60,18 @@ public class StringToken implements PatternToken {
         return children;
     }
 
+    @Override
+    public PatternToken add(final PatternToken token) {
+        children.add(token);
+        childrenIndex.add(token);
+        return token;
+    }
+
+    @Override
+    public PatternToken matchChild(final String name) {
+        return childrenIndex.match(name);
+    }
+
     @Override
     public String toString() {
         return "StringToken: \"" + value + "\"";
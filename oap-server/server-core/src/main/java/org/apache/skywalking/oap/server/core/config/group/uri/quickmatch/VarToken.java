@@ -27,6 +27,7 @@ import lombok.Setter;
 public class VarToken implements PatternToken {
     public static final String VAR_TOKEN = "{var}";
     private List<PatternToken> children = new ArrayList<>();
+    private final PatternTokenIndex childrenIndex = new PatternTokenIndex();
     @Setter
     private String expression;
 
@@ -53,6 +54,18 @@ public class VarToken implements PatternToken {
         return children;
     }
 
+    @Override
+    public PatternToken add(final PatternToken token) {
+        children.add(token);
+        childrenIndex.add(token);
+        return token;
+    }
+
+    @Override
+    public PatternToken matchChild(final String name) {
+        return childrenIndex.match(name);
+    }
+
     @Override
     public String toString() {
         return "VarToken: \"" + VAR_TOKEN + "\"";
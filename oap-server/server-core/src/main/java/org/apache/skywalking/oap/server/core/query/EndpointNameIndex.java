@@ -0,0 +1,451 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.query;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.skywalking.oap.server.core.analysis.IDManager;
+import org.apache.skywalking.oap.server.core.analysis.TimeBucket;
+import org.apache.skywalking.oap.server.core.analysis.manual.endpoint.EndpointTraffic;
+import org.apache.skywalking.oap.server.core.query.input.Duration;
+import org.apache.skywalking.oap.server.core.query.type.Endpoint;
+import org.apache.skywalking.oap.server.core.storage.query.IMetadataQueryDAO;
+
+/**
+ * EndpointNameIndex keeps the endpoint names of every service in memory, to search the endpoints by the keyword
+ * without the keyword query of the storage. The names are indexed by their case-insensitive trigrams, and the posting
+ * list of every trigram is delta and varint encoded.
+ * <p>
+ * The index of a service is loaded from the storage in the background since its first search, fed by the persistence
+ * of the {@link EndpointTraffic} of this OAP node, and reloaded from the storage periodically to include the endpoints
+ * persisted by the other OAP nodes and exclude the expired ones. The service is searched through the storage until
+ * its index is loaded, and for as long as it is indexed if it has more endpoints than the index could hold. The
+ * services not searched in the idle timeout are dropped from the index.
+ *
+ * @since 10.2.0
+ */
+@Slf4j
+public class EndpointNameIndex {
+    private static final int GRAM_SIZE = 3;
+
+    private final int maxEndpointsPerService;
+    private final int maxServices;
+    /**
+     * The period of reloading the endpoints of a service from the storage. Unit is ms.
+     */
+    private final long reloadPeriod;
+    /**
+     * The services not searched in this period are dropped from the index. Unit is ms.
+     */
+    private final long idleTimeout;
+    /**
+     * Loads the endpoints from the storage, and drops the idle services, out of the search threads.
+     */
+    private final Executor executor;
+    private final Map<String, ServiceEndpoints> services = new ConcurrentHashMap<>();
+    private final AtomicLong lastIdleCheckTime = new AtomicLong(System.currentTimeMillis());
+    private volatile boolean unsupported = false;
+
+    public EndpointNameIndex(int maxEndpointsPerService, int maxServices, long reloadPeriod, long idleTimeout) {
+        this(maxEndpointsPerService, maxServices, reloadPeriod, idleTimeout, Executors.newSingleThreadExecutor(r -> {
+            final Thread thread = new Thread(r, "EndpointNameIndexLoader");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    EndpointNameIndex(int maxEndpointsPerService,
+                      int maxServices,
+                      long reloadPeriod,
+                      long idleTimeout,
+                      Executor executor) {
+        this.maxEndpointsPerService = maxEndpointsPerService;
+        this.maxServices = maxServices;
+        this.reloadPeriod = reloadPeriod;
+        this.idleTimeout = idleTimeout;
+        this.executor = executor;
+    }
+
+    /**
+     * Index the persisted endpoint traffic. The endpoints of the services never searched are not indexed, as they
+     * are loaded from the storage at the first search.
+     */
+    public void index(EndpointTraffic traffic) {
+        final ServiceEndpoints endpoints = services.get(traffic.getServiceId());
+        if (endpoints != null) {
+            endpoints.index(traffic.getName(), traffic.getTimeBucket(), traffic.getLastPingTimestamp());
+        }
+    }
+
+    /**
+     * @param keyword  to filter the endpoints whose names contain it case-insensitively, could be empty.
+     * @param duration filter endpoints with time range(last ping time), could be null.
+     * @return the endpoints ordered by the time bucket descending, or null if the index can't answer the search, and
+     * the search should go to the storage.
+     */
+    public List<Endpoint> find(IMetadataQueryDAO metadataQueryDAO,
+                               String keyword,
+                               String serviceId,
+                               int limit,
+                               Duration duration) {
+        if (unsupported) {
+            return null;
+        }
+        final long now = System.currentTimeMillis();
+        final long lastIdleCheck = lastIdleCheckTime.get();
+        if (now - lastIdleCheck > reloadPeriod && lastIdleCheckTime.compareAndSet(lastIdleCheck, now)) {
+            execute(() -> services.values().removeIf(endpoints -> now - endpoints.lastSearchTime > idleTimeout));
+        }
+        ServiceEndpoints endpoints = services.get(serviceId);
+        if (endpoints == null) {
+            if (services.size() >= maxServices) {
+                return null;
+            }
+            endpoints = services.computeIfAbsent(serviceId, ServiceEndpoints::new);
+        }
+        final ServiceIndex index = endpoints.get(metadataQueryDAO, now);
+        if (index == null) {
+            return null;
+        }
+        long startTimeBucket = Long.MIN_VALUE;
+        long endTimeBucket = Long.MAX_VALUE;
+        if (duration != null) {
+            startTimeBucket = TimeBucket.getMinuteTimeBucket(duration.getStartTimestamp());
+            endTimeBucket = TimeBucket.getMinuteTimeBucket(duration.getEndTimestamp());
+        }
+        return index.find(serviceId, keyword == null ? "" : keyword, limit, startTimeBucket, endTimeBucket);
+    }
+
+    private boolean execute(Runnable task) {
+        try {
+            executor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            log.warn("The endpoint name index is busy, skip the task.", e);
+            return false;
+        }
+    }
+
+    private static String toLowerCase(String value) {
+        final char[] chars = new char[value.length()];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(value.charAt(i));
+        }
+        return new String(chars);
+    }
+
+    private static long gramOf(String lowerCased, int offset) {
+        return (long) lowerCased.charAt(offset) << 32
+            | (long) lowerCased.charAt(offset + 1) << 16
+            | lowerCased.charAt(offset + 2);
+    }
+
+    /**
+     * The index of a service, and the index being loaded from the storage.
+     */
+    private class ServiceEndpoints {
+        private final String serviceId;
+        private final AtomicBoolean loadScheduled = new AtomicBoolean(false);
+        private volatile ServiceIndex current;
+        private volatile ServiceIndex loading;
+        private volatile long loadTime;
+        private volatile long lastSearchTime;
+        /**
+         * The endpoints are more than the index could hold, the service is searched through the storage without
+         * reloading, until it is dropped as idle.
+         */
+        private volatile boolean overflowed;
+
+        private ServiceEndpoints(String serviceId) {
+            this.serviceId = serviceId;
+        }
+
+        private void index(String name, long timeBucket, long lastPing) {
+            final ServiceIndex loadingIndex = loading;
+            if (loadingIndex != null) {
+                loadingIndex.add(name, timeBucket, lastPing);
+            }
+            final ServiceIndex currentIndex = current;
+            if (currentIndex != null && currentIndex != loadingIndex) {
+                currentIndex.add(name, timeBucket, lastPing);
+            }
+        }
+
+        /**
+         * Schedule the load when the index is missing or out of date.
+         *
+         * @return the index, or null if it is not loaded yet or the endpoints are more than it could hold.
+         */
+        private ServiceIndex get(IMetadataQueryDAO metadataQueryDAO, long now) {
+            lastSearchTime = now;
+            if (overflowed) {
+                return null;
+            }
+            if (now - loadTime > reloadPeriod && loadScheduled.compareAndSet(false, true)) {
+                if (!execute(() -> load(metadataQueryDAO))) {
+                    loadScheduled.set(false);
+                }
+            }
+            final ServiceIndex index = current;
+            if (index != null && index.isOverflowed()) {
+                overflow();
+                return null;
+            }
+            return index;
+        }
+
+        private void load(IMetadataQueryDAO metadataQueryDAO) {
+            final ServiceIndex index = new ServiceIndex();
+            loading = index;
+            try {
+                for (final EndpointTraffic traffic : metadataQueryDAO.listEndpointTraffics(
+                    serviceId, maxEndpointsPerService + 1)) {
+                    index.add(traffic.getName(), traffic.getTimeBucket(), traffic.getLastPingTimestamp());
+                }
+                if (index.isOverflowed()) {
+                    overflow();
+                } else {
+                    current = index;
+                }
+            } catch (UnsupportedOperationException e) {
+                log.warn("The endpoint name index is disabled, as the storage doesn't support listing the endpoints.", e);
+                unsupported = true;
+                services.clear();
+            } catch (IOException | RuntimeException e) {
+                log.warn("Failed to load the endpoints of service {}, keep the current index.", serviceId, e);
+            } finally {
+                loadTime = System.currentTimeMillis();
+                loading = null;
+                loadScheduled.set(false);
+            }
+        }
+
+        private void overflow() {
+            if (!overflowed) {
+                log.info("Service {} has more than {} endpoints, search them through the storage.",
+                         serviceId, maxEndpointsPerService
+                );
+            }
+            overflowed = true;
+            current = null;
+        }
+    }
+
+    /**
+     * The endpoint names of a service, and the posting lists of their trigrams.
+     */
+    private class ServiceIndex {
+        private final Map<String, Integer> ordinals = new HashMap<>();
+        private final Map<Long, PostingList> grams = new HashMap<>();
+        private String[] names = new String[16];
+        private long[] timeBuckets = new long[16];
+        private long[] lastPings = new long[16];
+        private int size;
+        /**
+         * The endpoints are more than {@link #maxEndpointsPerService}, no endpoint is indexed further.
+         */
+        private volatile boolean overflowed;
+
+        private boolean isOverflowed() {
+            return overflowed;
+        }
+
+        private synchronized void add(String name, long timeBucket, long lastPing) {
+            if (overflowed) {
+                return;
+            }
+            final Integer existing = ordinals.get(name);
+            if (existing != null) {
+                lastPings[existing] = Math.max(lastPings[existing], lastPing);
+                return;
+            }
+            if (size >= maxEndpointsPerService) {
+                overflowed = true;
+                return;
+            }
+            if (size == names.length) {
+                final int capacity = size * 2;
+                names = Arrays.copyOf(names, capacity);
+                timeBuckets = Arrays.copyOf(timeBuckets, capacity);
+                lastPings = Arrays.copyOf(lastPings, capacity);
+            }
+            final int ordinal = size++;
+            names[ordinal] = name;
+            timeBuckets[ordinal] = timeBucket;
+            lastPings[ordinal] = lastPing;
+            ordinals.put(name, ordinal);
+
+            final String lowerCased = toLowerCase(name);
+            for (int i = 0; i + GRAM_SIZE <= lowerCased.length(); i++) {
+                grams.computeIfAbsent(gramOf(lowerCased, i), gram -> new PostingList()).add(ordinal);
+            }
+        }
+
+        private synchronized List<Endpoint> find(String serviceId,
+                                                 String keyword,
+                                                 int limit,
+                                                 long startTimeBucket,
+                                                 long endTimeBucket) {
+            if (limit <= 0) {
+                return Collections.emptyList();
+            }
+            final String lowerCased = toLowerCase(keyword);
+            // The candidates are in the shortest posting list of the trigrams of the keyword.
+            PostingList candidates = null;
+            for (int i = 0; i + GRAM_SIZE <= lowerCased.length(); i++) {
+                final PostingList postingList = grams.get(gramOf(lowerCased, i));
+                if (postingList == null) {
+                    return Collections.emptyList();
+                }
+                if (candidates == null || postingList.size() < candidates.size()) {
+                    candidates = postingList;
+                }
+            }
+
+            // The min heap of the latest matched endpoints.
+            final PriorityQueue<Integer> latest = new PriorityQueue<>(
+                limit + 1, (o1, o2) -> timeBuckets[o1] != timeBuckets[o2] ?
+                    Long.compare(timeBuckets[o1], timeBuckets[o2]) : Integer.compare(o1, o2));
+            if (candidates == null) {
+                for (int ordinal = 0; ordinal < size; ordinal++) {
+                    match(ordinal, lowerCased, startTimeBucket, endTimeBucket, limit, latest);
+                }
+            } else {
+                final PostingList.Cursor cursor = candidates.cursor();
+                while (cursor.hasNext()) {
+                    match(cursor.next(), lowerCased, startTimeBucket, endTimeBucket, limit, latest);
+                }
+            }
+
+            final List<Endpoint> endpoints = new ArrayList<>(latest.size());
+            while (!latest.isEmpty()) {
+                final String name = names[latest.poll()];
+                final Endpoint endpoint = new Endpoint();
+                endpoint.setId(IDManager.EndpointID.buildId(serviceId, name));
+                endpoint.setName(name);
+                endpoints.add(endpoint);
+            }
+            Collections.reverse(endpoints);
+            return endpoints;
+        }
+
+        private void match(int ordinal,
+                           String lowerCasedKeyword,
+                           long startTimeBucket,
+                           long endTimeBucket,
+                           int limit,
+                           PriorityQueue<Integer> latest) {
+            if (lastPings[ordinal] < startTimeBucket || lastPings[ordinal] > endTimeBucket) {
+                return;
+            }
+            if (!containsIgnoreCase(names[ordinal], lowerCasedKeyword)) {
+                return;
+            }
+            latest.offer(ordinal);
+            if (latest.size() > limit) {
+                latest.poll();
+            }
+        }
+
+        private boolean containsIgnoreCase(String name, String lowerCasedKeyword) {
+            final int length = lowerCasedKeyword.length();
+            for (int i = 0; i + length <= name.length(); i++) {
+                int j = 0;
+                while (j < length && Character.toLowerCase(name.charAt(i + j)) == lowerCasedKeyword.charAt(j)) {
+                    j++;
+                }
+                if (j == length) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * The ascending ordinals of the endpoints, encoded as the varint deltas.
+     */
+    static class PostingList {
+        private byte[] bytes = new byte[4];
+        private int length;
+        private int count;
+        private int last = -1;
+
+        void add(int ordinal) {
+            if (ordinal <= last) {
+                // The trigram appears more than once in the name.
+                return;
+            }
+            if (length + 5 > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + 5));
+            }
+            int delta = ordinal - last;
+            while ((delta & ~0x7F) != 0) {
+                bytes[length++] = (byte) (delta & 0x7F | 0x80);
+                delta >>>= 7;
+            }
+            bytes[length++] = (byte) delta;
+            last = ordinal;
+            count++;
+        }
+
+        int size() {
+            return count;
+        }
+
+        Cursor cursor() {
+            return new Cursor();
+        }
+
+        class Cursor {
+            private int offset;
+            private int value = -1;
+
+            boolean hasNext() {
+                return offset < length;
+            }
+
+            int next() {
+                int delta = 0;
+                for (int shift = 0; ; shift += 7) {
+                    final byte b = bytes[offset++];
+                    delta |= (b & 0x7F) << shift;
+                    if ((b & 0x80) == 0) {
+                        break;
+                    }
+                }
+                value += delta;
+                return value;
+            }
+        }
+    }
+}
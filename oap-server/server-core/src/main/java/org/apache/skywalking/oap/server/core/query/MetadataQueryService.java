@@ -57,10 +57,24 @@ public class MetadataQueryService implements org.apache.skywalking.oap.server.li
 
     private final ModuleManager moduleManager;
     private final LoadingCache<Boolean, Map<String, List<Service>>> serviceCache;
+    /**
+     * The in-memory index of the endpoint names, or null if it is not enabled.
+     */
+    private final EndpointNameIndex endpointNameIndex;
     private IMetadataQueryDAO metadataQueryDAO;
 
     public MetadataQueryService(ModuleManager moduleManager, CoreModuleConfig moduleConfig) {
+        this(moduleManager, moduleConfig, null);
+    }
+
+    /**
+     * @since 10.2.0
+     */
+    public MetadataQueryService(ModuleManager moduleManager,
+                                CoreModuleConfig moduleConfig,
+                                EndpointNameIndex endpointNameIndex) {
         this.moduleManager = moduleManager;
+        this.endpointNameIndex = endpointNameIndex;
 
         this.serviceCache = CacheBuilder.newBuilder()
             .maximumSize(1)
@@ -124,6 +138,13 @@ public class MetadataQueryService implements org.apache.skywalking.oap.server.li
 
     public List<Endpoint> findEndpoint(final String keyword, final String serviceId,
                                        final int limit, final Duration duration) throws IOException {
+        if (endpointNameIndex != null && StringUtils.isNotEmpty(serviceId)) {
+            final List<Endpoint> endpoints = endpointNameIndex.find(
+                getMetadataQueryDAO(), keyword, serviceId, limit, duration);
+            if (endpoints != null) {
+                return endpoints;
+            }
+        }
         return getMetadataQueryDAO().findEndpoint(keyword, serviceId, limit, duration)
                                     .stream().distinct().collect(Collectors.toList());
     }
@@ -23,6 +23,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.OptionalDouble;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.skywalking.oap.server.core.CoreModuleConfig;
 import org.apache.skywalking.oap.server.core.query.input.Duration;
 import org.apache.skywalking.oap.server.core.query.input.MetricsCondition;
 import org.apache.skywalking.oap.server.core.query.type.HeatMap;
@@ -34,6 +35,7 @@ import org.apache.skywalking.oap.server.core.query.type.debugging.DebuggingSpan;
 import org.apache.skywalking.oap.server.core.query.type.debugging.DebuggingTraceContext;
 import org.apache.skywalking.oap.server.core.storage.StorageModule;
 import org.apache.skywalking.oap.server.core.storage.annotation.ValueColumnMetadata;
+import org.apache.skywalking.oap.server.core.storage.query.CachedMetricsQueryDAO;
 import org.apache.skywalking.oap.server.core.storage.query.IMetricsQueryDAO;
 import org.apache.skywalking.oap.server.library.module.ModuleManager;
 import org.apache.skywalking.oap.server.library.module.Service;
@@ -43,15 +45,39 @@ import static org.apache.skywalking.oap.server.core.query.type.debugging.Debuggi
 @Slf4j
 public class MetricsQueryService implements Service {
     private final ModuleManager moduleManager;
+    /**
+     * The max weight of the immutable bucket cache in bytes, non-positive means the cache is disabled.
+     */
+    private final long cacheMaxWeight;
+    /**
+     * The time after the end of a bucket, since when the bucket is cached. Unit is ms.
+     */
+    private final long cacheImmutableDelay;
     private IMetricsQueryDAO metricQueryDAO;
 
     public MetricsQueryService(ModuleManager moduleManager) {
         this.moduleManager = moduleManager;
+        this.cacheMaxWeight = 0;
+        this.cacheImmutableDelay = 0;
+    }
+
+    /**
+     * @since 10.2.0
+     */
+    public MetricsQueryService(ModuleManager moduleManager, CoreModuleConfig moduleConfig) {
+        this.moduleManager = moduleManager;
+        this.cacheMaxWeight = moduleConfig.getMetricsQueryCacheMaxWeight();
+        this.cacheImmutableDelay =
+            (moduleConfig.getPersistentPeriod() + moduleConfig.getMetricsQueryCacheSafetyMargin()) * 1000L;
     }
 
     private IMetricsQueryDAO getMetricQueryDAO() {
         if (metricQueryDAO == null) {
-            metricQueryDAO = moduleManager.find(StorageModule.NAME).provider().getService(IMetricsQueryDAO.class);
+            IMetricsQueryDAO dao = moduleManager.find(StorageModule.NAME).provider().getService(IMetricsQueryDAO.class);
+            if (cacheMaxWeight > 0) {
+                dao = new CachedMetricsQueryDAO(dao, cacheMaxWeight, cacheImmutableDelay);
+            }
+            metricQueryDAO = dao;
         }
         return metricQueryDAO;
     }
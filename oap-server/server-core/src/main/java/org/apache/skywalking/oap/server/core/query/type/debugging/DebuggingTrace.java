@@ -38,7 +38,7 @@ public class DebuggingTrace {
         this.startTime = System.nanoTime();
     }
 
-    public void addSpan(DebuggingSpan span) {
+    public synchronized void addSpan(DebuggingSpan span) {
         spans.add(span);
     }
 
@@ -19,6 +19,7 @@
 package org.apache.skywalking.oap.server.core.query.type.debugging;
 
 import java.util.Stack;
+import java.util.concurrent.atomic.AtomicInteger;
 import lombok.Getter;
 
 @Getter
@@ -26,23 +27,46 @@ public class DebuggingTraceContext {
     public final static ThreadLocal<DebuggingTraceContext> TRACE_CONTEXT = new ThreadLocal<>();
     private final DebuggingTrace execTrace;
     private final Stack<DebuggingSpan> spanStack = new Stack<>();
-    private int spanIdGenerator;
+    private final AtomicInteger spanIdGenerator;
     private final boolean debug;
     private final boolean dumpStorageRsp;
 
     public DebuggingTraceContext(String condition, boolean debug, boolean dumpStorageRsp) {
         this.execTrace = new DebuggingTrace(condition);
+        this.spanIdGenerator = new AtomicInteger();
         this.debug = debug;
         this.dumpStorageRsp = dumpStorageRsp;
     }
 
+    private DebuggingTraceContext(DebuggingTraceContext parent) {
+        this.execTrace = parent.execTrace;
+        this.spanIdGenerator = parent.spanIdGenerator;
+        this.debug = parent.debug;
+        this.dumpStorageRsp = parent.dumpStorageRsp;
+        DebuggingSpan parentSpan = parent.getParentSpan();
+        if (parentSpan != null) {
+            this.spanStack.push(parentSpan);
+        }
+    }
+
+    /**
+     * Fork a context for another thread, which shares the trace with this context, and the spans created in it are
+     * the children of the current active span of this context.
+     *
+     * @return DebuggingTraceContext
+     * @since 10.2.0
+     */
+    public DebuggingTraceContext fork() {
+        return new DebuggingTraceContext(this);
+    }
+
     /**
      * Create a new span for OAP internal debugging trace and start.
      * @param operation operation
      * @return DebuggingSpan
      */
     public DebuggingSpan createSpan(String operation) {
-        DebuggingSpan span = new DebuggingSpan(spanIdGenerator++, operation);
+        DebuggingSpan span = new DebuggingSpan(spanIdGenerator.getAndIncrement(), operation);
         if (debug) {
             span.setStartTime(System.nanoTime());
             DebuggingSpan parentSpan = spanStack.isEmpty() ? null : spanStack.peek();
@@ -64,7 +88,7 @@ public class DebuggingTraceContext {
      * @return DebuggingSpan
      */
     public DebuggingSpan createSpanForTransform(String operation) {
-        DebuggingSpan span = new DebuggingSpan(spanIdGenerator++, operation);
+        DebuggingSpan span = new DebuggingSpan(spanIdGenerator.getAndIncrement(), operation);
         if (debug) {
             execTrace.addSpan(span);
         }
@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.remote;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteData;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteMessageBatch;
+
+/**
+ * RemoteMessageBatchCodec transfers a list of {@link RemoteData} to the same next worker from/to a {@link
+ * RemoteMessageBatch}.
+ *
+ * The records of the same stream data type share the same layout mostly, so the layout is run-length encoded. The
+ * strings, such as entity IDs and service IDs, are deduplicated through a dictionary. The longs are encoded as the
+ * delta to the value at the same position of the previous record, so the time bucket and the other slowly changing
+ * values are encoded in 1 byte in the zigzag varint format.
+ *
+ * @since 10.2.0
+ */
+public class RemoteMessageBatchCodec {
+    private static final int LAYOUT_SIZE = 5;
+
+    private RemoteMessageBatchCodec() {
+    }
+
+    public static RemoteMessageBatch encode(String nextWorkerName, List<RemoteData> records) {
+        final RemoteMessageBatch.Builder builder = RemoteMessageBatch.newBuilder();
+        builder.setNextWorkerName(nextWorkerName);
+
+        final Map<String, Integer> dictionary = new HashMap<>();
+        final int[] layout = new int[LAYOUT_SIZE];
+        final int[] previousLayout = new int[LAYOUT_SIZE];
+        int repeated = 0;
+        long[] previousLongs = new long[8];
+        int previousLongsCount = 0;
+
+        for (final RemoteData record : records) {
+            layout[0] = record.getDataStringsCount();
+            layout[1] = record.getDataLongsCount();
+            layout[2] = record.getDataDoublesCount();
+            layout[3] = record.getDataIntegersCount();
+            layout[4] = record.getDataObjectStringsCount();
+            if (repeated > 0 && !Arrays.equals(layout, previousLayout)) {
+                addLayout(builder, repeated, previousLayout);
+                repeated = 0;
+            }
+            System.arraycopy(layout, 0, previousLayout, 0, LAYOUT_SIZE);
+            repeated++;
+
+            for (int i = 0; i < layout[0]; i++) {
+                builder.addStrings(indexOf(builder, dictionary, record.getDataStrings(i)));
+            }
+            for (int i = 0; i < layout[4]; i++) {
+                builder.addStrings(indexOf(builder, dictionary, record.getDataObjectStrings(i)));
+            }
+
+            if (layout[1] > previousLongs.length) {
+                previousLongs = Arrays.copyOf(previousLongs, layout[1]);
+            }
+            for (int i = 0; i < layout[1]; i++) {
+                final long value = record.getDataLongs(i);
+                builder.addLongs(value - (i < previousLongsCount ? previousLongs[i] : 0));
+                previousLongs[i] = value;
+            }
+            previousLongsCount = layout[1];
+
+            for (int i = 0; i < layout[2]; i++) {
+                builder.addDoubles(record.getDataDoubles(i));
+            }
+            for (int i = 0; i < layout[3]; i++) {
+                builder.addIntegers(record.getDataIntegers(i));
+            }
+        }
+        if (repeated > 0) {
+            addLayout(builder, repeated, previousLayout);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Decode the batch, the given consumer receives every record in the original order.
+     */
+    public static void decode(RemoteMessageBatch batch, Consumer<RemoteData> consumer) {
+        final RemoteData.Builder builder = RemoteData.newBuilder();
+        int stringIndex = 0;
+        int longIndex = 0;
+        int doubleIndex = 0;
+        int integerIndex = 0;
+        long[] previousLongs = new long[8];
+        int previousLongsCount = 0;
+
+        for (int group = 0; group < batch.getLayoutsCount(); group += LAYOUT_SIZE + 1) {
+            final int repeated = batch.getLayouts(group);
+            final int stringsCount = batch.getLayouts(group + 1);
+            final int longsCount = batch.getLayouts(group + 2);
+            final int doublesCount = batch.getLayouts(group + 3);
+            final int integersCount = batch.getLayouts(group + 4);
+            final int objectStringsCount = batch.getLayouts(group + 5);
+            if (longsCount > previousLongs.length) {
+                previousLongs = Arrays.copyOf(previousLongs, longsCount);
+            }
+
+            for (int r = 0; r < repeated; r++) {
+                builder.clear();
+                for (int i = 0; i < stringsCount; i++) {
+                    builder.addDataStrings(batch.getDictionary(batch.getStrings(stringIndex++)));
+                }
+                for (int i = 0; i < objectStringsCount; i++) {
+                    builder.addDataObjectStrings(batch.getDictionary(batch.getStrings(stringIndex++)));
+                }
+                for (int i = 0; i < longsCount; i++) {
+                    final long value = batch.getLongs(longIndex++) + (i < previousLongsCount ? previousLongs[i] : 0);
+                    builder.addDataLongs(value);
+                    previousLongs[i] = value;
+                }
+                previousLongsCount = longsCount;
+                for (int i = 0; i < doublesCount; i++) {
+                    builder.addDataDoubles(batch.getDoubles(doubleIndex++));
+                }
+                for (int i = 0; i < integersCount; i++) {
+                    builder.addDataIntegers(batch.getIntegers(integerIndex++));
+                }
+                consumer.accept(builder.build());
+            }
+        }
+    }
+
+    private static void addLayout(RemoteMessageBatch.Builder builder, int repeated, int[] layout) {
+        builder.addLayouts(repeated);
+        for (final int size : layout) {
+            builder.addLayouts(size);
+        }
+    }
+
+    private static int indexOf(RemoteMessageBatch.Builder builder, Map<String, Integer> dictionary, String value) {
+        Integer index = dictionary.get(value);
+        if (index == null) {
+            index = dictionary.size();
+            dictionary.put(value, index);
+            builder.addDictionary(value);
+        }
+        return index;
+    }
+}
@@ -23,12 +23,17 @@ import org.apache.skywalking.oap.server.core.CoreModule;
 import org.apache.skywalking.oap.server.core.remote.client.RemoteClient;
 import org.apache.skywalking.oap.server.core.remote.client.RemoteClientManager;
 import org.apache.skywalking.oap.server.core.remote.data.StreamData;
+import org.apache.skywalking.oap.server.core.remote.selector.ConsistentHashSelector;
 import org.apache.skywalking.oap.server.core.remote.selector.ForeverFirstSelector;
 import org.apache.skywalking.oap.server.core.remote.selector.HashCodeSelector;
 import org.apache.skywalking.oap.server.core.remote.selector.RollingSelector;
 import org.apache.skywalking.oap.server.core.remote.selector.Selector;
 import org.apache.skywalking.oap.server.library.module.ModuleManager;
 import org.apache.skywalking.oap.server.library.module.Service;
+import org.apache.skywalking.oap.server.telemetry.TelemetryModule;
+import org.apache.skywalking.oap.server.telemetry.api.GaugeMetrics;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsCreator;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsTag;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -43,12 +48,23 @@ public class RemoteSenderService implements Service {
     private final HashCodeSelector hashCodeSelector;
     private final ForeverFirstSelector foreverFirstSelector;
     private final RollingSelector rollingSelector;
+    private final ConsistentHashSelector consistentHashSelector;
+    private volatile GaugeMetrics movedFractionGauge;
 
     public RemoteSenderService(ModuleManager moduleManager) {
+        this(moduleManager, 160);
+    }
+
+    /**
+     * @param virtualNodes the number of virtual nodes of every OAP node in the {@link ConsistentHashSelector}.
+     * @since 10.2.0
+     */
+    public RemoteSenderService(ModuleManager moduleManager, int virtualNodes) {
         this.moduleManager = moduleManager;
         this.hashCodeSelector = new HashCodeSelector();
         this.foreverFirstSelector = new ForeverFirstSelector();
         this.rollingSelector = new RollingSelector();
+        this.consistentHashSelector = new ConsistentHashSelector(virtualNodes, this::onRebalance);
     }
 
     /**
@@ -80,7 +96,26 @@ public class RemoteSenderService implements Service {
             case ForeverFirst:
                 remoteClient = foreverFirstSelector.select(clientList, streamData);
                 break;
+            case ConsistentHash:
+                remoteClient = consistentHashSelector.select(clientList, streamData);
+                break;
         }
         remoteClient.push(nextWorkName, streamData);
     }
+
+    private void onRebalance(double movedFraction) {
+        if (movedFractionGauge == null) {
+            movedFractionGauge = moduleManager.find(TelemetryModule.NAME)
+                                              .provider()
+                                              .getService(MetricsCreator.class)
+                                              .createGauge(
+                                                  "remote_selector_moved_fraction",
+                                                  "The fraction of the stream data routed to another OAP node by the latest cluster rebalance",
+                                                  MetricsTag.EMPTY_KEY, MetricsTag.EMPTY_VALUE
+                                              );
+        }
+        movedFractionGauge.setValue(movedFraction);
+        LOGGER.info("Cluster rebalanced, {}% of the stream data is routed to another OAP node.",
+                    String.format("%.2f", movedFraction * 100));
+    }
 }
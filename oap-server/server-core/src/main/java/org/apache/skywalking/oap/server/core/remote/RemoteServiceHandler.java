@@ -26,6 +26,7 @@ import org.apache.skywalking.oap.server.core.remote.data.StreamData;
 import org.apache.skywalking.oap.server.core.remote.grpc.proto.Empty;
 import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteData;
 import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteMessage;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteMessageBatch;
 import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteServiceGrpc;
 import org.apache.skywalking.oap.server.core.worker.AbstractWorker;
 import org.apache.skywalking.oap.server.core.worker.IWorkerInstanceGetter;
@@ -98,15 +99,7 @@ public class RemoteServiceHandler extends RemoteServiceGrpc.RemoteServiceImplBas
      */
     @Override
     public StreamObserver<RemoteMessage> call(StreamObserver<Empty> responseObserver) {
-        if (Objects.isNull(workerInstanceGetter)) {
-            synchronized (RemoteServiceHandler.class) {
-                if (Objects.isNull(workerInstanceGetter)) {
-                    workerInstanceGetter = moduleDefineHolder.find(CoreModule.NAME)
-                                                             .provider()
-                                                             .getService(IWorkerInstanceGetter.class);
-                }
-            }
-        }
+        initWorkerInstanceGetter();
 
         return new StreamObserver<RemoteMessage>() {
             @Override
@@ -142,14 +135,63 @@ public class RemoteServiceHandler extends RemoteServiceGrpc.RemoteServiceImplBas
 
             @Override
             public void onError(Throwable throwable) {
-                Status status = Status.fromThrowable(throwable);
-                if (Status.CANCELLED.getCode() == status.getCode()) {
-                    if (LOGGER.isDebugEnabled()) {
-                        LOGGER.debug(throwable.getMessage(), throwable);
+                RemoteServiceHandler.this.onError(throwable);
+            }
+
+            @Override
+            public void onCompleted() {
+                responseObserver.onNext(Empty.newBuilder().build());
+                responseObserver.onCompleted();
+            }
+        };
+    }
+
+    /**
+     * gRPC handler of {@link RemoteServiceGrpc} in the batch mode. All records of the batch are dispatched to the same
+     * next worker.
+     */
+    @Override
+    public StreamObserver<RemoteMessageBatch> callBatch(StreamObserver<Empty> responseObserver) {
+        initWorkerInstanceGetter();
+
+        return new StreamObserver<RemoteMessageBatch>() {
+            @Override
+            public void onNext(RemoteMessageBatch batch) {
+                HistogramMetrics.Timer timer = remoteInHistogram.createTimer();
+                try {
+                    String nextWorkerName = batch.getNextWorkerName();
+                    RemoteHandleWorker handleWorker = workerInstanceGetter.get(nextWorkerName);
+                    if (handleWorker == null) {
+                        remoteInTargetNotFoundCounter.inc();
+                        LOGGER.warn(
+                            "Work name [{}] not found. Check OAL script, make sure they are same in the whole cluster.",
+                            nextWorkerName
+                        );
+                        return;
                     }
-                    return;
+                    AbstractWorker nextWorker = handleWorker.getWorker();
+                    RemoteMessageBatchCodec.decode(batch, remoteData -> {
+                        remoteInCounter.inc();
+                        try {
+                            StreamData streamData = handleWorker.getStreamDataClass().newInstance();
+                            streamData.deserialize(remoteData);
+                            nextWorker.in(streamData);
+                        } catch (Throwable t) {
+                            remoteInErrorCounter.inc();
+                            LOGGER.error(t.getMessage(), t);
+                        }
+                    });
+                } catch (Throwable t) {
+                    remoteInErrorCounter.inc();
+                    LOGGER.error(t.getMessage(), t);
+                } finally {
+                    timer.finish();
                 }
-                LOGGER.error(throwable.getMessage(), throwable);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                RemoteServiceHandler.this.onError(throwable);
             }
 
             @Override
@@ -159,4 +201,27 @@ public class RemoteServiceHandler extends RemoteServiceGrpc.RemoteServiceImplBas
             }
         };
     }
+
+    private void initWorkerInstanceGetter() {
+        if (Objects.isNull(workerInstanceGetter)) {
+            synchronized (RemoteServiceHandler.class) {
+                if (Objects.isNull(workerInstanceGetter)) {
+                    workerInstanceGetter = moduleDefineHolder.find(CoreModule.NAME)
+                                                             .provider()
+                                                             .getService(IWorkerInstanceGetter.class);
+                }
+            }
+        }
+    }
+
+    private void onError(Throwable throwable) {
+        Status status = Status.fromThrowable(throwable);
+        if (Status.CANCELLED.getCode() == status.getCode()) {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug(throwable.getMessage(), throwable);
+            }
+            return;
+        }
+        LOGGER.error(throwable.getMessage(), throwable);
+    }
 }
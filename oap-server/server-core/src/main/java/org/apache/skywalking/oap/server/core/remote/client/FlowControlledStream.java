@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.remote.client;
+
+import io.grpc.Status;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import io.grpc.stub.StreamObserver;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.Empty;
+import org.apache.skywalking.oap.server.telemetry.api.CounterMetrics;
+
+/**
+ * FlowControlledStream is a long-lived client stream to another OAP server. The message is sent only when the stream
+ * is ready, which means the HTTP/2 flow control window of the stream isn't exhausted. Otherwise, the sender is parked
+ * until the onReady handler of gRPC signals it, rather than polling. A broken stream is rebuilt on the next message
+ * automatically.
+ *
+ * This class is not thread safe for sending, the messages should be sent from a single consumer thread.
+ *
+ * @param <T> type of the message
+ * @since 10.2.0
+ */
+@Slf4j
+class FlowControlledStream<T> {
+    /**
+     * The min interval between two connecting attempts, to avoid reconnecting in a busy loop when the peer is down.
+     */
+    private static final long RECONNECT_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final Address address;
+    private final Function<StreamObserver<Empty>, StreamObserver<T>> opener;
+    private final long maxStallNanos;
+    private final CounterMetrics stallTimeCounter;
+    private final CounterMetrics reconnectCounter;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition stateChanged = lock.newCondition();
+    private volatile Call current;
+    private long lastOpenTime;
+    private boolean everOpened;
+
+    /**
+     * @param address          of the peer, for logging.
+     * @param opener           opens a new gRPC client stream with the given response observer.
+     * @param maxStallSeconds  the max time of waiting for the stream to be ready, the stream is cancelled and the
+     *                         message is rejected when timeout.
+     * @param stallTimeCounter accumulates the time(ms) of waiting for the stream to be ready.
+     * @param reconnectCounter counts the times of rebuilding the stream.
+     */
+    FlowControlledStream(final Address address,
+                         final Function<StreamObserver<Empty>, StreamObserver<T>> opener,
+                         final int maxStallSeconds,
+                         final CounterMetrics stallTimeCounter,
+                         final CounterMetrics reconnectCounter) {
+        this.address = address;
+        this.opener = opener;
+        this.maxStallNanos = TimeUnit.SECONDS.toNanos(maxStallSeconds);
+        this.stallTimeCounter = stallTimeCounter;
+        this.reconnectCounter = reconnectCounter;
+    }
+
+    /**
+     * Send the message through the stream, blocks while the stream isn't ready.
+     *
+     * @throws IllegalStateException if the stream isn't ready in the max stall time.
+     */
+    void send(T message) throws InterruptedException {
+        Call call = current;
+        if (call == null || !call.isReady()) {
+            call = awaitReady(call);
+        }
+        call.requestStream.onNext(message);
+    }
+
+    private Call awaitReady(Call call) throws InterruptedException {
+        final long startTime = System.nanoTime();
+        final long deadline = startTime + maxStallNanos;
+        lock.lock();
+        try {
+            while (call == null || !call.isReady()) {
+                final long now = System.nanoTime();
+                if (call == null || call.closed) {
+                    final long nextOpenTime = lastOpenTime + RECONNECT_INTERVAL_NANOS;
+                    if (!everOpened || now - nextOpenTime >= 0) {
+                        call = open(now);
+                        continue;
+                    }
+                }
+                final long remaining = deadline - now;
+                if (remaining <= 0) {
+                    if (!call.closed) {
+                        // Cancel the stalled stream, a new one is going to be opened by the next message.
+                        call.requestStream.cancel("Stalled over the max stall time", null);
+                    }
+                    throw new IllegalStateException(
+                        "Remote stream to " + address + " isn't ready in "
+                            + TimeUnit.NANOSECONDS.toSeconds(maxStallNanos) + " seconds.");
+                }
+                stateChanged.awaitNanos(call.closed ? Math.min(remaining, RECONNECT_INTERVAL_NANOS) : remaining);
+            }
+            return call;
+        } finally {
+            lock.unlock();
+            stallTimeCounter.inc(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+        }
+    }
+
+    private Call open(final long now) {
+        if (everOpened) {
+            reconnectCounter.inc();
+            if (log.isDebugEnabled()) {
+                log.debug("Rebuild the remote stream to {}.", address);
+            }
+        }
+        everOpened = true;
+        lastOpenTime = now;
+        final Call call = new Call();
+        opener.apply(call);
+        current = call;
+        return call;
+    }
+
+    private void signal() {
+        lock.lock();
+        try {
+            stateChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Half-close the stream.
+     */
+    void close() {
+        final Call call = current;
+        if (Objects.nonNull(call) && !call.closed) {
+            call.requestStream.onCompleted();
+        }
+    }
+
+    /**
+     * Call is the state of one gRPC client stream.
+     */
+    private class Call implements ClientResponseObserver<T, Empty> {
+        private ClientCallStreamObserver<T> requestStream;
+        private volatile boolean closed;
+
+        private boolean isReady() {
+            return !closed && requestStream.isReady();
+        }
+
+        @Override
+        public void beforeStart(final ClientCallStreamObserver<T> requestStream) {
+            this.requestStream = requestStream;
+            requestStream.setOnReadyHandler(FlowControlledStream.this::signal);
+        }
+
+        @Override
+        public void onNext(final Empty empty) {
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            closed = true;
+            signal();
+            Status status = Status.fromThrowable(throwable);
+            if (Status.CANCELLED.getCode() == status.getCode()) {
+                if (log.isDebugEnabled()) {
+                    log.debug(throwable.getMessage(), throwable);
+                }
+                return;
+            }
+            log.error("Remote stream to {} is broken. {}", address, throwable.getMessage(), throwable);
+        }
+
+        @Override
+        public void onCompleted() {
+            closed = true;
+            signal();
+        }
+    }
+}
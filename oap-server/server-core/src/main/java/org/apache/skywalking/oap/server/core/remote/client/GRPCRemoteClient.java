@@ -19,17 +19,19 @@
 package org.apache.skywalking.oap.server.core.remote.client;
 
 import io.grpc.ManagedChannel;
-import io.grpc.Status;
 import io.grpc.stub.StreamObserver;
 import io.netty.handler.ssl.SslContext;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.skywalking.oap.server.core.remote.RemoteMessageBatchCodec;
 import org.apache.skywalking.oap.server.core.remote.data.StreamData;
-import org.apache.skywalking.oap.server.core.remote.grpc.proto.Empty;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteData;
 import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteMessage;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteMessageBatch;
 import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteServiceGrpc;
 import org.apache.skywalking.oap.server.library.client.grpc.GRPCClient;
 import org.apache.skywalking.oap.server.library.datacarrier.DataCarrier;
@@ -37,26 +39,39 @@ import org.apache.skywalking.oap.server.library.datacarrier.consumer.IConsumer;
 import org.apache.skywalking.oap.server.library.module.ModuleDefineHolder;
 import org.apache.skywalking.oap.server.telemetry.TelemetryModule;
 import org.apache.skywalking.oap.server.telemetry.api.CounterMetrics;
+import org.apache.skywalking.oap.server.telemetry.api.GaugeMetrics;
 import org.apache.skywalking.oap.server.telemetry.api.MetricsCreator;
 import org.apache.skywalking.oap.server.telemetry.api.MetricsTag;
 
 /**
  * This is a wrapper of the gRPC client for sending message to each other OAP server. It contains a block queue to
- * buffering the message and sending the message by batch.
+ * buffering the message, and the messages are sent through a long-lived and flow controlled stream, see {@link
+ * FlowControlledStream}.
  */
 @Slf4j
 public class GRPCRemoteClient implements RemoteClient {
     private final int channelSize;
     private final int bufferSize;
     private final Address address;
-    private final AtomicInteger concurrentStreamObserverNumber = new AtomicInteger(0);
     private SslContext sslContext;
     private GRPCClient client;
     private DataCarrier<RemoteMessage> carrier;
     private boolean isConnect;
     private CounterMetrics remoteOutCounter;
     private CounterMetrics remoteOutErrorCounter;
+    private GaugeMetrics remoteOutQueueDepth;
+    private CounterMetrics remoteOutStallTimeCounter;
+    private CounterMetrics remoteOutReconnectCounter;
+    private FlowControlledStream<RemoteMessage> messageStream;
+    private FlowControlledStream<RemoteMessageBatch> batchStream;
     private int remoteTimeout;
+    /**
+     * Send the messages through {@link RemoteServiceGrpc.RemoteServiceStub#callBatch(StreamObserver)} rather than one
+     * by one.
+     *
+     * @since 10.2.0
+     */
+    private final boolean batchSerialization;
 
     public GRPCRemoteClient(final ModuleDefineHolder moduleDefineHolder,
                             final Address address,
@@ -64,8 +79,19 @@ public class GRPCRemoteClient implements RemoteClient {
                             final int bufferSize,
                             final int remoteTimeout,
                             final SslContext sslContext) {
+        this(moduleDefineHolder, address, channelSize, bufferSize, remoteTimeout, sslContext, false);
+    }
+
+    public GRPCRemoteClient(final ModuleDefineHolder moduleDefineHolder,
+                            final Address address,
+                            final int channelSize,
+                            final int bufferSize,
+                            final int remoteTimeout,
+                            final SslContext sslContext,
+                            final boolean batchSerialization) {
 
         this.address = address;
+        this.batchSerialization = batchSerialization;
         this.channelSize = channelSize;
         this.bufferSize = bufferSize;
         this.remoteTimeout = remoteTimeout;
@@ -91,12 +117,50 @@ public class GRPCRemoteClient implements RemoteClient {
                                                           address
                                                               .toString(), "N")
                                                   );
+        remoteOutQueueDepth = moduleDefineHolder.find(TelemetryModule.NAME)
+                                                .provider()
+                                                .getService(MetricsCreator.class)
+                                                .createGauge(
+                                                    "remote_out_queue_depth",
+                                                    "The number(client side) of messages waiting in the queue to be sent.",
+                                                    new MetricsTag.Keys("dest", "self"), new MetricsTag.Values(
+                                                        address
+                                                            .toString(), "N")
+                                                );
+        remoteOutStallTimeCounter = moduleDefineHolder.find(TelemetryModule.NAME)
+                                                      .provider()
+                                                      .getService(MetricsCreator.class)
+                                                      .createCounter(
+                                                          "remote_out_stall_time",
+                                                          "The time(ms, client side) of waiting for the stream to be ready.",
+                                                          new MetricsTag.Keys("dest", "self"), new MetricsTag.Values(
+                                                              address
+                                                                  .toString(), "N")
+                                                      );
+        remoteOutReconnectCounter = moduleDefineHolder.find(TelemetryModule.NAME)
+                                                      .provider()
+                                                      .getService(MetricsCreator.class)
+                                                      .createCounter(
+                                                          "remote_out_reconnect_count",
+                                                          "The number(client side) of rebuilding the broken stream.",
+                                                          new MetricsTag.Keys("dest", "self"), new MetricsTag.Values(
+                                                              address
+                                                                  .toString(), "N")
+                                                      );
     }
 
     @Override
     public void connect() {
         if (!isConnect) {
             this.getClient().connect();
+            this.messageStream = new FlowControlledStream<>(
+                address, responseObserver -> getStub().call(responseObserver), remoteTimeout,
+                remoteOutStallTimeCounter, remoteOutReconnectCounter
+            );
+            this.batchStream = new FlowControlledStream<>(
+                address, responseObserver -> getStub().callBatch(responseObserver), remoteTimeout,
+                remoteOutStallTimeCounter, remoteOutReconnectCounter
+            );
             this.getDataCarrier().consume(new RemoteMessageConsumer(), 1);
             this.isConnect = true;
         }
@@ -149,88 +213,54 @@ public class GRPCRemoteClient implements RemoteClient {
         builder.setNextWorkerName(nextWorkerName);
         builder.setRemoteData(streamData.serialize());
 
-        this.getDataCarrier().produce(builder.build());
+        if (this.getDataCarrier().produce(builder.build())) {
+            remoteOutQueueDepth.inc();
+        }
     }
 
     class RemoteMessageConsumer implements IConsumer<RemoteMessage> {
         @Override
         public void consume(List<RemoteMessage> remoteMessages) {
+            remoteOutQueueDepth.dec(remoteMessages.size());
+            if (batchSerialization) {
+                consumeInBatch(remoteMessages);
+                return;
+            }
             try {
-                StreamObserver<RemoteMessage> streamObserver = createStreamObserver();
                 for (RemoteMessage remoteMessage : remoteMessages) {
                     remoteOutCounter.inc();
-                    streamObserver.onNext(remoteMessage);
+                    messageStream.send(remoteMessage);
                 }
-                streamObserver.onCompleted();
             } catch (Throwable t) {
                 remoteOutErrorCounter.inc();
                 log.error(t.getMessage(), t);
             }
         }
 
-        @Override
-        public void onError(List<RemoteMessage> remoteMessages, Throwable t) {
-            log.error(t.getMessage(), t);
-        }
-    }
-
-    /**
-     * Create a gRPC stream observer to sending stream data, one stream observer could send multiple stream data by a
-     * single consume. The max number of concurrency allowed at the same time is 10.
-     *
-     * @return stream observer
-     */
-    private StreamObserver<RemoteMessage> createStreamObserver() {
-        int sleepTotalMillis = 0;
-        int sleepMillis = 10;
-
-        // Control the concurrency of gRPC streaming stub.
-        // If over 10 created and not finished/error, this blocks the method.
-        while (concurrentStreamObserverNumber.get() > 10) {
+        /**
+         * Group the messages by the next worker, and send every group as one {@link RemoteMessageBatch}.
+         */
+        private void consumeInBatch(List<RemoteMessage> remoteMessages) {
             try {
-                Thread.sleep(sleepMillis);
-            } catch (InterruptedException e) {
-                log.error(e.getMessage(), e);
-            }
-
-            sleepTotalMillis += sleepMillis;
-
-            if (sleepTotalMillis > 60000) {
-                log.warn("Remote client [{}] block times over 60 seconds. Current streaming number {}",
-                         address, concurrentStreamObserverNumber.get()
-                );
-                // Reset sleepTotalMillis to avoid too many warn logs.
-                sleepTotalMillis = 0;
+                final Map<String, List<RemoteData>> groups = new LinkedHashMap<>();
+                for (RemoteMessage remoteMessage : remoteMessages) {
+                    groups.computeIfAbsent(remoteMessage.getNextWorkerName(), name -> new ArrayList<>())
+                          .add(remoteMessage.getRemoteData());
+                }
+                for (Map.Entry<String, List<RemoteData>> group : groups.entrySet()) {
+                    remoteOutCounter.inc(group.getValue().size());
+                    batchStream.send(RemoteMessageBatchCodec.encode(group.getKey(), group.getValue()));
+                }
+            } catch (Throwable t) {
+                remoteOutErrorCounter.inc();
+                log.error(t.getMessage(), t);
             }
         }
 
-        final StreamObserver<RemoteMessage> remoteMessageStreamObserver
-            = getStub().withDeadlineAfter(remoteTimeout, TimeUnit.SECONDS)
-                       .call(new StreamObserver<Empty>() {
-                           @Override
-                           public void onNext(Empty empty) {
-                           }
-
-                           @Override
-                           public void onError(Throwable throwable) {
-                               concurrentStreamObserverNumber.addAndGet(-1);
-                               Status status = Status.fromThrowable(throwable);
-                               if (Status.CANCELLED.getCode() == status.getCode()) {
-                                   if (log.isDebugEnabled()) {
-                                       log.debug(throwable.getMessage(), throwable);
-                                   }
-                                   return;
-                               }
-                               log.error(throwable.getMessage(), throwable);
-                           }
-
-                           @Override
-                           public void onCompleted() {
-                               concurrentStreamObserverNumber.addAndGet(-1);
-                           }
-                       });
-        concurrentStreamObserverNumber.incrementAndGet();
-        return remoteMessageStreamObserver;
+        @Override
+        public void onError(List<RemoteMessage> remoteMessages, Throwable t) {
+            log.error(t.getMessage(), t);
+        }
     }
 
     @Override
@@ -238,6 +268,10 @@ public class GRPCRemoteClient implements RemoteClient {
         if (Objects.nonNull(this.carrier)) {
             this.carrier.shutdownConsumers();
         }
+        if (Objects.nonNull(this.messageStream)) {
+            this.messageStream.close();
+            this.batchStream.close();
+        }
         if (Objects.nonNull(this.client)) {
             this.client.shutdown();
         }
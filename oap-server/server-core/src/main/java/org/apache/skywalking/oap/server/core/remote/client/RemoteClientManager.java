@@ -63,6 +63,11 @@ public class RemoteClientManager implements Service, ClusterWatcher {
     private volatile List<RemoteClient> usingClients;
     private GaugeMetrics gauge;
     private int remoteTimeout;
+    /**
+     * @since 10.2.0
+     */
+    @Setter
+    private boolean batchSerialization;
 
     /**
      * Initial the manager for all remote communication clients.
@@ -240,7 +245,8 @@ public class RemoteClientManager implements Service, ClusterWatcher {
                         newRemoteClients.add(client);
                     } else {
                         RemoteClient client;
-                        client = new GRPCRemoteClient(moduleDefineHolder, address, 1, 3000, remoteTimeout, sslContext);
+                        client = new GRPCRemoteClient(
+                            moduleDefineHolder, address, 1, 3000, remoteTimeout, sslContext, batchSerialization);
                         client.connect();
                         newRemoteClients.add(client);
                     }
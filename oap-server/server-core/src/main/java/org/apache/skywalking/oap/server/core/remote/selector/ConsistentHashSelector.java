@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.remote.selector;
+
+import com.google.common.hash.Hashing;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.DoubleConsumer;
+import org.apache.skywalking.oap.server.core.remote.client.RemoteClient;
+import org.apache.skywalking.oap.server.core.remote.data.StreamData;
+
+/**
+ * ConsistentHashSelector routes the stream data to the OAP node by a consistent hash ring, rather than the hash modulo
+ * the cluster size. Every OAP node owns a number of virtual nodes on the ring, so when a node joins or leaves the
+ * cluster, only about 1/N of the stream data is routed to a different node, and the L2 aggregation caches of the other
+ * nodes stay warm.
+ *
+ * The ring is rebuilt when the client list changes. The fraction of the hash space routed to a different node by the
+ * rebuilding is reported to the given listener.
+ *
+ * @since 10.2.0
+ */
+public class ConsistentHashSelector implements RemoteClientSelector {
+    private static final long HASH_SPACE = 1L << 32;
+
+    private final int virtualNodes;
+    private final DoubleConsumer movedFractionListener;
+    private volatile Ring ring;
+
+    /**
+     * @param virtualNodes          the number of virtual nodes of every OAP node on the ring.
+     * @param movedFractionListener receives the fraction of the hash space moved to another node after every
+     *                              rebuilding.
+     */
+    public ConsistentHashSelector(int virtualNodes, DoubleConsumer movedFractionListener) {
+        if (virtualNodes < 1) {
+            throw new IllegalArgumentException("virtualNodes should be positive, but is " + virtualNodes);
+        }
+        this.virtualNodes = virtualNodes;
+        this.movedFractionListener = movedFractionListener;
+    }
+
+    @Override
+    public RemoteClient select(List<RemoteClient> clients, StreamData streamData) {
+        Ring current = ring;
+        if (current == null || current.clients != clients) {
+            current = rebuild(clients);
+        }
+        return current.ownerOf(mix(streamData.remoteHashCode()));
+    }
+
+    private synchronized Ring rebuild(List<RemoteClient> clients) {
+        final Ring previous = ring;
+        if (previous != null && previous.clients == clients) {
+            return previous;
+        }
+        final Ring current = new Ring(clients, virtualNodes);
+        if (previous != null) {
+            movedFractionListener.accept(movedFraction(previous, current));
+        }
+        ring = current;
+        return current;
+    }
+
+    /**
+     * @return the fraction of the hash space owned by different addresses in the two rings.
+     */
+    static double movedFraction(Ring previous, Ring current) {
+        if (previous.points.length == 0 || current.points.length == 0) {
+            return previous.points.length == current.points.length ? 0 : 1;
+        }
+        final int[] points = new int[previous.points.length + current.points.length];
+        System.arraycopy(previous.points, 0, points, 0, previous.points.length);
+        System.arraycopy(current.points, 0, points, previous.points.length, current.points.length);
+        Arrays.sort(points);
+
+        long moved = 0;
+        // The first segment wraps around the ring, from the last point to the first one.
+        long last = points[points.length - 1] - HASH_SPACE;
+        for (int i = 0; i < points.length; i++) {
+            final int point = points[i];
+            if (i > 0 && point == points[i - 1]) {
+                continue;
+            }
+            // The hashes in (last, point] are owned by the owner of the point.
+            if (!previous.ownerOf(point).getAddress().equals(current.ownerOf(point).getAddress())) {
+                moved += point - last;
+            }
+            last = point;
+        }
+        return (double) moved / HASH_SPACE;
+    }
+
+    /**
+     * The finalization mix of MurmurHash3, spreads the {@link StreamData#remoteHashCode()} over the ring.
+     */
+    static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+    static class Ring {
+        private final List<RemoteClient> clients;
+        private final int[] points;
+        private final RemoteClient[] owners;
+
+        Ring(List<RemoteClient> clients, int virtualNodes) {
+            this.clients = clients;
+            final List<VirtualNode> nodes = new ArrayList<>(clients.size() * virtualNodes);
+            for (final RemoteClient client : clients) {
+                final String address = client.getAddress().toString();
+                for (int i = 0; i < virtualNodes; i++) {
+                    final int point = Hashing.murmur3_32_fixed()
+                                             .hashString(address + "#" + i, StandardCharsets.UTF_8)
+                                             .asInt();
+                    nodes.add(new VirtualNode(point, address, client));
+                }
+            }
+            // Sort by the address too, to make the owner of the conflicted points same in every OAP node.
+            nodes.sort(Comparator.comparingInt((VirtualNode node) -> node.point)
+                                 .thenComparing(node -> node.address));
+            this.points = new int[nodes.size()];
+            this.owners = new RemoteClient[nodes.size()];
+            for (int i = 0; i < nodes.size(); i++) {
+                points[i] = nodes.get(i).point;
+                owners[i] = nodes.get(i).client;
+            }
+        }
+
+        /**
+         * @return the owner of the first point on the ring greater than or equal to the hash.
+         */
+        RemoteClient ownerOf(int hash) {
+            int index = Arrays.binarySearch(points, hash);
+            if (index < 0) {
+                index = -index - 1;
+            } else {
+                // Take the first one of the conflicted points.
+                while (index > 0 && points[index - 1] == hash) {
+                    index--;
+                }
+            }
+            if (index == points.length) {
+                index = 0;
+            }
+            return owners[index];
+        }
+    }
+
+    private static class VirtualNode {
+        private final int point;
+        private final String address;
+        private final RemoteClient client;
+
+        private VirtualNode(int point, String address, RemoteClient client) {
+            this.point = point;
+            this.address = address;
+            this.client = client;
+        }
+    }
+}
@@ -18,6 +18,29 @@
 
 package org.apache.skywalking.oap.server.core.remote.selector;
 
+import java.util.Arrays;
+
 public enum Selector {
-    HashCode, Rolling, ForeverFirst
+    HashCode, Rolling, ForeverFirst,
+    /**
+     * @since 10.2.0
+     */
+    ConsistentHash;
+
+    /**
+     * @return the selector of the given name, case-insensitive, or {@link #HashCode} when the name is empty.
+     * @throws IllegalArgumentException if the name matches none of the selectors.
+     */
+    public static Selector fromName(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            return HashCode;
+        }
+        for (Selector selector : Selector.values()) {
+            if (selector.name().equalsIgnoreCase(name.trim())) {
+                return selector;
+            }
+        }
+        throw new IllegalArgumentException(
+            "Unknown L2 aggregation routing " + name + ", the available ones are " + Arrays.toString(values()));
+    }
 }
@@ -128,7 +128,7 @@ public enum PersistenceTimer {
                             );
                         }
 
-                        innerPrepareRequests = worker.buildBatchRequests();
+                        innerPrepareRequests = worker.buildBatchRequests(prepareExecutorService);
 
                         worker.endOfRound();
                     }
@@ -144,7 +144,8 @@ public enum PersistenceTimer {
                 }, prepareExecutorService);
             }).toArray(CompletableFuture[]::new));
 
-        future.whenComplete((unused, throwable) -> {
+        // Complete the round after the end of flush, so the next round is not started before the data is written.
+        return future.handle((unused, throwable) -> {
             batchDAO.endOfFlush();
             allTimer.close();
             if (log.isDebugEnabled()) {
@@ -157,7 +158,7 @@ public enum PersistenceTimer {
                 errorCounter.inc();
                 log.error(throwable.getMessage(), throwable);
             }
+            return null;
         });
-        return future;
     }
 }
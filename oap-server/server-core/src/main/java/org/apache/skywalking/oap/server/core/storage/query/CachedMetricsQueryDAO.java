@@ -0,0 +1,367 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.storage.query;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.io.IOException;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import org.apache.skywalking.oap.server.core.query.DurationUtils;
+import org.apache.skywalking.oap.server.core.query.PointOfTime;
+import org.apache.skywalking.oap.server.core.query.enumeration.Step;
+import org.apache.skywalking.oap.server.core.query.input.Duration;
+import org.apache.skywalking.oap.server.core.query.input.MetricsCondition;
+import org.apache.skywalking.oap.server.core.query.type.HeatMap;
+import org.apache.skywalking.oap.server.core.query.type.KVInt;
+import org.apache.skywalking.oap.server.core.query.type.KeyValue;
+import org.apache.skywalking.oap.server.core.query.type.MetricsValues;
+import org.apache.skywalking.oap.server.core.query.type.debugging.DebuggingSpan;
+import org.apache.skywalking.oap.server.core.query.type.debugging.DebuggingTraceContext;
+import org.apache.skywalking.oap.server.core.storage.annotation.ValueColumnMetadata;
+import org.apache.skywalking.oap.server.library.util.CollectionUtils;
+import org.joda.time.DateTime;
+
+/**
+ * CachedMetricsQueryDAO caches the values of the time buckets, which have been closed for longer than the persistence
+ * period plus a safety margin, in front of the {@link IMetricsQueryDAO} of the storage. The values of these buckets
+ * never change, so only the open buckets at the tail of the query duration are read from the storage, once the
+ * closed buckets have been cached.
+ * <p>
+ * The empty buckets are not cached, as their values may arrive late. The buckets closed for less than twice the delay
+ * are cached until then, and read from the storage once more to pick up the late values.
+ * <p>
+ * The labeled values are cached only if the query doesn't filter the labels, because the matched labels of the
+ * filter depend on all the buckets of the query duration.
+ *
+ * @since 10.2.0
+ */
+public class CachedMetricsQueryDAO implements IMetricsQueryDAO {
+    private final IMetricsQueryDAO delegate;
+    /**
+     * The time after the end of the bucket, since when the bucket is immutable. Unit is ms.
+     */
+    private final long immutableDelay;
+    private final Clock clock;
+    private final Cache<BucketKey, Bucket> cache;
+
+    public CachedMetricsQueryDAO(IMetricsQueryDAO delegate, long maxWeight, long immutableDelay) {
+        this(delegate, maxWeight, immutableDelay, Clock.systemDefaultZone());
+    }
+
+    CachedMetricsQueryDAO(IMetricsQueryDAO delegate, long maxWeight, long immutableDelay, Clock clock) {
+        this.delegate = delegate;
+        this.immutableDelay = immutableDelay;
+        this.clock = clock;
+        this.cache = CacheBuilder.newBuilder()
+                                 .maximumWeight(maxWeight)
+                                 .weigher((BucketKey key, Bucket bucket) -> key.weight() + bucket.weight())
+                                 .build();
+    }
+
+    @Override
+    public MetricsValues readMetricsValues(final MetricsCondition condition,
+                                           final String valueColumnName,
+                                           final Duration duration) throws IOException {
+        final List<PointOfTime> points = duration.assembleDurationPoints();
+        final long now = clock.millis();
+        final int closed = countClosedPoints(duration.getStep(), points, now);
+        if (closed == 0) {
+            return delegate.readMetricsValues(condition, valueColumnName, duration);
+        }
+        final String entityId = condition.getEntity().buildId();
+        final List<KVInt> cachedValues = new ArrayList<>(points.size());
+        for (int i = 0; i < closed; i++) {
+            final Bucket bucket = cache.getIfPresent(
+                new BucketKey(condition.getName(), valueColumnName, entityId, false, points.get(i).getPoint()));
+            if (bucket == null || bucket.expireAt <= now) {
+                break;
+            }
+            cachedValues.add(copyOf(bucket.values[0]));
+        }
+        final int cached = cachedValues.size();
+        traceCachedBuckets("Query Cache: readMetricsValues", cached, points.size());
+
+        MetricsValues result = new MetricsValues();
+        if (cached < points.size()) {
+            final MetricsValues rest = delegate.readMetricsValues(
+                condition, valueColumnName, subDuration(duration, points.get(cached)));
+            final List<KVInt> restValues = rest.getValues().getValues();
+            if (restValues.size() != points.size() - cached) {
+                return cached == 0 ? rest : delegate.readMetricsValues(condition, valueColumnName, duration);
+            }
+            for (int i = cached; i < closed; i++) {
+                final KVInt value = restValues.get(i - cached);
+                if (value.isEmptyValue()) {
+                    continue;
+                }
+                cache.put(
+                    new BucketKey(condition.getName(), valueColumnName, entityId, false, points.get(i).getPoint()),
+                    new Bucket(null, new KVInt[] {copyOf(value)}, expireAt(duration.getStep(), points.get(i), now))
+                );
+            }
+            result = rest;
+        }
+        result.getValues().getValues().addAll(0, cachedValues);
+        return result;
+    }
+
+    @Override
+    public List<MetricsValues> readLabeledMetricsValues(final MetricsCondition condition,
+                                                        final String valueColumnName,
+                                                        final List<KeyValue> labels,
+                                                        final Duration duration) throws IOException {
+        final List<PointOfTime> points = duration.assembleDurationPoints();
+        final long now = clock.millis();
+        final int closed = CollectionUtils.isEmpty(labels) ? countClosedPoints(duration.getStep(), points, now) : 0;
+        if (closed == 0) {
+            return delegate.readLabeledMetricsValues(condition, valueColumnName, labels, duration);
+        }
+        final String entityId = condition.getEntity().buildId();
+        final List<Bucket> cachedBuckets = new ArrayList<>(points.size());
+        for (int i = 0; i < closed; i++) {
+            final Bucket bucket = cache.getIfPresent(
+                new BucketKey(condition.getName(), valueColumnName, entityId, true, points.get(i).getPoint()));
+            if (bucket == null || bucket.expireAt <= now) {
+                break;
+            }
+            cachedBuckets.add(bucket);
+        }
+        final int cached = cachedBuckets.size();
+        traceCachedBuckets("Query Cache: readLabeledMetricsValues", cached, points.size());
+
+        // label -> values of the points.
+        final Map<String, KVInt[]> labeledValues = new TreeMap<>();
+        final String[] ids = new String[points.size()];
+        for (int i = 0; i < cached; i++) {
+            final Bucket bucket = cachedBuckets.get(i);
+            ids[i] = bucket.id;
+            for (int j = 0; j < bucket.labels.length; j++) {
+                labeledValues.computeIfAbsent(bucket.labels[j], k -> new KVInt[points.size()])[i] = bucket.values[j];
+            }
+        }
+        if (cached < points.size()) {
+            final List<MetricsValues> rest = delegate.readLabeledMetricsValues(
+                condition, valueColumnName, labels, subDuration(duration, points.get(cached)));
+            if (rest.isEmpty() || rest.stream().anyMatch(
+                values -> values.getValues().getValues().size() != points.size() - cached)) {
+                // The ids of the points are unknown without any value.
+                return cached == 0 ? rest :
+                    delegate.readLabeledMetricsValues(condition, valueColumnName, labels, duration);
+            }
+            for (final MetricsValues values : rest) {
+                final List<KVInt> restValues = values.getValues().getValues();
+                final KVInt[] pointValues = labeledValues.computeIfAbsent(
+                    values.getLabel(), k -> new KVInt[points.size()]);
+                for (int i = cached; i < points.size(); i++) {
+                    pointValues[i] = restValues.get(i - cached);
+                    ids[i] = pointValues[i].getId();
+                }
+            }
+            for (int i = cached; i < closed; i++) {
+                final List<String> bucketLabels = new ArrayList<>();
+                final List<KVInt> bucketValues = new ArrayList<>();
+                for (final MetricsValues values : rest) {
+                    final KVInt value = values.getValues().getValues().get(i - cached);
+                    if (!value.isEmptyValue()) {
+                        bucketLabels.add(values.getLabel());
+                        bucketValues.add(copyOf(value));
+                    }
+                }
+                if (bucketValues.isEmpty()) {
+                    continue;
+                }
+                cache.put(
+                    new BucketKey(condition.getName(), valueColumnName, entityId, true, points.get(i).getPoint()),
+                    new Bucket(
+                        ids[i], bucketLabels.toArray(new String[0]), bucketValues.toArray(new KVInt[0]),
+                        expireAt(duration.getStep(), points.get(i), now)
+                    )
+                );
+            }
+        }
+
+        final int defaultValue = ValueColumnMetadata.INSTANCE.getDefaultValue(condition.getName());
+        final List<MetricsValues> result = new ArrayList<>(labeledValues.size());
+        labeledValues.forEach((label, pointValues) -> {
+            final MetricsValues values = new MetricsValues();
+            values.setLabel(label);
+            for (int i = 0; i < points.size(); i++) {
+                if (pointValues[i] == null) {
+                    values.getValues().addKVInt(new KVInt(ids[i], defaultValue, true));
+                } else {
+                    values.getValues().addKVInt(i < cached ? copyOf(pointValues[i]) : pointValues[i]);
+                }
+            }
+            result.add(values);
+        });
+        return result;
+    }
+
+    @Override
+    public List<MetricsValues> readLabeledMetricsValuesWithoutEntity(final String metricName,
+                                                                     final String valueColumnName,
+                                                                     final List<KeyValue> labels,
+                                                                     final Duration duration) throws IOException {
+        return delegate.readLabeledMetricsValuesWithoutEntity(metricName, valueColumnName, labels, duration);
+    }
+
+    @Override
+    public HeatMap readHeatMap(final MetricsCondition condition,
+                               final String valueColumnName,
+                               final Duration duration) throws IOException {
+        return delegate.readHeatMap(condition, valueColumnName, duration);
+    }
+
+    /**
+     * @return the count of the points at the head, which are immutable.
+     */
+    private int countClosedPoints(Step step, List<PointOfTime> points, long now) {
+        final long closedBefore = now - immutableDelay;
+        int closed = 0;
+        for (final PointOfTime point : points) {
+            if (bucketEndTimestamp(step, point.getPoint()) > closedBefore) {
+                break;
+            }
+            closed++;
+        }
+        return closed;
+    }
+
+    /**
+     * @return the time to read the bucket from the storage once more, if it has been closed for less than twice the
+     * immutable delay, otherwise, the bucket never expires.
+     */
+    private long expireAt(Step step, PointOfTime point, long now) {
+        final long settledAt = bucketEndTimestamp(step, point.getPoint()) + 2 * immutableDelay;
+        return settledAt > now ? settledAt : Long.MAX_VALUE;
+    }
+
+    private static long bucketEndTimestamp(Step step, long point) {
+        final DateTime start = DurationUtils.INSTANCE.parseToDateTime(step, point);
+        switch (step) {
+            case DAY:
+                return start.plusDays(1).getMillis();
+            case HOUR:
+                return start.plusHours(1).getMillis();
+            case MINUTE:
+                return start.plusMinutes(1).getMillis();
+            default:
+                return start.plusSeconds(1).getMillis();
+        }
+    }
+
+    /**
+     * @return the duration from the given point to the end of the given duration.
+     */
+    private static Duration subDuration(Duration duration, PointOfTime start) {
+        final DateTime startTime = DurationUtils.INSTANCE.parseToDateTime(duration.getStep(), start.getPoint());
+        final Duration sub = new Duration();
+        sub.setStep(duration.getStep());
+        sub.setEnd(duration.getEnd());
+        switch (duration.getStep()) {
+            case DAY:
+                sub.setStart(startTime.toString(DurationUtils.YYYY_MM_DD));
+                break;
+            case HOUR:
+                sub.setStart(startTime.toString(DurationUtils.YYYY_MM_DD_HH));
+                break;
+            case MINUTE:
+                sub.setStart(startTime.toString(DurationUtils.YYYY_MM_DD_HHMM));
+                break;
+            default:
+                sub.setStart(startTime.toString(DurationUtils.YYYY_MM_DD_HHMMSS));
+                break;
+        }
+        return sub;
+    }
+
+    private static void traceCachedBuckets(String operation, int cached, int total) {
+        final DebuggingTraceContext traceContext = DebuggingTraceContext.TRACE_CONTEXT.get();
+        if (traceContext != null) {
+            final DebuggingSpan span = traceContext.createSpan(operation);
+            span.setMsg("Cached buckets: " + cached + " of " + total);
+            traceContext.stopSpan(span);
+        }
+    }
+
+    private static KVInt copyOf(KVInt value) {
+        return new KVInt(value.getId(), value.getValue(), value.isEmptyValue());
+    }
+
+    @RequiredArgsConstructor
+    @EqualsAndHashCode
+    private static class BucketKey {
+        private final String metricName;
+        private final String valueColumnName;
+        private final String entityId;
+        private final boolean labeled;
+        private final long point;
+
+        private int weight() {
+            return 64 + 2 * (metricName.length() + valueColumnName.length()
+                + (entityId == null ? 0 : entityId.length()));
+        }
+    }
+
+    private static class Bucket {
+        /**
+         * The id of the point, only for the labeled values.
+         */
+        private final String id;
+        /**
+         * The labels of the values, null for the values without label.
+         */
+        private final String[] labels;
+        private final KVInt[] values;
+        /**
+         * The time since when the bucket should be read from the storage again.
+         */
+        private final long expireAt;
+
+        private Bucket(String[] labels, KVInt[] values, long expireAt) {
+            this(null, labels, values, expireAt);
+        }
+
+        private Bucket(String id, String[] labels, KVInt[] values, long expireAt) {
+            this.id = id;
+            this.labels = labels;
+            this.values = values;
+            this.expireAt = expireAt;
+        }
+
+        private int weight() {
+            int weight = 40 + (id == null ? 0 : 2 * id.length());
+            for (final KVInt value : values) {
+                weight += 40 + 2 * value.getId().length();
+            }
+            if (labels != null) {
+                for (final String label : labels) {
+                    weight += 40 + 2 * label.length();
+                }
+            }
+            return weight;
+        }
+    }
+}
@@ -22,6 +22,7 @@ import java.io.IOException;
 import java.util.List;
 
 import javax.annotation.Nullable;
+import org.apache.skywalking.oap.server.core.analysis.manual.endpoint.EndpointTraffic;
 import org.apache.skywalking.oap.server.core.query.enumeration.ProfilingSupportStatus;
 import org.apache.skywalking.oap.server.core.query.input.Duration;
 import org.apache.skywalking.oap.server.core.query.type.Endpoint;
@@ -61,6 +62,16 @@ public interface IMetadataQueryDAO extends DAO {
      */
     List<Endpoint> findEndpoint(final String keyword, final String serviceId, final int limit, final Duration duration) throws IOException;
 
+    /**
+     * @param serviceId the owner of the endpoints
+     * @param limit     max size.
+     * @return the traffics of the endpoints of the given service, which bootstrap the in-memory endpoint name index.
+     * @since 10.2.0
+     */
+    default List<EndpointTraffic> listEndpointTraffics(final String serviceId, final int limit) throws IOException {
+        throw new UnsupportedOperationException("The storage doesn't support listing the endpoint traffics.");
+    }
+
     /**
      * @param serviceId the service id of the process.
      * @param supportStatus the profiling status of the process.
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteData;
+import org.apache.skywalking.oap.server.core.storage.StorageID;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class OpenAddressingMergableBufferedDataTest {
+    @Test
+    public void testMerge() {
+        OpenAddressingMergableBufferedData<MockMetrics> buffer = new OpenAddressingMergableBufferedData<>();
+        buffer.accept(new MockMetrics("a", 1));
+        buffer.accept(new MockMetrics("b", 2));
+        buffer.accept(new MockMetrics("a", 3));
+        Assertions.assertEquals(2, buffer.size());
+
+        List<MockMetrics> result = buffer.read();
+        Assertions.assertEquals(2, result.size());
+        long total = 0;
+        for (MockMetrics metrics : result) {
+            if (metrics.entityId.equals("a")) {
+                Assertions.assertEquals(4, metrics.value);
+            }
+            total += metrics.value;
+        }
+        Assertions.assertEquals(6, total);
+        Assertions.assertEquals(0, buffer.size());
+        Assertions.assertTrue(buffer.read().isEmpty());
+    }
+
+    @Test
+    public void testResizeAndReuse() {
+        OpenAddressingMergableBufferedData<MockMetrics> buffer = new OpenAddressingMergableBufferedData<>();
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 10_000; i++) {
+                buffer.accept(new MockMetrics("entity-" + i, 1));
+                buffer.accept(new MockMetrics("entity-" + i, 1));
+            }
+            Assertions.assertEquals(10_000, buffer.size());
+            List<MockMetrics> drained = new ArrayList<>();
+            buffer.drain(drained::add);
+            Assertions.assertEquals(10_000, drained.size());
+            drained.forEach(metrics -> Assertions.assertEquals(2, metrics.value));
+        }
+    }
+
+    @Test
+    public void testHashCollision() {
+        OpenAddressingMergableBufferedData<MockMetrics> buffer = new OpenAddressingMergableBufferedData<>();
+        // "Aa" and "BB" have the same hash code.
+        buffer.accept(new MockMetrics("Aa", 1));
+        buffer.accept(new MockMetrics("BB", 1));
+        buffer.accept(new MockMetrics("BB", 1));
+        Assertions.assertEquals(2, buffer.size());
+    }
+
+    private static class MockMetrics extends Metrics {
+        private final String entityId;
+        private long value;
+
+        private MockMetrics(String entityId, long value) {
+            this.entityId = entityId;
+            this.value = value;
+        }
+
+        @Override
+        protected StorageID id0() {
+            return new StorageID().append(ENTITY_ID, entityId);
+        }
+
+        @Override
+        public boolean combine(Metrics metrics) {
+            value += ((MockMetrics) metrics).value;
+            return true;
+        }
+
+        @Override
+        public void calculate() {
+
+        }
+
+        @Override
+        public Metrics toHour() {
+            return null;
+        }
+
+        @Override
+        public Metrics toDay() {
+            return null;
+        }
+
+        @Override
+        public void deserialize(RemoteData remoteData) {
+
+        }
+
+        @Override
+        public RemoteData.Builder serialize() {
+            return null;
+        }
+
+        @Override
+        public int remoteHashCode() {
+            return 0;
+        }
+    }
+}
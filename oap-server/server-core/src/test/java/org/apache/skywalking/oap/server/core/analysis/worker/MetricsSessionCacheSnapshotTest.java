@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.worker;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import org.apache.skywalking.oap.server.core.analysis.DownSampling;
+import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteData;
+import org.apache.skywalking.oap.server.core.storage.StorageID;
+import org.apache.skywalking.oap.server.core.storage.model.Model;
+import org.apache.skywalking.oap.server.telemetry.api.CounterMetrics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class MetricsSessionCacheSnapshotTest {
+    private static final long TIMEOUT = 70_000;
+    private static final CounterMetrics NOOP = new CounterMetrics() {
+        @Override
+        public void inc() {
+        }
+
+        @Override
+        public void inc(double value) {
+        }
+    };
+
+    @TempDir
+    public Path directory;
+
+    private final Model model = new Model(
+        "snapshot_metrics", Collections.emptyList(), 0, DownSampling.Minute, false, SnapshotMetrics.class, false,
+        null, null, null
+    );
+
+    @Test
+    public void testRestore() {
+        final long now = System.currentTimeMillis();
+        final MetricsSessionCache cache = new MetricsSessionCache(TIMEOUT, 0, NOOP, NOOP, NOOP);
+        for (int i = 0; i < 100; i++) {
+            final SnapshotMetrics metrics = new SnapshotMetrics("entity" + i, 202401011200L, i);
+            metrics.setLastUpdateTimestamp(i % 2 == 0 ? now : now - TIMEOUT * 2);
+            cache.put(metrics);
+        }
+        final MetricsSessionCacheSnapshot snapshot = new MetricsSessionCacheSnapshot(directory.toString());
+        snapshot.checkpoint(model, entriesOf(cache)).join();
+        snapshot.shutdown();
+
+        final MetricsSessionCacheSnapshot restarted = new MetricsSessionCacheSnapshot(directory.toString());
+        final MetricsSessionCache restored = new MetricsSessionCache(TIMEOUT, 0, NOOP, NOOP, NOOP);
+        Assertions.assertEquals(50, restarted.restore(model, restored));
+        Assertions.assertEquals(50, restored.size());
+        final Map<String, SnapshotMetrics> metricsMap = new HashMap<>();
+        restored.forEach(m -> metricsMap.put(((SnapshotMetrics) m).entityId, (SnapshotMetrics) m));
+        for (int i = 0; i < 100; i += 2) {
+            final SnapshotMetrics metrics = metricsMap.get("entity" + i);
+            Assertions.assertNotNull(metrics);
+            Assertions.assertEquals(i, metrics.value);
+            Assertions.assertEquals(202401011200L, metrics.getTimeBucket());
+            Assertions.assertEquals(now, metrics.getLastUpdateTimestamp());
+        }
+    }
+
+    @Test
+    public void testIgnoreSnapshotWithoutCleanShutdown() {
+        final MetricsSessionCache cache = new MetricsSessionCache(TIMEOUT, 0, NOOP, NOOP, NOOP);
+        final SnapshotMetrics metrics = new SnapshotMetrics("entity", 202401011200L, 1);
+        metrics.setLastUpdateTimestamp(System.currentTimeMillis());
+        cache.put(metrics);
+        final MetricsSessionCacheSnapshot snapshot = new MetricsSessionCacheSnapshot(directory.toString());
+        snapshot.checkpoint(model, entriesOf(cache)).join();
+
+        // The OAP crashed, the metrics flushed after the checkpoint are not in the snapshot.
+        final MetricsSessionCache restored = new MetricsSessionCache(TIMEOUT, 0, NOOP, NOOP, NOOP);
+        Assertions.assertEquals(0, new MetricsSessionCacheSnapshot(directory.toString()).restore(model, restored));
+
+        // The marker of the clean shutdown is consumed by the restart.
+        snapshot.shutdown();
+        Assertions.assertEquals(1, new MetricsSessionCacheSnapshot(directory.toString()).restore(model, restored));
+        Assertions.assertEquals(0, new MetricsSessionCacheSnapshot(directory.toString()).restore(model, restored));
+    }
+
+    @Test
+    public void testIgnoreInvalidSnapshot() throws IOException {
+        final MetricsSessionCacheSnapshot snapshot = new MetricsSessionCacheSnapshot(directory.toString());
+        final MetricsSessionCache cache = new MetricsSessionCache(TIMEOUT, 0, NOOP, NOOP, NOOP);
+        Assertions.assertEquals(0, snapshot.restore(model, cache));
+
+        final SnapshotMetrics metrics = new SnapshotMetrics("entity", 202401011200L, 1);
+        metrics.setLastUpdateTimestamp(System.currentTimeMillis());
+        cache.put(metrics);
+        snapshot.checkpoint(model, entriesOf(cache)).join();
+        final List<Path> files = new ArrayList<>();
+        Files.list(directory).forEach(files::add);
+        Assertions.assertEquals(1, files.size());
+
+        final byte[] truncated = Files.readAllBytes(files.get(0));
+        Files.write(files.get(0), Arrays.copyOf(truncated, truncated.length - 1));
+        final MetricsSessionCache restored = new MetricsSessionCache(TIMEOUT, 0, NOOP, NOOP, NOOP);
+        Assertions.assertEquals(0, restartCleanly().restore(model, restored));
+
+        Files.write(files.get(0), new byte[] {1, 2, 3});
+        Assertions.assertEquals(0, restartCleanly().restore(model, restored));
+        Assertions.assertEquals(0, restored.size());
+    }
+
+    private MetricsSessionCacheSnapshot restartCleanly() throws IOException {
+        Files.write(directory.resolve(MetricsSessionCacheSnapshot.CLEAN_SHUTDOWN_MARKER), new byte[0]);
+        return new MetricsSessionCacheSnapshot(directory.toString());
+    }
+
+    private static List<Metrics> entriesOf(MetricsSessionCache cache) {
+        final List<Metrics> entries = new ArrayList<>();
+        cache.forEach(entries::add);
+        return entries;
+    }
+
+    public static class SnapshotMetrics extends Metrics {
+        private String entityId;
+        private long value;
+
+        public SnapshotMetrics() {
+        }
+
+        private SnapshotMetrics(String entityId, long timeBucket, long value) {
+            this.entityId = entityId;
+            this.value = value;
+            setTimeBucket(timeBucket);
+        }
+
+        @Override
+        protected StorageID id0() {
+            return new StorageID().append(ENTITY_ID, entityId);
+        }
+
+        @Override
+        public boolean combine(Metrics metrics) {
+            return true;
+        }
+
+        @Override
+        public void calculate() {
+        }
+
+        @Override
+        public Metrics toHour() {
+            return null;
+        }
+
+        @Override
+        public Metrics toDay() {
+            return null;
+        }
+
+        @Override
+        public void deserialize(RemoteData remoteData) {
+            entityId = remoteData.getDataStrings(0);
+            setTimeBucket(remoteData.getDataLongs(0));
+            value = remoteData.getDataLongs(1);
+        }
+
+        @Override
+        public RemoteData.Builder serialize() {
+            return RemoteData.newBuilder().addDataStrings(entityId).addDataLongs(getTimeBucket()).addDataLongs(value);
+        }
+
+        @Override
+        public int remoteHashCode() {
+            return entityId.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof SnapshotMetrics && ((SnapshotMetrics) o).entityId.equals(entityId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(entityId);
+        }
+    }
+}
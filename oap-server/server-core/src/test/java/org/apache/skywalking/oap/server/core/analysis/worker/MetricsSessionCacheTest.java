@@ -0,0 +1,208 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.worker;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.skywalking.oap.server.core.analysis.metrics.Metrics;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteData;
+import org.apache.skywalking.oap.server.core.storage.StorageID;
+import org.apache.skywalking.oap.server.telemetry.api.CounterMetrics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class MetricsSessionCacheTest {
+    private static final long TIME_BUCKET = 202401011200L;
+
+    private TestCounter hit;
+    private TestCounter miss;
+    private TestCounter eviction;
+    private long entryWeight;
+
+    @BeforeEach
+    public void setup() {
+        hit = new TestCounter();
+        miss = new TestCounter();
+        eviction = new TestCounter();
+        entryWeight = MetricsSessionCache.weigh(new SampleMetrics(0, TIME_BUCKET));
+    }
+
+    @Test
+    public void testUnbounded() {
+        MetricsSessionCache cache = new MetricsSessionCache(1000, 0, hit, miss, eviction);
+        for (int i = 0; i < 1000; i++) {
+            cache.put(new SampleMetrics(i, TIME_BUCKET));
+        }
+        Assertions.assertEquals(1000, cache.size());
+        Assertions.assertEquals(0, cache.weight());
+        Assertions.assertNotNull(cache.get(new SampleMetrics(1, TIME_BUCKET)));
+        Assertions.assertNull(cache.get(new SampleMetrics(1000, TIME_BUCKET)));
+        Assertions.assertNotNull(cache.remove(new SampleMetrics(1, TIME_BUCKET)));
+        Assertions.assertNull(cache.get(new SampleMetrics(1, TIME_BUCKET)));
+        Assertions.assertEquals(1, hit.value);
+        Assertions.assertEquals(2, miss.value);
+        Assertions.assertEquals(0, eviction.value);
+        Assertions.assertEquals(0, cache.getLatestEvictedTimeBucket());
+    }
+
+    @Test
+    public void testBoundedByWeight() {
+        MetricsSessionCache cache = new MetricsSessionCache(1000, entryWeight * 100, hit, miss, eviction);
+        for (int i = 0; i < 1000; i++) {
+            cache.put(new SampleMetrics(i, TIME_BUCKET + i % 10));
+            Assertions.assertTrue(cache.weight() <= entryWeight * 100);
+        }
+        Assertions.assertEquals(100, cache.size());
+        Assertions.assertEquals(entryWeight * 100, cache.weight());
+        Assertions.assertEquals(900, eviction.value);
+        Assertions.assertEquals(TIME_BUCKET + 9, cache.getLatestEvictedTimeBucket());
+
+        for (int i = 0; i < 1000; i++) {
+            cache.remove(new SampleMetrics(i, TIME_BUCKET + i % 10));
+        }
+        Assertions.assertEquals(0, cache.size());
+        Assertions.assertEquals(0, cache.weight());
+    }
+
+    @Test
+    public void testFrequentMetricsAdmitted() {
+        MetricsSessionCache cache = new MetricsSessionCache(1000, entryWeight * 100, hit, miss, eviction);
+        for (int i = 0; i < 100; i++) {
+            cache.put(new SampleMetrics(i, TIME_BUCKET));
+        }
+        // The first 50 metrics are accessed frequently.
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 50; i++) {
+                Assertions.assertNotNull(cache.get(new SampleMetrics(i, TIME_BUCKET)));
+            }
+        }
+        // Scan by the metrics accessed once.
+        for (int i = 100; i < 5000; i++) {
+            cache.put(new SampleMetrics(i, TIME_BUCKET));
+        }
+        for (int i = 0; i < 50; i++) {
+            Assertions.assertNotNull(cache.get(new SampleMetrics(i, TIME_BUCKET)), "metrics " + i);
+        }
+        Assertions.assertTrue(cache.weight() <= entryWeight * 100);
+    }
+
+    @Test
+    public void testRemoveExpired() {
+        MetricsSessionCache cache = new MetricsSessionCache(1000, entryWeight * 100, hit, miss, eviction);
+        final long now = System.currentTimeMillis();
+        for (int i = 0; i < 50; i++) {
+            SampleMetrics metrics = new SampleMetrics(i, TIME_BUCKET);
+            metrics.setLastUpdateTimestamp(i % 2 == 0 ? now : now - 10_000);
+            cache.put(metrics);
+        }
+        cache.removeExpired();
+        Assertions.assertEquals(25, cache.size());
+        Assertions.assertEquals(entryWeight * 25, cache.weight());
+        Assertions.assertEquals(0, eviction.value);
+    }
+
+    @Test
+    public void testEstimateWeightOnce() {
+        final AtomicInteger serialized = new AtomicInteger();
+        MetricsSessionCache cache = new MetricsSessionCache(1000, entryWeight * 100, hit, miss, eviction);
+        for (int i = 0; i < 10; i++) {
+            cache.put(new SampleMetrics(i, TIME_BUCKET) {
+                @Override
+                public RemoteData.Builder serialize() {
+                    serialized.incrementAndGet();
+                    return super.serialize();
+                }
+            });
+        }
+        Assertions.assertEquals(1, serialized.get());
+        Assertions.assertEquals(entryWeight * 10, cache.weight());
+    }
+
+    private static class TestCounter implements CounterMetrics {
+        private long value;
+
+        @Override
+        public void inc() {
+            value++;
+        }
+
+        @Override
+        public void inc(double value) {
+            this.value += (long) value;
+        }
+    }
+
+    private static class SampleMetrics extends Metrics {
+        private final String entityId;
+
+        private SampleMetrics(int id, long timeBucket) {
+            this.entityId = String.format("c2VydmljZQ==.1_ZW5kcG9pbnQ=%06d", id);
+            setTimeBucket(timeBucket);
+        }
+
+        @Override
+        protected StorageID id0() {
+            return new StorageID().append(ENTITY_ID, entityId);
+        }
+
+        @Override
+        public boolean combine(Metrics metrics) {
+            return true;
+        }
+
+        @Override
+        public void calculate() {
+        }
+
+        @Override
+        public Metrics toHour() {
+            return null;
+        }
+
+        @Override
+        public Metrics toDay() {
+            return null;
+        }
+
+        @Override
+        public void deserialize(RemoteData remoteData) {
+        }
+
+        @Override
+        public RemoteData.Builder serialize() {
+            return RemoteData.newBuilder().addDataStrings(entityId).addDataLongs(getTimeBucket());
+        }
+
+        @Override
+        public int remoteHashCode() {
+            return entityId.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof SampleMetrics && ((SampleMetrics) o).entityId.equals(entityId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(entityId);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.worker;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class RecordSpillLogTest {
+    @TempDir
+    public Path directory;
+
+    @Test
+    public void testAppendAndRead() throws IOException {
+        RecordSpillLog log = new RecordSpillLog(directory, 1024 * 1024, 100);
+        Assertions.assertTrue(log.isEmpty());
+        for (int i = 0; i < 20; i++) {
+            Assertions.assertTrue(log.append(("record" + i).getBytes(StandardCharsets.UTF_8)));
+        }
+        Assertions.assertFalse(log.isEmpty());
+        Assertions.assertTrue(segmentCount() > 1);
+
+        List<byte[]> frames = log.read(15);
+        Assertions.assertEquals(15, frames.size());
+        for (int i = 0; i < 15; i++) {
+            Assertions.assertEquals("record" + i, new String(frames.get(i), StandardCharsets.UTF_8));
+        }
+        log.commit();
+        frames = log.read(15);
+        Assertions.assertEquals(5, frames.size());
+        Assertions.assertEquals("record15", new String(frames.get(0), StandardCharsets.UTF_8));
+        log.commit();
+        Assertions.assertTrue(log.isEmpty());
+        Assertions.assertEquals(0, log.read(15).size());
+        Assertions.assertEquals(0, log.getReplayLag());
+        Assertions.assertEquals(0, segmentCount());
+        Assertions.assertEquals(0, log.getSize());
+    }
+
+    @Test
+    public void testMaxSize() throws IOException {
+        RecordSpillLog log = new RecordSpillLog(directory, 100, 1000);
+        Assertions.assertTrue(log.append(new byte[50]));
+        Assertions.assertFalse(log.append(new byte[50]));
+        Assertions.assertEquals(62, log.getSize());
+        Assertions.assertEquals(1, log.read(10).size());
+        // The space is released once the frames are committed.
+        Assertions.assertFalse(log.append(new byte[50]));
+        log.commit();
+        Assertions.assertTrue(log.append(new byte[50]));
+    }
+
+    @Test
+    public void testReplayAfterRestart() throws IOException {
+        RecordSpillLog log = new RecordSpillLog(directory, 1024 * 1024, 100);
+        for (int i = 0; i < 20; i++) {
+            log.append(("record" + i).getBytes(StandardCharsets.UTF_8));
+        }
+        Assertions.assertEquals(8, log.read(8).size());
+        log.commit();
+        // The frames not committed are replayed after restart.
+        Assertions.assertEquals(4, log.read(4).size());
+
+        RecordSpillLog restarted = new RecordSpillLog(directory, 1024 * 1024, 100);
+        Assertions.assertFalse(restarted.isEmpty());
+        List<byte[]> frames = restarted.read(100);
+        Assertions.assertEquals(12, frames.size());
+        Assertions.assertEquals("record8", new String(frames.get(0), StandardCharsets.UTF_8));
+        Assertions.assertTrue(restarted.getReplayLag() > 0);
+        restarted.commit();
+        Assertions.assertTrue(restarted.isEmpty());
+        Assertions.assertEquals(0, restarted.getSize());
+    }
+
+    @Test
+    public void testRewind() throws IOException {
+        RecordSpillLog log = new RecordSpillLog(directory, 1024 * 1024, 100);
+        for (int i = 0; i < 20; i++) {
+            log.append(("record" + i).getBytes(StandardCharsets.UTF_8));
+        }
+        Assertions.assertEquals(8, log.read(8).size());
+        log.commit();
+        Assertions.assertEquals(10, log.read(10).size());
+        log.rewind();
+
+        List<byte[]> frames = log.read(100);
+        Assertions.assertEquals(12, frames.size());
+        Assertions.assertEquals("record8", new String(frames.get(0), StandardCharsets.UTF_8));
+        log.commit();
+        Assertions.assertTrue(log.isEmpty());
+        Assertions.assertEquals(0, segmentCount());
+    }
+
+    @Test
+    public void testEncode() throws IOException {
+        Map<String, Object> source = new HashMap<>();
+        source.put("string", "value");
+        source.put("long", 1L);
+        source.put("int", 2);
+        source.put("double", 3.5D);
+        source.put("list", Arrays.asList("a", "b"));
+        source.put("null", null);
+        Assertions.assertEquals(source, RecordSpillLog.decode(RecordSpillLog.encode(source)));
+
+        source.put("unsupported", new Object());
+        Assertions.assertThrows(IOException.class, () -> RecordSpillLog.encode(source));
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(f -> f.toString().endsWith(".log")).count();
+        }
+    }
+}
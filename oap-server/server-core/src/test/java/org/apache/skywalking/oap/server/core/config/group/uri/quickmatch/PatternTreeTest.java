@@ -143,4 +143,23 @@ class PatternTreeTest {
         Assertions.assertTrue(result.isMatch());
         Assertions.assertEquals("GET:/products/{var}", result.getReplacedName());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testMatchInOrderOfAdding() {
+        PatternTree tree = new PatternTree();
+        tree.addPattern("/products/list/{var}");
+        tree.addPattern("/products/{var}/detail");
+        tree.addPattern("/products/top/detail");
+
+        StringFormatGroup.FormatResult result;
+        result = tree.match("/products/list/123");
+        Assertions.assertEquals("/products/list/{var}", result.getReplacedName());
+        result = tree.match("/products/list/detail");
+        Assertions.assertEquals("/products/list/{var}", result.getReplacedName());
+        // The var token added before shadows the string token added after.
+        result = tree.match("/products/top/detail");
+        Assertions.assertEquals("/products/{var}/detail", result.getReplacedName());
+        result = tree.match("/products/list");
+        Assertions.assertFalse(result.isMatch());
+    }
+}
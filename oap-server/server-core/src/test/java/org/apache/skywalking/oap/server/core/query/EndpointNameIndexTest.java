@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.apache.skywalking.oap.server.core.analysis.IDManager;
+import org.apache.skywalking.oap.server.core.analysis.manual.endpoint.EndpointTraffic;
+import org.apache.skywalking.oap.server.core.query.enumeration.Step;
+import org.apache.skywalking.oap.server.core.query.input.Duration;
+import org.apache.skywalking.oap.server.core.query.type.Endpoint;
+import org.apache.skywalking.oap.server.core.storage.query.IMetadataQueryDAO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class EndpointNameIndexTest {
+    private static final String SERVICE_ID = IDManager.ServiceID.buildId("service", true);
+
+    private IMetadataQueryDAO metadataQueryDAO;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        metadataQueryDAO = mock(IMetadataQueryDAO.class);
+        when(metadataQueryDAO.listEndpointTraffics(eq(SERVICE_ID), anyInt())).thenReturn(List.of(
+            traffic("GET:/api/users", 202401011000L, 202401011200L),
+            traffic("POST:/api/users", 202401011001L, 202401011100L),
+            traffic("GET:/api/Orders/{id}", 202401011002L, 202401011200L),
+            traffic("/health", 202401011003L, 202401011200L)
+        ));
+    }
+
+    @Test
+    public void testFind() throws Exception {
+        final EndpointNameIndex index = new EndpointNameIndex(100, 10, 60_000, 60_000, Runnable::run);
+
+        assertEquals(
+            List.of("GET:/api/Orders/{id}", "POST:/api/users", "GET:/api/users"),
+            names(index.find(metadataQueryDAO, "/api/", SERVICE_ID, 10, null))
+        );
+        assertEquals(List.of("GET:/api/Orders/{id}"), names(index.find(metadataQueryDAO, "orders", SERVICE_ID, 10, null)));
+        assertEquals(List.of("POST:/api/users"), names(index.find(metadataQueryDAO, "PO", SERVICE_ID, 10, null)));
+        assertEquals(List.of(), names(index.find(metadataQueryDAO, "/api/none", SERVICE_ID, 10, null)));
+        // The latest endpoints are returned under the limit.
+        assertEquals(
+            List.of("/health", "GET:/api/Orders/{id}"),
+            names(index.find(metadataQueryDAO, "", SERVICE_ID, 2, null))
+        );
+        // Filter by the last ping.
+        final Duration duration = new Duration();
+        duration.setStart("2024-01-01 1130");
+        duration.setEnd("2024-01-01 1230");
+        duration.setStep(Step.MINUTE);
+        assertEquals(
+            List.of("GET:/api/Orders/{id}", "GET:/api/users"),
+            names(index.find(metadataQueryDAO, "api", SERVICE_ID, 10, duration))
+        );
+
+        final Endpoint endpoint = index.find(metadataQueryDAO, "health", SERVICE_ID, 10, null).get(0);
+        assertEquals(IDManager.EndpointID.buildId(SERVICE_ID, "/health"), endpoint.getId());
+        verify(metadataQueryDAO, times(1)).listEndpointTraffics(eq(SERVICE_ID), anyInt());
+    }
+
+    @Test
+    public void testIndexPersistedTraffic() throws Exception {
+        final EndpointNameIndex index = new EndpointNameIndex(100, 10, 60_000, 60_000, Runnable::run);
+        // The traffic of the service never searched is loaded from the storage at the first search.
+        index.index(traffic("GET:/api/users/{id}", 202401011004L, 202401011200L));
+        assertEquals(List.of("GET:/api/users"), names(index.find(metadataQueryDAO, "get:/api/u", SERVICE_ID, 10, null)));
+
+        index.index(traffic("GET:/api/users/{id}", 202401011004L, 202401011200L));
+        assertEquals(
+            List.of("GET:/api/users/{id}", "GET:/api/users"),
+            names(index.find(metadataQueryDAO, "get:/api/u", SERVICE_ID, 10, null))
+        );
+    }
+
+    @Test
+    public void testOverflow() throws Exception {
+        final EndpointNameIndex index = new EndpointNameIndex(4, 10, 60_000, 60_000, Runnable::run);
+        assertEquals(1, index.find(metadataQueryDAO, "health", SERVICE_ID, 10, null).size());
+        index.index(traffic("GET:/api/users/{id}", 202401011004L, 202401011200L));
+        assertNull(index.find(metadataQueryDAO, "health", SERVICE_ID, 10, null));
+
+        // The overflowed service is not reloaded.
+        final EndpointNameIndex smallIndex = new EndpointNameIndex(3, 10, 0, 60_000, Runnable::run);
+        assertNull(smallIndex.find(metadataQueryDAO, "health", SERVICE_ID, 10, null));
+        Thread.sleep(5);
+        assertNull(smallIndex.find(metadataQueryDAO, "health", SERVICE_ID, 10, null));
+        verify(metadataQueryDAO, times(2)).listEndpointTraffics(eq(SERVICE_ID), anyInt());
+    }
+
+    @Test
+    public void testLoadInBackground() throws Exception {
+        final List<Runnable> tasks = new ArrayList<>();
+        final EndpointNameIndex index = new EndpointNameIndex(100, 10, 60_000, 60_000, tasks::add);
+        // The search goes to the storage until the index is loaded.
+        assertNull(index.find(metadataQueryDAO, "health", SERVICE_ID, 10, null));
+        assertNull(index.find(metadataQueryDAO, "health", SERVICE_ID, 10, null));
+        assertEquals(1, tasks.size());
+
+        tasks.remove(0).run();
+        assertEquals(List.of("/health"), names(index.find(metadataQueryDAO, "health", SERVICE_ID, 10, null)));
+        assertEquals(0, tasks.size());
+    }
+
+    @Test
+    public void testMaxServices() throws Exception {
+        final String otherServiceId = IDManager.ServiceID.buildId("other-service", true);
+        final EndpointNameIndex index = new EndpointNameIndex(100, 1, 60_000, 60_000, Runnable::run);
+        assertEquals(1, index.find(metadataQueryDAO, "health", SERVICE_ID, 10, null).size());
+        assertNull(index.find(metadataQueryDAO, "health", otherServiceId, 10, null));
+        verify(metadataQueryDAO, times(0)).listEndpointTraffics(eq(otherServiceId), anyInt());
+
+        // The idle service is dropped to hold the others.
+        final EndpointNameIndex idleIndex = new EndpointNameIndex(100, 1, 0, 0, Runnable::run);
+        assertEquals(1, idleIndex.find(metadataQueryDAO, "health", SERVICE_ID, 10, null).size());
+        Thread.sleep(5);
+        assertEquals(List.of(), idleIndex.find(metadataQueryDAO, "health", otherServiceId, 10, null));
+    }
+
+    @Test
+    public void testPostingList() {
+        final EndpointNameIndex.PostingList postingList = new EndpointNameIndex.PostingList();
+        final List<Integer> ordinals = List.of(0, 1, 127, 128, 300, 16_384, 2_000_000, Integer.MAX_VALUE);
+        ordinals.forEach(postingList::add);
+        postingList.add(300);
+        assertEquals(ordinals.size(), postingList.size());
+
+        final List<Integer> decoded = new ArrayList<>();
+        final EndpointNameIndex.PostingList.Cursor cursor = postingList.cursor();
+        while (cursor.hasNext()) {
+            decoded.add(cursor.next());
+        }
+        assertEquals(ordinals, decoded);
+    }
+
+    private static EndpointTraffic traffic(String name, long timeBucket, long lastPing) {
+        final EndpointTraffic traffic = new EndpointTraffic();
+        traffic.setServiceId(SERVICE_ID);
+        traffic.setName(name);
+        traffic.setTimeBucket(timeBucket);
+        traffic.setLastPingTimestamp(lastPing);
+        return traffic;
+    }
+
+    private static List<String> names(List<Endpoint> endpoints) {
+        return endpoints.stream().map(Endpoint::getName).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.remote;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteData;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteMessageBatch;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class RemoteMessageBatchCodecTest {
+    @Test
+    public void testRoundTrip() {
+        List<RemoteData> records = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            records.add(RemoteData.newBuilder()
+                                  .addDataStrings("service_" + (i % 3))
+                                  .addDataStrings("entity_" + i)
+                                  .addDataLongs(202412101010L)
+                                  .addDataLongs(-i * 1000L)
+                                  .addDataDoubles(i * 0.5)
+                                  .addDataIntegers(i)
+                                  .build());
+        }
+        // A record in the different layout, between the records of the same layout.
+        records.add(RemoteData.newBuilder()
+                              .addDataLongs(Long.MIN_VALUE)
+                              .addDataObjectStrings("{\"key\":\"value\"}")
+                              .addDataObjectStrings("service_1")
+                              .build());
+        records.add(RemoteData.newBuilder()
+                              .addDataStrings("service_0")
+                              .addDataLongs(Long.MAX_VALUE)
+                              .addDataLongs(202412101011L)
+                              .addDataLongs(3)
+                              .build());
+        records.add(RemoteData.newBuilder().build());
+
+        RemoteMessageBatch batch = RemoteMessageBatchCodec.encode("worker", records);
+        Assertions.assertEquals("worker", batch.getNextWorkerName());
+        // service_0, service_1, service_2, entity_0..9 and the object string.
+        Assertions.assertEquals(14, batch.getDictionaryCount());
+        // 4 layout groups
+        Assertions.assertEquals(24, batch.getLayoutsCount());
+
+        List<RemoteData> decoded = new ArrayList<>();
+        RemoteMessageBatchCodec.decode(batch, decoded::add);
+        Assertions.assertEquals(records, decoded);
+    }
+
+    @Test
+    public void testSmallerThanOneByOne() {
+        List<RemoteData> records = new ArrayList<>();
+        int oneByOneSize = 0;
+        for (int i = 0; i < 1000; i++) {
+            RemoteData remoteData = RemoteData.newBuilder()
+                                              .addAllDataStrings(Arrays.asList("c2VydmljZQ==.1", "endpoint_" + (i % 50)))
+                                              .addDataLongs(202412101010L)
+                                              .addDataLongs(i)
+                                              .addDataLongs(1000 + i)
+                                              .build();
+            oneByOneSize += remoteData.getSerializedSize();
+            records.add(remoteData);
+        }
+
+        RemoteMessageBatch batch = RemoteMessageBatchCodec.encode("worker", records);
+        Assertions.assertTrue(batch.getSerializedSize() < oneByOneSize / 2);
+    }
+}
@@ -20,13 +20,18 @@ package org.apache.skywalking.oap.server.core.remote.client;
 
 import io.grpc.ManagedChannel;
 import io.grpc.Server;
+import io.grpc.Status;
 import io.grpc.inprocess.InProcessChannelBuilder;
 import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
 import io.grpc.util.MutableHandlerRegistry;
 import org.apache.skywalking.oap.server.core.CoreModule;
 import org.apache.skywalking.oap.server.core.remote.RemoteServiceHandler;
 import org.apache.skywalking.oap.server.core.remote.data.StreamData;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.Empty;
 import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteData;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteMessage;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteServiceGrpc;
 import org.apache.skywalking.oap.server.core.worker.AbstractWorker;
 import org.apache.skywalking.oap.server.core.worker.IWorkerInstanceGetter;
 import org.apache.skywalking.oap.server.core.worker.IWorkerInstanceSetter;
@@ -34,6 +39,7 @@ import org.apache.skywalking.oap.server.core.worker.WorkerInstancesService;
 import org.apache.skywalking.oap.server.library.module.ModuleDefineHolder;
 import org.apache.skywalking.oap.server.telemetry.TelemetryModule;
 import org.apache.skywalking.oap.server.telemetry.api.CounterMetrics;
+import org.apache.skywalking.oap.server.telemetry.api.GaugeMetrics;
 import org.apache.skywalking.oap.server.telemetry.api.HistogramMetrics;
 import org.apache.skywalking.oap.server.telemetry.api.MetricsCreator;
 import org.apache.skywalking.oap.server.testing.module.ModuleDefineTesting;
@@ -46,9 +52,11 @@ import org.junit.jupiter.api.Test;
 import java.io.IOException;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.when;
@@ -60,6 +68,8 @@ public class GRPCRemoteClientTestCase {
     private Server server;
     private ManagedChannel channel;
     private MutableHandlerRegistry serviceRegistry;
+    private TestWorker worker;
+    private final AtomicInteger reconnects = new AtomicInteger();
 
     @BeforeEach
     public void before() throws IOException {
@@ -83,7 +93,7 @@ public class GRPCRemoteClientTestCase {
         moduleDefine.provider().registerServiceImplementation(IWorkerInstanceGetter.class, workerInstancesService);
         moduleDefine.provider().registerServiceImplementation(IWorkerInstanceSetter.class, workerInstancesService);
 
-        TestWorker worker = new TestWorker(moduleManager);
+        worker = new TestWorker(moduleManager);
         workerInstancesService.put(nextWorkerName, worker, TestStreamData.class);
     }
 
@@ -108,6 +118,59 @@ public class GRPCRemoteClientTestCase {
 
     @Test
     public void testPush() throws InterruptedException {
+        GRPCRemoteClient remoteClient = spy(new GRPCRemoteClient(mockServices(), address(), 1, 10, 10, null));
+        remoteClient.connect();
+
+        doReturn(channel).when(remoteClient).getChannel();
+
+        for (int i = 0; i < 12; i++) {
+            remoteClient.push(nextWorkerName, new TestStreamData());
+        }
+
+        assertReceived(12);
+        remoteClient.close();
+    }
+
+    @Test
+    public void testPushInBatch() throws InterruptedException {
+        GRPCRemoteClient remoteClient = spy(new GRPCRemoteClient(mockServices(), address(), 1, 10, 10, null, true));
+        remoteClient.connect();
+
+        doReturn(channel).when(remoteClient).getChannel();
+
+        for (int i = 0; i < 12; i++) {
+            remoteClient.push(nextWorkerName, new TestStreamData());
+        }
+
+        assertReceived(12);
+        remoteClient.close();
+    }
+
+    @Test
+    public void testReconnect() throws InterruptedException {
+        ModuleManagerTesting moduleManager = mockServices();
+        // The stream is broken by the server at the beginning.
+        serviceRegistry.addService(new BrokenRemoteService());
+
+        GRPCRemoteClient remoteClient = spy(new GRPCRemoteClient(moduleManager, address(), 1, 10, 10, null));
+        remoteClient.connect();
+
+        doReturn(channel).when(remoteClient).getChannel();
+
+        remoteClient.push(nextWorkerName, new TestStreamData());
+        TimeUnit.MILLISECONDS.sleep(500);
+        Assertions.assertEquals(0, worker.received.get());
+
+        serviceRegistry.addService(new RemoteServiceHandler(moduleManager));
+        remoteClient.push(nextWorkerName, new TestStreamData());
+
+        // The first message is retried through the rebuilt streams until the server recovers.
+        assertReceived(2);
+        Assertions.assertTrue(reconnects.get() >= 1);
+        remoteClient.close();
+    }
+
+    private ModuleManagerTesting mockServices() {
         MetricsCreator metricsCreator = mock(MetricsCreator.class);
         when(metricsCreator.createCounter(any(), any(), any(), any())).thenReturn(new CounterMetrics() {
             @Override
@@ -121,6 +184,20 @@ public class GRPCRemoteClientTestCase {
             }
         });
 
+        when(metricsCreator.createCounter(eq("remote_out_reconnect_count"), any(), any(), any())).thenReturn(
+            new CounterMetrics() {
+                @Override
+                public void inc() {
+                    reconnects.incrementAndGet();
+                }
+
+                @Override
+                public void inc(double value) {
+
+                }
+            });
+        when(metricsCreator.createGauge(any(), any(), any(), any())).thenReturn(mock(GaugeMetrics.class));
+
         when(metricsCreator.createHistogramMetric(any(), any(), any(), any())).thenReturn(new HistogramMetrics() {
             @Override
             public Timer createTimer() {
@@ -138,18 +215,38 @@ public class GRPCRemoteClientTestCase {
         telemetryModuleDefine.provider().registerServiceImplementation(MetricsCreator.class, metricsCreator);
 
         serviceRegistry.addService(new RemoteServiceHandler(moduleManager));
+        return moduleManager;
+    }
 
-        Address address = new Address("not-important", 11, false);
-        GRPCRemoteClient remoteClient = spy(new GRPCRemoteClient(moduleManager, address, 1, 10, 10, null));
-        remoteClient.connect();
-
-        doReturn(channel).when(remoteClient).getChannel();
+    private Address address() {
+        return new Address("not-important", 11, false);
+    }
 
-        for (int i = 0; i < 12; i++) {
-            remoteClient.push(nextWorkerName, new TestStreamData());
+    private void assertReceived(int expected) throws InterruptedException {
+        for (int i = 0; i < 50 && worker.received.get() < expected; i++) {
+            TimeUnit.MILLISECONDS.sleep(100);
         }
+        Assertions.assertEquals(expected, worker.received.get());
+    }
 
-        TimeUnit.SECONDS.sleep(2);
+    static class BrokenRemoteService extends RemoteServiceGrpc.RemoteServiceImplBase {
+        @Override
+        public StreamObserver<RemoteMessage> call(StreamObserver<Empty> responseObserver) {
+            responseObserver.onError(Status.UNAVAILABLE.asRuntimeException());
+            return new StreamObserver<RemoteMessage>() {
+                @Override
+                public void onNext(RemoteMessage remoteMessage) {
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                }
+
+                @Override
+                public void onCompleted() {
+                }
+            };
+        }
     }
 
     public static class TestStreamData extends StreamData {
@@ -175,6 +272,7 @@ public class GRPCRemoteClientTestCase {
     }
 
     static class TestWorker extends AbstractWorker {
+        private final AtomicInteger received = new AtomicInteger();
 
         public TestWorker(ModuleDefineHolder moduleDefineHolder) {
             super(moduleDefineHolder);
@@ -184,6 +282,7 @@ public class GRPCRemoteClientTestCase {
         public void in(Object o) {
             TestStreamData streamData = (TestStreamData) o;
             Assertions.assertEquals(987, streamData.value);
+            received.incrementAndGet();
         }
     }
 }
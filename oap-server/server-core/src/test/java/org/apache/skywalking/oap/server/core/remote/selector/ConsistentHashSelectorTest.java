@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.remote.selector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.skywalking.oap.server.core.remote.client.Address;
+import org.apache.skywalking.oap.server.core.remote.client.RemoteClient;
+import org.apache.skywalking.oap.server.core.remote.data.StreamData;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteData;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ConsistentHashSelectorTest {
+    private static final int KEYS = 100_000;
+
+    @Test
+    public void testMinimalReshuffling() {
+        AtomicReference<Double> movedFraction = new AtomicReference<>();
+        ConsistentHashSelector selector = new ConsistentHashSelector(160, movedFraction::set);
+
+        List<RemoteClient> threeNodes = clients(3);
+        Address[] before = selectAll(selector, threeNodes);
+        Assertions.assertNull(movedFraction.get());
+
+        List<RemoteClient> fourNodes = clients(4);
+        Address[] after = selectAll(selector, fourNodes);
+
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            if (!before[i].equals(after[i])) {
+                moved++;
+                // The moved keys only go to the new node.
+                Assertions.assertEquals(fourNodes.get(3).getAddress(), after[i]);
+            }
+        }
+        double movedRatio = (double) moved / KEYS;
+        Assertions.assertTrue(movedRatio > 0.15 && movedRatio < 0.35, "moved ratio " + movedRatio);
+        Assertions.assertEquals(movedRatio, movedFraction.get(), 0.02);
+
+        // Remove the new node, the keys go back to the original owners.
+        selectAll(selector, clients(3));
+        Assertions.assertEquals(movedRatio, movedFraction.get(), 0.02);
+        Address[] back = selectAll(selector, clients(3));
+        Assertions.assertArrayEquals(before, back);
+    }
+
+    @Test
+    public void testBalance() {
+        ConsistentHashSelector selector = new ConsistentHashSelector(160, fraction -> {
+        });
+        List<RemoteClient> clients = clients(5);
+        int[] counts = new int[clients.size()];
+        for (int i = 0; i < KEYS; i++) {
+            RemoteClient client = selector.select(clients, new HashStreamData(("entity_" + i).hashCode()));
+            counts[clients.indexOf(client)]++;
+        }
+        for (int count : counts) {
+            Assertions.assertTrue(count > KEYS / 5 * 0.7 && count < KEYS / 5 * 1.3, "count " + count);
+        }
+    }
+
+    @Test
+    public void testMovedFraction() {
+        ConsistentHashSelector.Ring empty = new ConsistentHashSelector.Ring(new ArrayList<>(), 10);
+        ConsistentHashSelector.Ring two = new ConsistentHashSelector.Ring(clients(2), 10);
+        ConsistentHashSelector.Ring anotherTwo = new ConsistentHashSelector.Ring(clients(2), 10);
+        Assertions.assertEquals(0, ConsistentHashSelector.movedFraction(two, anotherTwo));
+        Assertions.assertEquals(1, ConsistentHashSelector.movedFraction(empty, two));
+        Assertions.assertEquals(0, ConsistentHashSelector.movedFraction(empty, empty));
+    }
+
+    private Address[] selectAll(ConsistentHashSelector selector, List<RemoteClient> clients) {
+        Address[] owners = new Address[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            owners[i] = selector.select(clients, new HashStreamData(("entity_" + i).hashCode())).getAddress();
+        }
+        return owners;
+    }
+
+    private List<RemoteClient> clients(int size) {
+        List<RemoteClient> clients = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            RemoteClient client = mock(RemoteClient.class);
+            when(client.getAddress()).thenReturn(new Address("10.0.0." + i, 11800, false));
+            clients.add(client);
+        }
+        return clients;
+    }
+
+    private static class HashStreamData extends StreamData {
+        private final int hash;
+
+        private HashStreamData(int hash) {
+            this.hash = hash;
+        }
+
+        @Override
+        public int remoteHashCode() {
+            return hash;
+        }
+
+        @Override
+        public void deserialize(RemoteData remoteData) {
+        }
+
+        @Override
+        public RemoteData.Builder serialize() {
+            return null;
+        }
+    }
+}
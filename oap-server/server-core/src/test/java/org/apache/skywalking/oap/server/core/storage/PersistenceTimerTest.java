@@ -42,6 +42,7 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
@@ -96,7 +97,7 @@ public class PersistenceTimerTest {
                 results.add(new MockStorageData(num + " " + UUID.randomUUID()));
             }
             return results;
-        }).when(persistenceWorker).buildBatchRequests();
+        }).when(persistenceWorker).buildBatchRequests(any());
         return persistenceWorker;
     }
 
@@ -108,7 +109,7 @@ public class PersistenceTimerTest {
                 results.add(new MockStorageData(num + " " + UUID.randomUUID()));
             }
             return results;
-        }).when(persistenceWorker).buildBatchRequests();
+        }).when(persistenceWorker).buildBatchRequests(any());
         return persistenceWorker;
     }
 
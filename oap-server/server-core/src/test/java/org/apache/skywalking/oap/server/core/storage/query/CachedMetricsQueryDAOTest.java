@@ -0,0 +1,260 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.storage.query;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.apache.skywalking.oap.server.core.query.DurationUtils;
+import org.apache.skywalking.oap.server.core.query.PointOfTime;
+import org.apache.skywalking.oap.server.core.query.enumeration.Scope;
+import org.apache.skywalking.oap.server.core.query.enumeration.Step;
+import org.apache.skywalking.oap.server.core.query.input.Duration;
+import org.apache.skywalking.oap.server.core.query.input.Entity;
+import org.apache.skywalking.oap.server.core.query.input.MetricsCondition;
+import org.apache.skywalking.oap.server.core.query.type.HeatMap;
+import org.apache.skywalking.oap.server.core.query.type.KVInt;
+import org.apache.skywalking.oap.server.core.query.type.KeyValue;
+import org.apache.skywalking.oap.server.core.query.type.MetricsValues;
+import org.apache.skywalking.oap.server.core.storage.annotation.ValueColumnMetadata;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.apache.skywalking.oap.server.core.source.DefaultScopeDefine.SERVICE;
+import static org.apache.skywalking.oap.server.core.storage.annotation.Column.ValueDataType.COMMON_VALUE;
+import static org.apache.skywalking.oap.server.core.storage.annotation.Column.ValueDataType.LABELED_VALUE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CachedMetricsQueryDAOTest {
+    private static final String METRIC_NAME = "cached_metrics_test";
+    private static final String LABELED_METRIC_NAME = "cached_labeled_metrics_test";
+    private static final int DEFAULT_VALUE = -1;
+
+    private StubMetricsQueryDAO delegate;
+    private MovableClock clock;
+    private CachedMetricsQueryDAO dao;
+    private MetricsCondition condition;
+
+    @BeforeEach
+    public void setUp() {
+        ValueColumnMetadata.INSTANCE.putIfAbsent(METRIC_NAME, "value", COMMON_VALUE, DEFAULT_VALUE, SERVICE);
+        ValueColumnMetadata.INSTANCE.putIfAbsent(LABELED_METRIC_NAME, "value", LABELED_VALUE, DEFAULT_VALUE, SERVICE);
+        delegate = new StubMetricsQueryDAO();
+        clock = new MovableClock(DurationUtils.YYYY_MM_DD_HHMM.parseMillis("2024-01-01 1200"));
+        // Buckets ended 330s ago are immutable, so the buckets before 11:54 could be cached.
+        dao = new CachedMetricsQueryDAO(delegate, 1024 * 1024, 330_000, clock);
+
+        final Entity entity = new Entity();
+        entity.setScope(Scope.Service);
+        entity.setServiceName("service");
+        entity.setNormal(true);
+        condition = new MetricsCondition();
+        condition.setEntity(entity);
+    }
+
+    @Test
+    public void testReadMetricsValues() throws Exception {
+        condition.setName(METRIC_NAME);
+        final Duration duration = duration("2024-01-01 1100", "2024-01-01 1159");
+
+        final MetricsValues first = dao.readMetricsValues(condition, "value", duration);
+        final MetricsValues second = dao.readMetricsValues(condition, "value", duration);
+        assertEquals(List.of("2024-01-01 1100", "2024-01-01 1154"), delegate.queriedStarts);
+        assertEquals(60, second.getValues().getValues().size());
+        assertEquals(toString(first), toString(second));
+        assertEquals(toString(delegate.readMetricsValues(condition, "value", duration)), toString(second));
+
+        // The cached buckets are reused by the overlapped duration.
+        delegate.queriedStarts.clear();
+        final Duration overlapped = duration("2024-01-01 1130", "2024-01-01 1200");
+        assertEquals(
+            toString(delegate.readMetricsValues(condition, "value", overlapped)),
+            toString(dao.readMetricsValues(condition, "value", overlapped))
+        );
+        assertEquals(List.of("2024-01-01 1130", "2024-01-01 1154"), delegate.queriedStarts);
+    }
+
+    @Test
+    public void testReadLabeledMetricsValues() throws Exception {
+        condition.setName(LABELED_METRIC_NAME);
+        final Duration duration = duration("2024-01-01 1100", "2024-01-01 1159");
+
+        final List<MetricsValues> first = dao.readLabeledMetricsValues(
+            condition, "value", Collections.emptyList(), duration);
+        final List<MetricsValues> second = dao.readLabeledMetricsValues(
+            condition, "value", Collections.emptyList(), duration);
+        assertEquals(List.of("2024-01-01 1100", "2024-01-01 1154"), delegate.queriedStarts);
+        assertEquals(2, second.size());
+        assertEquals(toString(first), toString(second));
+        assertEquals(
+            toString(delegate.readLabeledMetricsValues(condition, "value", Collections.emptyList(), duration)),
+            toString(second)
+        );
+
+        // The label filter isn't cached.
+        delegate.queriedStarts.clear();
+        final List<KeyValue> labels = List.of(new KeyValue("status", "200"));
+        dao.readLabeledMetricsValues(condition, "value", labels, duration);
+        dao.readLabeledMetricsValues(condition, "value", labels, duration);
+        assertEquals(List.of("2024-01-01 1100", "2024-01-01 1100"), delegate.queriedStarts);
+    }
+
+    @Test
+    public void testOpenBucketsNotCached() throws Exception {
+        condition.setName(METRIC_NAME);
+        final Duration duration = duration("2024-01-01 1155", "2024-01-01 1159");
+        dao.readMetricsValues(condition, "value", duration);
+        dao.readMetricsValues(condition, "value", duration);
+        assertEquals(List.of("2024-01-01 1155", "2024-01-01 1155"), delegate.queriedStarts);
+    }
+
+    @Test
+    public void testEmptyBucketsNotCached() throws Exception {
+        condition.setName(METRIC_NAME);
+        delegate.emptyPoint = 202401011130L;
+        final Duration duration = duration("2024-01-01 1100", "2024-01-01 1159");
+        dao.readMetricsValues(condition, "value", duration);
+        dao.readMetricsValues(condition, "value", duration);
+        assertEquals(List.of("2024-01-01 1100", "2024-01-01 1130"), delegate.queriedStarts);
+    }
+
+    @Test
+    public void testRecentBucketsReadAgain() throws Exception {
+        condition.setName(METRIC_NAME);
+        final Duration duration = duration("2024-01-01 1100", "2024-01-01 1159");
+        dao.readMetricsValues(condition, "value", duration);
+
+        // The buckets since 11:49 were closed for less than twice the delay when cached, they are read again.
+        clock.millis = DurationUtils.YYYY_MM_DD_HHMM.parseMillis("2024-01-01 1202");
+        dao.readMetricsValues(condition, "value", duration);
+        dao.readMetricsValues(condition, "value", duration);
+        assertEquals(
+            List.of("2024-01-01 1100", "2024-01-01 1149", "2024-01-01 1156"), delegate.queriedStarts);
+    }
+
+    private static Duration duration(String start, String end) {
+        final Duration duration = new Duration();
+        duration.setStart(start);
+        duration.setEnd(end);
+        duration.setStep(Step.MINUTE);
+        return duration;
+    }
+
+    private static String toString(MetricsValues values) {
+        return values.getLabel() + values.getValues().getValues().stream()
+                                         .map(v -> v.getId() + "=" + v.getValue() + (v.isEmptyValue() ? "E" : ""))
+                                         .collect(Collectors.joining(",", "[", "]"));
+    }
+
+    private static String toString(List<MetricsValues> values) {
+        return values.stream().map(CachedMetricsQueryDAOTest::toString).collect(Collectors.joining(";"));
+    }
+
+    /**
+     * The value of the bucket is the minute of the bucket, and the label {@code {status=500}} only has the values
+     * before 11:30.
+     */
+    private static class StubMetricsQueryDAO implements IMetricsQueryDAO {
+        private final List<String> queriedStarts = new ArrayList<>();
+        /**
+         * The point without value.
+         */
+        private long emptyPoint = -1;
+
+        @Override
+        public MetricsValues readMetricsValues(final MetricsCondition condition,
+                                               final String valueColumnName,
+                                               final Duration duration) {
+            queriedStarts.add(duration.getStart());
+            final MetricsValues values = new MetricsValues();
+            for (final PointOfTime point : duration.assembleDurationPoints()) {
+                final boolean empty = point.getPoint() == emptyPoint;
+                values.getValues().addKVInt(new KVInt(
+                    point.id(condition.getEntity().buildId()), empty ? DEFAULT_VALUE : point.getPoint() % 100, empty));
+            }
+            return values;
+        }
+
+        @Override
+        public List<MetricsValues> readLabeledMetricsValues(final MetricsCondition condition,
+                                                            final String valueColumnName,
+                                                            final List<KeyValue> labels,
+                                                            final Duration duration) {
+            queriedStarts.add(duration.getStart());
+            final MetricsValues ok = new MetricsValues();
+            ok.setLabel("{status=200}");
+            final MetricsValues error = new MetricsValues();
+            error.setLabel("{status=500}");
+            for (final PointOfTime point : duration.assembleDurationPoints()) {
+                final String id = point.id(condition.getEntity().buildId());
+                ok.getValues().addKVInt(new KVInt(id, point.getPoint() % 100, false));
+                final boolean empty = point.getPoint() % 100 >= 30;
+                error.getValues().addKVInt(new KVInt(id, empty ? DEFAULT_VALUE : 1, empty));
+            }
+            return List.of(ok, error);
+        }
+
+        @Override
+        public List<MetricsValues> readLabeledMetricsValuesWithoutEntity(final String metricName,
+                                                                         final String valueColumnName,
+                                                                         final List<KeyValue> labels,
+                                                                         final Duration duration) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public HeatMap readHeatMap(final MetricsCondition condition,
+                                   final String valueColumnName,
+                                   final Duration duration) {
+            return new HeatMap();
+        }
+    }
+
+    private static class MovableClock extends Clock {
+        private long millis;
+
+        private MovableClock(long millis) {
+            this.millis = millis;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.systemDefault();
+        }
+
+        @Override
+        public Clock withZone(final ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+    }
+}
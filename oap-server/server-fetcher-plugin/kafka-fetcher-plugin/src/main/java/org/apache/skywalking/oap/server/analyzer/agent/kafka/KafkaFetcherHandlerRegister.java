@@ -28,6 +28,8 @@ import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
@@ -61,7 +63,11 @@ public class KafkaFetcherHandlerRegister {
     private final KafkaFetcherConfig config;
     private final Properties properties;
 
-    private final ThreadPoolExecutor executor;
+    private final ExecutorService executor;
+    /**
+     * The workers pinned to the partitions, only for {@link KafkaFetcherConfig#isEnablePartitionBatchHandling()}.
+     */
+    private final ExecutorService[] partitionWorkers;
     private final boolean enableKafkaMessageAutoCommit;
     private final List<KafkaConsumer<String, Bytes>> consumers = Lists.newArrayList();
 
@@ -90,11 +96,22 @@ public class KafkaFetcherHandlerRegister {
 
             consumers.add(consumer);
         }
-        executor = new ThreadPoolExecutor(threadPoolSize, threadPoolSize, 60, TimeUnit.SECONDS,
-                                          new ArrayBlockingQueue<>(threadPoolQueueSize),
-                                          new CustomThreadFactory("KafkaConsumer"),
-                                          new ThreadPoolExecutor.CallerRunsPolicy()
-        );
+        if (config.isEnablePartitionBatchHandling()) {
+            // The consumers only poll, the records are handled by the partition workers.
+            executor = Executors.newFixedThreadPool(config.getConsumers(), new CustomThreadFactory("KafkaConsumer"));
+            final CustomThreadFactory workerThreadFactory = new CustomThreadFactory("KafkaPartitionWorker");
+            partitionWorkers = new ExecutorService[threadPoolSize];
+            for (int i = 0; i < threadPoolSize; i++) {
+                partitionWorkers[i] = Executors.newSingleThreadExecutor(workerThreadFactory);
+            }
+        } else {
+            executor = new ThreadPoolExecutor(threadPoolSize, threadPoolSize, 60, TimeUnit.SECONDS,
+                                              new ArrayBlockingQueue<>(threadPoolQueueSize),
+                                              new CustomThreadFactory("KafkaConsumer"),
+                                              new ThreadPoolExecutor.CallerRunsPolicy()
+            );
+            partitionWorkers = null;
+        }
     }
 
     public void register(KafkaHandler handler) {
@@ -109,7 +126,12 @@ public class KafkaFetcherHandlerRegister {
         for (KafkaConsumer<String, Bytes> consumer : consumers) {
             consumer.subscribe(handlerMap.keySet());
             consumer.seekToEnd(consumer.assignment());
-            executor.submit(() -> runTask(consumer));
+            if (partitionWorkers != null) {
+                executor.submit(new PartitionBatchFetcher(
+                    consumer, handlerMap, partitionWorkers, enableKafkaMessageAutoCommit));
+            } else {
+                executor.submit(() -> runTask(consumer));
+            }
         }
     }
 
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.analyzer.agent.kafka;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.utils.Bytes;
+import org.apache.skywalking.oap.server.analyzer.agent.kafka.provider.handler.KafkaHandler;
+
+/**
+ * PartitionBatchFetcher polls the records by a consumer, and hands the records of every partition as a batch to the
+ * worker pinned to the partition. The offsets are committed only after all the batches of the poll are handled, so
+ * the records not handled yet are consumed again after the OAP crashes. The batch failed as a whole is not committed,
+ * and consumed again by the next poll.
+ *
+ * @since 10.2.0
+ */
+@Slf4j
+class PartitionBatchFetcher implements Runnable {
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(500L);
+
+    private final Consumer<String, Bytes> consumer;
+    private final Map<String, KafkaHandler> handlerMap;
+    /**
+     * The single thread workers, the records of a partition are always handled by the same worker in order.
+     */
+    private final ExecutorService[] workers;
+    private final boolean enableKafkaMessageAutoCommit;
+
+    PartitionBatchFetcher(final Consumer<String, Bytes> consumer,
+                          final Map<String, KafkaHandler> handlerMap,
+                          final ExecutorService[] workers,
+                          final boolean enableKafkaMessageAutoCommit) {
+        this.consumer = consumer;
+        this.handlerMap = handlerMap;
+        this.workers = workers;
+        this.enableKafkaMessageAutoCommit = enableKafkaMessageAutoCommit;
+    }
+
+    @Override
+    public void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                fetch();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.error("Kafka handle message error.", e);
+            }
+        }
+    }
+
+    /**
+     * Poll the records once, and wait for the records to be handled.
+     *
+     * @return the number of the polled records.
+     */
+    int fetch() throws InterruptedException {
+        final ConsumerRecords<String, Bytes> consumerRecords = consumer.poll(POLL_TIMEOUT);
+        if (consumerRecords.isEmpty()) {
+            return 0;
+        }
+        final List<TopicPartition> partitions = new ArrayList<>(consumerRecords.partitions());
+        final List<Future<?>> futures = new ArrayList<>(partitions.size());
+        for (final TopicPartition partition : partitions) {
+            final List<ConsumerRecord<String, Bytes>> records = consumerRecords.records(partition);
+            final KafkaHandler handler = handlerMap.get(partition.topic());
+            futures.add(workerOf(partition).submit(() -> handler.handle(records)));
+        }
+
+        final Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>(partitions.size());
+        for (int i = 0; i < partitions.size(); i++) {
+            final TopicPartition partition = partitions.get(i);
+            final List<ConsumerRecord<String, Bytes>> records = consumerRecords.records(partition);
+            try {
+                futures.get(i).get();
+            } catch (ExecutionException e) {
+                log.error("Kafka handle message of partition {} error, consume them again.", partition, e.getCause());
+                consumer.seek(partition, records.get(0).offset());
+                continue;
+            }
+            offsets.put(partition, new OffsetAndMetadata(records.get(records.size() - 1).offset() + 1));
+        }
+        if (!enableKafkaMessageAutoCommit && !offsets.isEmpty()) {
+            consumer.commitAsync(offsets, (committed, e) -> {
+                if (e != null) {
+                    log.warn("Failed to commit the offsets {} of Kafka, the next commit covers them.", committed, e);
+                }
+            });
+        }
+        return consumerRecords.count();
+    }
+
+    private ExecutorService workerOf(TopicPartition partition) {
+        return workers[Math.floorMod(partition.hashCode(), workers.length)];
+    }
+}
@@ -76,6 +76,14 @@ public class KafkaFetcherConfig extends ModuleConfig {
 
     private int kafkaHandlerThreadPoolQueueSize;
 
+    /**
+     * Hand the records of every partition as a batch to the worker pinned to the partition, and commit the offsets
+     * after the records are handled, rather than handling the records one by one in the shared thread pool.
+     *
+     * @since 10.2.0
+     */
+    private boolean enablePartitionBatchHandling = false;
+
     private String namespace = "";
 
     private String mm2SourceAlias = "";
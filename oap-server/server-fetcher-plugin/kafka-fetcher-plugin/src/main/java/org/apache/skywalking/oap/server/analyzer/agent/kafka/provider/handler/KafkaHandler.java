@@ -18,8 +18,10 @@
 
 package org.apache.skywalking.oap.server.analyzer.agent.kafka.provider.handler;
 
+import java.util.List;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.common.utils.Bytes;
+import org.slf4j.LoggerFactory;
 
 /**
  * A Handler for dealing Message reported by agent. It is binding to a topic of Kafka, and deserialize.
@@ -36,4 +38,23 @@ public interface KafkaHandler {
      */
     void handle(ConsumerRecord<String, Bytes> record);
 
+    /**
+     * Deserialize the records of a partition in order, and push them to downstream. The failure of a record is
+     * logged, and doesn't stop handling the following records.
+     *
+     * @since 10.2.0
+     */
+    default void handle(List<ConsumerRecord<String, Bytes>> records) {
+        for (final ConsumerRecord<String, Bytes> record : records) {
+            try {
+                handle(record);
+            } catch (RuntimeException e) {
+                LoggerFactory.getLogger(KafkaHandler.class).error(
+                    "Kafka handle message of topic {}, partition {}, offset {} error.",
+                    record.topic(), record.partition(), record.offset(), e
+                );
+            }
+        }
+    }
+
 }
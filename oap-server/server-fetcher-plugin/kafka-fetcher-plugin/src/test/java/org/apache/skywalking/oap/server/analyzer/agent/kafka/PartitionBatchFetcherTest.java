@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.analyzer.agent.kafka;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.utils.Bytes;
+import org.apache.skywalking.oap.server.analyzer.agent.kafka.provider.handler.KafkaHandler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PartitionBatchFetcherTest {
+    private static final String TOPIC = "skywalking-segments";
+    private static final TopicPartition PARTITION_0 = new TopicPartition(TOPIC, 0);
+    private static final TopicPartition PARTITION_1 = new TopicPartition(TOPIC, 1);
+
+    private MockConsumer<String, Bytes> consumer;
+    private ExecutorService[] workers;
+    private RecordingHandler handler;
+
+    @BeforeEach
+    public void setUp() {
+        consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        consumer.assign(List.of(PARTITION_0, PARTITION_1));
+        final Map<TopicPartition, Long> beginningOffsets = new HashMap<>();
+        beginningOffsets.put(PARTITION_0, 0L);
+        beginningOffsets.put(PARTITION_1, 0L);
+        consumer.updateBeginningOffsets(beginningOffsets);
+
+        workers = new ExecutorService[] {
+            Executors.newSingleThreadExecutor(),
+            Executors.newSingleThreadExecutor()
+        };
+        handler = new RecordingHandler();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        for (final ExecutorService worker : workers) {
+            worker.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testHandleBatchesAndCommitAfterHandled() throws Exception {
+        final PartitionBatchFetcher fetcher = new PartitionBatchFetcher(
+            consumer, Collections.singletonMap(TOPIC, handler), workers, false);
+        for (int i = 0; i < 3; i++) {
+            consumer.addRecord(record(PARTITION_0, i));
+        }
+        for (int i = 0; i < 2; i++) {
+            consumer.addRecord(record(PARTITION_1, i));
+        }
+
+        assertEquals(5, fetcher.fetch());
+        assertEquals(2, handler.batches.size());
+        final Map<Integer, List<Long>> offsetsByPartition = handler.batches.stream().collect(Collectors.toMap(
+            batch -> batch.get(0).partition(),
+            batch -> batch.stream().map(ConsumerRecord::offset).collect(Collectors.toList())
+        ));
+        assertEquals(List.of(0L, 1L, 2L), offsetsByPartition.get(0));
+        assertEquals(List.of(0L, 1L), offsetsByPartition.get(1));
+
+        final Map<TopicPartition, OffsetAndMetadata> committed = consumer.committed(Set.of(PARTITION_0, PARTITION_1));
+        assertEquals(3L, committed.get(PARTITION_0).offset());
+        assertEquals(2L, committed.get(PARTITION_1).offset());
+
+        consumer.addRecord(record(PARTITION_1, 2));
+        assertEquals(1, fetcher.fetch());
+        assertEquals(3L, consumer.committed(Set.of(PARTITION_1)).get(PARTITION_1).offset());
+        assertEquals(0, fetcher.fetch());
+    }
+
+    @Test
+    public void testNotCommitBeforeHandled() throws Exception {
+        final AtomicBoolean committedBeforeHandled = new AtomicBoolean(true);
+        final AtomicBoolean failed = new AtomicBoolean(false);
+        final KafkaHandler failingHandler = new RecordingHandler() {
+            @Override
+            public void handle(final List<ConsumerRecord<String, Bytes>> records) {
+                committedBeforeHandled.set(!consumer.committed(Set.of(PARTITION_0)).isEmpty());
+                if (failed.compareAndSet(false, true)) {
+                    throw new IllegalStateException("handle error");
+                }
+            }
+        };
+        final PartitionBatchFetcher fetcher = new PartitionBatchFetcher(
+            consumer, Collections.singletonMap(TOPIC, failingHandler), workers, false);
+        consumer.addRecord(record(PARTITION_0, 0));
+
+        assertEquals(1, fetcher.fetch());
+        assertFalse(committedBeforeHandled.get());
+        // The failed batch is not committed, and consumed again from the same offset.
+        assertTrue(consumer.committed(Set.of(PARTITION_0)).isEmpty());
+        assertEquals(0L, consumer.position(PARTITION_0));
+        // The mock consumer drops the polled records, so deliver them again as the broker does.
+        consumer.addRecord(record(PARTITION_0, 0));
+        assertEquals(1, fetcher.fetch());
+        assertEquals(1L, consumer.committed(Set.of(PARTITION_0)).get(PARTITION_0).offset());
+    }
+
+    @Test
+    public void testRecordFailureNotStopBatch() throws Exception {
+        final List<Long> handled = Collections.synchronizedList(new ArrayList<>());
+        final KafkaHandler recordHandler = new KafkaHandler() {
+            @Override
+            public String getTopic() {
+                return TOPIC;
+            }
+
+            @Override
+            public void handle(final ConsumerRecord<String, Bytes> record) {
+                if (record.offset() == 1) {
+                    throw new IllegalStateException("handle error");
+                }
+                handled.add(record.offset());
+            }
+        };
+        final PartitionBatchFetcher fetcher = new PartitionBatchFetcher(
+            consumer, Collections.singletonMap(TOPIC, recordHandler), workers, false);
+        for (int i = 0; i < 3; i++) {
+            consumer.addRecord(record(PARTITION_0, i));
+        }
+
+        assertEquals(3, fetcher.fetch());
+        assertEquals(List.of(0L, 2L), handled);
+        assertEquals(3L, consumer.committed(Set.of(PARTITION_0)).get(PARTITION_0).offset());
+    }
+
+    @Test
+    public void testAutoCommit() throws Exception {
+        final PartitionBatchFetcher fetcher = new PartitionBatchFetcher(
+            consumer, Collections.singletonMap(TOPIC, handler), workers, true);
+        consumer.addRecord(record(PARTITION_0, 0));
+
+        assertEquals(1, fetcher.fetch());
+        assertEquals(1, handler.batches.size());
+        assertTrue(consumer.committed(Set.of(PARTITION_0)).isEmpty());
+    }
+
+    private static ConsumerRecord<String, Bytes> record(TopicPartition partition, long offset) {
+        return new ConsumerRecord<>(
+            partition.topic(), partition.partition(), offset, "key", Bytes.wrap(new byte[] {(byte) offset}));
+    }
+
+    private static class RecordingHandler implements KafkaHandler {
+        private final List<List<ConsumerRecord<String, Bytes>>> batches = Collections.synchronizedList(
+            new ArrayList<>());
+
+        @Override
+        public String getTopic() {
+            return TOPIC;
+        }
+
+        @Override
+        public void handle(final ConsumerRecord<String, Bytes> record) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void handle(final List<ConsumerRecord<String, Bytes>> records) {
+            batches.add(records);
+        }
+    }
+}
@@ -41,6 +41,7 @@ import org.apache.skywalking.oap.server.library.util.StringUtil;
 import org.apache.skywalking.library.elasticsearch.ElasticSearch;
 import org.apache.skywalking.library.elasticsearch.ElasticSearchBuilder;
 import org.apache.skywalking.library.elasticsearch.ElasticSearchVersion;
+import org.apache.skywalking.library.elasticsearch.bulk.BulkMetrics;
 import org.apache.skywalking.library.elasticsearch.bulk.BulkProcessor;
 import org.apache.skywalking.library.elasticsearch.requests.search.Search;
 import org.apache.skywalking.library.elasticsearch.requests.search.SearchParams;
@@ -91,6 +92,14 @@ public class ElasticSearchClient implements Client, HealthCheckable {
 
     private final AtomicReference<ElasticSearch> es = new AtomicReference<>();
 
+    /**
+     * The metrics of the bulk processors created after setting.
+     *
+     * @since 10.2.0
+     */
+    @Setter
+    private volatile BulkMetrics bulkMetrics = BulkMetrics.NOOP;
+
     public ElasticSearchClient(String clusterNodes,
                                String protocol,
                                String trustStorePath,
@@ -378,6 +387,7 @@ public class ElasticSearchClient implements Client, HealthCheckable {
                             .batchOfBytes(batchOfBytes)
                             .flushInterval(Duration.ofSeconds(flushInterval))
                             .concurrentRequests(concurrentRequests)
+                            .metrics(bulkMetrics)
                             .build(es);
     }
 
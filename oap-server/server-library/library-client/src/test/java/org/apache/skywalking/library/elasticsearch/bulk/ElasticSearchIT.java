@@ -284,7 +284,7 @@ public class ElasticSearchIT {
             bulkProcessor.add(indexRequest.getRequest());
         }
 
-        bulkProcessor.flush();
+        bulkProcessor.flush().join();
 
         client.shutdown();
         server.stop();
@@ -316,7 +316,7 @@ public class ElasticSearchIT {
             bulkProcessor.add(indexRequest.getRequest());
         }
 
-        bulkProcessor.flush();
+        bulkProcessor.flush().join();
     }
 
     @ParameterizedTest(name = "{0}")
@@ -20,6 +20,7 @@ package org.apache.skywalking.oap.server.library.datacarrier.buffer;
 
 import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
+import org.apache.skywalking.oap.server.library.datacarrier.common.ConsumerSignal;
 
 /**
  * The buffer implementation based on JDK ArrayBlockingQueue.
@@ -31,6 +32,7 @@ public class ArrayBlockingQueueBuffer<T> implements QueueBuffer<T> {
     private BufferStrategy strategy;
     private ArrayBlockingQueue<T> queue;
     private int bufferSize;
+    private volatile ConsumerSignal signal;
 
     ArrayBlockingQueueBuffer(int bufferSize, BufferStrategy strategy) {
         this.strategy = strategy;
@@ -42,13 +44,20 @@ public class ArrayBlockingQueueBuffer<T> implements QueueBuffer<T> {
     public boolean save(T data) {
         try {
             if (BufferStrategy.IF_POSSIBLE.equals(strategy)) {
-                return queue.offer(data);
+                if (!queue.offer(data)) {
+                    return false;
+                }
+            } else {
+                queue.put(data);
             }
-            queue.put(data);
         } catch (InterruptedException e) {
             // Ignore the error
             return false;
         }
+        final ConsumerSignal signal = this.signal;
+        if (signal != null) {
+            signal.wakeUp();
+        }
         return true;
     }
 
@@ -57,6 +66,11 @@ public class ArrayBlockingQueueBuffer<T> implements QueueBuffer<T> {
         this.strategy = strategy;
     }
 
+    @Override
+    public void setSignal(ConsumerSignal signal) {
+        this.signal = signal;
+    }
+
     @Override
     public void obtain(List<T> consumeList) {
         queue.drainTo(consumeList);
@@ -35,7 +35,7 @@ public class Channels<T> {
         this.strategy = strategy;
         bufferChannels = new QueueBuffer[channelSize];
         for (int i = 0; i < channelSize; i++) {
-            bufferChannels[i] = new ArrayBlockingQueueBuffer<>(bufferSize, strategy);
+            bufferChannels[i] = new MpscArrayBuffer<>(bufferSize, strategy);
         }
         // noinspection PointlessArithmeticExpression
         size = 1L * channelSize * bufferSize; // it's not pointless, it prevents numeric overflow before assigning an integer to a long
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.library.datacarrier.buffer;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import org.apache.skywalking.oap.server.library.datacarrier.common.ConsumerSignal;
+
+/**
+ * The lock-free buffer for multiple producers and a single consumer, based on a ring array.
+ * <p>
+ * The producers claim the slots by increasing the producer index with CAS, then publish the data into the slots. The
+ * consumer drains the published data in batch, and releases the slots by moving the consumer index forward. Unlike
+ * {@link ArrayBlockingQueueBuffer}, the producers and the consumer don't compete for a lock.
+ *
+ * @since 10.2.0
+ */
+public class MpscArrayBuffer<T> implements QueueBuffer<T> {
+    /**
+     * The nanoseconds to park the producer in every try when the buffer is full in {@link BufferStrategy#BLOCKING}.
+     */
+    private static final long FULL_PARK_NANOS = 100_000;
+
+    private final AtomicReferenceArray<T> slots;
+    private final int mask;
+    private final int bufferSize;
+    private final AtomicLong producerIndex = new AtomicLong();
+    private final AtomicLong consumerIndex = new AtomicLong();
+    /**
+     * Guard the buffer to be drained by one consumer at a time, in case the consumers are switched.
+     */
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private volatile BufferStrategy strategy;
+    private volatile ConsumerSignal signal;
+
+    MpscArrayBuffer(int bufferSize, BufferStrategy strategy) {
+        int capacity = 1;
+        while (capacity < bufferSize) {
+            capacity <<= 1;
+        }
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+        this.bufferSize = bufferSize;
+        this.strategy = strategy;
+    }
+
+    @Override
+    public boolean save(T data) {
+        long index;
+        while (true) {
+            index = producerIndex.get();
+            if (index - consumerIndex.get() >= bufferSize) {
+                if (BufferStrategy.IF_POSSIBLE.equals(strategy)) {
+                    return false;
+                }
+                LockSupport.parkNanos(this, FULL_PARK_NANOS);
+                if (Thread.interrupted()) {
+                    // Keep the same behavior as ArrayBlockingQueueBuffer, which fails when interrupted.
+                    return false;
+                }
+                continue;
+            }
+            if (producerIndex.compareAndSet(index, index + 1)) {
+                break;
+            }
+        }
+        // Publish with the volatile write, which is ordered before reading the parking flag of the signal.
+        slots.set((int) index & mask, data);
+        final ConsumerSignal signal = this.signal;
+        if (signal != null) {
+            signal.wakeUp();
+        }
+        return true;
+    }
+
+    @Override
+    public void setStrategy(BufferStrategy strategy) {
+        this.strategy = strategy;
+    }
+
+    @Override
+    public void setSignal(ConsumerSignal signal) {
+        this.signal = signal;
+    }
+
+    @Override
+    public void obtain(List<T> consumeList) {
+        if (!draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long index = consumerIndex.get();
+            while (true) {
+                final int offset = (int) index & mask;
+                // The slot is claimed but not published yet if it is null, which is consumed in the next time.
+                final T data = slots.get(offset);
+                if (data == null) {
+                    break;
+                }
+                slots.lazySet(offset, null);
+                consumeList.add(data);
+                index++;
+            }
+            consumerIndex.set(index);
+        } finally {
+            draining.set(false);
+        }
+    }
+
+    @Override
+    public int getBufferSize() {
+        return bufferSize;
+    }
+}
@@ -19,6 +19,7 @@
 package org.apache.skywalking.oap.server.library.datacarrier.buffer;
 
 import java.util.List;
+import org.apache.skywalking.oap.server.library.datacarrier.common.ConsumerSignal;
 
 /**
  * Queue buffer interface.
@@ -37,6 +38,13 @@ public interface QueueBuffer<T> {
      */
     void setStrategy(BufferStrategy strategy);
 
+    /**
+     * Set the signal to wake up the consumer when the data is saved.
+     *
+     * @since 10.2.0
+     */
+    void setSignal(ConsumerSignal signal);
+
     /**
      * Obtain the existing data from the queue
      */
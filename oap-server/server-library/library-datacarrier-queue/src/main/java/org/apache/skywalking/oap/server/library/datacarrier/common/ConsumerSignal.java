@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.library.datacarrier.common;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * ConsumerSignal parks the consumer thread when there is nothing to consume, and wakes it up once the data is saved into
+ * any buffer it consumes. The producers only read a volatile flag when the consumer is running.
+ *
+ * @since 10.2.0
+ */
+public class ConsumerSignal {
+    private final Thread consumer;
+    private volatile boolean parking;
+
+    public ConsumerSignal(Thread consumer) {
+        this.consumer = consumer;
+    }
+
+    /**
+     * Wake up the consumer, if it is parking or going to park.
+     */
+    public void wakeUp() {
+        if (parking) {
+            parking = false;
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    /**
+     * Declare the consumer is going to park. The consumer should check the buffers again after this, to avoid missing
+     * the data saved before this.
+     */
+    public void prepareToPark() {
+        parking = true;
+    }
+
+    /**
+     * Cancel the parking, as the consumer found the data after {@link #prepareToPark()}.
+     */
+    public void cancelPark() {
+        parking = false;
+    }
+
+    /**
+     * Park the consumer until it is woken up, or the timeout elapses.
+     */
+    public void park(long timeoutNanos) {
+        if (parking) {
+            LockSupport.parkNanos(this, timeoutNanos);
+        }
+        parking = false;
+    }
+}
@@ -20,13 +20,21 @@ package org.apache.skywalking.oap.server.library.datacarrier.consumer;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import org.apache.skywalking.oap.server.library.datacarrier.common.ConsumerSignal;
 import org.apache.skywalking.oap.server.library.datacarrier.buffer.QueueBuffer;
 
+/**
+ * ConsumerThread consumes the buffers allocated by {@link ConsumeDriver}. When there is nothing to consume, it spins for a
+ * few rounds, then parks until the data is saved into the buffers, or the consume cycle elapses.
+ */
 public class ConsumerThread<T> extends Thread {
     private volatile boolean running;
     private IConsumer<T> consumer;
     private List<DataSource> dataSources;
     private long consumeCycle;
+    private final ConsumerSignal signal;
 
     ConsumerThread(String threadName, IConsumer<T> consumer, long consumeCycle) {
         super(threadName);
@@ -34,12 +42,14 @@ public class ConsumerThread<T> extends Thread {
         running = false;
         dataSources = new ArrayList<DataSource>(1);
         this.consumeCycle = consumeCycle;
+        this.signal = new ConsumerSignal(this);
     }
 
     /**
      * add whole buffer to consume
      */
     void addDataSource(QueueBuffer<T> sourceBuffer) {
+        sourceBuffer.setSignal(signal);
         this.dataSources.add(new DataSource(sourceBuffer));
     }
 
@@ -48,13 +58,25 @@ public class ConsumerThread<T> extends Thread {
         running = true;
 
         final List<T> consumeList = new ArrayList<T>(1500);
+        final long parkNanos = TimeUnit.MILLISECONDS.toNanos(consumeCycle);
+        int idleRounds = 0;
         while (running) {
-            if (!consume(consumeList)) {
-                try {
-                    Thread.sleep(consumeCycle);
-                } catch (InterruptedException e) {
-                }
+            if (consume(consumeList)) {
+                idleRounds = 0;
+                continue;
+            }
+            if (++idleRounds <= MultipleChannelsConsumer.SPIN_ROUNDS) {
+                Thread.onSpinWait();
+                continue;
+            }
+            idleRounds = 0;
+            signal.prepareToPark();
+            // Check again, as the data could be saved before the producers see the consumer is parking.
+            if (consume(consumeList)) {
+                signal.cancelPark();
+                continue;
             }
+            signal.park(parkNanos);
         }
 
         // consumer thread is going to stop
@@ -85,6 +107,7 @@ public class ConsumerThread<T> extends Thread {
 
     void shutdown() {
         running = false;
+        LockSupport.unpark(this);
     }
 
     class DataSource {
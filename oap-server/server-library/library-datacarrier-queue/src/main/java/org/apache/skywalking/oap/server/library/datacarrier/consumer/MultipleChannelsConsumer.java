@@ -20,24 +20,38 @@ package org.apache.skywalking.oap.server.library.datacarrier.consumer;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import org.apache.skywalking.oap.server.library.datacarrier.common.ConsumerSignal;
 import org.apache.skywalking.oap.server.library.datacarrier.buffer.Channels;
 import org.apache.skywalking.oap.server.library.datacarrier.buffer.QueueBuffer;
 
 /**
  * MultipleChannelsConsumer represent a single consumer thread, but support multiple channels with their {@link
  * IConsumer}s
+ * <p>
+ * When there is nothing to consume, the consumer spins for a few rounds, then parks until the data is saved into any
+ * of the channels, or the consume cycle elapses, which keeps {@link IConsumer#nothingToConsume()} triggered
+ * periodically.
  */
 public class MultipleChannelsConsumer extends Thread {
+    /**
+     * The rounds to check the channels again before parking, when there is nothing to consume.
+     */
+    static final int SPIN_ROUNDS = 16;
+
     private volatile boolean running;
     private volatile ArrayList<Group> consumeTargets;
     @SuppressWarnings("NonAtomicVolatileUpdate")
     private volatile long size;
     private final long consumeCycle;
+    private final ConsumerSignal signal;
 
     public MultipleChannelsConsumer(String threadName, long consumeCycle) {
         super(threadName);
         this.consumeTargets = new ArrayList<>();
         this.consumeCycle = consumeCycle;
+        this.signal = new ConsumerSignal(this);
     }
 
     @Override
@@ -45,19 +59,25 @@ public class MultipleChannelsConsumer extends Thread {
         running = true;
 
         final List consumeList = new ArrayList(2000);
+        final long parkNanos = TimeUnit.MILLISECONDS.toNanos(consumeCycle);
+        int idleRounds = 0;
         while (running) {
-            boolean hasData = false;
-            for (Group target : consumeTargets) {
-                boolean consumed = consume(target, consumeList);
-                hasData = hasData || consumed;
+            if (consumeAll(consumeList)) {
+                idleRounds = 0;
+                continue;
             }
-
-            if (!hasData) {
-                try {
-                    Thread.sleep(consumeCycle);
-                } catch (InterruptedException e) {
-                }
+            if (++idleRounds <= SPIN_ROUNDS) {
+                Thread.onSpinWait();
+                continue;
+            }
+            idleRounds = 0;
+            signal.prepareToPark();
+            // Check again, as the data could be saved before the producers see the consumer is parking.
+            if (consumeAll(consumeList)) {
+                signal.cancelPark();
+                continue;
             }
+            signal.park(parkNanos);
         }
 
         // consumer thread is going to stop
@@ -69,6 +89,15 @@ public class MultipleChannelsConsumer extends Thread {
         }
     }
 
+    private boolean consumeAll(List consumeList) {
+        boolean hasData = false;
+        for (Group target : consumeTargets) {
+            boolean consumed = consume(target, consumeList);
+            hasData = hasData || consumed;
+        }
+        return hasData;
+    }
+
     private boolean consume(Group target, List consumeList) {
         for (int i = 0; i < target.channels.getChannelSize(); i++) {
             QueueBuffer buffer = target.channels.getBuffer(i);
@@ -94,6 +123,9 @@ public class MultipleChannelsConsumer extends Thread {
      */
     public void addNewTarget(Channels channels, IConsumer consumer) {
         Group group = new Group(channels, consumer);
+        for (int i = 0; i < channels.getChannelSize(); i++) {
+            channels.getBuffer(i).setSignal(signal);
+        }
         // Recreate the new list to avoid change list while the list is used in consuming.
         ArrayList<Group> newList = new ArrayList<>();
         for (Group target : consumeTargets) {
@@ -110,6 +142,7 @@ public class MultipleChannelsConsumer extends Thread {
 
     void shutdown() {
         running = false;
+        LockSupport.unpark(this);
     }
 
     private static class Group {
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.library.datacarrier.buffer;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class MpscArrayBufferTest {
+    @Test
+    public void testIfPossible() {
+        MpscArrayBuffer<Integer> buffer = new MpscArrayBuffer<>(100, BufferStrategy.IF_POSSIBLE);
+        for (int i = 0; i < 100; i++) {
+            Assertions.assertTrue(buffer.save(i));
+        }
+        Assertions.assertFalse(buffer.save(100));
+
+        List<Integer> result = new ArrayList<>();
+        buffer.obtain(result);
+        Assertions.assertEquals(100, result.size());
+        for (int i = 0; i < 100; i++) {
+            Assertions.assertEquals(i, result.get(i));
+        }
+        Assertions.assertTrue(buffer.save(100));
+        result.clear();
+        buffer.obtain(result);
+        Assertions.assertEquals(1, result.size());
+    }
+
+    @Test
+    public void testMultipleProducers() throws InterruptedException {
+        final int producers = 4;
+        final int count = 100_000;
+        MpscArrayBuffer<Integer> buffer = new MpscArrayBuffer<>(1000, BufferStrategy.BLOCKING);
+        CountDownLatch finished = new CountDownLatch(producers);
+        for (int p = 0; p < producers; p++) {
+            final int base = p * count;
+            new Thread(() -> {
+                for (int i = 0; i < count; i++) {
+                    buffer.save(base + i);
+                }
+                finished.countDown();
+            }).start();
+        }
+
+        Set<Integer> consumed = new HashSet<>();
+        List<Integer> result = new ArrayList<>();
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (consumed.size() < producers * count && System.currentTimeMillis() < deadline) {
+            buffer.obtain(result);
+            consumed.addAll(result);
+            result.clear();
+        }
+        Assertions.assertTrue(finished.await(1, TimeUnit.SECONDS));
+        Assertions.assertEquals(producers * count, consumed.size());
+    }
+}
@@ -27,7 +27,9 @@ import org.powermock.reflect.Whitebox;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 public class ConsumerTest {
     public static LinkedBlockingQueue<SampleData> BUFFER = new LinkedBlockingQueue<>();
@@ -99,6 +101,55 @@ public class ConsumerTest {
         Assertions.assertTrue(IS_OCCUR_ERROR);
     }
 
+    @Test
+    public void testConsumerWokenUpBySaving() throws InterruptedException {
+        final CountDownLatch consumed = new CountDownLatch(1);
+        final DataCarrier<SampleData> carrier = new DataCarrier<>(1, 100);
+        carrier.consume(new IConsumer<SampleData>() {
+            @Override
+            public void consume(List<SampleData> data) {
+                consumed.countDown();
+            }
+
+            @Override
+            public void onError(List<SampleData> data, Throwable t) {
+            }
+        }, 1, 60_000);
+        // Make sure the consumer is parking.
+        Thread.sleep(500);
+
+        Assertions.assertTrue(carrier.produce(new SampleData().setName("data")));
+        Assertions.assertTrue(consumed.await(5, TimeUnit.SECONDS));
+        carrier.shutdownConsumers();
+    }
+
+    @Test
+    public void testBulkConsumerWokenUpBySaving() throws InterruptedException {
+        final CountDownLatch consumed = new CountDownLatch(2);
+        final BulkConsumePool pool = new BulkConsumePool("wake-up-test", 1, 60_000);
+        final IConsumer<SampleData> consumer = new IConsumer<SampleData>() {
+            @Override
+            public void consume(List<SampleData> data) {
+                data.forEach(d -> consumed.countDown());
+            }
+
+            @Override
+            public void onError(List<SampleData> data, Throwable t) {
+            }
+        };
+        final DataCarrier<SampleData> carrier1 = new DataCarrier<>("carrier1", 2, 100);
+        final DataCarrier<SampleData> carrier2 = new DataCarrier<>("carrier2", 2, 100);
+        carrier1.consume(pool, consumer);
+        carrier2.consume(pool, consumer);
+        // Make sure the consumer is parking.
+        Thread.sleep(500);
+
+        Assertions.assertTrue(carrier1.produce(new SampleData().setName("data1")));
+        Assertions.assertTrue(carrier2.produce(new SampleData().setName("data2")));
+        Assertions.assertTrue(consumed.await(5, TimeUnit.SECONDS));
+        pool.close(null);
+    }
+
     class SampleConsumer2 implements IConsumer<SampleData> {
         public int i = 1;
 
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.library.elasticsearch.bulk;
+
+/**
+ * AdaptiveConcurrencyLimiter limits the number of the in-flight bulks. Like the AIMD congestion control of TCP, the
+ * limit grows by 1 while the latency stays close to the lowest latency observed, shrinks by 1 when the latency grows
+ * beyond it, and halves when ElasticSearch rejects the requests(HTTP 429).
+ *
+ * @since 10.2.0
+ */
+final class AdaptiveConcurrencyLimiter {
+    /**
+     * The latency beyond this times of the lowest latency is considered as the ElasticSearch is overloaded.
+     */
+    private static final int LATENCY_TOLERANCE = 2;
+
+    private final int maxLimit;
+    private int limit;
+    private int inFlight;
+    private long minLatency = Long.MAX_VALUE;
+
+    AdaptiveConcurrencyLimiter(final int maxLimit) {
+        this.maxLimit = Math.max(1, maxLimit);
+        this.limit = this.maxLimit;
+    }
+
+    synchronized boolean tryAcquire() {
+        if (inFlight < limit) {
+            inFlight++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Release the permit without any sample, such as the bulk is not sent.
+     */
+    synchronized void release() {
+        inFlight--;
+    }
+
+    /**
+     * Release the permit, and adjust the limit by the result of the bulk.
+     *
+     * @return the latest limit
+     */
+    synchronized int release(final long latencyNanos, final boolean rejected) {
+        inFlight--;
+        if (rejected) {
+            limit = Math.max(1, limit / 2);
+            return limit;
+        }
+        // Let the lowest latency drift up slowly, to follow the long-term changes of ElasticSearch, such as more shards.
+        if (minLatency == Long.MAX_VALUE) {
+            minLatency = latencyNanos;
+        } else {
+            minLatency = Math.min(latencyNanos, minLatency + (minLatency >> 6));
+        }
+        if (latencyNanos <= minLatency * LATENCY_TOLERANCE) {
+            limit = Math.min(maxLimit, limit + 1);
+        } else {
+            limit = Math.max(1, limit - 1);
+        }
+        return limit;
+    }
+
+    synchronized int limit() {
+        return limit;
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.library.elasticsearch.bulk;
+
+/**
+ * BulkMetrics receives the measurements of the stages of {@link BulkProcessor}, so the users of this library could
+ * expose them through their own telemetry.
+ *
+ * @since 10.2.0
+ */
+public interface BulkMetrics {
+    BulkMetrics NOOP = new BulkMetrics() {
+    };
+
+    /**
+     * @param seconds the time of encoding the requests of a bulk into the buffer.
+     */
+    default void observeEncodeLatency(double seconds) {
+    }
+
+    /**
+     * @param seconds the time from sending a bulk to receiving its response.
+     */
+    default void observeRequestLatency(double seconds) {
+    }
+
+    /**
+     * @param size the number of the requests in a bulk.
+     */
+    default void observeBulkSize(int size) {
+    }
+
+    /**
+     * @param size the number of the requests rejected by ElasticSearch and going to be retried.
+     */
+    default void onRetry(int size) {
+    }
+
+    /**
+     * @param limit the latest limit of the concurrent in-flight bulks.
+     */
+    default void onConcurrencyLimitChanged(int limit) {
+    }
+}
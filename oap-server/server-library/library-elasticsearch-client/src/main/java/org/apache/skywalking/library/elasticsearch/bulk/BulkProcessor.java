@@ -13,47 +13,88 @@
  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
  * See the License for the specific language governing permissions and
  * limitations under the License.
+ *
  */
 
 package org.apache.skywalking.library.elasticsearch.bulk;
 
+import com.linecorp.armeria.common.AggregatedHttpResponse;
+import com.linecorp.armeria.common.HttpData;
 import com.linecorp.armeria.common.HttpStatus;
-import com.linecorp.armeria.common.util.Exceptions;
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufOutputStream;
+import java.io.InputStream;
 import java.time.Duration;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.ArrayBlockingQueue;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.skywalking.library.elasticsearch.ElasticSearch;
+import org.apache.skywalking.library.elasticsearch.ElasticSearchVersion;
 import org.apache.skywalking.library.elasticsearch.requests.IndexRequest;
 import org.apache.skywalking.library.elasticsearch.requests.UpdateRequest;
-import org.apache.skywalking.library.elasticsearch.requests.factory.Codec;
-import org.apache.skywalking.library.elasticsearch.requests.factory.RequestFactory;
-import org.apache.skywalking.oap.server.library.util.CollectionUtils;
+import org.apache.skywalking.library.elasticsearch.response.BulkResponse;
 import org.apache.skywalking.oap.server.library.util.RunnableWithExceptionProtection;
 
 import static java.util.Objects.requireNonNull;
 
+/**
+ * BulkProcessor batches the index and update requests into bulks. The bulks are pipelined, a bulk is sent as soon as
+ * it is full and there is a free in-flight slot, and every finished bulk sends the next pending one. The caller is only
+ * blocked when the pending requests exceed the capacity of the queue.
+ *
+ * <ul>
+ *     <li>The requests are encoded into pooled direct {@link ByteBuf}s, which are released by the HTTP client after
+ *     sending.</li>
+ *     <li>The number of in-flight bulks adapts to the latency and the rejections of ElasticSearch, see {@link
+ *     AdaptiveConcurrencyLimiter}, and never exceeds the `concurrentRequests`.</li>
+ *     <li>Only the items rejected by ElasticSearch(HTTP 429) in the bulk response are retried, with backoff.</li>
+ * </ul>
+ */
 @Slf4j
 public final class BulkProcessor {
-    private final ArrayBlockingQueue<Holder> requests;
+    /**
+     * The max times of retrying the requests rejected by ElasticSearch.
+     */
+    private static final int MAX_RETRIES = 3;
+    private static final long RETRY_BACKOFF_MILLIS = 200;
+    private static final int NEW_LINE = '\n';
+
+    private final ConcurrentLinkedQueue<Holder> requests = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingSize = new AtomicInteger();
+    /**
+     * The capacity of the pending requests, the caller is blocked when it is exhausted.
+     */
+    private final Semaphore capacity;
+    /**
+     * The completions of the bulks which are sent but not finished yet, including the retries of their requests.
+     */
+    private final Set<CompletableFuture<Void>> inflight = ConcurrentHashMap.newKeySet();
 
     private final AtomicReference<ElasticSearch> es;
     private final int bulkActions;
-    private final Semaphore semaphore;
+    private final AdaptiveConcurrencyLimiter limiter;
     private final long flushInternalInMillis;
     private volatile long lastFlushTS = 0;
+    /**
+     * The pending requests should be sent regardless of the bulk size, once there is a free in-flight slot.
+     */
+    private volatile boolean flushPending;
     private final int batchOfBytes;
+    private final BulkMetrics metrics;
+    private final ScheduledThreadPoolExecutor scheduler;
 
     public static BulkProcessorBuilder builder() {
         return new BulkProcessorBuilder();
@@ -63,16 +104,19 @@ public final class BulkProcessor {
                   final int bulkActions,
                   final Duration flushInterval,
                   final int concurrentRequests,
-                  final int batchOfBytes) {
+                  final int batchOfBytes,
+                  final BulkMetrics metrics) {
         requireNonNull(flushInterval, "flushInterval");
 
         this.es = requireNonNull(es, "es");
         this.bulkActions = bulkActions;
         this.batchOfBytes = batchOfBytes;
-        this.semaphore = new Semaphore(concurrentRequests > 0 ? concurrentRequests : 1);
-        this.requests = new ArrayBlockingQueue<>(bulkActions + 1);
+        this.metrics = requireNonNull(metrics, "metrics");
+        this.limiter = new AdaptiveConcurrencyLimiter(concurrentRequests);
+        // Keep a full bulk for every in-flight slot, plus the one being filled.
+        this.capacity = new Semaphore(bulkActions * (Math.max(1, concurrentRequests) + 1));
 
-        final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+        scheduler = new ScheduledThreadPoolExecutor(1, r -> {
             final Thread thread = new Thread(r);
             thread.setName("ElasticSearch BulkProcessor");
             return thread;
@@ -100,114 +144,251 @@ public final class BulkProcessor {
     private CompletableFuture<Void> internalAdd(Object request) {
         requireNonNull(request, "request");
         final CompletableFuture<Void> f = new CompletableFuture<>();
-        requests.put(new Holder(f, request));
-        flushIfNeeded();
+        capacity.acquire();
+        enqueue(new Holder(f, request));
+        if (pendingSize.get() >= bulkActions) {
+            dispatch(false);
+        }
         return f;
     }
 
-    @SneakyThrows
-    private void flushIfNeeded() {
-        if (requests.size() >= bulkActions) {
-            flush();
-        }
+    private void enqueue(Holder holder) {
+        requests.add(holder);
+        pendingSize.incrementAndGet();
     }
 
     private void doPeriodicalFlush() {
         if (System.currentTimeMillis() - lastFlushTS > flushInternalInMillis / 2) {
-            // Run periodical flush if there is no `flushIfNeeded` executed in the second half of the flush period.
+            // Run periodical flush if there is no bulk sent in the second half of the flush period.
             // Otherwise, wait for the next round. By default, the last 2 seconds of the 5s period.
             // This could avoid periodical flush running among bulks(controlled by bulkActions).
             flush();
         }
     }
 
-    public void flush() {
-        if (requests.isEmpty()) {
-            return;
+    /**
+     * Send all pending requests, without waiting for the responses.
+     *
+     * @return the future completed when all requests pending or in flight at the time of calling are finished. The
+     * caller should wait for it to keep the back-pressure of ElasticSearch.
+     */
+    public CompletableFuture<Void> flush() {
+        final List<CompletableFuture<Void>> futures = new ArrayList<>(pendingSize.get() + inflight.size());
+        for (final Holder holder : requests) {
+            futures.add(holder.future);
         }
+        futures.addAll(inflight);
+        if (futures.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        dispatch(true);
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    }
 
-        try {
-            semaphore.acquire();
-        } catch (InterruptedException e) {
-            log.error("Interrupted when trying to get semaphore to execute bulk requests", e);
+    /**
+     * Send the pending requests as bulks while there are free in-flight slots.
+     *
+     * @param force send the pending requests even if they are not enough for a full bulk.
+     */
+    private void dispatch(boolean force) {
+        final CompletableFuture<ElasticSearchVersion> pendingVersion = es.get().version();
+        if (!pendingVersion.isDone()) {
+            // Don't block the caller, send the requests once the version of ElasticSearch is resolved.
+            pendingVersion.whenCompleteAsync((v, t) -> dispatch(force), scheduler);
             return;
         }
-
-        final List<Holder> batch = new ArrayList<>(requests.size());
-        requests.drainTo(batch);
-        final List<CompletableFuture<Void>> futures = doFlush(batch);
-        final CompletableFuture<Void> future = CompletableFuture.allOf(
-            futures.toArray(new CompletableFuture[futures.size()]));
-        future.whenComplete((v, t) -> semaphore.release());
-        future.join();
-        lastFlushTS = System.currentTimeMillis();
+        final ElasticSearchVersion version = pendingVersion.join();
+        while (true) {
+            final int size = pendingSize.get();
+            if (size == 0) {
+                flushPending = false;
+                return;
+            }
+            if (size < bulkActions && !force && !flushPending) {
+                return;
+            }
+            if (!limiter.tryAcquire()) {
+                if (force) {
+                    // The next finished bulk is going to send them.
+                    flushPending = true;
+                }
+                return;
+            }
+            final Bulk bulk = nextBulk(version);
+            if (bulk == null) {
+                limiter.release();
+                continue;
+            }
+            lastFlushTS = System.currentTimeMillis();
+            execute(bulk, version);
+        }
     }
 
-    private List<CompletableFuture<Void>> doFlush(final List<Holder> batch) {
-        log.debug("Executing bulk with {} requests", batch.size());
-        if (batch.isEmpty()) {
-            return Collections.emptyList();
+    /**
+     * Drain the pending requests into a bulk until the bulk reaches the `bulkActions` or the `batchOfBytes`.
+     *
+     * @return the bulk, or null if no request is encoded successfully.
+     */
+    private Bulk nextBulk(final ElasticSearchVersion version) {
+        final long start = System.nanoTime();
+        final List<Holder> holders = new ArrayList<>(Math.min(bulkActions, pendingSize.get()));
+        final ByteBuf buffer = ByteBufAllocator.DEFAULT.directBuffer();
+        final ByteBufOutputStream out = new ByteBufOutputStream(buffer);
+        Holder holder;
+        while (holders.size() < bulkActions
+            && (batchOfBytes <= 0 || buffer.readableBytes() < batchOfBytes)
+            && (holder = requests.poll()) != null) {
+            pendingSize.decrementAndGet();
+            if (holder.retries == 0) {
+                capacity.release();
+            }
+            final int writerIndex = buffer.writerIndex();
+            try {
+                version.codec().encode(holder.request, out);
+                buffer.writeByte(NEW_LINE);
+                holders.add(holder);
+            } catch (Exception e) {
+                buffer.writerIndex(writerIndex);
+                log.error("Failed to encode the request {}", holder.request, e);
+                holder.future.completeExceptionally(e);
+            }
         }
+        if (holders.isEmpty()) {
+            buffer.release();
+            return null;
+        }
+        metrics.observeEncodeLatency((System.nanoTime() - start) / 1e9);
+        metrics.observeBulkSize(holders.size());
+        final CompletableFuture<Void> done = CompletableFuture.allOf(
+            holders.stream().map(it -> it.future).toArray(CompletableFuture[]::new));
+        inflight.add(done);
+        done.whenComplete((v, t) -> inflight.remove(done));
+        return new Bulk(holders, buffer);
+    }
+
+    private void execute(final Bulk bulk, final ElasticSearchVersion version) {
+        log.debug("Executing bulk with {} requests", bulk.holders.size());
+        final long start = System.nanoTime();
+        CompletableFuture<AggregatedHttpResponse> future;
         try {
-            int bufferOfBytes = 0;
-            Codec codec = es.get().version().get().codec();
-            final List<byte[]> bs = new ArrayList<>();
-            List<CompletableFuture<Void>> futures = new ArrayList<>();
-            List<ByteBuf> byteBufList = new ArrayList<>();
-            for (final Holder holder : batch) {
-                byte[] bytes = codec.encode(holder.request);
-                bs.add(bytes);
-                bs.add("\n".getBytes());
-                bufferOfBytes += bytes.length + 1;
-                if (bufferOfBytes >= batchOfBytes) {
-                    final ByteBuf content = Unpooled.wrappedBuffer(bs.toArray(new byte[0][]));
-                    byteBufList.add(content);
-                    bs.clear();
-                    bufferOfBytes = 0;
+            future = es.get().client().execute(version.requestFactory().bulk().bulk(bulk.content)).aggregate();
+        } catch (Exception e) {
+            // The HTTP client releases the content only when it takes the request.
+            if (bulk.content.refCnt() > 0) {
+                bulk.content.release();
+            }
+            future = CompletableFuture.failedFuture(e);
+        }
+        future.whenComplete((response, exception) -> {
+            final long latency = System.nanoTime() - start;
+            metrics.observeRequestLatency(latency / 1e9);
+            boolean rejected = false;
+            try {
+                if (exception != null) {
+                    log.error("Failed to execute requests in bulk", exception);
+                    bulk.holders.forEach(it -> it.future.completeExceptionally(exception));
+                } else if (response.status() == HttpStatus.TOO_MANY_REQUESTS) {
+                    rejected = true;
+                    retry(bulk.holders);
+                } else if (response.status() != HttpStatus.OK) {
+                    final RuntimeException e = new RuntimeException(response.contentUtf8());
+                    log.error("Failed to execute requests in bulk", e);
+                    bulk.holders.forEach(it -> it.future.completeExceptionally(e));
+                } else {
+                    rejected = onResponse(bulk.holders, response, version);
                 }
+            } catch (Throwable t) {
+                log.error("Failed to handle the bulk response", t);
+                bulk.holders.forEach(it -> it.future.completeExceptionally(t));
+            } finally {
+                metrics.onConcurrencyLimitChanged(limiter.release(latency, rejected));
             }
-            if (CollectionUtils.isNotEmpty(bs)) {
-                final ByteBuf content = Unpooled.wrappedBuffer(bs.toArray(new byte[0][]));
-                byteBufList.add(content);
+            // Run on the scheduler to keep the encoding out of the event loop of the HTTP client.
+            scheduler.execute(() -> dispatch(false));
+        });
+    }
+
+    /**
+     * Complete the requests by the items of the bulk response, and retry the rejected ones.
+     *
+     * @return true if any request is rejected.
+     */
+    private boolean onResponse(final List<Holder> holders,
+                               final AggregatedHttpResponse response,
+                               final ElasticSearchVersion version) throws Exception {
+        final BulkResponse bulkResponse;
+        try (final HttpData content = response.content();
+             final InputStream is = content.toInputStream()) {
+            bulkResponse = version.codec().decode(is, BulkResponse.class);
+        }
+        if (!bulkResponse.isErrors()) {
+            log.debug("Succeeded to execute {} requests in bulk", holders.size());
+            holders.forEach(it -> it.future.complete(null));
+            return false;
+        }
+        final List<Map<String, BulkResponse.Item>> items = bulkResponse.getItems();
+        final List<Holder> rejected = new ArrayList<>();
+        int failed = 0;
+        for (int i = 0; i < holders.size(); i++) {
+            final Holder holder = holders.get(i);
+            if (items == null || i >= items.size() || items.get(i).isEmpty()) {
+                failed++;
+                holder.future.completeExceptionally(new IllegalStateException("No response item for the request"));
+                continue;
             }
-            for (final ByteBuf content : byteBufList) {
-                CompletableFuture<Void> future = es.get().version().thenCompose(v -> {
-                    try {
-                        final RequestFactory rf = v.requestFactory();
-                        return es.get().client().execute(rf.bulk().bulk(content)).aggregate().thenAccept(response -> {
-                            final HttpStatus status = response.status();
-                            if (status != HttpStatus.OK) {
-                                throw new RuntimeException(response.contentUtf8());
-                            }
-                        });
-                    } catch (Exception e) {
-                        return Exceptions.throwUnsafely(e);
-                    }
-                });
-                future.whenComplete((ignored, exception) -> {
-                    if (exception != null) {
-                        batch.stream().map(it -> it.future)
-                             .forEach(it -> it.completeExceptionally((Throwable) exception));
-                        log.error("Failed to execute requests in bulk", exception);
-                    } else {
-                        log.debug("Succeeded to execute {} requests in bulk", batch.size());
-                        batch.stream().map(it -> it.future).forEach(it -> it.complete(null));
-                    }
-                });
-                futures.add(future);
+            final BulkResponse.Item item = items.get(i).values().iterator().next();
+            if (item.getStatus() >= 200 && item.getStatus() < 300) {
+                holder.future.complete(null);
+            } else if (item.getStatus() == HttpStatus.TOO_MANY_REQUESTS.code()) {
+                rejected.add(holder);
+            } else {
+                failed++;
+                holder.future.completeExceptionally(new RuntimeException(String.valueOf(item.getError())));
             }
-            return futures;
+        }
+        if (failed > 0) {
+            log.error("Failed to execute {} of {} requests in bulk", failed, holders.size());
+        }
+        if (!rejected.isEmpty()) {
+            retry(rejected);
+        }
+        return !rejected.isEmpty();
+    }
 
-        } catch (Exception e) {
-            log.error("Failed to execute requests in bulk", e);
-            return Collections.emptyList();
+    private void retry(final List<Holder> holders) {
+        final List<Holder> retries = new ArrayList<>(holders.size());
+        int attempt = 0;
+        for (final Holder holder : holders) {
+            if (holder.retries >= MAX_RETRIES) {
+                holder.future.completeExceptionally(
+                    new RuntimeException("Rejected by ElasticSearch after " + MAX_RETRIES + " retries"));
+                continue;
+            }
+            holder.retries++;
+            attempt = Math.max(attempt, holder.retries);
+            retries.add(holder);
+        }
+        if (retries.isEmpty()) {
+            return;
         }
+        log.warn("{} requests are rejected by ElasticSearch, retry them", retries.size());
+        metrics.onRetry(retries.size());
+        scheduler.schedule(() -> {
+            retries.forEach(this::enqueue);
+            dispatch(true);
+        }, RETRY_BACKOFF_MILLIS << (attempt - 1), TimeUnit.MILLISECONDS);
     }
 
     @RequiredArgsConstructor
     static class Holder {
         private final CompletableFuture<Void> future;
         private final Object request;
+        private int retries;
     }
 
+    @RequiredArgsConstructor
+    private static class Bulk {
+        private final List<Holder> holders;
+        private final ByteBuf content;
+    }
 }
@@ -33,6 +33,7 @@ public final class BulkProcessorBuilder {
     private Duration flushInterval;
     private int concurrentRequests = 2;
     private int batchOfBytes;
+    private BulkMetrics metrics = BulkMetrics.NOOP;
 
     public BulkProcessorBuilder bulkActions(int bulkActions) {
         checkArgument(bulkActions > 0, "bulkActions must be positive");
@@ -57,8 +58,13 @@ public final class BulkProcessorBuilder {
         return this;
     }
 
+    public BulkProcessorBuilder metrics(BulkMetrics metrics) {
+        this.metrics = requireNonNull(metrics, "metrics");
+        return this;
+    }
+
     public BulkProcessor build(AtomicReference<ElasticSearch> es) {
         return new BulkProcessor(
-            es, bulkActions, flushInterval, concurrentRequests, batchOfBytes);
+            es, bulkActions, flushInterval, concurrentRequests, batchOfBytes, metrics);
     }
 }
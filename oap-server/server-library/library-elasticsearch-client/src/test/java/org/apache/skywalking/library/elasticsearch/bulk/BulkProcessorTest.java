@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.library.elasticsearch.bulk;
+
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.MediaType;
+import com.linecorp.armeria.server.Server;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.skywalking.library.elasticsearch.ElasticSearch;
+import org.apache.skywalking.library.elasticsearch.requests.IndexRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class BulkProcessorTest {
+    private static volatile boolean REJECTED_ONCE;
+
+    private final List<String> bulkBodies = new CopyOnWriteArrayList<>();
+    private Server server;
+    private ElasticSearch es;
+
+    @BeforeEach
+    public void setUp() {
+        server = Server.builder()
+                       .http(0)
+                       .service("/", (ctx, req) -> HttpResponse.of(
+                           HttpStatus.OK, MediaType.JSON, "{\"version\":{\"number\":\"7.10.2\"}}"))
+                       .service("/_cluster/health", (ctx, req) -> HttpResponse.of(
+                           HttpStatus.OK, MediaType.JSON, "{}"))
+                       .service("/_bulk", (ctx, req) -> HttpResponse.from(
+                           req.aggregate().thenApply(request -> {
+                               final String body = request.contentUtf8();
+                               bulkBodies.add(body);
+                               return HttpResponse.of(HttpStatus.OK, MediaType.JSON, bulkResponse(body));
+                           })))
+                       .build();
+        server.start().join();
+
+        es = ElasticSearch.builder().endpoints("127.0.0.1:" + server.activeLocalPort()).build();
+        es.connect().join();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        es.close();
+        server.stop().join();
+    }
+
+    /**
+     * The document `rejected` is rejected for the first time, the document `invalid` always fails, the others succeed.
+     */
+    private static String bulkResponse(final String body) {
+        final List<String> items = new ArrayList<>();
+        boolean errors = false;
+        final String[] lines = body.split("\n");
+        for (int i = 0; i < lines.length; i += 2) {
+            final String action = lines[i];
+            if (action.contains("\"_id\":\"rejected\"") && !REJECTED_ONCE) {
+                REJECTED_ONCE = true;
+                errors = true;
+                items.add("{\"index\":{\"status\":429,\"error\":{\"type\":\"es_rejected_execution_exception\"}}}");
+            } else if (action.contains("\"_id\":\"invalid\"")) {
+                errors = true;
+                items.add("{\"index\":{\"status\":400,\"error\":{\"type\":\"mapper_parsing_exception\"}}}");
+            } else {
+                items.add("{\"index\":{\"status\":201}}");
+            }
+        }
+        return "{\"took\":1,\"errors\":" + errors + ",\"items\":[" + String.join(",", items) + "]}";
+    }
+
+    @Test
+    public void shouldRetryOnlyRejectedItems() {
+        REJECTED_ONCE = false;
+        final BulkProcessor processor = BulkProcessor.builder()
+                                                     .bulkActions(4)
+                                                     .flushInterval(Duration.ofSeconds(10))
+                                                     .concurrentRequests(2)
+                                                     .build(new AtomicReference<>(es));
+
+        final CompletableFuture<Void> ok1 = processor.add(index("ok1"));
+        final CompletableFuture<Void> rejected = processor.add(index("rejected"));
+        final CompletableFuture<Void> invalid = processor.add(index("invalid"));
+        final CompletableFuture<Void> ok2 = processor.add(index("ok2"));
+
+        CompletableFuture.allOf(ok1, rejected, ok2).orTimeout(10, TimeUnit.SECONDS).join();
+        assertThrows(CompletionException.class, invalid::join);
+
+        assertThat(bulkBodies).hasSize(2);
+        // Only the rejected document is sent again.
+        assertThat(bulkBodies.get(1).split("\n")).hasSize(2);
+        assertThat(bulkBodies.get(1)).contains("\"_id\":\"rejected\"");
+    }
+
+    @Test
+    public void shouldFlushWithoutBlocking() {
+        final List<Integer> bulkSizes = Collections.synchronizedList(new ArrayList<>());
+        final BulkProcessor processor = BulkProcessor.builder()
+                                                     .bulkActions(100)
+                                                     .batchOfBytes(1024)
+                                                     .flushInterval(Duration.ofSeconds(10))
+                                                     .concurrentRequests(2)
+                                                     .metrics(new BulkMetrics() {
+                                                         @Override
+                                                         public void observeBulkSize(final int size) {
+                                                             bulkSizes.add(size);
+                                                         }
+                                                     })
+                                                     .build(new AtomicReference<>(es));
+        final List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            futures.add(processor.add(index("doc" + i)));
+        }
+
+        processor.flush().orTimeout(10, TimeUnit.SECONDS).join();
+        futures.forEach(CompletableFuture::join);
+        // Split by the batchOfBytes.
+        assertThat(bulkBodies.size()).isGreaterThan(1);
+        assertThat(bulkSizes.stream().mapToInt(Integer::intValue).sum()).isEqualTo(50);
+    }
+
+    private static IndexRequest index(final String id) {
+        return IndexRequest.builder()
+                           .index("test")
+                           .type("_doc")
+                           .id(id)
+                           .doc(Collections.singletonMap("field", "value of " + id))
+                           .build();
+    }
+}
@@ -135,7 +135,7 @@ public class GRPCServer implements Server {
     }
 
     public void addHandler(ServerServiceDefinition definition) {
-        log.info("Bind handler {} into gRPC server {}:{}", definition.getClass().getSimpleName(), host, port);
+        log.info("Bind handler {} into gRPC server {}:{}", definition.getServiceDescriptor().getName(), host, port);
         nettyServerBuilder.addService(definition);
     }
 
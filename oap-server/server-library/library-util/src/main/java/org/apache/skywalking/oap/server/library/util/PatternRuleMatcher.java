@@ -0,0 +1,286 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.library.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * PatternRuleMatcher matches the string against all rules of a {@link StringFormatGroup} at once, and finds the first
+ * matched rule in the order of the rules.
+ * <p>
+ * The rules, whose regex could be split by {@code /} into the segments in the following forms, are compiled into a
+ * segment trie, so the matching cost depends on the count of the segments rather than the count of the rules.
+ * <ul>
+ *     <li>The literal without any regex metacharacter.</li>
+ *     <li>{@code ([^/]+)} or {@code [^/]+}, matching one non-empty segment.</li>
+ *     <li>{@code .+}, {@code .*}, {@code (.+)} or {@code (.*)}, matching one or more segments.</li>
+ * </ul>
+ * The other rules are matched by their regex one by one, only if they are ordered before the rule matched by the trie.
+ *
+ * @since 10.2.0
+ */
+class PatternRuleMatcher {
+    private static final String REGEX_METACHARACTERS = "\\.[]{}()*+?^$|";
+    private static final String[] SEGMENT_VAR_REGEXES = {"([^/]+)", "[^/]+"};
+
+    private final List<StringFormatGroup.PatternRule> rules;
+    private final Node root = new Node();
+    /**
+     * The indexes of the rules not compiled into the trie, in order.
+     */
+    private final int[] regexRules;
+
+    PatternRuleMatcher(List<StringFormatGroup.PatternRule> rules) {
+        this.rules = new ArrayList<>(rules);
+        final List<Integer> regexRuleList = new ArrayList<>();
+        for (int i = 0; i < this.rules.size(); i++) {
+            final List<Segment> segments = parse(this.rules.get(i).getPattern().pattern());
+            if (segments == null) {
+                regexRuleList.add(i);
+            } else {
+                add(segments, i);
+            }
+        }
+        this.regexRules = regexRuleList.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * @return the first matched rule, or null if none.
+     */
+    StringFormatGroup.PatternRule match(String string) {
+        int matched = Integer.MAX_VALUE;
+        if (root.minRule != Integer.MAX_VALUE) {
+            if (hasLineTerminator(string)) {
+                // '.' doesn't match the line terminators, fall back to the regex.
+                return matchByRegex(string, 0, rules.size());
+            }
+            matched = match(root, split(string), 0, Integer.MAX_VALUE);
+        }
+        for (final int index : regexRules) {
+            if (index >= matched) {
+                break;
+            }
+            if (rules.get(index).getPattern().matcher(string).matches()) {
+                return rules.get(index);
+            }
+        }
+        return matched == Integer.MAX_VALUE ? null : rules.get(matched);
+    }
+
+    private StringFormatGroup.PatternRule matchByRegex(String string, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (rules.get(i).getPattern().matcher(string).matches()) {
+                return rules.get(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the min index of the rules matching the segments from the given position, which is less than the given
+     * bound, or {@link Integer#MAX_VALUE} if none.
+     */
+    private int match(Node node, String[] segments, int position, int bound) {
+        if (node.minRule >= bound) {
+            return Integer.MAX_VALUE;
+        }
+        if (position == segments.length) {
+            return node.rule < bound ? node.rule : Integer.MAX_VALUE;
+        }
+        int matched = Integer.MAX_VALUE;
+        final String segment = segments[position];
+        if (node.literals != null) {
+            final Node child = node.literals.get(segment);
+            if (child != null) {
+                matched = Math.min(matched, match(child, segments, position + 1, Math.min(bound, matched)));
+            }
+        }
+        if (node.var != null && !segment.isEmpty()) {
+            matched = Math.min(matched, match(node.var, segments, position + 1, Math.min(bound, matched)));
+        }
+        if (node.anyStar != null || node.anyPlus != null) {
+            for (int end = position; end < segments.length; end++) {
+                if (node.anyStar != null) {
+                    matched = Math.min(matched, match(node.anyStar, segments, end + 1, Math.min(bound, matched)));
+                }
+                // The segments from the position to the end are joined by '/', which is empty only if it is one empty
+                // segment.
+                if (node.anyPlus != null && (end > position || !segment.isEmpty())) {
+                    matched = Math.min(matched, match(node.anyPlus, segments, end + 1, Math.min(bound, matched)));
+                }
+            }
+        }
+        return matched;
+    }
+
+    private void add(List<Segment> segments, int index) {
+        Node node = root;
+        node.minRule = Math.min(node.minRule, index);
+        for (final Segment segment : segments) {
+            switch (segment.type) {
+                case LITERAL:
+                    if (node.literals == null) {
+                        node.literals = new HashMap<>();
+                    }
+                    node = node.literals.computeIfAbsent(segment.literal, k -> new Node());
+                    break;
+                case VAR:
+                    node = node.var == null ? (node.var = new Node()) : node.var;
+                    break;
+                case ANY_PLUS:
+                    node = node.anyPlus == null ? (node.anyPlus = new Node()) : node.anyPlus;
+                    break;
+                default:
+                    node = node.anyStar == null ? (node.anyStar = new Node()) : node.anyStar;
+                    break;
+            }
+            node.minRule = Math.min(node.minRule, index);
+        }
+        node.rule = Math.min(node.rule, index);
+    }
+
+    /**
+     * @return the segments of the regex, or null if the regex can't be compiled into the trie.
+     */
+    static List<Segment> parse(String regex) {
+        final List<Segment> segments = new ArrayList<>();
+        final StringBuilder literal = new StringBuilder();
+        boolean var = false;
+        int i = 0;
+        while (i <= regex.length()) {
+            if (i == regex.length() || regex.charAt(i) == '/') {
+                final Segment segment = toSegment(literal.toString(), var);
+                if (segment == null) {
+                    return null;
+                }
+                segments.add(segment);
+                literal.setLength(0);
+                var = false;
+                i++;
+                continue;
+            }
+            boolean isVar = false;
+            for (final String varRegex : SEGMENT_VAR_REGEXES) {
+                if (regex.startsWith(varRegex, i)) {
+                    if (var || literal.length() > 0) {
+                        return null;
+                    }
+                    var = true;
+                    isVar = true;
+                    i += varRegex.length();
+                    break;
+                }
+            }
+            if (!isVar) {
+                if (var) {
+                    return null;
+                }
+                literal.append(regex.charAt(i));
+                i++;
+            }
+        }
+        return segments;
+    }
+
+    private static Segment toSegment(String literal, boolean var) {
+        if (var) {
+            return new Segment(SegmentType.VAR, null);
+        }
+        switch (literal) {
+            case ".+":
+            case "(.+)":
+                return new Segment(SegmentType.ANY_PLUS, null);
+            case ".*":
+            case "(.*)":
+                return new Segment(SegmentType.ANY_STAR, null);
+            default:
+                for (int i = 0; i < literal.length(); i++) {
+                    if (REGEX_METACHARACTERS.indexOf(literal.charAt(i)) >= 0) {
+                        return null;
+                    }
+                }
+                return new Segment(SegmentType.LITERAL, literal);
+        }
+    }
+
+    /**
+     * Split the string by '/', including the empty segments.
+     */
+    private static String[] split(String string) {
+        int count = 1;
+        for (int i = 0; i < string.length(); i++) {
+            if (string.charAt(i) == '/') {
+                count++;
+            }
+        }
+        final String[] segments = new String[count];
+        int start = 0;
+        int index = 0;
+        for (int i = 0; i < string.length(); i++) {
+            if (string.charAt(i) == '/') {
+                segments[index++] = string.substring(start, i);
+                start = i + 1;
+            }
+        }
+        segments[index] = string.substring(start);
+        return segments;
+    }
+
+    private static boolean hasLineTerminator(String string) {
+        for (int i = 0; i < string.length(); i++) {
+            final char c = string.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private enum SegmentType {
+        LITERAL, VAR, ANY_PLUS, ANY_STAR
+    }
+
+    static class Segment {
+        private final SegmentType type;
+        private final String literal;
+
+        private Segment(SegmentType type, String literal) {
+            this.type = type;
+            this.literal = literal;
+        }
+    }
+
+    private static class Node {
+        private Map<String, Node> literals;
+        private Node var;
+        private Node anyPlus;
+        private Node anyStar;
+        /**
+         * The min index of the rules ending at this node.
+         */
+        private int rule = Integer.MAX_VALUE;
+        /**
+         * The min index of the rules ending at this node or its descendants.
+         */
+        private int minRule = Integer.MAX_VALUE;
+    }
+}
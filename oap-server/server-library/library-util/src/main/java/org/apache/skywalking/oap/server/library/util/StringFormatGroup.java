@@ -30,10 +30,14 @@ import lombok.ToString;
 /**
  * Group patterns use {@link java.util.regex.Pattern} as core, could group the input strings to matched group or return
  * original string.
+ * <p>
+ * The rules are compiled into a {@link PatternRuleMatcher} at the first formatting after being changed, so the cost of
+ * formatting doesn't grow linearly with the count of the rules.
  */
-@ToString
+@ToString(exclude = "matcher")
 public class StringFormatGroup {
     private final List<PatternRule> rules;
+    private volatile PatternRuleMatcher matcher;
 
     public StringFormatGroup() {
         rules = new ArrayList<>();
@@ -57,6 +61,7 @@ public class StringFormatGroup {
         }
         PatternRule rule = new PatternRule(name, ruleRegex);
         rules.add(rule);
+        matcher = null;
     }
 
     /**
@@ -66,16 +71,21 @@ public class StringFormatGroup {
      * @return matched rule name, or original string.
      */
     public FormatResult format(String string) {
-        for (PatternRule rule : rules) {
-            if (rule.getPattern().matcher(string).matches()) {
-                return new FormatResult(true, string, rule.getName());
-            }
+        PatternRuleMatcher current = matcher;
+        if (current == null) {
+            current = new PatternRuleMatcher(rules);
+            matcher = current;
+        }
+        final PatternRule rule = current.match(string);
+        if (rule != null) {
+            return new FormatResult(true, string, rule.getName());
         }
         return new FormatResult(false, string, string);
     }
 
     public void sortRules(Comparator<? super PatternRule> comparator) {
         rules.sort(comparator);
+        matcher = null;
     }
 
     @Getter
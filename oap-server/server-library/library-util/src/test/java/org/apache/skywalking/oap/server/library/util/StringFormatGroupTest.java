@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.library.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class StringFormatGroupTest {
+    @Test
+    public void testFormat() {
+        StringFormatGroup group = new StringFormatGroup();
+        group.addRule("/name/*/add", "/name/.+/add");
+        group.addRule("GET:/products/{id}", "GET:/products/([^/]+)");
+        group.addRule("GET:/products/{id}/comments", "GET:/products/([^/]+)/comments");
+        group.addRule("/v1.0/*", "/v1\\.0/.*");
+        group.addRule("/orders/*", "/orders/.+");
+        group.addRule("/orders/{id}/items", "/orders/([^/]+)/items");
+
+        assertEquals("/name/*/add", group.format("/name/a/b/add").getReplacedName());
+        assertFalse(group.format("/name//add/x").isMatch());
+        assertEquals("GET:/products/{id}", group.format("GET:/products/123").getReplacedName());
+        assertFalse(group.format("GET:/products/").isMatch());
+        assertEquals("GET:/products/{id}/comments", group.format("GET:/products/123/comments").getReplacedName());
+        assertEquals("/v1.0/*", group.format("/v1.0/").getReplacedName());
+        assertFalse(group.format("/v1x0/a").isMatch());
+        // The earlier rule wins even if a more specific rule matches.
+        assertEquals("/orders/*", group.format("/orders/1/items").getReplacedName());
+        assertFalse(group.format("/orders/\n").isMatch());
+        assertEquals("GET:/unknown", group.format("GET:/unknown").getReplacedName());
+
+        group.sortRules((rule1, rule2) -> rule2.getName().length() - rule1.getName().length());
+        assertEquals("/orders/{id}/items", group.format("/orders/1/items").getReplacedName());
+    }
+
+    @Test
+    public void testParse() {
+        assertNotNull(PatternRuleMatcher.parse("GET:/products/([^/]+)/comments"));
+        assertNotNull(PatternRuleMatcher.parse("/name/[^/]+/(.*)"));
+        assertNull(PatternRuleMatcher.parse("/name/v([^/]+)"));
+        assertNull(PatternRuleMatcher.parse("/name/([^/]+)([^/]+)"));
+        assertNull(PatternRuleMatcher.parse("/name/\\d+"));
+        assertNull(PatternRuleMatcher.parse("(?i)/name"));
+    }
+
+    @Test
+    public void testSameAsRegex() {
+        final String[] segments = {"a", "b", "", "c.d", "([^/]+)", "[^/]+", ".+", ".*", "(.+)", "\\d+", "a|b"};
+        final String[] inputSegments = {"a", "b", "", "c.d", "cxd", "1", "ab"};
+        final Random random = new Random(7);
+        for (int round = 0; round < 50; round++) {
+            final StringFormatGroup group = new StringFormatGroup();
+            final List<Pattern> patterns = new ArrayList<>();
+            final List<String> names = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                final String regex = randomPath(random, segments);
+                if (!names.contains(regex)) {
+                    group.addRule(regex, regex);
+                    patterns.add(Pattern.compile(regex));
+                    names.add(regex);
+                }
+            }
+            for (int i = 0; i < 200; i++) {
+                final String input = randomPath(random, inputSegments);
+                String expected = input;
+                for (int j = 0; j < patterns.size(); j++) {
+                    if (patterns.get(j).matcher(input).matches()) {
+                        expected = names.get(j);
+                        break;
+                    }
+                }
+                assertEquals(expected, group.format(input).getReplacedName(), input);
+            }
+        }
+    }
+
+    private static String randomPath(Random random, String[] segments) {
+        final StringBuilder path = new StringBuilder();
+        final int count = random.nextInt(4) + 1;
+        for (int i = 0; i < count; i++) {
+            if (i > 0 || random.nextBoolean()) {
+                path.append('/');
+            }
+            path.append(segments[random.nextInt(segments.length)]);
+        }
+        return path.toString();
+    }
+}
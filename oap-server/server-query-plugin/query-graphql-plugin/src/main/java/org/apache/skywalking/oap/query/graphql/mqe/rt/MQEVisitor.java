@@ -21,10 +21,16 @@ package org.apache.skywalking.oap.query.graphql.mqe.rt;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import lombok.extern.slf4j.Slf4j;
+import org.antlr.v4.runtime.tree.ParseTree;
 import org.apache.skywalking.mqe.rt.exception.IllegalExpressionException;
 import org.apache.skywalking.mqe.rt.grammar.MQEParser;
 import org.apache.skywalking.mqe.rt.type.MQEValue;
@@ -69,6 +75,10 @@ public class MQEVisitor extends MQEVisitorBase {
     private MetricsQueryService metricsQueryService;
     private AggregationQueryService aggregationQueryService;
     private RecordQueryService recordQueryService;
+    /**
+     * The results of the prefetched metric leaves, keyed by {@link #leafKey(MQEParser.MetricContext)}.
+     */
+    private final Map<String, ExpressionResult> prefetchedMetrics = new HashMap<>();
 
     public MQEVisitor(final ModuleManager moduleManager,
                       final Entity entity,
@@ -106,8 +116,114 @@ public class MQEVisitor extends MQEVisitorBase {
         return recordQueryService;
     }
 
+    /**
+     * Query the distinct metric leaves of the expression concurrently through the executor, before visiting the
+     * expression. The identical leaves are queried only once, and every one of them gets a copy of the result when
+     * being visited, as the operations could modify the result in place.
+     *
+     * @param tree     the parsed expression.
+     * @param executor to query the leaves, should not be the one running the expression to avoid waiting on itself.
+     * @since 10.2.0
+     */
+    public void prefetchMetrics(ParseTree tree, Executor executor) {
+        final List<MQEParser.MetricContext> leaves = new ArrayList<>();
+        collectMetrics(tree, leaves);
+        if (leaves.size() < 2) {
+            return;
+        }
+        final Map<String, MQEParser.MetricContext> distinctLeaves = new LinkedHashMap<>();
+        leaves.forEach(leaf -> distinctLeaves.putIfAbsent(leafKey(leaf), leaf));
+
+        DebuggingTraceContext traceContext = TRACE_CONTEXT.get();
+        DebuggingSpan span = traceContext.createSpan(
+            "MQE prefetch metrics: " + distinctLeaves.size() + " of " + leaves.size() + " leaves");
+        try {
+            final Map<String, CompletableFuture<ExpressionResult>> futures = new LinkedHashMap<>();
+            distinctLeaves.forEach((key, leaf) -> {
+                final DebuggingTraceContext forkedContext = traceContext.fork();
+                futures.put(key, CompletableFuture.supplyAsync(() -> {
+                    // The executor could run the task in the current thread if it's saturated.
+                    final DebuggingTraceContext previous = TRACE_CONTEXT.get();
+                    TRACE_CONTEXT.set(forkedContext);
+                    try {
+                        return queryMetric(leaf);
+                    } finally {
+                        TRACE_CONTEXT.set(previous);
+                    }
+                }, executor));
+            });
+            futures.forEach((key, future) -> {
+                try {
+                    prefetchedMetrics.put(key, future.join());
+                } catch (CompletionException e) {
+                    // Leave it to be queried again when visiting, which surfaces the error as the sequential query.
+                    log.debug("Prefetch metric {} failed.", key, e.getCause());
+                }
+            });
+        } finally {
+            traceContext.stopSpan(span);
+        }
+    }
+
+    private static void collectMetrics(ParseTree tree, List<MQEParser.MetricContext> leaves) {
+        if (tree instanceof MQEParser.MetricContext) {
+            leaves.add((MQEParser.MetricContext) tree);
+            return;
+        }
+        for (int i = 0; i < tree.getChildCount(); i++) {
+            collectMetrics(tree.getChild(i), leaves);
+        }
+    }
+
+    /**
+     * The query of the metric leaf depends on the top_n and trend function wrapping it.
+     */
+    private static String leafKey(MQEParser.MetricContext ctx) {
+        if (ctx.parent instanceof MQEParser.TopNOPContext || ctx.parent instanceof MQEParser.TrendOPContext) {
+            return ctx.parent.getText();
+        }
+        return ctx.getText();
+    }
+
     @Override
     public ExpressionResult visitMetric(MQEParser.MetricContext ctx) {
+        if (!prefetchedMetrics.isEmpty()) {
+            final ExpressionResult prefetched = prefetchedMetrics.get(leafKey(ctx));
+            if (prefetched != null) {
+                return copyOf(prefetched);
+            }
+        }
+        return queryMetric(ctx);
+    }
+
+    private static ExpressionResult copyOf(ExpressionResult result) {
+        ExpressionResult copy = new ExpressionResult();
+        copy.setType(result.getType());
+        copy.setError(result.getError());
+        copy.setLabeledResult(result.isLabeledResult());
+        copy.setBoolResult(result.isBoolResult());
+        result.getResults().forEach(values -> {
+            MQEValues valuesCopy = new MQEValues();
+            values.getMetric().getLabels().forEach(
+                label -> valuesCopy.getMetric().getLabels().add(new KeyValue(label.getKey(), label.getValue())));
+            List<MQEValue> valueList = new ArrayList<>(values.getValues().size());
+            values.getValues().forEach(value -> {
+                MQEValue valueCopy = new MQEValue();
+                valueCopy.setId(value.getId());
+                valueCopy.setOwner(value.getOwner());
+                valueCopy.setValue(value.getValue());
+                valueCopy.setTraceID(value.getTraceID());
+                valueCopy.setDoubleValue(value.getDoubleValue());
+                valueCopy.setEmptyValue(value.isEmptyValue());
+                valueList.add(valueCopy);
+            });
+            valuesCopy.setValues(valueList);
+            copy.getResults().add(valuesCopy);
+        });
+        return copy;
+    }
+
+    private ExpressionResult queryMetric(MQEParser.MetricContext ctx) {
         DebuggingTraceContext traceContext = TRACE_CONTEXT.get();
         DebuggingSpan span = traceContext.createSpan("MQE Metric OP: " + ctx.getText());
         try {
@@ -18,8 +18,14 @@
 
 package org.apache.skywalking.oap.query.graphql.resolver;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import graphql.kickstart.tools.GraphQLQueryResolver;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import org.antlr.v4.runtime.misc.ParseCancellationException;
 import java.text.DecimalFormat;
 import org.antlr.v4.runtime.CharStreams;
@@ -35,6 +41,7 @@ import org.apache.skywalking.oap.server.core.query.type.debugging.DebuggingTrace
 import org.apache.skywalking.oap.server.core.query.type.debugging.DebuggingSpan;
 import org.apache.skywalking.oap.server.core.query.type.debugging.DebuggingTraceContext;
 import org.apache.skywalking.oap.server.library.module.ModuleManager;
+import org.apache.skywalking.oap.server.library.server.pool.CustomThreadFactory;
 import org.apache.skywalking.mqe.rt.grammar.MQELexer;
 import org.apache.skywalking.mqe.rt.grammar.MQEParser;
 
@@ -42,6 +49,23 @@ import static org.apache.skywalking.oap.query.graphql.AsyncQueryUtils.queryAsync
 import static org.apache.skywalking.oap.server.core.query.type.debugging.DebuggingTraceContext.TRACE_CONTEXT;
 
 public class MetricsExpressionQuery implements GraphQLQueryResolver {
+    /**
+     * The parsed expressions keyed by the expression text, as the dashboards query the same expressions repeatedly.
+     * The parse trees are read-only when being visited, so they are shared by the queries.
+     */
+    private static final Cache<String, ParseTree> PLAN_CACHE = CacheBuilder.newBuilder().maximumSize(2000).build();
+    private static final int METRICS_FETCH_THREADS = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+    /**
+     * The executor to query the metric leaves of the expressions concurrently. It runs the queries in the caller
+     * thread if saturated, rather than queueing them without bound.
+     */
+    private static final ExecutorService METRICS_FETCH_EXECUTOR = new ThreadPoolExecutor(
+        METRICS_FETCH_THREADS, METRICS_FETCH_THREADS, 60, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<>(METRICS_FETCH_THREADS * 16),
+        new CustomThreadFactory("MQE-MetricsFetch"),
+        new ThreadPoolExecutor.CallerRunsPolicy()
+    );
+
     private final ModuleManager moduleManager;
     private final DecimalFormat valueFormat = new DecimalFormat();
 
@@ -64,24 +88,30 @@ public class MetricsExpressionQuery implements GraphQLQueryResolver {
                 MQEVisitor visitor = new MQEVisitor(moduleManager, entity, duration);
                 DebuggingTrace execTrace = traceContext.getExecTrace();
                 DebuggingSpan syntaxSpan = traceContext.createSpan("MQE syntax analysis");
-                ParseTree tree;
+                ParseTree tree = PLAN_CACHE.getIfPresent(expression);
                 try {
-                    MQELexer lexer = new MQELexer(
-                        CharStreams.fromString(expression));
-                    lexer.addErrorListener(new ParseErrorListener());
-                    MQEParser parser = new MQEParser(new CommonTokenStream(lexer));
-                    parser.addErrorListener(new ParseErrorListener());
-                    try {
-                        tree = parser.expression();
-                    } catch (ParseCancellationException e) {
-                        ExpressionResult errorResult = new ExpressionResult();
-                        errorResult.setType(ExpressionResultType.UNKNOWN);
-                        errorResult.setError(e.getMessage());
-                        return errorResult;
+                    if (tree != null) {
+                        syntaxSpan.setMsg("Hit the plan cache.");
+                    } else {
+                        MQELexer lexer = new MQELexer(
+                            CharStreams.fromString(expression));
+                        lexer.addErrorListener(new ParseErrorListener());
+                        MQEParser parser = new MQEParser(new CommonTokenStream(lexer));
+                        parser.addErrorListener(new ParseErrorListener());
+                        try {
+                            tree = parser.expression();
+                        } catch (ParseCancellationException e) {
+                            ExpressionResult errorResult = new ExpressionResult();
+                            errorResult.setType(ExpressionResultType.UNKNOWN);
+                            errorResult.setError(e.getMessage());
+                            return errorResult;
+                        }
+                        PLAN_CACHE.put(expression, tree);
                     }
                 } finally {
                     traceContext.stopSpan(syntaxSpan);
                 }
+                visitor.prefetchMetrics(tree, METRICS_FETCH_EXECUTOR);
                 ExpressionResult parseResult = visitor.visit(tree);
                 parseResult.getResults().forEach(mqeValues -> {
                     mqeValues.getValues().forEach(mqeValue -> {
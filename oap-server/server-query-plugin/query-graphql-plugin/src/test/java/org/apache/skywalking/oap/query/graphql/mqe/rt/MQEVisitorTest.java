@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.query.graphql.mqe.rt;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.apache.skywalking.mqe.rt.grammar.MQELexer;
+import org.apache.skywalking.mqe.rt.grammar.MQEParser;
+import org.apache.skywalking.mqe.rt.type.ExpressionResult;
+import org.apache.skywalking.mqe.rt.type.MQEValue;
+import org.apache.skywalking.oap.server.core.CoreModule;
+import org.apache.skywalking.oap.server.core.query.MetricsQueryService;
+import org.apache.skywalking.oap.server.core.query.enumeration.Scope;
+import org.apache.skywalking.oap.server.core.query.enumeration.Step;
+import org.apache.skywalking.oap.server.core.query.input.Duration;
+import org.apache.skywalking.oap.server.core.query.input.Entity;
+import org.apache.skywalking.oap.server.core.query.type.KVInt;
+import org.apache.skywalking.oap.server.core.query.type.MetricsValues;
+import org.apache.skywalking.oap.server.core.query.type.debugging.DebuggingSpan;
+import org.apache.skywalking.oap.server.core.query.type.debugging.DebuggingTraceContext;
+import org.apache.skywalking.oap.server.core.storage.annotation.Column;
+import org.apache.skywalking.oap.server.core.storage.annotation.ValueColumnMetadata;
+import org.apache.skywalking.oap.server.library.module.ModuleManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.apache.skywalking.oap.server.core.query.type.debugging.DebuggingTraceContext.TRACE_CONTEXT;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MQEVisitorTest {
+    private static final String METRIC = "mqe_visitor_test_cpm";
+
+    private final AtomicInteger queryCount = new AtomicInteger();
+    private ModuleManager moduleManager;
+    private ExecutorService executor;
+    private Entity entity;
+    private Duration duration;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        ValueColumnMetadata.INSTANCE.putIfAbsent(METRIC, "value", Column.ValueDataType.COMMON_VALUE, 0, 1);
+        final MetricsQueryService metricsQueryService = mock(MetricsQueryService.class);
+        when(metricsQueryService.readMetricsValues(any(), any())).thenAnswer(invocation -> {
+            queryCount.incrementAndGet();
+            final Duration queryDuration = invocation.getArgument(1);
+            final MetricsValues metricsValues = new MetricsValues();
+            for (int i = 0; i < queryDuration.assembleDurationPoints().size(); i++) {
+                metricsValues.getValues().addKVInt(new KVInt(String.valueOf(i), i + 1, false));
+            }
+            return metricsValues;
+        });
+        moduleManager = mock(ModuleManager.class, RETURNS_DEEP_STUBS);
+        when(moduleManager.find(CoreModule.NAME).provider().getService(any()))
+            .thenReturn(metricsQueryService);
+        executor = Executors.newFixedThreadPool(2);
+
+        entity = new Entity();
+        entity.setScope(Scope.Service);
+        entity.setServiceName("service");
+        entity.setNormal(true);
+        duration = new Duration();
+        duration.setStart("2024-01-01 0000");
+        duration.setEnd("2024-01-01 0002");
+        duration.setStep(Step.MINUTE);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+        TRACE_CONTEXT.remove();
+    }
+
+    @Test
+    public void testPrefetchIdenticalMetrics() {
+        final DebuggingTraceContext traceContext = new DebuggingTraceContext("test", true, false);
+        TRACE_CONTEXT.set(traceContext);
+        final ParseTree tree = parse(METRIC + " + " + METRIC + " * 2");
+        final MQEVisitor visitor = new MQEVisitor(moduleManager, entity, duration);
+
+        visitor.prefetchMetrics(tree, executor);
+        final ExpressionResult result = visitor.visit(tree);
+
+        assertEquals(1, queryCount.get());
+        assertEquals(List.of(3.0, 6.0, 9.0), result.getResults().get(0).getValues().stream()
+                                                 .map(MQEValue::getDoubleValue)
+                                                 .collect(Collectors.toList()));
+        // The spans of the query in the executor are the children of the prefetch span.
+        final List<DebuggingSpan> spans = traceContext.getExecTrace().getSpans();
+        final DebuggingSpan prefetchSpan = spans.stream()
+                                                .filter(span -> span.getOperation().startsWith("MQE prefetch"))
+                                                .findFirst().orElseThrow();
+        assertTrue(spans.stream().anyMatch(span -> span.getOperation().startsWith("MQE Metric OP")
+            && span.getParentSpanId() == prefetchSpan.getSpanId()));
+    }
+
+    @Test
+    public void testPrefetchDifferentMetrics() {
+        TRACE_CONTEXT.set(new DebuggingTraceContext("test", false, false));
+        final ParseTree tree = parse(METRIC + " - increase(" + METRIC + ", 1)");
+        final MQEVisitor visitor = new MQEVisitor(moduleManager, entity, duration);
+
+        visitor.prefetchMetrics(tree, executor);
+        final ExpressionResult result = visitor.visit(tree);
+
+        assertEquals(2, queryCount.get());
+        assertEquals(3, result.getResults().get(0).getValues().size());
+    }
+
+    private static ParseTree parse(String expression) {
+        final MQELexer lexer = new MQELexer(CharStreams.fromString(expression));
+        final MQEParser parser = new MQEParser(new CommonTokenStream(lexer));
+        return parser.expression();
+    }
+}
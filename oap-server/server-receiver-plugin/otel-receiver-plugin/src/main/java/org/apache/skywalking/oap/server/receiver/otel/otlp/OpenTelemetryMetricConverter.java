@@ -0,0 +1,358 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.receiver.otel.otlp;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableMap;
+import io.opentelemetry.proto.common.v1.AnyValue;
+import io.opentelemetry.proto.common.v1.KeyValue;
+import io.opentelemetry.proto.metrics.v1.DataPointFlags;
+import io.opentelemetry.proto.metrics.v1.ExponentialHistogramDataPoint;
+import io.opentelemetry.proto.metrics.v1.HistogramDataPoint;
+import io.opentelemetry.proto.metrics.v1.Metric;
+import io.opentelemetry.proto.metrics.v1.NumberDataPoint;
+import io.opentelemetry.proto.metrics.v1.ResourceMetrics;
+import io.opentelemetry.proto.metrics.v1.ScopeMetrics;
+import io.opentelemetry.proto.metrics.v1.Sum;
+import io.opentelemetry.proto.metrics.v1.SummaryDataPoint;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.skywalking.oap.meter.analyzer.dsl.Sample;
+import org.apache.skywalking.oap.meter.analyzer.dsl.SampleFamily;
+import org.apache.skywalking.oap.meter.analyzer.dsl.SampleFamilyBuilder;
+
+import static io.opentelemetry.proto.metrics.v1.AggregationTemporality.AGGREGATION_TEMPORALITY_UNSPECIFIED;
+
+/**
+ * OpenTelemetryMetricConverter converts the OTLP metrics of a {@link ResourceMetrics} into {@link SampleFamily}s in a
+ * single pass. It produces the same samples as adapting the data points to Prometheus metrics and feeding them to
+ * {@link org.apache.skywalking.oap.meter.analyzer.prometheus.PrometheusMetricConverter}, without building the
+ * intermediate metrics, their label maps and boxed bucket maps.
+ *
+ * <ul>
+ *     <li>Gauges, delta and non-monotonic sums are gauges, cumulative monotonic sums are counters, sums of
+ *     unspecified temporality are dropped.</li>
+ *     <li>Histograms and summaries produce the {@code _count} and {@code _sum} samples, and one sample per bucket
+ *     (labelled {@code le}) or quantile (labelled {@code quantile}).</li>
+ *     <li>Resource attributes are the node labels, data point attributes override them.</li>
+ * </ul>
+ *
+ * @since 10.2.0
+ */
+@Slf4j
+public class OpenTelemetryMetricConverter {
+    private static final String LE = "le";
+
+    private static final String QUANTILE = "quantile";
+
+    private static final String INFINITY = Double.toString(Double.POSITIVE_INFINITY);
+
+    private static final Pattern METRICS_NAME_ESCAPE_PATTERN = Pattern.compile("[/.]");
+
+    private static final Map<String, String> LABEL_MAPPINGS =
+        ImmutableMap
+            .<String, String>builder()
+            .put("net.host.name", "node_identifier_host_name")
+            .put("host.name", "node_identifier_host_name")
+            .put("job", "job_name")
+            .put("service.name", "job_name")
+            .build();
+
+    private static final LoadingCache<String, String> NODE_LABEL_NAME_CACHE =
+        CacheBuilder.newBuilder()
+                    .maximumSize(1000)
+                    .build(new CacheLoader<String, String>() {
+                        @Override
+                        public String load(final String key) {
+                            return LABEL_MAPPINGS.getOrDefault(key, key).replace('.', '_');
+                        }
+                    });
+
+    private static final LoadingCache<String, MetricNames> METRIC_NAMES_CACHE =
+        CacheBuilder.newBuilder()
+                    .maximumSize(1000)
+                    .build(new CacheLoader<String, MetricNames>() {
+                        @Override
+                        public MetricNames load(final String name) {
+                            final String escaped = METRICS_NAME_ESCAPE_PATTERN.matcher(name).replaceAll("_");
+                            return new MetricNames(escaped, escaped + "_count", escaped + "_sum");
+                        }
+                    });
+
+    private final Map<String, List<Sample>> samples = new HashMap<>();
+
+    private ImmutableMap<String, String> nodeLabels;
+
+    /**
+     * @return the sample families of all the metrics of the given resource, keyed by the escaped metric name.
+     */
+    public static ImmutableMap<String, SampleFamily> convert(final ResourceMetrics resourceMetrics) {
+        return new OpenTelemetryMetricConverter().convert0(resourceMetrics);
+    }
+
+    private ImmutableMap<String, SampleFamily> convert0(final ResourceMetrics resourceMetrics) {
+        nodeLabels = buildNodeLabels(resourceMetrics.getResource().getAttributesList());
+        for (final ScopeMetrics scopeMetrics : resourceMetrics.getScopeMetricsList()) {
+            for (final Metric metric : scopeMetrics.getMetricsList()) {
+                convertMetric(metric);
+            }
+        }
+
+        final ImmutableMap.Builder<String, SampleFamily> families = ImmutableMap.builderWithExpectedSize(samples.size());
+        samples.forEach((name, ss) -> families.put(name, SampleFamilyBuilder.newBuilder(ss.toArray(new Sample[0])).build()));
+        return families.build();
+    }
+
+    private void convertMetric(final Metric metric) {
+        final MetricNames names = METRIC_NAMES_CACHE.getUnchecked(metric.getName());
+        switch (metric.getDataCase()) {
+            case GAUGE:
+                convertNumberDataPoints(names.name, metric.getGauge().getDataPointsList());
+                break;
+            case SUM:
+                // Counter and gauge samples are identical, only the unspecified temporality needs a special case.
+                final Sum sum = metric.getSum();
+                if (sum.getAggregationTemporality() != AGGREGATION_TEMPORALITY_UNSPECIFIED) {
+                    convertNumberDataPoints(names.name, sum.getDataPointsList());
+                }
+                break;
+            case HISTOGRAM:
+                convertHistogramDataPoints(names, metric.getHistogram().getDataPointsList());
+                break;
+            case EXPONENTIAL_HISTOGRAM:
+                for (final ExponentialHistogramDataPoint point : metric.getExponentialHistogram().getDataPointsList()) {
+                    if (!noRecordedValue(point.getFlags())) {
+                        convertExponentialHistogramDataPoint(names, point);
+                    }
+                }
+                break;
+            case SUMMARY:
+                for (final SummaryDataPoint point : metric.getSummary().getDataPointsList()) {
+                    if (!noRecordedValue(point.getFlags())) {
+                        convertSummaryDataPoint(names, point);
+                    }
+                }
+                break;
+            default:
+                log.warn("Unsupported OpenTelemetry metric type {} of {}", metric.getDataCase(), metric.getName());
+        }
+    }
+
+    private void convertNumberDataPoints(final String name, final List<NumberDataPoint> points) {
+        for (final NumberDataPoint point : points) {
+            if (noRecordedValue(point.getFlags())) {
+                continue;
+            }
+            add(name, labels(point.getAttributesList(), null), point.hasAsDouble() ? point.getAsDouble() : point.getAsInt(),
+                timestamp(point.getTimeUnixNano()));
+        }
+    }
+
+    private void convertHistogramDataPoints(final MetricNames names, final List<HistogramDataPoint> points) {
+        // The data points of a metric almost always share the bounds, so are the "le" values.
+        List<Double> lastBounds = null;
+        String[] les = null;
+        for (final HistogramDataPoint point : points) {
+            if (noRecordedValue(point.getFlags())) {
+                continue;
+            }
+            final ImmutableMap<String, String> labels = labels(point.getAttributesList(), LE);
+            final long timestamp = timestamp(point.getTimeUnixNano());
+            add(names.count, labels, point.getCount(), timestamp);
+            add(names.sum, labels, point.getSum(), timestamp);
+
+            final int boundCount = point.getExplicitBoundsCount();
+            if (point.getBucketCountsCount() != boundCount + 1) {
+                log.warn("Receive and reject Histogram data with {} bounds but {} buckets", boundCount, point.getBucketCountsCount());
+                continue;
+            }
+            final List<Double> bounds = point.getExplicitBoundsList();
+            if (!bounds.equals(lastBounds)) {
+                les = new String[boundCount + 1];
+                for (int i = 0; i < boundCount; i++) {
+                    les[i] = Double.toString(point.getExplicitBounds(i));
+                }
+                les[boundCount] = INFINITY;
+                lastBounds = bounds;
+            }
+            for (int i = 0; i <= boundCount; i++) {
+                add(names.name, withLabel(labels, LE, les[i]), point.getBucketCounts(i), timestamp);
+            }
+        }
+    }
+
+    /**
+     * ExponentialHistogram data points are an alternate representation to the Histogram data point in OpenTelemetry
+     * metric format(https://opentelemetry.io/docs/reference/specification/metrics/data-model/#exponentialhistogram).
+     * It uses scale, offset and bucket index to calculate the bound. Firstly, calculate the base using scale by
+     * formula: base = 2**(2**(-scale)). Then the upperBound of specific bucket can be calculated by formula:
+     * base**(offset+index+1). Above calculation way is about positive buckets. For the negative case, we just
+     * map them by their absolute value into the negative range using the same scale as the positive range. So the
+     * upperBound should be calculated as -base**(offset+index).
+     *
+     * Ignored the zero_count field temporarily,
+     * because the zero_threshold even could overlap the existing bucket scopes.
+     */
+    private void convertExponentialHistogramDataPoint(final MetricNames names,
+                                                      final ExponentialHistogramDataPoint point) {
+        final ImmutableMap<String, String> labels = labels(point.getAttributesList(), LE);
+        final long timestamp = timestamp(point.getTimeUnixNano());
+        add(names.count, labels, point.getCount(), timestamp);
+        add(names.sum, labels, point.getSum(), timestamp);
+
+        final ExponentialHistogramDataPoint.Buckets negative = point.getNegative();
+        final ExponentialHistogramDataPoint.Buckets positive = point.getPositive();
+        final int negativeCount = negative.getBucketCountsCount();
+        final int positiveCount = positive.getBucketCountsCount();
+        if (positiveCount == 0) {
+            log.warn("Receive and reject ExponentialHistogram data without positive buckets");
+            return;
+        }
+        final double base = Math.pow(2.0, Math.pow(2.0, -point.getScale()));
+        if (base == Double.POSITIVE_INFINITY) {
+            log.warn("Receive and reject out-of-range ExponentialHistogram data");
+            return;
+        }
+        final double[] upperBounds = new double[negativeCount + positiveCount];
+        for (int i = 0; i < negativeCount; i++) {
+            upperBounds[i] = -Math.pow(base, negative.getOffset() + i);
+            if (upperBounds[i] == Double.NEGATIVE_INFINITY) {
+                log.warn("Receive and reject out-of-range ExponentialHistogram data");
+                return;
+            }
+        }
+        for (int i = 0; i < positiveCount - 1; i++) {
+            upperBounds[negativeCount + i] = Math.pow(base, positive.getOffset() + i + 1);
+            if (upperBounds[negativeCount + i] == Double.POSITIVE_INFINITY) {
+                log.warn("Receive and reject out-of-range ExponentialHistogram data");
+                return;
+            }
+        }
+        upperBounds[upperBounds.length - 1] = Double.POSITIVE_INFINITY;
+
+        for (int i = 0; i < negativeCount; i++) {
+            add(names.name, withLabel(labels, LE, Double.toString(upperBounds[i])), negative.getBucketCounts(i), timestamp);
+        }
+        for (int i = 0; i < positiveCount; i++) {
+            add(names.name, withLabel(labels, LE, Double.toString(upperBounds[negativeCount + i])),
+                positive.getBucketCounts(i), timestamp);
+        }
+    }
+
+    private void convertSummaryDataPoint(final MetricNames names, final SummaryDataPoint point) {
+        final ImmutableMap<String, String> labels = labels(point.getAttributesList(), QUANTILE);
+        final long timestamp = timestamp(point.getTimeUnixNano());
+        add(names.count, labels, point.getCount(), timestamp);
+        add(names.sum, labels, point.getSum(), timestamp);
+        for (final SummaryDataPoint.ValueAtQuantile quantile : point.getQuantileValuesList()) {
+            add(names.name, withLabel(labels, QUANTILE, Double.toString(quantile.getQuantile())), quantile.getValue(),
+                timestamp);
+        }
+    }
+
+    private void add(final String name, final ImmutableMap<String, String> labels, final double value,
+                     final long timestamp) {
+        samples.computeIfAbsent(name, k -> new ArrayList<>()).add(
+            Sample.builder()
+                  .name(name)
+                  .labels(labels)
+                  .value(value)
+                  .timestamp(timestamp)
+                  .build());
+    }
+
+    private static ImmutableMap<String, String> buildNodeLabels(final List<KeyValue> attributes) {
+        // The first attribute wins when several ones are mapped to the same label, e.g. "job" and "service.name".
+        final Map<String, String> labels = new HashMap<>(attributes.size() * 2);
+        for (final KeyValue kv : attributes) {
+            labels.putIfAbsent(NODE_LABEL_NAME_CACHE.getUnchecked(kv.getKey()), anyValueToString(kv.getValue()));
+        }
+        return ImmutableMap.copyOf(labels);
+    }
+
+    /**
+     * @param excluded the label reserved for the buckets or quantiles, which is removed from the data point labels.
+     * @return the node labels overridden by the data point attributes.
+     */
+    private ImmutableMap<String, String> labels(final List<KeyValue> attributes, final String excluded) {
+        final boolean excludedInNode = excluded != null && nodeLabels.containsKey(excluded);
+        if (attributes.isEmpty() && !excludedInNode) {
+            return nodeLabels;
+        }
+        final ImmutableMap.Builder<String, String> labels =
+            ImmutableMap.builderWithExpectedSize(nodeLabels.size() + attributes.size());
+        if (excludedInNode) {
+            nodeLabels.forEach((k, v) -> {
+                if (!k.equals(excluded)) {
+                    labels.put(k, v);
+                }
+            });
+        } else {
+            labels.putAll(nodeLabels);
+        }
+        for (final KeyValue kv : attributes) {
+            if (!kv.getKey().equals(excluded)) {
+                labels.put(kv.getKey(), anyValueToString(kv.getValue()));
+            }
+        }
+        return labels.buildKeepingLast();
+    }
+
+    private static ImmutableMap<String, String> withLabel(final ImmutableMap<String, String> labels,
+                                                          final String key, final String value) {
+        return ImmutableMap.<String, String>builderWithExpectedSize(labels.size() + 1)
+                           .putAll(labels)
+                           .put(key, value)
+                           .build();
+    }
+
+    private static boolean noRecordedValue(final int flags) {
+        return (flags & DataPointFlags.FLAG_NO_RECORDED_VALUE_VALUE) == DataPointFlags.FLAG_NO_RECORDED_VALUE_VALUE;
+    }
+
+    private static long timestamp(final long timeUnixNano) {
+        return timeUnixNano / 1000000;
+    }
+
+    public static String anyValueToString(AnyValue value) {
+        if (value.hasBoolValue()) {
+            return Boolean.toString(value.getBoolValue());
+        } else if (value.hasIntValue()) {
+            return Long.toString(value.getIntValue());
+        } else if (value.hasDoubleValue()) {
+            return Double.toString(value.getDoubleValue());
+        } else {
+            return value.getStringValue();
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class MetricNames {
+        private final String name;
+        private final String count;
+        private final String sum;
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.skywalking.oap.server.receiver.otel.otlp;
+
+import com.google.common.collect.ImmutableMap;
+import io.opentelemetry.proto.common.v1.AnyValue;
+import io.opentelemetry.proto.common.v1.KeyValue;
+import io.opentelemetry.proto.metrics.v1.AggregationTemporality;
+import io.opentelemetry.proto.metrics.v1.DataPointFlags;
+import io.opentelemetry.proto.metrics.v1.ExponentialHistogram;
+import io.opentelemetry.proto.metrics.v1.ExponentialHistogramDataPoint;
+import io.opentelemetry.proto.metrics.v1.Gauge;
+import io.opentelemetry.proto.metrics.v1.Histogram;
+import io.opentelemetry.proto.metrics.v1.HistogramDataPoint;
+import io.opentelemetry.proto.metrics.v1.Metric;
+import io.opentelemetry.proto.metrics.v1.NumberDataPoint;
+import io.opentelemetry.proto.metrics.v1.ResourceMetrics;
+import io.opentelemetry.proto.metrics.v1.ScopeMetrics;
+import io.opentelemetry.proto.metrics.v1.Sum;
+import io.opentelemetry.proto.metrics.v1.Summary;
+import io.opentelemetry.proto.metrics.v1.SummaryDataPoint;
+import io.opentelemetry.proto.resource.v1.Resource;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.apache.skywalking.oap.meter.analyzer.dsl.Sample;
+import org.apache.skywalking.oap.meter.analyzer.dsl.SampleFamily;
+import org.apache.skywalking.oap.meter.analyzer.prometheus.PrometheusMetricConverter;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class OpenTelemetryMetricConverterTest {
+
+    @Test
+    public void testConvertExponentialHistogram() {
+        // number is 4; 7, 7.5; 8.5, 8.7, 9.4
+        var positiveBuckets = ExponentialHistogramDataPoint.Buckets.newBuilder()
+                                                                   .setOffset(10)
+                                                                   .addBucketCounts(
+                                                                       1) // (0, 6.72]
+                                                                   .addBucketCounts(
+                                                                       2
+                                                                   ) // (6.72, 8]
+                                                                   .addBucketCounts(
+                                                                       3
+                                                                   ) // (8, 9.51]
+                                                                   .build();
+        // number is -14, -14.5, -15; -18; -21, -26
+        var negativeBuckets = ExponentialHistogramDataPoint.Buckets.newBuilder()
+                                                                   .setOffset(15)
+                                                                   .addBucketCounts(
+                                                                       3
+                                                                   ) // (-16, -13.45]
+                                                                   .addBucketCounts(
+                                                                       1
+                                                                   ) // (-19.02, -16]
+                                                                   .addBucketCounts(
+                                                                       2
+                                                                   ) // (-INFINITY, -19.02]
+                                                                   .build();
+        var dataPoint = ExponentialHistogramDataPoint.newBuilder()
+                                                     .setCount(12)
+                                                     .setSum(-63.4)
+                                                     .setScale(2)
+                                                     .setPositive(positiveBuckets)
+                                                     .setNegative(negativeBuckets)
+                                                     .setTimeUnixNano(1000000)
+                                                     .build();
+        ExponentialHistogram exponentialHistogram = ExponentialHistogram.newBuilder()
+                                                                        .addDataPoints(dataPoint)
+                                                                        .build();
+        Metric metric = Metric.newBuilder()
+                              .setName("test_metric")
+                              .setExponentialHistogram(exponentialHistogram)
+                              .build();
+
+        ImmutableMap<String, SampleFamily> families = OpenTelemetryMetricConverter.convert(resourceMetrics(metric));
+        assertEquals(12, families.get("test_metric_count").samples[0].getValue());
+        assertEquals(-63.4, families.get("test_metric_sum").samples[0].getValue());
+        assertEquals(1, families.get("test_metric_sum").samples[0].getTimestamp());
+
+        // validate the key and value of bucket
+        Map<String, Double> buckets = buckets(families.get("test_metric"), "le");
+        assertEquals(6, buckets.size());
+        double base = Math.pow(2, Math.pow(2, -2));
+
+        assertEquals(1, buckets.get(Double.toString(Math.pow(base, 11))));
+        assertEquals(2, buckets.get(Double.toString(Math.pow(base, 12))));
+        assertEquals(3, buckets.get(Double.toString(Double.POSITIVE_INFINITY)));
+        assertEquals(3, buckets.get(Double.toString(-Math.pow(base, 15))));
+        assertEquals(1, buckets.get(Double.toString(-Math.pow(base, 16))));
+        assertEquals(2, buckets.get(Double.toString(-Math.pow(base, 17))));
+    }
+
+    @Test
+    public void testConvertLabels() {
+        Metric metric = Metric.newBuilder()
+                              .setName("jvm.memory.used")
+                              .setGauge(Gauge.newBuilder().addDataPoints(
+                                  NumberDataPoint.newBuilder()
+                                                 .addAttributes(keyValue("area", "heap"))
+                                                 .addAttributes(keyValue("host.name", "overridden"))
+                                                 .setAsInt(10)
+                                                 .setTimeUnixNano(2000000)))
+                              .build();
+        ResourceMetrics resourceMetrics = ResourceMetrics.newBuilder()
+                                                         .setResource(Resource.newBuilder()
+                                                                              .addAttributes(keyValue("service.name", "svc"))
+                                                                              .addAttributes(keyValue("job", "ignored"))
+                                                                              .addAttributes(keyValue("host.name", "node-1"))
+                                                                              .addAttributes(keyValue("k8s.pod.name", "pod-1")))
+                                                         .addScopeMetrics(ScopeMetrics.newBuilder().addMetrics(metric))
+                                                         .build();
+
+        Sample sample = OpenTelemetryMetricConverter.convert(resourceMetrics).get("jvm_memory_used").samples[0];
+        assertEquals("jvm_memory_used", sample.getName());
+        assertEquals(10, sample.getValue());
+        assertEquals(2, sample.getTimestamp());
+        assertEquals(
+            ImmutableMap.of(
+                "job_name", "svc",
+                "node_identifier_host_name", "node-1",
+                "k8s_pod_name", "pod-1",
+                "area", "heap",
+                "host.name", "overridden"
+            ),
+            sample.getLabels()
+        );
+    }
+
+    @Test
+    public void testSkipNoRecordedValueAndUnspecifiedTemporality() {
+        Metric unspecified = Metric.newBuilder()
+                                   .setName("unspecified")
+                                   .setSum(Sum.newBuilder().addDataPoints(NumberDataPoint.newBuilder().setAsDouble(1)))
+                                   .build();
+        Metric noRecordedValue = Metric.newBuilder()
+                                       .setName("no_recorded_value")
+                                       .setSum(Sum.newBuilder()
+                                                  .setAggregationTemporality(AggregationTemporality.AGGREGATION_TEMPORALITY_CUMULATIVE)
+                                                  .addDataPoints(NumberDataPoint.newBuilder()
+                                                                                .setFlags(DataPointFlags.FLAG_NO_RECORDED_VALUE_VALUE)
+                                                                                .setAsDouble(1)))
+                                       .build();
+        Metric unsupported = Metric.newBuilder().setName("unsupported").build();
+
+        assertEquals(0, OpenTelemetryMetricConverter.convert(resourceMetrics(unspecified, noRecordedValue, unsupported)).size());
+    }
+
+    @Test
+    public void testSameSamplesAsPrometheusMetrics() {
+        Metric histogram = Metric.newBuilder()
+                                 .setName("http.server.duration")
+                                 .setHistogram(Histogram.newBuilder()
+                                                        .addDataPoints(HistogramDataPoint.newBuilder()
+                                                                                         .addAttributes(keyValue("route", "/a"))
+                                                                                         .addAttributes(keyValue("le", "dropped"))
+                                                                                         .setCount(6)
+                                                                                         .setSum(42.5)
+                                                                                         .addAllExplicitBounds(Arrays.asList(1.0, 5.0))
+                                                                                         .addAllBucketCounts(Arrays.asList(1L, 2L, 3L))
+                                                                                         .setTimeUnixNano(3000000))
+                                                        .addDataPoints(HistogramDataPoint.newBuilder()
+                                                                                         .addAttributes(keyValue("route", "/b"))
+                                                                                         .setCount(1)
+                                                                                         .setSum(0.5)
+                                                                                         .addAllExplicitBounds(Arrays.asList(1.0, 5.0))
+                                                                                         .addAllBucketCounts(Arrays.asList(1L, 0L, 0L))
+                                                                                         .setTimeUnixNano(3000000)))
+                                 .build();
+        Metric summary = Metric.newBuilder()
+                               .setName("rpc/latency")
+                               .setSummary(Summary.newBuilder().addDataPoints(
+                                   SummaryDataPoint.newBuilder()
+                                                   .setCount(3)
+                                                   .setSum(9)
+                                                   .addQuantileValues(SummaryDataPoint.ValueAtQuantile.newBuilder().setQuantile(0.5).setValue(2))
+                                                   .addQuantileValues(SummaryDataPoint.ValueAtQuantile.newBuilder().setQuantile(0.99).setValue(5))
+                                                   .setTimeUnixNano(3000000)))
+                               .build();
+        Metric counter = Metric.newBuilder()
+                               .setName("requests")
+                               .setSum(Sum.newBuilder()
+                                          .setIsMonotonic(true)
+                                          .setAggregationTemporality(AggregationTemporality.AGGREGATION_TEMPORALITY_CUMULATIVE)
+                                          .addDataPoints(NumberDataPoint.newBuilder().setAsInt(7).setTimeUnixNano(3000000)))
+                               .build();
+
+        Map<String, String> nodeLabels = ImmutableMap.of("job_name", "svc");
+        ImmutableMap<String, SampleFamily> expected = PrometheusMetricConverter.convertPromMetricToSampleFamily(Stream.of(
+            new org.apache.skywalking.oap.server.library.util.prometheus.metrics.Histogram(
+                "http.server.duration", labels(nodeLabels, "route", "/a", "le", "dropped"), 6, 42.5,
+                ImmutableMap.of(1.0, 1L, 5.0, 2L, Double.POSITIVE_INFINITY, 3L), 3),
+            new org.apache.skywalking.oap.server.library.util.prometheus.metrics.Histogram(
+                "http.server.duration", labels(nodeLabels, "route", "/b"), 1, 0.5,
+                ImmutableMap.of(1.0, 1L, 5.0, 0L, Double.POSITIVE_INFINITY, 0L), 3),
+            new org.apache.skywalking.oap.server.library.util.prometheus.metrics.Summary(
+                "rpc/latency", nodeLabels, 3, 9, ImmutableMap.of(0.5, 2.0, 0.99, 5.0), 3),
+            new org.apache.skywalking.oap.server.library.util.prometheus.metrics.Counter(
+                "requests", nodeLabels, 7, 3)
+        ));
+
+        ResourceMetrics resourceMetrics = ResourceMetrics.newBuilder()
+                                                         .setResource(Resource.newBuilder().addAttributes(keyValue("service.name", "svc")))
+                                                         .addScopeMetrics(ScopeMetrics.newBuilder().addMetrics(histogram).addMetrics(summary))
+                                                         .addScopeMetrics(ScopeMetrics.newBuilder().addMetrics(counter))
+                                                         .build();
+        ImmutableMap<String, SampleFamily> actual = OpenTelemetryMetricConverter.convert(resourceMetrics);
+
+        assertEquals(expected.keySet(), actual.keySet());
+        expected.forEach((name, family) -> assertEquals(
+            new HashSet<>(Arrays.asList(family.samples)), new HashSet<>(Arrays.asList(actual.get(name).samples)), name));
+    }
+
+    private static ResourceMetrics resourceMetrics(Metric... metrics) {
+        return ResourceMetrics.newBuilder()
+                              .addScopeMetrics(ScopeMetrics.newBuilder().addAllMetrics(Arrays.asList(metrics)))
+                              .build();
+    }
+
+    private static KeyValue keyValue(String key, String value) {
+        return KeyValue.newBuilder().setKey(key).setValue(AnyValue.newBuilder().setStringValue(value)).build();
+    }
+
+    private static Map<String, String> labels(Map<String, String> nodeLabels, String... kvs) {
+        Map<String, String> labels = new HashMap<>(nodeLabels);
+        for (int i = 0; i < kvs.length; i += 2) {
+            labels.put(kvs[i], kvs[i + 1]);
+        }
+        return labels;
+    }
+
+    private static Map<String, Double> buckets(SampleFamily family, String label) {
+        Map<String, Double> buckets = new HashMap<>();
+        for (Sample sample : family.samples) {
+            buckets.put(sample.getLabels().get(label), sample.getValue());
+        }
+        return buckets;
+    }
+}
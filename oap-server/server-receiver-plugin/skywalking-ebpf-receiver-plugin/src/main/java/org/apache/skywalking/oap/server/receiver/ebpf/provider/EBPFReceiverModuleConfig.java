@@ -31,6 +31,23 @@ public class EBPFReceiverModuleConfig extends ModuleConfig {
     @Setter
     private int continuousPolicyCacheTimeout = 60;
 
+    /**
+     * The max count of the resolved connections cached by each access log stream.
+     *
+     * @since 10.2.0
+     */
+    @Setter
+    private int accessLogConnectionCacheSize = 1000;
+
+    /**
+     * The time to keep a resolved connection of an access log stream, Unit is second. The
+     * connection is resolved again after that, so the changed Kubernetes addresses are picked up.
+     *
+     * @since 10.2.0
+     */
+    @Setter
+    private int accessLogConnectionCacheTimeout = 60;
+
     private String gRPCHost;
     private int gRPCPort;
     private int maxConcurrentCallsPerConnection;
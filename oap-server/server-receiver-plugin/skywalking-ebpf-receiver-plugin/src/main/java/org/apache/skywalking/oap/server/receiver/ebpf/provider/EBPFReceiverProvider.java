@@ -121,7 +121,7 @@ public class EBPFReceiverProvider extends ModuleProvider {
         service.addHandler(new EBPFProcessServiceHandler(getManager()));
         service.addHandler(new EBPFProfilingServiceHandler(getManager()));
         service.addHandler(new ContinuousProfilingServiceHandler(getManager(), this.config));
-        service.addHandler(new AccessLogServiceHandler(getManager()));
+        service.addHandler(new AccessLogServiceHandler(getManager(), this.config));
     }
 
     @Override
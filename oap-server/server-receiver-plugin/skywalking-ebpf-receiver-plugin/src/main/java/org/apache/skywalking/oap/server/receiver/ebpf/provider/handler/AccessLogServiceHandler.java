@@ -18,8 +18,11 @@
 
 package org.apache.skywalking.oap.server.receiver.ebpf.provider.handler;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import io.grpc.stub.StreamObserver;
 import io.vavr.Tuple2;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
@@ -63,13 +66,13 @@ import org.apache.skywalking.oap.server.core.source.K8SServiceRelation;
 import org.apache.skywalking.oap.server.core.source.SourceReceiver;
 import org.apache.skywalking.oap.server.library.module.ModuleManager;
 import org.apache.skywalking.oap.server.library.util.StringUtil;
+import org.apache.skywalking.oap.server.receiver.ebpf.provider.EBPFReceiverModuleConfig;
 import org.apache.skywalking.oap.server.telemetry.TelemetryModule;
 import org.apache.skywalking.oap.server.telemetry.api.CounterMetrics;
 import org.apache.skywalking.oap.server.telemetry.api.HistogramMetrics;
 import org.apache.skywalking.oap.server.telemetry.api.MetricsCreator;
 import org.apache.skywalking.oap.server.telemetry.api.MetricsTag;
 
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -95,8 +98,16 @@ public class AccessLogServiceHandler extends EBPFAccessLogServiceGrpc.EBPFAccess
     private final HistogramMetrics processHistogram;
     private final CounterMetrics dropCounter;
     private final ConcurrentHashMap<String, DropDataReason> dropReasons = new ConcurrentHashMap<>();
+    private final int connectionCacheSize;
+    private final int connectionCacheTimeout;
 
     public AccessLogServiceHandler(ModuleManager moduleManager) {
+        this(moduleManager, new EBPFReceiverModuleConfig());
+    }
+
+    public AccessLogServiceHandler(ModuleManager moduleManager, EBPFReceiverModuleConfig config) {
+        this.connectionCacheSize = config.getAccessLogConnectionCacheSize();
+        this.connectionCacheTimeout = config.getAccessLogConnectionCacheTimeout();
         this.sourceReceiver = moduleManager.find(CoreModule.NAME).provider().getService(SourceReceiver.class);
         this.namingControl = moduleManager.find(CoreModule.NAME).provider().getService(NamingControl.class);
 
@@ -124,18 +135,28 @@ public class AccessLogServiceHandler extends EBPFAccessLogServiceGrpc.EBPFAccess
     public StreamObserver<EBPFAccessLogMessage> collect(StreamObserver<EBPFAccessLogDownstream> responseObserver) {
         return new StreamObserver<>() {
             private volatile boolean isFirst = true;
+            private EBPFAccessLogNodeInfo nodeMessage;
             private NodeInfo node;
             private volatile ConnectionInfo connection;
+            // the connections resolved by the current node, the same connection is sent with every batch of its logs
+            private final Cache<AccessLogConnection, ConnectionInfo> connections = CacheBuilder.newBuilder()
+                .maximumSize(connectionCacheSize)
+                .expireAfterWrite(connectionCacheTimeout, TimeUnit.SECONDS)
+                .build();
 
             @Override
             public void onNext(EBPFAccessLogMessage logMessage) {
                 try (final var ignored = processHistogram.createTimer()) {
                     if (isFirst || logMessage.hasNode()) {
                         isFirst = false;
-                        node = new NodeInfo(logMessage.getNode());
+                        if (node == null || !logMessage.getNode().equals(nodeMessage)) {
+                            nodeMessage = logMessage.getNode();
+                            node = new NodeInfo(nodeMessage);
+                            connections.invalidateAll();
+                        }
                     }
                     if (logMessage.hasConnection()) {
-                        connection = new ConnectionInfo(namingControl, node, logMessage.getConnection());
+                        connection = resolveConnection(connections, node, logMessage.getConnection());
                     }
 
                     if (log.isDebugEnabled()) {
@@ -150,8 +171,8 @@ public class AccessLogServiceHandler extends EBPFAccessLogServiceGrpc.EBPFAccess
                         return;
                     }
 
+                    inCounter.inc(logMessage.getKernelLogsCount());
                     for (AccessLogKernelLog accessLogKernelLog : logMessage.getKernelLogsList()) {
-                        inCounter.inc();
                         dispatchKernelLog(node, connection, accessLogKernelLog);
                     }
 
@@ -178,14 +199,28 @@ public class AccessLogServiceHandler extends EBPFAccessLogServiceGrpc.EBPFAccess
         };
     }
 
+    /**
+     * Resolve the connection of the stream, the valid ones are cached, so their addresses and entities are not built
+     * again for every batch of their logs.
+     */
+    protected ConnectionInfo resolveConnection(Cache<AccessLogConnection, ConnectionInfo> connections,
+                                               NodeInfo node, AccessLogConnection connection) {
+        ConnectionInfo connectionInfo = connections.getIfPresent(connection);
+        if (connectionInfo == null) {
+            connectionInfo = new ConnectionInfo(namingControl, node, connection);
+            if (connectionInfo.isValid()) {
+                connections.put(connection, connectionInfo);
+            }
+        }
+        return connectionInfo;
+    }
+
     protected List<K8SMetrics> buildKernelLogMetrics(NodeInfo node, ConnectionInfo connection, AccessLogKernelLog kernelLog) {
-        return Arrays.asList(connection.toService(), connection.toServiceInstance(),
-            connection.toServiceRelation(), connection.toServiceInstanceRelation());
+        return connection.getEntities();
     }
 
     protected List<K8SMetrics> buildProtocolServiceWithInstanceMetrics(NodeInfo node, ConnectionInfo connection, List<AccessLogKernelLog> relatedKernelLogs, AccessLogProtocolLogs protocolLog) {
-        return Arrays.asList(connection.toService(), connection.toServiceInstance(),
-            connection.toServiceRelation(), connection.toServiceInstanceRelation());
+        return connection.getEntities();
     }
 
     protected List<K8SMetrics.ProtocolMetrics> buildProtocolEndpointMetrics(NodeInfo node, ConnectionInfo connection,
@@ -196,115 +231,111 @@ public class AccessLogServiceHandler extends EBPFAccessLogServiceGrpc.EBPFAccess
     }
 
     protected void dispatchKernelLog(NodeInfo node, ConnectionInfo connection, AccessLogKernelLog kernelLog) {
-        final List<K8SMetrics> metrics = buildKernelLogMetrics(node, connection, kernelLog)
-            .stream().filter(Objects::nonNull).collect(Collectors.toList());
-
-        for (K8SMetrics metric : metrics) {
-            switch (kernelLog.getOperationCase()) {
-                case CONNECT:
-                    final AccessLogKernelConnectOperation connect = kernelLog.getConnect();
-                    metric.setTimeBucket(node.parseMinuteTimeBucket(connect.getStartTime()));
-                    metric.setType(K8SMetrics.TYPE_CONNECT);
-                    metric.setConnect(new K8SMetrics.Connect());
-                    metric.getConnect().setDuration(getDurationFromTimestamp(node, connect.getStartTime(), connect.getEndTime()));
-                    metric.getConnect().setSuccess(connect.getSuccess());
-                    break;
-                case ACCEPT:
-                    final AccessLogKernelAcceptOperation accept = kernelLog.getAccept();
-                    metric.setTimeBucket(node.parseMinuteTimeBucket(accept.getStartTime()));
-                    metric.setType(K8SMetrics.TYPE_ACCEPT);
-                    metric.setAccept(new K8SMetrics.Accept());
-                    metric.getAccept().setDuration(getDurationFromTimestamp(node, accept.getStartTime(), accept.getEndTime()));
-                    break;
-                case CLOSE:
-                    final AccessLogKernelCloseOperation close = kernelLog.getClose();
-                    metric.setTimeBucket(node.parseMinuteTimeBucket(close.getStartTime()));
-                    metric.setType(K8SMetrics.TYPE_CLOSE);
-                    metric.setClose(new K8SMetrics.Close());
-                    metric.getClose().setDuration(getDurationFromTimestamp(node, close.getStartTime(), close.getEndTime()));
-                    metric.getClose().setSuccess(close.getSuccess());
-                    break;
-                case READ:
-                    final AccessLogKernelReadOperation read = kernelLog.getRead();
-                    metric.setTimeBucket(node.parseMinuteTimeBucket(read.getStartTime()));
-                    metric.setType(K8SMetrics.TYPE_READ);
-                    metric.setRead(new K8SMetrics.Read());
-                    metric.getRead().setDuration(getDurationFromTimestamp(node, read.getStartTime(), read.getEndTime()));
-                    metric.getRead().setSyscall(read.getSyscall().name());
-
-                    // l4
-                    final K8SMetrics.ReadL4 readL4 = new K8SMetrics.ReadL4();
-                    metric.getRead().setL4(readL4);
-                    readL4.setDuration(read.getL4Metrics().getTotalDuration());
-
-                    // l3
-                    final K8SMetrics.ReadL3 readL3 = new K8SMetrics.ReadL3();
-                    metric.getRead().setL3(readL3);
-                    readL3.setDuration(read.getL3Metrics().getTotalDuration());
-                    readL3.setRcvDuration(read.getL3Metrics().getTotalRecvDuration());
-                    readL3.setLocalDuration(read.getL3Metrics().getTotalLocalDuration());
-                    final long totalWriteNetFilterCount = read.getL3Metrics().getTotalNetFilterCount();
-                    if (totalWriteNetFilterCount > 0) {
-                        readL3.setNetFilterCount(totalWriteNetFilterCount);
-                        readL3.setNetFilterDuration(read.getL3Metrics().getTotalNetFilterDuration());
-                    }
-
-                    // l2
-                    final K8SMetrics.ReadL2 readL2 = new K8SMetrics.ReadL2();
-                    metric.getRead().setL2(readL2);
-                    readL2.setNetDeviceName(node.getNetInterfaceName(read.getL2Metrics().getIfindex()));
-                    readL2.setPackageCount(read.getL2Metrics().getTotalPackageCount());
-                    readL2.setTotalPackageSize(read.getL2Metrics().getTotalPackageSize());
-                    readL2.setPackageToQueueDuration(read.getL2Metrics().getTotalPackageToQueueDuration());
-                    readL2.setRcvPackageFromQueueDuration(read.getL2Metrics().getTotalRcvPackageFromQueueDuration());
-                    break;
+        // the holders are filled once and shared by all the metrics of the log
+        final MetricsHolder holder = connection.getMetricsHolder();
+        final long timeBucket;
+        final String type;
+        switch (kernelLog.getOperationCase()) {
+            case CONNECT:
+                final AccessLogKernelConnectOperation connect = kernelLog.getConnect();
+                timeBucket = node.parseMinuteTimeBucket(connect.getStartTime());
+                type = K8SMetrics.TYPE_CONNECT;
+                holder.connect.setDuration(getDurationFromTimestamp(node, connect.getStartTime(), connect.getEndTime()));
+                holder.connect.setSuccess(connect.getSuccess());
+                break;
+            case ACCEPT:
+                final AccessLogKernelAcceptOperation accept = kernelLog.getAccept();
+                timeBucket = node.parseMinuteTimeBucket(accept.getStartTime());
+                type = K8SMetrics.TYPE_ACCEPT;
+                holder.accept.setDuration(getDurationFromTimestamp(node, accept.getStartTime(), accept.getEndTime()));
+                break;
+            case CLOSE:
+                final AccessLogKernelCloseOperation close = kernelLog.getClose();
+                timeBucket = node.parseMinuteTimeBucket(close.getStartTime());
+                type = K8SMetrics.TYPE_CLOSE;
+                holder.close.setDuration(getDurationFromTimestamp(node, close.getStartTime(), close.getEndTime()));
+                holder.close.setSuccess(close.getSuccess());
+                break;
+            case READ:
+                final AccessLogKernelReadOperation read = kernelLog.getRead();
+                timeBucket = node.parseMinuteTimeBucket(read.getStartTime());
+                type = K8SMetrics.TYPE_READ;
+                holder.read.setDuration(getDurationFromTimestamp(node, read.getStartTime(), read.getEndTime()));
+                holder.read.setSyscall(read.getSyscall().name());
+
+                // l4
+                final K8SMetrics.ReadL4 readL4 = holder.read.getL4();
+                readL4.setDuration(read.getL4Metrics().getTotalDuration());
+
+                // l3
+                final K8SMetrics.ReadL3 readL3 = holder.read.getL3();
+                readL3.setDuration(read.getL3Metrics().getTotalDuration());
+                readL3.setRcvDuration(read.getL3Metrics().getTotalRecvDuration());
+                readL3.setLocalDuration(read.getL3Metrics().getTotalLocalDuration());
+                final long totalWriteNetFilterCount = read.getL3Metrics().getTotalNetFilterCount();
+                readL3.setNetFilterCount(Math.max(totalWriteNetFilterCount, 0));
+                readL3.setNetFilterDuration(totalWriteNetFilterCount > 0 ? read.getL3Metrics().getTotalNetFilterDuration() : 0);
+
+                // l2
+                final K8SMetrics.ReadL2 readL2 = holder.read.getL2();
+                readL2.setNetDeviceName(node.getNetInterfaceName(read.getL2Metrics().getIfindex()));
+                readL2.setPackageCount(read.getL2Metrics().getTotalPackageCount());
+                readL2.setTotalPackageSize(read.getL2Metrics().getTotalPackageSize());
+                readL2.setPackageToQueueDuration(read.getL2Metrics().getTotalPackageToQueueDuration());
+                readL2.setRcvPackageFromQueueDuration(read.getL2Metrics().getTotalRcvPackageFromQueueDuration());
+                break;
 
-                case WRITE:
-                    final AccessLogKernelWriteOperation write = kernelLog.getWrite();
-                    metric.setTimeBucket(node.parseMinuteTimeBucket(write.getStartTime()));
-                    metric.setType(K8SMetrics.TYPE_WRITE);
-                    metric.setWrite(new K8SMetrics.Write());
-                    metric.getWrite().setDuration(getDurationFromTimestamp(node, write.getStartTime(), write.getEndTime()));
-                    metric.getWrite().setSyscall(write.getSyscall().name());
-
-                    // l4
-                    final K8SMetrics.WriteL4 writeL4 = new K8SMetrics.WriteL4();
-                    metric.getWrite().setL4(writeL4);
-                    writeL4.setDuration(write.getL4Metrics().getTotalDuration());
-                    writeL4.setTransmitPackageCount(write.getL4Metrics().getTotalTransmitPackageCount());
-                    writeL4.setRetransmitPackageCount(write.getL4Metrics().getTotalRetransmitPackageCount());
-                    writeL4.setTotalPackageSize(write.getL4Metrics().getTotalPackageSize());
-
-                    // l3
-                    final K8SMetrics.WriteL3 writeL3 = new K8SMetrics.WriteL3();
-                    metric.getWrite().setL3(writeL3);
-                    writeL3.setDuration(write.getL3Metrics().getTotalDuration());
-                    writeL3.setLocalDuration(write.getL3Metrics().getTotalLocalDuration());
-                    writeL3.setOutputDuration(write.getL3Metrics().getTotalOutputDuration());
-                    final long totalResolveMACCount = write.getL3Metrics().getTotalResolveMACCount();
-                    if (totalResolveMACCount > 0) {
-                        writeL3.setResolveMACCount(totalResolveMACCount);
-                        writeL3.setResolveMACDuration(write.getL3Metrics().getTotalResolveMACDuration());
-                    }
-                    final long totalReadNetFilterCount = write.getL3Metrics().getTotalNetFilterCount();
-                    if (totalReadNetFilterCount > 0) {
-                        writeL3.setNetFilterCount(totalReadNetFilterCount);
-                        writeL3.setNetFilterDuration(write.getL3Metrics().getTotalNetFilterDuration());
-                    }
+            case WRITE:
+                final AccessLogKernelWriteOperation write = kernelLog.getWrite();
+                timeBucket = node.parseMinuteTimeBucket(write.getStartTime());
+                type = K8SMetrics.TYPE_WRITE;
+                holder.write.setDuration(getDurationFromTimestamp(node, write.getStartTime(), write.getEndTime()));
+                holder.write.setSyscall(write.getSyscall().name());
+
+                // l4
+                final K8SMetrics.WriteL4 writeL4 = holder.write.getL4();
+                writeL4.setDuration(write.getL4Metrics().getTotalDuration());
+                writeL4.setTransmitPackageCount(write.getL4Metrics().getTotalTransmitPackageCount());
+                writeL4.setRetransmitPackageCount(write.getL4Metrics().getTotalRetransmitPackageCount());
+                writeL4.setTotalPackageSize(write.getL4Metrics().getTotalPackageSize());
+
+                // l3
+                final K8SMetrics.WriteL3 writeL3 = holder.write.getL3();
+                writeL3.setDuration(write.getL3Metrics().getTotalDuration());
+                writeL3.setLocalDuration(write.getL3Metrics().getTotalLocalDuration());
+                writeL3.setOutputDuration(write.getL3Metrics().getTotalOutputDuration());
+                final long totalResolveMACCount = write.getL3Metrics().getTotalResolveMACCount();
+                writeL3.setResolveMACCount(Math.max(totalResolveMACCount, 0));
+                writeL3.setResolveMACDuration(totalResolveMACCount > 0 ? write.getL3Metrics().getTotalResolveMACDuration() : 0);
+                final long totalReadNetFilterCount = write.getL3Metrics().getTotalNetFilterCount();
+                writeL3.setNetFilterCount(Math.max(totalReadNetFilterCount, 0));
+                writeL3.setNetFilterDuration(totalReadNetFilterCount > 0 ? write.getL3Metrics().getTotalNetFilterDuration() : 0);
+
+                // l2
+                final K8SMetrics.WriteL2 writeL2 = holder.write.getL2();
+                writeL2.setDuration(write.getL2Metrics().getTotalDuration());
+                writeL2.setNetworkDeviceName(node.getNetInterfaceName(write.getL2Metrics().getIfindex()));
+                final long totalEnterQueueBufferCount = write.getL2Metrics().getTotalEnterQueueBufferCount();
+                writeL2.setEnterQueueBufferCount(totalEnterQueueBufferCount);
+                writeL2.setReadySendDuration(write.getL2Metrics().getTotalReadySendDuration());
+                writeL2.setNetworkDeviceSendDuration(write.getL2Metrics().getTotalNetDeviceSendDuration());
+                break;
+            default:
+                // unknown operation, nothing to analyze
+                return;
+        }
 
-                    // l2
-                    final K8SMetrics.WriteL2 writeL2 = new K8SMetrics.WriteL2();
-                    metric.getWrite().setL2(writeL2);
-                    writeL2.setDuration(write.getL2Metrics().getTotalDuration());
-                    writeL2.setNetworkDeviceName(node.getNetInterfaceName(write.getL2Metrics().getIfindex()));
-                    final long totalEnterQueueBufferCount = write.getL2Metrics().getTotalEnterQueueBufferCount();
-                    writeL2.setEnterQueueBufferCount(totalEnterQueueBufferCount);
-                    writeL2.setReadySendDuration(write.getL2Metrics().getTotalReadySendDuration());
-                    writeL2.setNetworkDeviceSendDuration(write.getL2Metrics().getTotalNetDeviceSendDuration());
-                    break;
+        final List<K8SMetrics> metrics = buildKernelLogMetrics(node, connection, kernelLog);
+        for (int i = 0; i < metrics.size(); i++) {
+            final K8SMetrics metric = metrics.get(i);
+            if (metric == null) {
+                continue;
             }
+            metric.setTimeBucket(timeBucket);
+            metric.setType(type);
+            holder.attachKernelMetrics(metric);
 
-            // send the metrics
+            // send the metrics, the dispatchers copy them, so the metrics and holders could be reused
             sourceReceiver.receive(metric);
         }
     }
@@ -315,7 +346,10 @@ public class AccessLogServiceHandler extends EBPFAccessLogServiceGrpc.EBPFAccess
         boolean success = false;
         long duration = 0;
 
-        final K8SMetrics.Protocol protocol = new K8SMetrics.Protocol();
+        final MetricsHolder holder = connection.getMetricsHolder();
+        final K8SMetrics.Protocol protocol = holder.protocol;
+        protocol.setType(null);
+        protocol.setHttp(null);
         switch (protocolLog.getProtocolCase()) {
             case HTTP:
                 final AccessLogHTTPProtocol http = protocolLog.getHttp();
@@ -323,8 +357,7 @@ public class AccessLogServiceHandler extends EBPFAccessLogServiceGrpc.EBPFAccess
 
                 startTimeBucket = node.parseMinuteTimeBucket(http.getStartTime());
                 protocol.setType(K8SMetrics.PROTOCOL_TYPE_HTTP);
-                protocol.setHttp(new K8SMetrics.ProtocolHTTP());
-                protocol.setSuccess(success);
+                protocol.setHttp(holder.http);
 
                 duration = convertNsToMs(getDurationFromTimestamp(node, http.getStartTime(), http.getEndTime()));
                 protocol.getHttp().setLatency(duration);
@@ -337,31 +370,40 @@ public class AccessLogServiceHandler extends EBPFAccessLogServiceGrpc.EBPFAccess
                 protocol.getHttp().setSizeOfResponseBody(http.getResponse().getSizeOfBodyBytes());
                 break;
         }
+        protocol.setSuccess(success);
 
         // service, service instance, service relation, service instance relation
-        long finalStartTimeBucket = startTimeBucket;
-        Stream.ofNullable(buildProtocolServiceWithInstanceMetrics(node, connection, relatedKernelLogs, protocolLog))
-            .flatMap(List::stream)
-            .filter(Objects::nonNull)
-            .forEach(metric -> {
+        final List<K8SMetrics> metrics = buildProtocolServiceWithInstanceMetrics(node, connection, relatedKernelLogs, protocolLog);
+        if (metrics != null) {
+            for (int i = 0; i < metrics.size(); i++) {
+                final K8SMetrics metric = metrics.get(i);
+                if (metric == null) {
+                    continue;
+                }
                 metric.setType(K8SMetrics.TYPE_PROTOCOL);
                 metric.setProtocol(protocol);
-                metric.setTimeBucket(finalStartTimeBucket);
+                metric.setTimeBucket(startTimeBucket);
                 sourceReceiver.receive(metric);
-            });
+            }
+        }
 
         // endpoint, endpoint relation
         final String endpointName = buildProtocolEndpointName(connection, protocolLog);
-        Stream.ofNullable(buildProtocolEndpointMetrics(node, connection, endpointName, relatedKernelLogs, protocolLog, success, duration))
-            .flatMap(List::stream)
-            .filter(Objects::nonNull)
-            .forEach(metric -> {
+        final List<K8SMetrics.ProtocolMetrics> endpointMetrics = buildProtocolEndpointMetrics(
+            node, connection, endpointName, relatedKernelLogs, protocolLog, success, duration);
+        if (endpointMetrics != null) {
+            for (int i = 0; i < endpointMetrics.size(); i++) {
+                final K8SMetrics.ProtocolMetrics metric = endpointMetrics.get(i);
+                if (metric == null) {
+                    continue;
+                }
                 metric.setType(protocol.getType());
                 metric.setHttp(protocol.getHttp());
-                metric.setTimeBucket(finalStartTimeBucket);
+                metric.setTimeBucket(startTimeBucket);
 
                 sourceReceiver.receive(metric);
-            });
+            }
+        }
     }
 
     protected long getDurationFromTimestamp(NodeInfo nodeInfo, EBPFTimestamp start, EBPFTimestamp end) {
@@ -571,6 +613,12 @@ public class AccessLogServiceHandler extends EBPFAccessLogServiceGrpc.EBPFAccess
         private final AccessLogProtocolType protocolType;
         private final NodeInfo nodeInfo;
         private final boolean valid;
+        private final MetricsHolder metricsHolder = new MetricsHolder();
+        // the entities of the connection are built once, and reused by all its logs
+        @Getter(AccessLevel.NONE)
+        private List<K8SMetrics> entities;
+        @Getter(AccessLevel.NONE)
+        private String localServiceName;
 
         public ConnectionInfo(NamingControl namingControl, NodeInfo nodeInfo, AccessLogConnection connection) {
             this.originalConnection = connection;
@@ -613,7 +661,23 @@ public class AccessLogServiceHandler extends EBPFAccessLogServiceGrpc.EBPFAccess
         }
 
         public String buildLocalServiceName() {
-            return buildServiceNameByAddress(nodeInfo, local);
+            if (localServiceName == null) {
+                localServiceName = buildServiceNameByAddress(nodeInfo, local);
+            }
+            return localServiceName;
+        }
+
+        /**
+         * @return the service, service instance, service relation and service instance relation of the connection,
+         * the entities which could not be built are excluded.
+         */
+        public List<K8SMetrics> getEntities() {
+            if (entities == null) {
+                entities = Stream.of(toService(), toServiceInstance(), toServiceRelation(), toServiceInstanceRelation())
+                                 .filter(Objects::nonNull)
+                                 .collect(Collectors.toUnmodifiableList());
+            }
+            return entities;
         }
 
         public K8SService toService() {
@@ -703,7 +767,7 @@ public class AccessLogServiceHandler extends EBPFAccessLogServiceGrpc.EBPFAccess
                 return null;
             }
             final K8SEndpoint endpoint = new K8SEndpoint();
-            final String serviceName = buildServiceNameByAddress(nodeInfo, local);
+            final String serviceName = buildLocalServiceName();
             endpoint.setServiceName(serviceName);
             endpoint.setEndpointName(namingControl.formatEndpointName(serviceName, endpointName));
             endpoint.setLayer(Layer.K8S_SERVICE);
@@ -733,6 +797,37 @@ public class AccessLogServiceHandler extends EBPFAccessLogServiceGrpc.EBPFAccess
 
     }
 
+    /**
+     * The holders of the kernel and protocol metrics of a connection. The sources are copied into metrics when they
+     * are received, so the holders are refilled by every log instead of being allocated.
+     */
+    protected static class MetricsHolder {
+        private final K8SMetrics.Connect connect = new K8SMetrics.Connect();
+        private final K8SMetrics.Accept accept = new K8SMetrics.Accept();
+        private final K8SMetrics.Close close = new K8SMetrics.Close();
+        private final K8SMetrics.Read read = new K8SMetrics.Read();
+        private final K8SMetrics.Write write = new K8SMetrics.Write();
+        private final K8SMetrics.Protocol protocol = new K8SMetrics.Protocol();
+        private final K8SMetrics.ProtocolHTTP http = new K8SMetrics.ProtocolHTTP();
+
+        private MetricsHolder() {
+            read.setL4(new K8SMetrics.ReadL4());
+            read.setL3(new K8SMetrics.ReadL3());
+            read.setL2(new K8SMetrics.ReadL2());
+            write.setL4(new K8SMetrics.WriteL4());
+            write.setL3(new K8SMetrics.WriteL3());
+            write.setL2(new K8SMetrics.WriteL2());
+        }
+
+        private void attachKernelMetrics(K8SMetrics metric) {
+            metric.setConnect(connect);
+            metric.setAccept(accept);
+            metric.setClose(close);
+            metric.setRead(read);
+            metric.setWrite(write);
+        }
+    }
+
     private static enum DropReasonType {
         SameService,
         ConnectionLoss
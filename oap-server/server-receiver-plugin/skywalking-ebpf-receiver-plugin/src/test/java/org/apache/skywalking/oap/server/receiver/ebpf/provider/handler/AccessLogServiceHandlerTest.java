@@ -0,0 +1,274 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.receiver.ebpf.provider.handler;
+
+import io.grpc.stub.StreamObserver;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.skywalking.apm.network.common.v3.DetectPoint;
+import org.apache.skywalking.apm.network.ebpf.accesslog.v3.AccessLogConnection;
+import org.apache.skywalking.apm.network.ebpf.accesslog.v3.AccessLogConnectionTLSMode;
+import org.apache.skywalking.apm.network.ebpf.accesslog.v3.AccessLogHTTPProtocol;
+import org.apache.skywalking.apm.network.ebpf.accesslog.v3.AccessLogHTTPProtocolRequest;
+import org.apache.skywalking.apm.network.ebpf.accesslog.v3.AccessLogHTTPProtocolRequestMethod;
+import org.apache.skywalking.apm.network.ebpf.accesslog.v3.AccessLogHTTPProtocolResponse;
+import org.apache.skywalking.apm.network.ebpf.accesslog.v3.AccessLogKernelConnectOperation;
+import org.apache.skywalking.apm.network.ebpf.accesslog.v3.AccessLogKernelLog;
+import org.apache.skywalking.apm.network.ebpf.accesslog.v3.AccessLogKernelReadL3Metrics;
+import org.apache.skywalking.apm.network.ebpf.accesslog.v3.AccessLogKernelReadOperation;
+import org.apache.skywalking.apm.network.ebpf.accesslog.v3.AccessLogProtocolLogs;
+import org.apache.skywalking.apm.network.ebpf.accesslog.v3.AccessLogProtocolType;
+import org.apache.skywalking.apm.network.ebpf.accesslog.v3.ConnectionAddress;
+import org.apache.skywalking.apm.network.ebpf.accesslog.v3.EBPFAccessLogDownstream;
+import org.apache.skywalking.apm.network.ebpf.accesslog.v3.EBPFAccessLogMessage;
+import org.apache.skywalking.apm.network.ebpf.accesslog.v3.EBPFAccessLogNodeInfo;
+import org.apache.skywalking.apm.network.ebpf.accesslog.v3.EBPFOffsetTimestamp;
+import org.apache.skywalking.apm.network.ebpf.accesslog.v3.EBPFTimestamp;
+import org.apache.skywalking.apm.network.ebpf.accesslog.v3.KubernetesProcessAddress;
+import org.apache.skywalking.oap.server.core.analysis.DispatcherDetectorListener;
+import org.apache.skywalking.oap.server.core.config.NamingControl;
+import org.apache.skywalking.oap.server.core.config.group.EndpointNameGrouping;
+import org.apache.skywalking.oap.server.core.source.ISource;
+import org.apache.skywalking.oap.server.core.source.K8SEndpoint;
+import org.apache.skywalking.oap.server.core.source.K8SMetrics;
+import org.apache.skywalking.oap.server.core.source.SourceReceiver;
+import org.apache.skywalking.oap.server.library.module.ModuleManager;
+import org.apache.skywalking.oap.server.library.module.ModuleProviderHolder;
+import org.apache.skywalking.oap.server.library.module.ModuleServiceHolder;
+import org.apache.skywalking.oap.server.library.module.Service;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsCreator;
+import org.apache.skywalking.oap.server.telemetry.none.MetricsCreatorNoop;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class AccessLogServiceHandlerTest {
+    private RecordingSourceReceiver receiver;
+    private CountingAccessLogServiceHandler handler;
+
+    @BeforeEach
+    public void setUp() {
+        receiver = new RecordingSourceReceiver();
+        handler = new CountingAccessLogServiceHandler(new ServicesModuleManager(receiver));
+    }
+
+    @Test
+    public void testReusedHoldersAreRefilledByEveryLog() {
+        final StreamObserver<EBPFAccessLogMessage> stream = handler.collect(new NoopDownstreamObserver());
+        stream.onNext(EBPFAccessLogMessage.newBuilder()
+                                          .setNode(node())
+                                          .setConnection(connection())
+                                          .addKernelLogs(connect(100))
+                                          .addKernelLogs(read(3, 30))
+                                          .addKernelLogs(read(0, 20))
+                                          .build());
+
+        // service, service instance, service relation and service instance relation of every log
+        assertEquals(12, receiver.records.size());
+        assertEquals("K8SService connect duration=100 success=true", receiver.records.get(0));
+        assertEquals("K8SServiceInstance connect duration=100 success=true", receiver.records.get(1));
+        assertEquals("K8SServiceRelation read duration=10 netFilterCount=3 netFilterDuration=30", receiver.records.get(6));
+        // the net filter metrics are not reported, they must not be kept from the previous log
+        assertEquals("K8SServiceInstanceRelation read duration=10 netFilterCount=0 netFilterDuration=0", receiver.records.get(11));
+    }
+
+    @Test
+    public void testConnectionResolvedOncePerStream() {
+        final StreamObserver<EBPFAccessLogMessage> stream = handler.collect(new NoopDownstreamObserver());
+        stream.onNext(EBPFAccessLogMessage.newBuilder()
+                                          .setNode(node())
+                                          .setConnection(connection())
+                                          .addKernelLogs(connect(100))
+                                          .setProtocolLog(http(200))
+                                          .build());
+        final int resolved = handler.serviceNameBuilt;
+
+        stream.onNext(EBPFAccessLogMessage.newBuilder()
+                                          .setConnection(connection())
+                                          .addKernelLogs(connect(200))
+                                          .setProtocolLog(http(404))
+                                          .build());
+        assertEquals(resolved, handler.serviceNameBuilt);
+        assertEquals(2 * (4 + 4 + 1), receiver.records.size());
+        assertEquals("K8SService connect duration=200 success=true", receiver.records.get(9));
+        assertEquals("K8SService protocol http latency=5 statusCode=404 success=true", receiver.records.get(13));
+        assertEquals("K8SEndpoint http latency=5 statusCode=404 endpoint=GET:/users", receiver.records.get(17));
+
+        // a new node resolves the connection again
+        stream.onNext(EBPFAccessLogMessage.newBuilder()
+                                          .setNode(node().toBuilder().setClusterName("other"))
+                                          .setConnection(connection())
+                                          .addKernelLogs(connect(300))
+                                          .setProtocolLog(http(200))
+                                          .build());
+        assertEquals(resolved * 2, handler.serviceNameBuilt);
+    }
+
+    private static EBPFAccessLogNodeInfo node() {
+        return EBPFAccessLogNodeInfo.newBuilder().setName("node-1").setClusterName("cluster").build();
+    }
+
+    private static AccessLogConnection connection() {
+        return AccessLogConnection.newBuilder()
+                                  .setLocal(ConnectionAddress.newBuilder().setKubernetes(
+                                      KubernetesProcessAddress.newBuilder().setServiceName("svc-a").setPodName("pod-a")))
+                                  .setRemote(ConnectionAddress.newBuilder().setKubernetes(
+                                      KubernetesProcessAddress.newBuilder().setServiceName("svc-b").setPodName("pod-b")))
+                                  .setRole(DetectPoint.server)
+                                  .setTlsMode(AccessLogConnectionTLSMode.Plain)
+                                  .setProtocol(AccessLogProtocolType.HTTP_1)
+                                  .build();
+    }
+
+    private static EBPFTimestamp timestamp(long offset) {
+        return EBPFTimestamp.newBuilder().setOffset(EBPFOffsetTimestamp.newBuilder().setOffset(offset)).build();
+    }
+
+    private static AccessLogKernelLog connect(long duration) {
+        return AccessLogKernelLog.newBuilder().setConnect(
+            AccessLogKernelConnectOperation.newBuilder()
+                                           .setStartTime(timestamp(1000))
+                                           .setEndTime(timestamp(1000 + duration))
+                                           .setSuccess(true)).build();
+    }
+
+    private static AccessLogKernelLog read(long netFilterCount, long netFilterDuration) {
+        return AccessLogKernelLog.newBuilder().setRead(
+            AccessLogKernelReadOperation.newBuilder()
+                                        .setStartTime(timestamp(1000))
+                                        .setEndTime(timestamp(1010))
+                                        .setL3Metrics(AccessLogKernelReadL3Metrics.newBuilder()
+                                                                                  .setTotalNetFilterCount(netFilterCount)
+                                                                                  .setTotalNetFilterDuration(netFilterDuration))).build();
+    }
+
+    private static AccessLogProtocolLogs http(int statusCode) {
+        return AccessLogProtocolLogs.newBuilder().setHttp(
+            AccessLogHTTPProtocol.newBuilder()
+                                 .setStartTime(timestamp(0))
+                                 .setEndTime(timestamp(5_000_000))
+                                 .setRequest(AccessLogHTTPProtocolRequest.newBuilder()
+                                                                         .setMethod(AccessLogHTTPProtocolRequestMethod.Get)
+                                                                         .setPath("/users"))
+                                 .setResponse(AccessLogHTTPProtocolResponse.newBuilder().setStatusCode(statusCode))).build();
+    }
+
+    private static class CountingAccessLogServiceHandler extends AccessLogServiceHandler {
+        private int serviceNameBuilt;
+
+        private CountingAccessLogServiceHandler(ModuleManager moduleManager) {
+            super(moduleManager);
+        }
+
+        @Override
+        protected String buildServiceNameByAddress(NodeInfo nodeInfo, KubernetesProcessAddress address) {
+            serviceNameBuilt++;
+            return super.buildServiceNameByAddress(nodeInfo, address);
+        }
+    }
+
+    /**
+     * Records the sources when they are received, as the handler reuses them.
+     */
+    private static class RecordingSourceReceiver implements SourceReceiver {
+        private final List<String> records = new ArrayList<>();
+
+        @Override
+        public void receive(final ISource source) {
+            if (source instanceof K8SEndpoint) {
+                final K8SEndpoint endpoint = (K8SEndpoint) source;
+                records.add(String.format("K8SEndpoint %s latency=%d statusCode=%d endpoint=%s", endpoint.getType(),
+                    endpoint.getHttp().getLatency(), endpoint.getHttp().getStatusCode(), endpoint.getEndpointName()));
+                return;
+            }
+            final K8SMetrics metrics = (K8SMetrics) source;
+            final String name = source.getClass().getSimpleName() + " " + metrics.getType();
+            switch (metrics.getType()) {
+                case K8SMetrics.TYPE_CONNECT:
+                    records.add(String.format("%s duration=%d success=%b", name,
+                        metrics.getConnect().getDuration(), metrics.getConnect().isSuccess()));
+                    break;
+                case K8SMetrics.TYPE_READ:
+                    records.add(String.format("%s duration=%d netFilterCount=%d netFilterDuration=%d", name,
+                        metrics.getRead().getDuration(), metrics.getRead().getL3().getNetFilterCount(),
+                        metrics.getRead().getL3().getNetFilterDuration()));
+                    break;
+                case K8SMetrics.TYPE_PROTOCOL:
+                    records.add(String.format("%s %s latency=%d statusCode=%d success=%b", name,
+                        metrics.getProtocol().getType(), metrics.getProtocol().getHttp().getLatency(),
+                        metrics.getProtocol().getHttp().getStatusCode(), metrics.getProtocol().isSuccess()));
+                    break;
+                default:
+                    records.add(name);
+            }
+        }
+
+        @Override
+        public DispatcherDetectorListener getDispatcherDetectorListener() {
+            return null;
+        }
+    }
+
+    private static class ServicesModuleManager extends ModuleManager {
+        private final Map<Class<? extends Service>, Service> services = new HashMap<>();
+        private final ModuleServiceHolder serviceHolder = new ModuleServiceHolder() {
+            @Override
+            public void registerServiceImplementation(final Class<? extends Service> serviceType,
+                                                      final Service service) {
+                services.put(serviceType, service);
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T extends Service> T getService(final Class<T> serviceType) {
+                return (T) services.get(serviceType);
+            }
+        };
+
+        private ServicesModuleManager(SourceReceiver receiver) {
+            super("AccessLogServiceHandlerTest");
+            serviceHolder.registerServiceImplementation(SourceReceiver.class, receiver);
+            serviceHolder.registerServiceImplementation(
+                NamingControl.class, new NamingControl(512, 512, 512, new EndpointNameGrouping()));
+            serviceHolder.registerServiceImplementation(MetricsCreator.class, new MetricsCreatorNoop());
+        }
+
+        @Override
+        public ModuleProviderHolder find(final String moduleName) {
+            return () -> serviceHolder;
+        }
+    }
+
+    private static class NoopDownstreamObserver implements StreamObserver<EBPFAccessLogDownstream> {
+        @Override
+        public void onNext(final EBPFAccessLogDownstream value) {
+        }
+
+        @Override
+        public void onError(final Throwable t) {
+        }
+
+        @Override
+        public void onCompleted() {
+        }
+    }
+}
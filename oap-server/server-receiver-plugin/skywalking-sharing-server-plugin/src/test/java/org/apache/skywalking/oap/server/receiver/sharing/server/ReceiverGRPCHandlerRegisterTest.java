@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.receiver.sharing.server;
+
+import io.grpc.BindableService;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServerServiceDefinition;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.skywalking.oap.server.core.server.GRPCHandlerRegister;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ReceiverGRPCHandlerRegisterTest {
+    private static final MethodDescriptor.Marshaller<byte[]> MARSHALLER = new MethodDescriptor.Marshaller<byte[]>() {
+        @Override
+        public InputStream stream(final byte[] value) {
+            return new ByteArrayInputStream(value);
+        }
+
+        @Override
+        public byte[] parse(final InputStream stream) {
+            return new byte[0];
+        }
+    };
+    private static final MethodDescriptor<byte[], byte[]> METHOD =
+        MethodDescriptor.<byte[], byte[]>newBuilder()
+                        .setType(MethodDescriptor.MethodType.UNARY)
+                        .setFullMethodName(MethodDescriptor.generateFullMethodName("test.Service", "call"))
+                        .setRequestMarshaller(MARSHALLER)
+                        .setResponseMarshaller(MARSHALLER)
+                        .build();
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testServiceDefinitionIntercepted() {
+        final List<String> calls = new ArrayList<>();
+        final ServerServiceDefinition definition =
+            ServerServiceDefinition.builder("test.Service")
+                                   .addMethod(METHOD, (call, headers) -> {
+                                       calls.add("handler");
+                                       return new ServerCall.Listener<byte[]>() {
+                                       };
+                                   })
+                                   .build();
+
+        final ReceiverGRPCHandlerRegister register = new ReceiverGRPCHandlerRegister();
+        final StubGRPCHandlerRegister delegate = new StubGRPCHandlerRegister();
+        register.setGrpcHandlerRegister(delegate);
+        register.addFilter(new ServerInterceptor() {
+            @Override
+            public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(final ServerCall<ReqT, RespT> call,
+                                                                         final Metadata headers,
+                                                                         final ServerCallHandler<ReqT, RespT> next) {
+                calls.add("interceptor");
+                return next.startCall(call, headers);
+            }
+        });
+        register.addHandler(definition);
+
+        Assertions.assertEquals(1, delegate.definitions.size());
+        final ServerCall<byte[], byte[]> call = mock(ServerCall.class);
+        when(call.getMethodDescriptor()).thenReturn(METHOD);
+        ((ServerCallHandler<byte[], byte[]>) delegate.definitions.get(0)
+                                                                 .getMethod(METHOD.getFullMethodName())
+                                                                 .getServerCallHandler())
+            .startCall(call, new Metadata());
+        Assertions.assertEquals(List.of("interceptor", "handler"), calls);
+    }
+
+    private static class StubGRPCHandlerRegister implements GRPCHandlerRegister {
+        private final List<ServerServiceDefinition> definitions = new ArrayList<>();
+
+        @Override
+        public void addHandler(final BindableService handler) {
+            definitions.add(handler.bindService());
+        }
+
+        @Override
+        public void addHandler(final ServerServiceDefinition definition) {
+            definitions.add(definition);
+        }
+
+        @Override
+        public void addFilter(final ServerInterceptor interceptor) {
+        }
+    }
+}
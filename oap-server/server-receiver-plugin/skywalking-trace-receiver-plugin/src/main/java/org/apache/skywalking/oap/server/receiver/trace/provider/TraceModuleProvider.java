@@ -68,8 +68,9 @@ public class TraceModuleProvider extends ModuleProvider {
                                                               .getService(HTTPHandlerRegister.class);
 
         TraceSegmentReportServiceHandler traceSegmentReportServiceHandler = new TraceSegmentReportServiceHandler(getManager());
-        grpcHandlerRegister.addHandler(traceSegmentReportServiceHandler);
-        grpcHandlerRegister.addHandler(new TraceSegmentReportServiceHandlerCompat(traceSegmentReportServiceHandler));
+        grpcHandlerRegister.addHandler(traceSegmentReportServiceHandler.serviceDefinition());
+        grpcHandlerRegister.addHandler(
+            new TraceSegmentReportServiceHandlerCompat(traceSegmentReportServiceHandler).serviceDefinition());
         grpcHandlerRegister.addHandler(new SpanAttachedEventReportServiceHandler(getManager()));
 
         httpHandlerRegister.addHandler(new TraceSegmentReportHandler(getManager()),
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.receiver.trace.provider.handler.v8.grpc;
+
+import com.google.common.io.ByteStreams;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.Status;
+import io.grpc.stub.ServerCalls;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.skywalking.apm.network.common.v3.Commands;
+import org.apache.skywalking.apm.network.language.agent.v3.SegmentCollection;
+import org.apache.skywalking.apm.network.language.agent.v3.SegmentObject;
+
+/**
+ * Binds the trace segment report services with request marshallers keeping the bytes of every received
+ * {@link SegmentObject}. The bytes are persisted as the segment data binary directly, so a sampled segment is not
+ * serialized again after being parsed.
+ */
+final class SegmentReportServiceBinder {
+    static final MethodDescriptor.Marshaller<ReceivedSegment> SEGMENT_MARSHALLER = new SegmentMarshaller();
+    static final MethodDescriptor.Marshaller<List<ReceivedSegment>> COLLECTION_MARSHALLER = new CollectionMarshaller();
+
+    private SegmentReportServiceBinder() {
+    }
+
+    static ServerServiceDefinition bind(final String serviceName,
+                                        final MethodDescriptor<SegmentObject, Commands> collectMethod,
+                                        final MethodDescriptor<SegmentCollection, Commands> collectInSyncMethod,
+                                        final TraceSegmentReportServiceHandler handler) {
+        return ServerServiceDefinition
+            .builder(serviceName)
+            .addMethod(
+                collectMethod.toBuilder(SEGMENT_MARSHALLER, collectMethod.getResponseMarshaller()).build(),
+                ServerCalls.asyncClientStreamingCall(handler::collectReceived)
+            )
+            .addMethod(
+                collectInSyncMethod.toBuilder(COLLECTION_MARSHALLER, collectInSyncMethod.getResponseMarshaller())
+                                   .build(),
+                ServerCalls.asyncUnaryCall(handler::collectReceivedInSync)
+            )
+            .build();
+    }
+
+    private static ReceivedSegment parseSegment(final byte[] dataBinary) throws IOException {
+        return new ReceivedSegment(SegmentObject.parseFrom(dataBinary), dataBinary);
+    }
+
+    private static RuntimeException invalidMessage(final IOException e) {
+        return Status.INTERNAL.withDescription("Invalid protobuf byte sequence").withCause(e).asRuntimeException();
+    }
+
+    private static class SegmentMarshaller implements MethodDescriptor.Marshaller<ReceivedSegment> {
+        @Override
+        public InputStream stream(final ReceivedSegment value) {
+            return new ByteArrayInputStream(value.getDataBinary());
+        }
+
+        @Override
+        public ReceivedSegment parse(final InputStream stream) {
+            try {
+                return parseSegment(ByteStreams.toByteArray(stream));
+            } catch (IOException e) {
+                throw invalidMessage(e);
+            }
+        }
+    }
+
+    /**
+     * Walks the fields of {@link SegmentCollection} and slices the bytes of every segment out of the message, rather
+     * than parsing the collection as a whole.
+     */
+    private static class CollectionMarshaller implements MethodDescriptor.Marshaller<List<ReceivedSegment>> {
+        private static final int SEGMENT_TAG =
+            SegmentCollection.SEGMENTS_FIELD_NUMBER << 3 | WireFormat.WIRETYPE_LENGTH_DELIMITED;
+
+        @Override
+        public InputStream stream(final List<ReceivedSegment> value) {
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            try {
+                final CodedOutputStream codedOutput = CodedOutputStream.newInstance(output);
+                for (final ReceivedSegment segment : value) {
+                    codedOutput.writeByteArray(SegmentCollection.SEGMENTS_FIELD_NUMBER, segment.getDataBinary());
+                }
+                codedOutput.flush();
+            } catch (IOException e) {
+                throw invalidMessage(e);
+            }
+            return new ByteArrayInputStream(output.toByteArray());
+        }
+
+        @Override
+        public List<ReceivedSegment> parse(final InputStream stream) {
+            final List<ReceivedSegment> segments = new ArrayList<>();
+            try {
+                final CodedInputStream input = CodedInputStream.newInstance(stream);
+                input.setSizeLimit(Integer.MAX_VALUE);
+                int tag;
+                while ((tag = input.readTag()) != 0) {
+                    if (tag == SEGMENT_TAG) {
+                        segments.add(parseSegment(input.readByteArray()));
+                    } else if (!input.skipField(tag)) {
+                        break;
+                    }
+                }
+            } catch (IOException e) {
+                throw invalidMessage(e);
+            }
+            return segments;
+        }
+    }
+}
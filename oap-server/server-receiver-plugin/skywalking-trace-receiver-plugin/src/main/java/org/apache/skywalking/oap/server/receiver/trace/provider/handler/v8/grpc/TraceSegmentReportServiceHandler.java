@@ -18,8 +18,11 @@
 
 package org.apache.skywalking.oap.server.receiver.trace.provider.handler.v8.grpc;
 
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerServiceDefinition;
 import io.grpc.Status;
 import io.grpc.stub.StreamObserver;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.skywalking.apm.network.common.v3.Commands;
 import org.apache.skywalking.apm.network.language.agent.v3.SegmentCollection;
@@ -59,24 +62,57 @@ public class TraceSegmentReportServiceHandler extends TraceSegmentReportServiceG
         );
     }
 
+    /**
+     * The definition of the service to register in place of {@link #bindService()}, as it parses the requests keeping
+     * the original bytes of the segments.
+     */
+    public ServerServiceDefinition serviceDefinition() {
+        return serviceDefinition(
+            TraceSegmentReportServiceGrpc.SERVICE_NAME,
+            TraceSegmentReportServiceGrpc.getCollectMethod(),
+            TraceSegmentReportServiceGrpc.getCollectInSyncMethod()
+        );
+    }
+
+    /**
+     * Bind the methods of the given service to this handler, receiving the segments along with their original bytes.
+     */
+    ServerServiceDefinition serviceDefinition(final String serviceName,
+                                              final MethodDescriptor<SegmentObject, Commands> collectMethod,
+                                              final MethodDescriptor<SegmentCollection, Commands> collectInSyncMethod) {
+        return SegmentReportServiceBinder.bind(serviceName, collectMethod, collectInSyncMethod, this);
+    }
+
     @Override
     public StreamObserver<SegmentObject> collect(StreamObserver<Commands> responseObserver) {
+        final StreamObserver<ReceivedSegment> observer = collectReceived(responseObserver);
         return new StreamObserver<SegmentObject>() {
             @Override
             public void onNext(SegmentObject segment) {
+                observer.onNext(new ReceivedSegment(segment, null));
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                observer.onError(throwable);
+            }
+
+            @Override
+            public void onCompleted() {
+                observer.onCompleted();
+            }
+        };
+    }
+
+    StreamObserver<ReceivedSegment> collectReceived(StreamObserver<Commands> responseObserver) {
+        return new StreamObserver<ReceivedSegment>() {
+            @Override
+            public void onNext(ReceivedSegment segment) {
                 if (log.isDebugEnabled()) {
                     log.debug("received segment in streaming");
                 }
 
-                HistogramMetrics.Timer timer = histogram.createTimer();
-                try {
-                    segmentParserService.send(segment);
-                } catch (Exception e) {
-                    errorCounter.inc();
-                    log.error(e.getMessage(), e);
-                } finally {
-                    timer.finish();
-                }
+                send(segment.getSegment(), segment.getDataBinary());
             }
 
             @Override
@@ -105,19 +141,32 @@ public class TraceSegmentReportServiceHandler extends TraceSegmentReportServiceG
             log.debug("received {} segments", request.getSegmentsCount());
         }
 
-        request.getSegmentsList().forEach(segment -> {
-            HistogramMetrics.Timer timer = histogram.createTimer();
-            try {
-                segmentParserService.send(segment);
-            } catch (Exception e) {
-                errorCounter.inc();
-                log.error(e.getMessage(), e);
-            } finally {
-                timer.finish();
-            }
-        });
+        request.getSegmentsList().forEach(segment -> send(segment, null));
 
         responseObserver.onNext(Commands.newBuilder().build());
         responseObserver.onCompleted();
     }
+
+    void collectReceivedInSync(final List<ReceivedSegment> segments, final StreamObserver<Commands> responseObserver) {
+        if (log.isDebugEnabled()) {
+            log.debug("received {} segments", segments.size());
+        }
+
+        segments.forEach(segment -> send(segment.getSegment(), segment.getDataBinary()));
+
+        responseObserver.onNext(Commands.newBuilder().build());
+        responseObserver.onCompleted();
+    }
+
+    private void send(final SegmentObject segment, final byte[] dataBinary) {
+        HistogramMetrics.Timer timer = histogram.createTimer();
+        try {
+            segmentParserService.send(segment, dataBinary);
+        } catch (Exception e) {
+            errorCounter.inc();
+            log.error(e.getMessage(), e);
+        } finally {
+            timer.finish();
+        }
+    }
 }
@@ -18,6 +18,7 @@
 
 package org.apache.skywalking.oap.server.receiver.trace.provider.handler.v8.grpc;
 
+import io.grpc.ServerServiceDefinition;
 import io.grpc.stub.StreamObserver;
 import lombok.RequiredArgsConstructor;
 import org.apache.skywalking.apm.network.common.v3.Commands;
@@ -30,6 +31,17 @@ import org.apache.skywalking.oap.server.library.server.grpc.GRPCHandler;
 public class TraceSegmentReportServiceHandlerCompat extends TraceSegmentReportServiceGrpc.TraceSegmentReportServiceImplBase implements GRPCHandler {
     private final TraceSegmentReportServiceHandler delegate;
 
+    /**
+     * @see TraceSegmentReportServiceHandler#serviceDefinition()
+     */
+    public ServerServiceDefinition serviceDefinition() {
+        return delegate.serviceDefinition(
+            TraceSegmentReportServiceGrpc.SERVICE_NAME,
+            TraceSegmentReportServiceGrpc.getCollectMethod(),
+            TraceSegmentReportServiceGrpc.getCollectInSyncMethod()
+        );
+    }
+
     @Override
     public StreamObserver<SegmentObject> collect(final StreamObserver<Commands> responseObserver) {
         return delegate.collect(responseObserver);
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.receiver.trace.provider.handler.v8.grpc;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import org.apache.skywalking.apm.network.language.agent.v3.SegmentCollection;
+import org.apache.skywalking.apm.network.language.agent.v3.SegmentObject;
+import org.apache.skywalking.apm.network.language.agent.v3.SpanObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class SegmentReportServiceBinderTest {
+    @Test
+    public void testParseSegmentKeepsBytes() {
+        final SegmentObject segment = segment("segment-1");
+
+        final ReceivedSegment received = SegmentReportServiceBinder.SEGMENT_MARSHALLER.parse(
+            new ByteArrayInputStream(segment.toByteArray()));
+
+        Assertions.assertEquals(segment, received.getSegment());
+        Assertions.assertArrayEquals(segment.toByteArray(), received.getDataBinary());
+    }
+
+    @Test
+    public void testParseCollectionSlicesSegments() {
+        final SegmentObject segment1 = segment("segment-1");
+        final SegmentObject segment2 = segment("segment-2");
+        final SegmentCollection collection = SegmentCollection.newBuilder()
+                                                              .addSegments(segment1)
+                                                              .addSegments(segment2)
+                                                              .build();
+
+        final List<ReceivedSegment> received = SegmentReportServiceBinder.COLLECTION_MARSHALLER.parse(
+            new ByteArrayInputStream(collection.toByteArray()));
+
+        Assertions.assertEquals(2, received.size());
+        Assertions.assertEquals(segment1, received.get(0).getSegment());
+        Assertions.assertArrayEquals(segment1.toByteArray(), received.get(0).getDataBinary());
+        Assertions.assertEquals(segment2, received.get(1).getSegment());
+        Assertions.assertArrayEquals(segment2.toByteArray(), received.get(1).getDataBinary());
+
+        final List<ReceivedSegment> streamed = SegmentReportServiceBinder.COLLECTION_MARSHALLER.parse(
+            SegmentReportServiceBinder.COLLECTION_MARSHALLER.stream(received));
+        Assertions.assertEquals(2, streamed.size());
+        Assertions.assertEquals(segment2, streamed.get(1).getSegment());
+    }
+
+    @Test
+    public void testParseEmptyCollection() {
+        final List<ReceivedSegment> received = SegmentReportServiceBinder.COLLECTION_MARSHALLER.parse(
+            new ByteArrayInputStream(new byte[0]));
+
+        Assertions.assertTrue(received.isEmpty());
+    }
+
+    private static SegmentObject segment(final String segmentId) {
+        return SegmentObject.newBuilder()
+                            .setTraceId("trace-1")
+                            .setTraceSegmentId(segmentId)
+                            .setService("service")
+                            .setServiceInstance("instance")
+                            .addSpans(SpanObject.newBuilder()
+                                                .setSpanId(0)
+                                                .setParentSpanId(-1)
+                                                .setOperationName("/endpoint")
+                                                .setStartTime(1000)
+                                                .setEndTime(2000))
+                            .build();
+    }
+}
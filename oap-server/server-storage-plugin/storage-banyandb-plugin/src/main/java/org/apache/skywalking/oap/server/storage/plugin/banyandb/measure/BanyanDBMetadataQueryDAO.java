@@ -76,6 +76,9 @@ public class BanyanDBMetadataQueryDAO extends AbstractBanyanDBDAO implements IMe
     private static final Set<String> ENDPOINT_TRAFFIC_TAGS = ImmutableSet.of(EndpointTraffic.NAME,
             EndpointTraffic.SERVICE_ID);
 
+    private static final Set<String> ENDPOINT_TRAFFIC_INDEX_TAGS = ImmutableSet.of(EndpointTraffic.NAME,
+            EndpointTraffic.SERVICE_ID, EndpointTraffic.LAST_PING_TIME_BUCKET);
+
     private static final Set<String> PROCESS_TRAFFIC_TAGS = ImmutableSet.of(ProcessTraffic.NAME,
             ProcessTraffic.SERVICE_ID, ProcessTraffic.INSTANCE_ID, ProcessTraffic.AGENT_ID, ProcessTraffic.DETECT_TYPE,
             ProcessTraffic.PROPERTIES, ProcessTraffic.LABELS_JSON, ProcessTraffic.LAST_PING_TIME_BUCKET,
@@ -217,6 +220,28 @@ public class BanyanDBMetadataQueryDAO extends AbstractBanyanDBDAO implements IMe
         return endpoints;
     }
 
+    @Override
+    public List<EndpointTraffic> listEndpointTraffics(String serviceId, int limit) throws IOException {
+        MetadataRegistry.Schema schema = MetadataRegistry.INSTANCE.findMetadata(EndpointTraffic.INDEX_NAME, DownSampling.Minute);
+        MeasureQueryResponse resp = query(schema,
+                ENDPOINT_TRAFFIC_INDEX_TAGS,
+                Collections.emptySet(),
+                new QueryBuilder<MeasureQuery>() {
+                    @Override
+                    protected void apply(MeasureQuery query) {
+                        query.and(eq(EndpointTraffic.SERVICE_ID, serviceId));
+                        query.limit(limit);
+                    }
+                });
+
+        final List<EndpointTraffic> traffics = new ArrayList<>();
+        for (final DataPoint dataPoint : resp.getDataPoints()) {
+            traffics.add(new EndpointTraffic.Builder().storage2Entity(
+                new BanyanDBConverter.StorageToMeasure(schema, dataPoint)));
+        }
+        return traffics;
+    }
+
     @Override
     public List<Process> listProcesses(String serviceId, ProfilingSupportStatus supportStatus, long lastPingStartTimeBucket, long lastPingEndTimeBucket) throws IOException {
         MetadataRegistry.Schema schema = MetadataRegistry.INSTANCE.findMetadata(ProcessTraffic.INDEX_NAME, DownSampling.Minute);
@@ -71,6 +71,7 @@ import org.apache.skywalking.oap.server.library.module.ServiceNotProvidedExcepti
 import org.apache.skywalking.oap.server.library.util.MultipleFilesChangeMonitor;
 import org.apache.skywalking.oap.server.library.util.StringUtil;
 import org.apache.skywalking.oap.server.storage.plugin.elasticsearch.base.BatchProcessEsDAO;
+import org.apache.skywalking.oap.server.storage.plugin.elasticsearch.base.ElasticSearchBulkMetrics;
 import org.apache.skywalking.oap.server.storage.plugin.elasticsearch.base.HistoryDeleteEsDAO;
 import org.apache.skywalking.oap.server.storage.plugin.elasticsearch.base.IndexController;
 import org.apache.skywalking.oap.server.storage.plugin.elasticsearch.base.StorageEsDAO;
@@ -292,6 +293,7 @@ public class StorageModuleElasticsearchProvider extends ModuleProvider {
         HealthCheckMetrics healthChecker = metricCreator.createHealthCheckerGauge(
             "storage_elasticsearch", MetricsTag.EMPTY_KEY, MetricsTag.EMPTY_VALUE);
         elasticSearchClient.registerChecker(healthChecker);
+        elasticSearchClient.setBulkMetrics(new ElasticSearchBulkMetrics(metricCreator));
         try {
             elasticSearchClient.connect();
 
@@ -20,6 +20,7 @@ package org.apache.skywalking.oap.server.storage.plugin.elasticsearch.base;
 
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.skywalking.library.elasticsearch.bulk.BulkProcessor;
 import org.apache.skywalking.oap.server.core.storage.IBatchDAO;
@@ -102,8 +103,14 @@ public class BatchProcessEsDAO extends EsDAO implements IBatchDAO {
     @Override
     public void endOfFlush() {
         // Flush forcibly due to this kind of metrics has been pushed into the bulk processor.
+        // Wait for the bulks to finish, so the persistence rounds don't overlap when ElasticSearch slows down.
         if (bulkProcessor != null) {
-            bulkProcessor.flush();
+            try {
+                bulkProcessor.flush().join();
+            } catch (CompletionException e) {
+                // The failed requests have been logged by the bulk processor.
+                log.warn("Not all requests are flushed into ElasticSearch, {}", e.getCause().getMessage());
+            }
         }
     }
 }
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.storage.plugin.elasticsearch.base;
+
+import org.apache.skywalking.library.elasticsearch.bulk.BulkMetrics;
+import org.apache.skywalking.oap.server.telemetry.api.CounterMetrics;
+import org.apache.skywalking.oap.server.telemetry.api.GaugeMetrics;
+import org.apache.skywalking.oap.server.telemetry.api.HistogramMetrics;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsCreator;
+import org.apache.skywalking.oap.server.telemetry.api.MetricsTag;
+
+/**
+ * ElasticSearchBulkMetrics exposes the stages of the bulk processor through the telemetry module.
+ *
+ * @since 10.2.0
+ */
+public class ElasticSearchBulkMetrics implements BulkMetrics {
+    private final HistogramMetrics encodeLatency;
+    private final HistogramMetrics requestLatency;
+    private final HistogramMetrics bulkSize;
+    private final CounterMetrics retryCounter;
+    private final GaugeMetrics concurrencyLimit;
+
+    public ElasticSearchBulkMetrics(MetricsCreator metricsCreator) {
+        encodeLatency = metricsCreator.createHistogramMetric(
+            "elasticsearch_bulk_encode_latency", "The latency of encoding a bulk of ElasticSearch",
+            MetricsTag.EMPTY_KEY, MetricsTag.EMPTY_VALUE
+        );
+        requestLatency = metricsCreator.createHistogramMetric(
+            "elasticsearch_bulk_request_latency", "The latency of executing a bulk in ElasticSearch",
+            MetricsTag.EMPTY_KEY, MetricsTag.EMPTY_VALUE,
+            .01, .05, .1, .25, .5, 1, 2.5, 5, 10, 30
+        );
+        bulkSize = metricsCreator.createHistogramMetric(
+            "elasticsearch_bulk_size", "The number of requests in a bulk of ElasticSearch",
+            MetricsTag.EMPTY_KEY, MetricsTag.EMPTY_VALUE,
+            10, 50, 100, 500, 1000, 2000, 5000, 10000
+        );
+        retryCounter = metricsCreator.createCounter(
+            "elasticsearch_bulk_retry_count", "The number of requests rejected by ElasticSearch and retried",
+            MetricsTag.EMPTY_KEY, MetricsTag.EMPTY_VALUE
+        );
+        concurrencyLimit = metricsCreator.createGauge(
+            "elasticsearch_bulk_concurrency_limit", "The adaptive limit of the concurrent in-flight bulks",
+            MetricsTag.EMPTY_KEY, MetricsTag.EMPTY_VALUE
+        );
+    }
+
+    @Override
+    public void observeEncodeLatency(final double seconds) {
+        encodeLatency.observe(seconds);
+    }
+
+    @Override
+    public void observeRequestLatency(final double seconds) {
+        requestLatency.observe(seconds);
+    }
+
+    @Override
+    public void observeBulkSize(final int size) {
+        bulkSize.observe(size);
+    }
+
+    @Override
+    public void onRetry(final int size) {
+        retryCounter.inc(size);
+    }
+
+    @Override
+    public void onConcurrencyLimitChanged(final int limit) {
+        concurrencyLimit.setValue(limit);
+    }
+}
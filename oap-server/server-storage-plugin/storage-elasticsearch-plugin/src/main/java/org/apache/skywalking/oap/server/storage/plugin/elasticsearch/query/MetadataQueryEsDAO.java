@@ -267,6 +267,34 @@ public class MetadataQueryEsDAO extends EsDAO implements IMetadataQueryDAO {
         return scroller.scroll();
     }
 
+    @Override
+    public List<EndpointTraffic> listEndpointTraffics(String serviceId, int limit) {
+        final String index = IndexController.LogicIndicesRegister.getPhysicalTableName(
+            EndpointTraffic.INDEX_NAME);
+
+        final BoolQueryBuilder query =
+            Query.bool()
+                 .must(Query.term(EndpointTraffic.SERVICE_ID, serviceId));
+        if (IndexController.LogicIndicesRegister.isMergedTable(EndpointTraffic.INDEX_NAME)) {
+            query.must(Query.term(IndexController.LogicIndicesRegister.METRIC_TABLE_NAME, EndpointTraffic.INDEX_NAME));
+        }
+
+        final int batchSize = Math.min(limit, scrollingBatchSize);
+        final var search = Search.builder().query(query).size(batchSize);
+
+        final var scroller = ElasticSearchScroller
+            .<EndpointTraffic>builder()
+            .client(getClient())
+            .search(search.build())
+            .index(index)
+            .queryMaxSize(limit)
+            .resultConverter(searchHit -> new EndpointTraffic.Builder().storage2Entity(
+                new ElasticSearchConverter.ToEntity(EndpointTraffic.INDEX_NAME, searchHit.getSource())))
+            .build();
+
+        return scroller.scroll();
+    }
+
     @Override
     public List<Process> listProcesses(String serviceId, ProfilingSupportStatus supportStatus, long lastPingStartTimeBucket, long lastPingEndTimeBucket) {
         final String index =
@@ -253,6 +253,34 @@ public class JDBCMetadataQueryDAO implements IMetadataQueryDAO {
         return results.stream().limit(limit).collect(toList());
     }
 
+    @Override
+    @SneakyThrows
+    public List<EndpointTraffic> listEndpointTraffics(String serviceId, int limit) {
+        final var results = new ArrayList<EndpointTraffic>();
+        final var tables = tableHelper.getTablesWithinTTL(EndpointTraffic.INDEX_NAME);
+
+        for (String table : tables) {
+            if (results.size() >= limit) {
+                break;
+            }
+            final var sql = "select * from " + table + " where " + JDBCTableInstaller.TABLE_COLUMN + " = ?"
+                + " and " + EndpointTraffic.SERVICE_ID + "=?"
+                + " limit " + (limit - results.size());
+
+            results.addAll(
+                jdbcClient.executeQuery(
+                    sql, resultSet -> {
+                        List<EndpointTraffic> traffics = new ArrayList<>();
+                        while (resultSet.next()) {
+                            traffics.add(new EndpointTraffic.Builder().storage2Entity(
+                                JDBCEntityConverters.toEntity(resultSet)));
+                        }
+                        return traffics;
+                    }, EndpointTraffic.INDEX_NAME, serviceId));
+        }
+        return results;
+    }
+
     @Override
     @SneakyThrows
     public List<Process> listProcesses(String serviceId, ProfilingSupportStatus supportStatus, long lastPingStartTimeBucket, long lastPingEndTimeBucket) {